@@ -0,0 +1,48 @@
+package nz.co.revilo;
+
+import nz.co.revilo.Input.ParsedGraph;
+import nz.co.revilo.Input.SparseGraph;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.Arrays;
+
+/**
+ * Finds the graphs benchmarks are run on in the test_inputs corpus, by family (e.g. "Fork_Join") and node count. The
+ * directory is test_inputs under the directory benchmarks are run from unless INPUTS_PROPERTY gives another.
+ */
+public final class BenchmarkInputs {
+
+    public static final String INPUTS_PROPERTY = "revilo.benchmark.inputs";
+    public static final String DEFAULT_INPUTS = "test_inputs";
+
+    private BenchmarkInputs() {
+    }
+
+    /**
+     * @param family the start of the graphs' filenames, before _Nodes_
+     * @param nodes  number of nodes
+     * @return the first graph of the family with that many nodes, by filename
+     */
+    public static File find(String family, String nodes) {
+        File directory = new File(System.getProperty(INPUTS_PROPERTY, DEFAULT_INPUTS));
+        String prefix = family + "_Nodes_" + nodes + "_";
+        File[] graphs = directory.listFiles((dir, name) -> name.startsWith(prefix) && name.endsWith(".gxl"));
+        if (graphs == null || graphs.length == 0) {
+            throw new RuntimeException("No " + family + " graph with " + nodes + " nodes in " + directory);
+        }
+        Arrays.sort(graphs);
+        return graphs[0];
+    }
+
+    /**
+     * @return the graph found by find, parsed
+     */
+    public static SparseGraph parse(String family, String nodes) {
+        try {
+            return ParsedGraph.parse(find(family, nodes).getPath()).getGraph();
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException("Benchmark input could not be read: " + e.getMessage());
+        }
+    }
+}
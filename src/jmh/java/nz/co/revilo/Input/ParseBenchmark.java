@@ -0,0 +1,71 @@
+package nz.co.revilo.Input;
+
+import nz.co.revilo.BenchmarkInputs;
+import nz.co.revilo.Output.DotFileWriter;
+import nz.co.revilo.Output.ScheduleResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of parsing a graph of each test_inputs family from memory, so only the parsers are measured. The DOT
+ * text is the graph as the scheduler writes it, the GXL text is the test_inputs file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ParseBenchmark {
+
+    @Param({"Fork_Join", "InTree-Balanced-MaxBf-3", "OutTree-Unbalanced-MaxBf-3", "Pipeline", "Random",
+            "SeriesParallel-MaxBf-3", "Stencil", "Independent"})
+    public String family;
+
+    @Param({"10", "21", "30"})
+    public String nodes;
+
+    private byte[] _gxl;
+    private byte[] _dot;
+
+    @Setup
+    public void setUp() throws IOException {
+        _gxl = Files.readAllBytes(BenchmarkInputs.find(family, nodes).toPath());
+        SparseGraph graph = BenchmarkInputs.parse(family, nodes);
+        ByteArrayOutputStream dot = new ByteArrayOutputStream();
+        new DotFileWriter(dot).finalSchedule(new ScheduleResult(graph, new int[graph.getNodeCount()],
+                new int[graph.getNodeCount()]));
+        _dot = dot.toByteArray();
+    }
+
+    @Benchmark
+    public SparseGraph parseDot() throws FileNotFoundException {
+        ParsedGraph graph = new ParsedGraph();
+        new DotFileReader(family, ByteBuffer.wrap(_dot)).startParsing(graph);
+        return graph.getGraph();
+    }
+
+    @Benchmark
+    public SparseGraph parseGxl() throws FileNotFoundException {
+        ParsedGraph graph = new ParsedGraph();
+        new GxlFileReader(family, new ByteArrayInputStream(_gxl)).startParsing(graph);
+        return graph.getGraph();
+    }
+}
@@ -0,0 +1,88 @@
+package nz.co.revilo.Output;
+
+import nz.co.revilo.BenchmarkInputs;
+import nz.co.revilo.Input.SparseGraph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of writing the schedule of a graph of each test_inputs family as DOT, to a stream handing the bytes to a
+ * blackhole so only the writer is measured
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class WriteBenchmark {
+
+    @Param({"Fork_Join", "InTree-Balanced-MaxBf-3", "OutTree-Unbalanced-MaxBf-3", "Pipeline", "Random",
+            "SeriesParallel-MaxBf-3", "Stencil", "Independent"})
+    public String family;
+
+    @Param({"10", "21", "30"})
+    public String nodes;
+
+    @Param({"2", "4", "8"})
+    public int processors;
+
+    private ScheduleResult _schedule;
+    private BlackholeStream _stream;
+    private DotFileWriter _writer;
+
+    /**
+     * Places every node at time 0 in turn on each processor, which is as long to write as a real schedule
+     */
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        SparseGraph graph = BenchmarkInputs.parse(family, nodes);
+        int[] processorOf = new int[graph.getNodeCount()];
+        for (int node = 0; node < processorOf.length; node++) {
+            processorOf[node] = node % processors;
+        }
+        _schedule = new ScheduleResult(graph, new int[graph.getNodeCount()], processorOf);
+        _stream = new BlackholeStream(blackhole);
+        _writer = new DotFileWriter(_stream);
+    }
+
+    @Benchmark
+    public void writeDot() {
+        _writer.finalSchedule(_schedule);
+    }
+
+    /**
+     * Hands the bytes written to the blackhole instead of keeping them
+     */
+    private static class BlackholeStream extends OutputStream {
+        private final Blackhole _blackhole;
+
+        BlackholeStream(Blackhole blackhole) {
+            _blackhole = blackhole;
+        }
+
+        @Override
+        public void write(int b) {
+            _blackhole.consume(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            _blackhole.consume(b);
+            _blackhole.consume(len);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package nz.co.revilo.Scheduling;
+
+import nz.co.revilo.BenchmarkInputs;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the work done for every state of the branch and bound search, and of the greedy upper bound found
+ * before it, on a graph of each test_inputs family. The manager is set up as for a search, which isn't run.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class SchedulingBenchmark {
+
+	@Param({"Fork_Join", "InTree-Balanced-MaxBf-3", "OutTree-Unbalanced-MaxBf-3", "Pipeline", "Random",
+			"SeriesParallel-MaxBf-3", "Stencil", "Independent"})
+	public String family;
+
+	@Param({"10", "21", "30"})
+	public String nodes;
+
+	@Param({"2", "4", "8"})
+	public int processors;
+
+	private BranchAndBoundAlgorithmManager manager;
+	private BnBSchedule root;
+	private int child;
+	private BnBSchedule complete;
+
+	/**
+	 * Sets up the manager and schedules to build on: a root, a node which can go on after it and a complete schedule
+	 * placing nodes in turn on each processor
+	 */
+	@Setup
+	public void setUp() {
+		manager = new BranchAndBoundAlgorithmManager(processors) {
+			@Override
+			protected void startBnb() {
+			}
+
+			@Override
+			protected void returnResults() {
+			}
+		};
+		manager.parsedGraph(BenchmarkInputs.parse(family, nodes));
+
+		root = manager.rootSchedules.get(0);
+		child = root.independentNodes.iterator().next();
+
+		complete = root;
+		for (int placed = 1; placed < manager.numNodes; placed++) {
+			complete = new BnBSchedule(manager, complete, complete.independentNodes.iterator().next(),
+					placed % processors);
+		}
+	}
+
+	@Benchmark
+	public BnBSchedule childSchedule() {
+		return new BnBSchedule(manager, root, child, processors - 1);
+	}
+
+	@Benchmark
+	public String scheduleStructureId() {
+		return complete.generateScheduleStructureId();
+	}
+
+	/**
+	 * Looks up every node's neighbours as the search does when a node is placed
+	 */
+	@Benchmark
+	public int neighbourLookups() {
+		int neighbours = 0;
+		for (int nodeId = 0; nodeId < manager.numNodes; nodeId++) {
+			if (manager.neighbours.hasInneighbours(nodeId)) {
+				for (int parent : manager.neighbours.getInneighbours(nodeId)) {
+					neighbours += parent;
+				}
+			}
+			if (manager.neighbours.hasOutneighbours(nodeId)) {
+				for (int successor : manager.neighbours.getOutneighbours(nodeId)) {
+					neighbours += successor;
+				}
+			}
+		}
+		return neighbours;
+	}
+
+	@Benchmark
+	public int greedyUpperBound() {
+		return manager.greedyUpperBound();
+	}
+}
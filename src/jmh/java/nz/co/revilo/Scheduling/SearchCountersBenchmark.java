@@ -0,0 +1,42 @@
+package nz.co.revilo.Scheduling;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks counting a state on every thread at once, with the SearchCounters every search counts with against the
+ * single AtomicLong they replaced
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@Threads(Threads.MAX)
+public class SearchCountersBenchmark {
+
+	private final SearchCounters counters = new SearchCounters();
+	private final AtomicLong shared = new AtomicLong();
+
+	@Benchmark
+	public void searchCounters() {
+		counters.increment(SearchCounters.EXPLORED);
+	}
+
+	@Benchmark
+	public long sharedAtomicLong() {
+		return shared.incrementAndGet();
+	}
+}
@@ -2,23 +2,52 @@ package nz.co.revilo;
 
 import com.beust.jcommander.JCommander;
 import javafx.application.Application;
+import nz.co.revilo.Batch.BatchInput;
+import nz.co.revilo.Batch.BatchRunner;
+import nz.co.revilo.Batch.StreamRunner;
+import nz.co.revilo.Benchmark.BenchmarkResult;
+import nz.co.revilo.Benchmark.ExpectedOptima;
+import nz.co.revilo.Benchmark.SolverBenchmark;
+import nz.co.revilo.Cache.ResultCache;
 import nz.co.revilo.CommandLine.CLIParameters;
+import nz.co.revilo.Daemon.DaemonClient;
+import nz.co.revilo.Daemon.SolverDaemon;
+import nz.co.revilo.Generator.GraphFileWriter;
+import nz.co.revilo.Generator.GraphGenerator;
+import nz.co.revilo.Distributed.SearchCoordinator;
+import nz.co.revilo.Distributed.SearchWorker;
 import nz.co.revilo.Gui.MainLauncher;
-import nz.co.revilo.Input.DotFileReader;
+import nz.co.revilo.Input.BinaryGraphFormat;
+import nz.co.revilo.Input.DotGraphStream;
 import nz.co.revilo.Input.FileParser;
-import nz.co.revilo.Input.GxlFileReader;
+import nz.co.revilo.Input.SparseGraph;
 import nz.co.revilo.Output.DotFileProducer;
-import nz.co.revilo.Output.DotFileWriter;
+import nz.co.revilo.Output.ProgressiveOutput;
 import nz.co.revilo.Scheduling.AlgorithmManager;
 import nz.co.revilo.Scheduling.BranchAndBoundAlgorithmManager;
+import nz.co.revilo.Scheduling.CheckpointingBranchAndBoundAlgorithmManager;
 import nz.co.revilo.Scheduling.ParallelBranchAndBoundAlgorithmManager;
+import nz.co.revilo.Scheduling.SearchCounters;
+import nz.co.revilo.Scheduling.WarmStart;
 import pt.runtime.ParaTask;
 
+import java.io.BufferedWriter;
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
- * App is the main class using the singleton pattern and is used to take the command line arguments and co-ordinate
+ * App is the main class, one instance per run, and is used to take the command line arguments and co-ordinate
  * everything. It's not a final class name nor implementation, it purely exists to be a starting point in the program.
  * We should investigate a argument input library and output library.
  *
@@ -28,15 +57,21 @@ import java.util.Arrays;
 public class App {
     // Constants
     public static final String DEFAULT_FILE_EXTENSION = ".dot";
-    public static final String DEFAULT_OUTPUT_FILENAME = "-output.dot";
+    public static final String DEFAULT_OUTPUT_SUFFIX = "-output";
+    public static final String DEFAULT_OUTPUT_FILENAME = DEFAULT_OUTPUT_SUFFIX + DEFAULT_FILE_EXTENSION;
     public static final double MILLISECONDS_PER_SECOND = 1000.0;
     public static final int MINIMUM_EXPECTED_ARGUMENTS = 2;
     public static final int FILENAME_ARGUMENT_PLACEMENT = 0;
     public static final int LENGTH_OF_DOT_FILE_EXTENSION = 4;
     public static final int MIN_NUM_OF_PROBLEM_PROCESSORS = 1;
+    public static final String CONVERT_COMMAND = "convert";
+    public static final String BENCHMARK_COMMAND = "benchmark";
+    public static final int BENCHMARK_EXPECTED_ARGUMENTS = 3;
+    public static final String GENERATE_COMMAND = "generate";
+    public static final int GENERATE_EXPECTED_ARGUMENTS = 3;
 
-    // Instance of the singleton pattern
-    private static App _inst = null;
+    // Instance currently being visualised, which is always the most recently started run
+    private static volatile App _inst = null;
 
     // Command line interface arguments
     private String _inputFilename;
@@ -44,27 +79,50 @@ public class App {
     private int _numParallelProcessors; //for parallelisation
     private boolean _visualise;
     private String _outputFilename;
-
-    private static long _startingTime;
-    private static long _endingTime;
-    private static boolean _isDone;
-
-    // Fields
-    private static AlgorithmManager _manager;
-    private static FileParser _reader;
-    private static DotFileProducer _output;
+    private boolean _batch;
+    private boolean _daemon;
+    private boolean _client;
+    private int _port;
+    private int _priority;
+    private long _deadline;
+    private ResultCache _resultCache;
+    private WarmStart _warmStart;
+    private String _checkpointFilename;
+    private long _checkpointIntervalMillis;
+    private boolean _resume;
+    private boolean _coordinate;
+    private boolean _worker;
+    private boolean _convert;
+    private boolean _stream;
+    private boolean _progressive;
+    private String _profileFilename;
+    private String _format;
+    private SolverBenchmark _benchmark;
+    private String _recordExpectedFilename;
+    private List<GraphGenerator> _generators;
+
+    // Standard output as it was, kept for the output when it's written there with everything else on standard error
+    private PrintStream _standardOutput;
+
+    // Timing of this run
+    private long _startingTime;
+    private long _endingTime;
+    private boolean _isDone;
+
+    // Fields, kept per instance so that several runs can be solved in the same JVM
+    private AlgorithmManager _manager;
+    private FileParser _reader;
+    private DotFileProducer _output;
 
 
     /**
-     * The one and only constructor which allows for the singleton pattern by never overriding the current instance
+     * The one and only constructor. Every run gets its own instance holding all of its state, the newest instance is
+     * the one the visualisation reports on.
      *
      * @author Michael Kemp
      */
     private App() {
-        // If there's no current instance then it's instantiated
-        if (_inst == null) {
-            _inst = this;
-        }
+        _inst = this;
     }
 
     /**
@@ -73,7 +131,7 @@ public class App {
      * @return current algorithm manager
      */
     public static AlgorithmManager getAlgorithmManager() {
-        return _manager;
+        return _inst._manager;
     }
 
     /**
@@ -109,14 +167,7 @@ public class App {
      * @return Time spent on solving
      */
     public static double getRunningTime() {
-        double elapsed;
-        if (_isDone) {
-            elapsed = ((_endingTime - _startingTime) / MILLISECONDS_PER_SECOND); // incl. tenths of second
-        } else {
-            long now = System.currentTimeMillis();
-            elapsed = ((now - _startingTime) / MILLISECONDS_PER_SECOND); // incl. tenths of second
-        }
-        return elapsed;
+        return _inst.runningTime();
     }
 
     /**
@@ -143,40 +194,117 @@ public class App {
      * @param args CLI args
      */
     public static void main(String[] args) {
-        // Creates the singleton instance
-        new App();
+        // Creates the instance for this run
+        App app = new App();
 
         // Process arguments given by the user
-        processArguments(args);
+        app.processArguments(args);
+
+        // Keeps standard output for the output alone when it's written there
+        if (FileParser.STANDARD_STREAM.equals(app._outputFilename) && !app._batch) {
+            app._standardOutput = System.out;
+            System.setOut(System.err);
+        }
+
+        // Keep running and solve graphs sent by clients instead
+        if (app._daemon) {
+            app.runDaemon();
+            return;
+        }
+
+        // Measure the solver on a set of graphs instead
+        if (app._benchmark != null) {
+            app.runBenchmark();
+            return;
+        }
+
+        // Write generated graphs instead
+        if (app._generators != null) {
+            app.generate();
+            return;
+        }
+
+        // Write the input in the binary graph format instead
+        if (app._convert) {
+            app.convert();
+            return;
+        }
+
+        // Search subtrees handed out by a coordinator instead
+        if (app._worker) {
+            app.runWorker();
+            return;
+        }
+
+        // Have a running daemon solve the graph instead
+        if (app._client) {
+            app.submitToDaemon();
+            return;
+        }
+
+        // Solve every graph of a batch on a shared pool instead
+        if (app._batch) {
+            BatchRunner runner = new BatchRunner(BatchInput.resolve(app._inputFilename, app._numExecutionCores),
+                    app._numParallelProcessors, app._outputFilename);
+            runner.setResultCache(app._resultCache);
+            runner.run();
+            return;
+        }
+
+        // Solve every digraph of the input as it's read instead
+        if (app._stream) {
+            app.runStream();
+            return;
+        }
         
         // Start an AlgorithmManager
-        if(_inst._numParallelProcessors > 2) { // Don't want PT on two threads, since all it's doing is making a redundant thread
+        if (app._coordinate) {
+            try {
+                app._manager = new SearchCoordinator(app._numExecutionCores, app._port);
+            } catch (IOException e) {
+                throw new RuntimeException("Coordinator could not listen on port " + app._port + ": " + e.getMessage());
+            }
+        } else if (app._checkpointFilename != null) {
+            app._manager = new CheckpointingBranchAndBoundAlgorithmManager(app._numExecutionCores,
+                    app._checkpointFilename, app._checkpointIntervalMillis, app._resume);
+        } else if(app._numParallelProcessors > 2) { // Don't want PT on two threads, since all it's doing is making a redundant thread
             // Subtract one from the input number of processors to account for the master in the
             // parallelisation methods used in ParallelBranchAndBoundAlgorithmManager, where
             // there will always be one thread allocating to other threads
-            ParaTask.setThreadPoolSize(ParaTask.ThreadPoolType.ALL, _inst._numParallelProcessors - 1);
+            ParaTask.setThreadPoolSize(ParaTask.ThreadPoolType.ALL, app._numParallelProcessors - 1);
             ParaTask.init();
-        	_manager = new ParallelBranchAndBoundAlgorithmManager(_inst._numExecutionCores,  _inst._numParallelProcessors - 1);
+            app._manager = new ParallelBranchAndBoundAlgorithmManager(app._numExecutionCores,  app._numParallelProcessors - 1);
         } else {
-        	_manager = new BranchAndBoundAlgorithmManager(_inst._numExecutionCores);
+            app._manager = new BranchAndBoundAlgorithmManager(app._numExecutionCores);
         }
 
         // Parse file and give it algorithm manager to give results to depending on the file extension
-        if (_inst._inputFilename.toUpperCase().matches(".*\\.GXL")) {
-            _reader = new GxlFileReader(_inst._inputFilename);
-        } else {
-            _reader = new DotFileReader(_inst._inputFilename);
-        }
+        app._reader = FileParser.forFile(app._inputFilename);
 
         // Output to file by letting the manager know of the output generator
-        _output = new DotFileWriter(_inst._outputFilename);
-        _manager.inform(_output);
+        app._output = app._standardOutput == null ? DotFileProducer.forFile(app._format, app._outputFilename)
+                : DotFileProducer.forStream(app._format, app._standardOutput);
+        if (app._progressive) {
+            new ProgressiveOutput(app._manager, app._output);
+        } else {
+            app._manager.inform(app._output);
+        }
+        app._manager.setResultCache(app._resultCache);
+        app._manager.setWarmStart(app._warmStart);
 
         //Launch GUI if visualization is desired, otherwise just start parsing.
-        if (_inst._visualise) {
+        if (app._visualise) {
             Application.launch(MainLauncher.class);
+        } else if (app._progressive) {
+            // Exits as the producer does when the final schedule can't be saved
+            try {
+                app.solve();
+            } catch (UncheckedIOException e) {
+                System.err.println(e.getMessage());
+                System.exit(DotFileProducer.FILE_CANT_BE_SAVED_EXIT_STATUS);
+            }
         } else {
-            startParsing();
+            app.solve();
         }
     }
 
@@ -187,10 +315,121 @@ public class App {
      * @param args from CLI
      * @author Terran Kroft, Michael Kemp
      */
-    private static void processArguments(String[] args) {
+    private void processArguments(String[] args) {
         // Instantiates a new parameters container
         CLIParameters params = new CLIParameters();
 
+        // Converts a graph file, revilo convert [input file] [-o output file]
+        if (args.length > 0 && args[0].equals(CONVERT_COMMAND)) {
+            if (args.length < MINIMUM_EXPECTED_ARGUMENTS) {
+                throw new RuntimeException("Insufficient arguments given. Needs convert [input file]");
+            }
+            String[] optionalArgs = Arrays.copyOfRange(args, MINIMUM_EXPECTED_ARGUMENTS, args.length);
+            JCommander.newBuilder().addObject(params).build().parse(optionalArgs);
+            _convert = true;
+            _inputFilename = args[1];
+            if (params.getOutputName() != null) {
+                _outputFilename = params.getOutputName();
+            } else if (_inputFilename.equals(FileParser.STANDARD_STREAM)) {
+                _outputFilename = FileParser.STANDARD_STREAM;
+            } else {
+                _outputFilename = withoutExtension(_inputFilename) + BinaryGraphFormat.FILE_EXTENSION;
+            }
+            if (!_outputFilename.equals(FileParser.STANDARD_STREAM)
+                    && new File(_outputFilename).getAbsoluteFile().equals(new File(_inputFilename).getAbsoluteFile())) {
+                throw new RuntimeException("Converting would overwrite the input file, give another with --output");
+            }
+            return;
+        }
+
+        // Benchmarks the solver, revilo benchmark [graphs] [processor counts] [options]
+        if (args.length > 0 && args[0].equals(BENCHMARK_COMMAND)) {
+            if (args.length < BENCHMARK_EXPECTED_ARGUMENTS) {
+                throw new RuntimeException("Insufficient arguments given. Needs benchmark [graphs] [processor counts]");
+            }
+            String[] optionalArgs = Arrays.copyOfRange(args, BENCHMARK_EXPECTED_ARGUMENTS, args.length);
+            JCommander.newBuilder().addObject(params).build().parse(optionalArgs);
+            String threads = params.getThreads();
+            if (threads == null) {
+                threads = params.getScalability()
+                        ? SolverBenchmark.scalingThreads(Runtime.getRuntime().availableProcessors())
+                        : SolverBenchmark.DEFAULT_THREADS;
+            }
+            _benchmark = new SolverBenchmark(args[1], args[2], params.getEngines(), threads);
+            _benchmark.setScalability(params.getScalability());
+            if (params.getExpectedFilename() != null) {
+                _benchmark.setExpected(params.getExpectedFilename());
+            }
+            if (params.getBaselineFilename() != null) {
+                _benchmark.setBaseline(params.getBaselineFilename());
+            }
+            if (params.getThresholdPercent() < 0 || params.getTimeoutSeconds() < 1) {
+                throw new RuntimeException("Threshold can't be negative and timeout must be at least one second");
+            }
+            _benchmark.setThresholdPercent(params.getThresholdPercent());
+            _benchmark.setTimeoutSeconds(params.getTimeoutSeconds());
+            _recordExpectedFilename = params.getRecordExpectedFilename();
+            _outputFilename = params.getOutputName() == null ? SolverBenchmark.DEFAULT_OUTPUT_DIRECTORY
+                    : params.getOutputName();
+            return;
+        }
+
+        // Generates graphs, revilo generate [families] [node counts] [options]
+        if (args.length > 0 && args[0].equals(GENERATE_COMMAND)) {
+            if (args.length < GENERATE_EXPECTED_ARGUMENTS) {
+                throw new RuntimeException("Insufficient arguments given. Needs generate [families] [node counts]");
+            }
+            String[] optionalArgs = Arrays.copyOfRange(args, GENERATE_EXPECTED_ARGUMENTS, args.length);
+            JCommander.newBuilder().addObject(params).build().parse(optionalArgs);
+            _generators = new ArrayList<>();
+            for (String family : args[1].split(",")) {
+                for (String nodes : args[2].split(",")) {
+                    for (String ccr : params.getCcr().split(",")) {
+                        GraphGenerator generator;
+                        try {
+                            generator = new GraphGenerator(family.trim(), Integer.parseInt(nodes.trim()));
+                            generator.setCcr(Double.parseDouble(ccr.trim()));
+                            generator.setDensity(Double.parseDouble(params.getDensity()));
+                        } catch (NumberFormatException e) {
+                            throw new RuntimeException("Node counts, CCRs and density must be numbers");
+                        }
+                        generator.setWeights(params.getWeights());
+                        generator.setSeed(params.getSeed());
+                        generator.setBranching(params.getBranching());
+                        generator.setBalanced(!params.getUnbalanced());
+                        _generators.add(generator);
+                    }
+                }
+            }
+            _format = params.getFormat();
+            GraphFileWriter.extensionOf(_format);
+            _outputFilename = params.getOutputName() == null ? "." : params.getOutputName();
+            return;
+        }
+
+        // Only options are given, which is enough to start a daemon
+        if (args.length > 0 && args[0].startsWith("-") && !args[0].equals(FileParser.STANDARD_STREAM)) {
+            JCommander.newBuilder().addObject(params).build().parse(args);
+            if (params.getHelp()) {
+                showHelp();
+            }
+            if (params.getDaemon()) {
+                _daemon = true;
+                _port = params.getPort();
+                _resultCache = createResultCache(params);
+                _numParallelProcessors = params.getParallelCores();
+                if (_numParallelProcessors < MIN_NUM_OF_PROBLEM_PROCESSORS) {
+                    throw new RuntimeException("Need to allocate more threads for program to be able to run");
+                }
+                return;
+            }
+            if (params.getWorker()) {
+                _worker = true;
+                _port = params.getPort();
+                return;
+            }
+        }
+
         // Checks for an insufficient number of arguments
         if (args.length < MINIMUM_EXPECTED_ARGUMENTS) {
             throw new RuntimeException("Insufficient arguments given. Needs [input file] [# processors]");
@@ -201,12 +440,12 @@ public class App {
             JCommander.newBuilder().addObject(params).build().parse(optionalArgs);
 
             // Set the input filename
-            _inst._inputFilename = args[FILENAME_ARGUMENT_PLACEMENT];
+            _inputFilename = args[FILENAME_ARGUMENT_PLACEMENT];
 
             // Set the number of cores the problem has
             try {
-                _inst._numExecutionCores = Integer.parseInt(args[1]);
-                if (_inst._numExecutionCores < MIN_NUM_OF_PROBLEM_PROCESSORS) {
+                _numExecutionCores = Integer.parseInt(args[1]);
+                if (_numExecutionCores < MIN_NUM_OF_PROBLEM_PROCESSORS) {
                     throw new RuntimeException("Insufficient processors to solve problem");
                 }
             } catch (NumberFormatException nfe) {
@@ -218,52 +457,327 @@ public class App {
             }
 
             // Sets the number of cores to do the scheduling on
-            _inst._numParallelProcessors = params.getParallelCores();
+            _numParallelProcessors = params.getParallelCores();
             if (params.getParallelCores() < MIN_NUM_OF_PROBLEM_PROCESSORS) {
                 throw new RuntimeException("Need to allocate more threads for program to be able to run");
             }
 
             // Sets the visualisation switch
-            _inst._visualise = params.getVisualise();
+            _visualise = params.getVisualise();
+
+            // Sets the batch switch, in which case the output is a directory
+            _batch = params.getBatch();
+
+            // Sets whether a daemon solves the graph and where to find it
+            _client = params.getClient();
+            _port = params.getPort();
+            _priority = params.getPriority();
+            _deadline = params.getDeadline();
+            if (_priority < 1 || _deadline < 0) {
+                throw new RuntimeException("Priority must be at least 1 and deadline can't be negative");
+            }
 
-            // Sets the output filename if one is given, otherwise uses default
-            if (params.getOutputName() == null) {
-                String workingInputFilename = _inst._inputFilename;
+            // Sets where schedules already found are kept
+            _resultCache = createResultCache(params);
 
-                // If it's a GXL input file then the output filename will need to remain a .dot file
-                if (workingInputFilename.toUpperCase().endsWith(".GXL")) {
-                    workingInputFilename = _inst._inputFilename.substring(0, _inst._inputFilename.length() - LENGTH_OF_DOT_FILE_EXTENSION) + ".dot";
-                }
+            // Reads the schedule of an earlier run to start from
+            if (params.getWarmStartFilename() != null) {
+                _warmStart = WarmStart.fromFile(params.getWarmStartFilename());
+            }
+
+            // Sets where the search's progress is saved and whether to carry on from it
+            _checkpointFilename = params.getCheckpointFilename();
+            _checkpointIntervalMillis = params.getCheckpointIntervalSeconds() * (long) MILLISECONDS_PER_SECOND;
+            _resume = params.getResume();
+            if (_resume && _checkpointFilename == null) {
+                throw new RuntimeException("Resuming needs the checkpoint file given with --checkpoint");
+            }
+            if (_checkpointFilename != null && (_numParallelProcessors > 1 || _batch || _client)) {
+                throw new RuntimeException("Checkpoints are only written by a single sequential search");
+            }
+            if (_checkpointIntervalMillis <= 0) {
+                throw new RuntimeException("Checkpoint interval must be at least one second");
+            }
+
+            // Sets whether the input holds many digraphs to solve one after another
+            _stream = params.getStream();
+            if (_stream && (_batch || _client || _checkpointFilename != null || _warmStart != null)) {
+                throw new RuntimeException("A stream of digraphs is solved on its own, without batch, client, "
+                        + "checkpoint or warm start options");
+            }
+
+            // Sets whether worker processes share the search
+            _coordinate = params.getCoordinate();
+            if (_coordinate && (_numParallelProcessors > 1 || _batch || _client || _checkpointFilename != null || _stream)) {
+                throw new RuntimeException("A coordinator shares a single graph's search between worker processes only");
+            }
 
-                // Append input file name with default suffix
-                int fileNameLocation = workingInputFilename.toLowerCase().lastIndexOf(DEFAULT_FILE_EXTENSION);
-                String fileNameWithoutExtension = workingInputFilename.substring(0, fileNameLocation);
-                _inst._outputFilename = fileNameWithoutExtension + DEFAULT_OUTPUT_FILENAME;
+            // Sets whether the output file is kept up to date with the best schedule found so far
+            _progressive = params.getProgressive();
+            if (_progressive && (_visualise || _batch || _client || _stream)) {
+                throw new RuntimeException("Progressive output is only for a single graph solved without "
+                        + "visualisation");
+            }
+
+            // Sets where the search's profile by depth is written once it's done
+            _profileFilename = params.getProfileFilename();
+            if (_profileFilename != null && (_batch || _client || _stream)) {
+                throw new RuntimeException("A search profile is only written for a single graph");
+            }
+
+            // Sets the format the schedule is written in, which is checked to be one of them
+            _format = params.getFormat();
+            String outputExtension = DotFileProducer.extensionOf(_format);
+            if (!_format.equals(DotFileProducer.DOT_FORMAT) && (_batch || _client || _stream)) {
+                throw new RuntimeException("Batch, client and stream schedules are only written in the "
+                        + DotFileProducer.DOT_FORMAT + " format");
+            }
+
+            // Sets the output filename if one is given, otherwise uses default
+            if (_batch && FileParser.STANDARD_STREAM.equals(params.getOutputName())) {
+                throw new RuntimeException("Batch output is a directory, it can't be standard output");
+            }
+            if (_batch) {
+                _outputFilename = params.getOutputName() == null ? BatchRunner.DEFAULT_OUTPUT_DIRECTORY : params.getOutputName();
+            } else if (params.getOutputName() == null) {
+                // Standard input goes to standard output, a compressed input file to a compressed output file
+                if (_inputFilename.equals(FileParser.STANDARD_STREAM)) {
+                    _outputFilename = FileParser.STANDARD_STREAM;
+                } else {
+                    _outputFilename = withoutExtension(_inputFilename) + DEFAULT_OUTPUT_SUFFIX + outputExtension
+                            + (FileParser.isCompressed(_inputFilename) ? FileParser.COMPRESSED_EXTENSION : "");
+                }
 
                 // Use given filename if available
             } else {
-                _inst._outputFilename = params.getOutputName();
+                _outputFilename = params.getOutputName();
+            }
+            if (_progressive && _outputFilename.equals(FileParser.STANDARD_STREAM)) {
+                throw new RuntimeException("Progressive output replaces the output file, it can't be standard output");
             }
         }
     }
 
     /**
-     * Algorithm to set up parsing of scheduling
+     * Algorithm to set up parsing of scheduling for the instance being visualised
      * @author Terran Kroft
      */
     public static void startParsing() {
+        _inst.solve();
+    }
+
+    /**
+     * Parses the input of this run and solves it, timing how long it took
+     * @author Terran Kroft
+     */
+    private void solve() {
         try {
             _isDone = false;
             _startingTime = System.currentTimeMillis(); // for timing
             _reader.startParsing(_manager);
             _endingTime = System.currentTimeMillis();
             _isDone = true;
-            System.out.println("Time taken: " + getRunningTime() + " seconds");
+            System.out.println("Time taken: " + runningTime() + " seconds");
+            if (_profileFilename != null) {
+                writeProfile();
+            }
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException("Input file does not exist");
+        }
+    }
+
+    /**
+     * Writes what the search did at each depth to the profile file as CSV, and how much it pruned by each cause
+     */
+    private void writeProfile() {
+        SearchCounters counters = _manager.getCounters();
+        System.out.println("States explored: " + counters.get(SearchCounters.EXPLORED) + ", pruned by bound: "
+                + counters.get(SearchCounters.PRUNED_BY_BOUND) + ", pruned as duplicates: "
+                + counters.get(SearchCounters.PRUNED_AS_DUPLICATE));
+        try (PrintWriter output = new PrintWriter(new OutputStreamWriter(
+                DotFileProducer.openOutput(_profileFilename), DotFileProducer.CHAR_SET))) {
+            for (String line : _manager.getSearchProfile().toCsv()) {
+                output.println(line);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write search profile " + _profileFilename + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return the result cache asked for, or null if none was
+     */
+    private static ResultCache createResultCache(CLIParameters params) {
+        return params.getCacheDirectory() == null ? null : new ResultCache(params.getCacheDirectory());
+    }
+
+    /**
+     * Runs the solver daemon until a client shuts it down
+     */
+    private void runDaemon() {
+        try (SolverDaemon daemon = new SolverDaemon(_port, _numParallelProcessors)) {
+            daemon.setResultCache(_resultCache);
+            daemon.serve();
+        } catch (IOException e) {
+            throw new RuntimeException("Daemon could not listen on port " + _port + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes each generated graph to the output directory, in a file named after the graph
+     */
+    private void generate() {
+        File directory = new File(_outputFilename);
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new RuntimeException("Could not create directory " + _outputFilename);
+        }
+        for (GraphGenerator generator : _generators) {
+            SparseGraph graph = generator.generate();
+            File file = new File(directory, graph.getGraphName() + GraphFileWriter.extensionOf(_format));
+            try (OutputStream output = DotFileProducer.openOutput(file.getPath())) {
+                GraphFileWriter.write(graph, _format, output);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not write " + file.getPath() + ": " + e.getMessage());
+            }
+            System.out.println("Generated " + file.getPath() + " with " + graph.getNodeCount() + " nodes and "
+                    + graph.getArcCount() + " arcs");
+        }
+    }
+
+    /**
+     * Writes the input file in the binary graph format, so later runs on it don't parse any text
+     */
+    private void convert() {
+        try {
+            _startingTime = System.currentTimeMillis();
+            try (OutputStream output = openOutput()) {
+                BinaryGraphFormat.convert(_inputFilename, output);
+            }
+            _endingTime = System.currentTimeMillis();
+            _isDone = true;
+            System.out.println("Converted to " + _outputFilename + " in " + runningTime() + " seconds");
         } catch (FileNotFoundException e) {
             throw new RuntimeException("Input file does not exist");
+        } catch (IOException e) {
+            throw new RuntimeException("Could not write " + _outputFilename + ": " + e.getMessage());
         }
     }
 
+    /**
+     * Runs the benchmark, exiting with SolverBenchmark.FAILED_EXIT_STATUS unless it passed
+     */
+    private void runBenchmark() {
+        List<BenchmarkResult> results = _benchmark.run(_outputFilename);
+        if (_recordExpectedFilename != null) {
+            try {
+                ExpectedOptima.write(_recordExpectedFilename, results);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not write " + _recordExpectedFilename + ": " + e.getMessage());
+            }
+        }
+        if (!SolverBenchmark.passed(results)) {
+            System.exit(SolverBenchmark.FAILED_EXIT_STATUS);
+        }
+    }
+
+    /**
+     * Searches subtrees for a coordinator until it finishes its search
+     */
+    private void runWorker() {
+        try (SearchWorker worker = new SearchWorker(_port)) {
+            worker.run();
+            System.out.println("Searched " + worker.getSubtrees() + " subtrees");
+        } catch (IOException e) {
+            throw new RuntimeException("Could not reach coordinator on port " + _port + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sends the input file to a running daemon and writes the schedule it sends back to the output file
+     */
+    private void submitToDaemon() {
+        try (DaemonClient client = new DaemonClient(_port)) {
+            _startingTime = System.currentTimeMillis();
+            DaemonClient.Result result = client.solve(_inputFilename, _numExecutionCores, _priority, _deadline);
+            try (PrintWriter output = new PrintWriter(new OutputStreamWriter(openOutput(), DotFileProducer.CHAR_SET))) {
+                output.print(result.getSchedule());
+            }
+            _endingTime = System.currentTimeMillis();
+            _isDone = true;
+            System.out.println("Optimal length found: " + result.getMakespan());
+            System.out.println("Time taken: " + runningTime() + " seconds");
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException("Input file does not exist");
+        } catch (IOException e) {
+            throw new RuntimeException("Could not reach daemon on port " + _port + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Solves every digraph of the input on the parallel threads as it is read, writing their schedules to the output
+     * in the same order
+     */
+    private void runStream() {
+        try (DotGraphStream graphs = DotGraphStream.open(_inputFilename);
+             Writer output = new BufferedWriter(new OutputStreamWriter(openOutput(), DotFileProducer.CHAR_SET))) {
+            StreamRunner runner = new StreamRunner(graphs, _numExecutionCores, _numParallelProcessors, output);
+            runner.setResultCache(_resultCache);
+            runner.run();
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException("Input file does not exist");
+        } catch (IOException e) {
+            throw new RuntimeException("Stream could not be read or written: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Opens where the output is written, standard output or the output file compressed if its name ends in .gz
+     *
+     * @return stream of the output, which only flushes standard output when closed
+     * @throws IOException if the output file can't be created
+     */
+    private OutputStream openOutput() throws IOException {
+        if (_standardOutput == null) {
+            return DotFileProducer.openOutput(_outputFilename);
+        }
+        return new FilterOutputStream(_standardOutput) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+
+    /**
+     * @return the filename without its extension, or without both of them if it's compressed
+     */
+    private static String withoutExtension(String filename) {
+        String uncompressed = FileParser.uncompressedName(filename);
+        int extension = uncompressed.lastIndexOf('.');
+        return extension > uncompressed.lastIndexOf(File.separatorChar) + 1 ? uncompressed.substring(0, extension)
+                : uncompressed;
+    }
+
+    /**
+     * Get the length that this run has been going for, or the final time if it is done
+     * @return Time spent on solving
+     */
+    private double runningTime() {
+        double elapsed;
+        if (_isDone) {
+            elapsed = ((_endingTime - _startingTime) / MILLISECONDS_PER_SECOND); // incl. tenths of second
+        } else {
+            long now = System.currentTimeMillis();
+            elapsed = ((now - _startingTime) / MILLISECONDS_PER_SECOND); // incl. tenths of second
+        }
+        return elapsed;
+    }
+
     /**
      * Shows help for the inputs and optional flags.
      *
@@ -281,7 +795,47 @@ public class App {
                         "progress should be shown" +
                         "\n\t \"--output\", \"-o\" allows for the specification of a custom name for the output " +
                         "file" +
+                        "\n\t \"--batch\", \"-b\" treats the input as a directory, glob or manifest of graphs which " +
+                        "are all solved on the \"--parallel\" threads, \"--output\" is then the output directory" +
+                        "\n\t \"--daemon\" (given without input file and processors) keeps a solver running on a " +
+                        "loopback \"--port\", solving graphs on the \"--parallel\" threads" +
+                        "\n\t \"--client\" has the daemon on \"--port\" solve the input file instead of this process" +
+                        "\n\t \"--priority\" and \"--deadline\" (milliseconds) decide how many of the daemon's " +
+                        "threads a \"--client\" solve gets while other solves are running" +
+                        "\n\t \"--stream\" solves every digraph of an input holding many one after another as it is " +
+                        "read, writing their schedules to the output in the same order" +
+                        "\n\t \"--cache\" keeps optimal schedules in the given directory and reuses them for the " +
+                        "same graph, even with nodes named or ordered differently" +
+                        "\n\t \"--warm-start\" starts from the schedule in an earlier output file, for when the graph " +
+                        "has only changed a little" +
+                        "\n\t \"--format\" writes the schedule as " + DotFileProducer.DOT_FORMAT + " (default), " +
+                        DotFileProducer.JSON_LINES_FORMAT + " (a record per task), " + DotFileProducer.CSV_FORMAT +
+                        " or " + DotFileProducer.BINARY_FORMAT + " (fixed-width records)" +
+                        "\n\t \"--progressive\" replaces the output file with every better schedule found, so it " +
+                        "always holds the best one so far" +
+                        "\n\t \"--checkpoint\" saves the search's progress to the given file every " +
+                        "\"--checkpoint-interval\" seconds (60 by default), \"--resume\" carries on from it" +
+                        "\n\t \"--coordinate\" shares the search between \"--worker\" processes (given without input " +
+                        "file and processors) connecting on the loopback \"--port\"" +
+                        "\n\t \"--profile\" writes what the search did at each depth, the states it generated, " +
+                        "expanded and pruned by each cause, to the given CSV file" +
                         "\n\t \"--help\", \"-h\" specifies that this help message should be displayed." +
+                        "\n\n To solve a graph without parsing text every time, convert it once with " +
+                        "convert [input file] [-o output file] and give the " + BinaryGraphFormat.FILE_EXTENSION +
+                        " file it writes as the input file" +
+                        "\n\n To measure the solver, run benchmark [graphs] [processor counts, e.g. 2,4] with " +
+                        "\"--engines\", \"--threads\", \"--expected\" optima, \"--baseline\" results, " +
+                        "\"--threshold\" (percent), \"--timeout\" (seconds) and \"--output\" directory. " +
+                        "\"--scalability\" compares every run with the sequential engine, on 1, 2, 4... threads up " +
+                        "to the number of cores unless \"--threads\" are given" +
+                        "\n\n To make test graphs, run generate [families, e.g. " + GraphGenerator.FAMILIES +
+                        "] [node counts, e.g. 50,500] with \"--ccr\" ratios, \"--weights\" (" +
+                        GraphGenerator.WEIGHT_DISTRIBUTIONS + "), \"--seed\", \"--density\" (arcs per node of " +
+                        "Random graphs), \"--branching\", \"--unbalanced\" trees, \"--format\" (" +
+                        GraphFileWriter.DOT_FORMAT + ", " + GraphFileWriter.GXL_FORMAT + " or " +
+                        GraphFileWriter.BINARY_FORMAT + ") and \"--output\" directory" +
+                        "\n\n The input file and \"--output\" can be - for standard input and output, and files " +
+                        "ending in .gz are read and written compressed" +
                         "\n"
         );
     }
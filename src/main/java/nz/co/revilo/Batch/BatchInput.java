@@ -0,0 +1,159 @@
+package nz.co.revilo.Batch;
+
+import nz.co.revilo.Input.BinaryGraphFormat;
+import nz.co.revilo.Input.FileParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A single graph file of a batch with the number of processors it is scheduled on. Also resolves what the user gave
+ * as the batch input, which is either a directory, a glob pattern or a manifest file listing graphs.
+ */
+public class BatchInput {
+
+    // Characters which make the input a glob pattern
+    public static final String GLOB_CHARACTERS = "*?[{";
+    // Manifest lines starting with this are ignored
+    public static final String MANIFEST_COMMENT = "#";
+
+    private final String _filename;
+    private final int _processors;
+
+    /**
+     * @param filename   the graph file
+     * @param processors number of processors to schedule the graph on
+     */
+    public BatchInput(String filename, int processors) {
+        _filename = filename;
+        _processors = processors;
+    }
+
+    public String getFilename() {
+        return _filename;
+    }
+
+    public int getProcessors() {
+        return _processors;
+    }
+
+    /**
+     * Resolves the batch input given by the user into the list of graphs to solve.
+     * <p>
+     * A directory gives every DOT, GXL and binary graph file directly inside it. A glob pattern (e.g. test_inputs/Fork*.gxl) gives
+     * every file it matches. Any other file is a manifest with one graph file per line, relative to the manifest,
+     * optionally followed by a processor count overriding the default.
+     *
+     * @param input             directory, glob or manifest
+     * @param defaultProcessors number of processors graphs are scheduled on unless a manifest says otherwise
+     * @return the graphs to solve, sorted for directories and globs and in manifest order otherwise
+     */
+    public static List<BatchInput> resolve(String input, int defaultProcessors) {
+        try {
+            File file = new File(input);
+            if (file.isDirectory()) {
+                return fromDirectory(file.toPath(), defaultProcessors);
+            } else if (isGlob(input)) {
+                return fromGlob(input, defaultProcessors);
+            } else if (file.isFile()) {
+                return fromManifest(file.toPath(), defaultProcessors);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Batch input could not be read: " + e.getMessage());
+        }
+        throw new RuntimeException("Input file does not exist");
+    }
+
+    /**
+     * @param filename name of a file
+     * @return whether the file is a graph file the batch can solve
+     */
+    public static boolean isGraphFile(String filename) {
+        String uncompressed = FileParser.uncompressedName(filename);
+        String upper = uncompressed.toUpperCase();
+        return upper.endsWith(".DOT") || upper.endsWith(".GXL") || BinaryGraphFormat.isBinaryGraphFile(uncompressed);
+    }
+
+    private static boolean isGlob(String input) {
+        for (char c : GLOB_CHARACTERS.toCharArray()) {
+            if (input.indexOf(c) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static List<BatchInput> fromDirectory(Path directory, int processors) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return toInputs(files.filter(Files::isRegularFile)
+                    .filter(path -> isGraphFile(path.getFileName().toString())), processors);
+        }
+    }
+
+    private static List<BatchInput> fromGlob(String glob, int processors) throws IOException {
+        // Walk from the deepest directory before the first wildcard
+        int firstWildcard = glob.length();
+        for (char c : GLOB_CHARACTERS.toCharArray()) {
+            int index = glob.indexOf(c);
+            if (index >= 0 && index < firstWildcard) {
+                firstWildcard = index;
+            }
+        }
+        int lastSeparator = Math.max(glob.lastIndexOf('/', firstWildcard), glob.lastIndexOf(File.separatorChar, firstWildcard));
+        Path base = Paths.get(lastSeparator < 0 ? "." : glob.substring(0, lastSeparator + 1));
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob.substring(lastSeparator + 1));
+        if (!Files.isDirectory(base)) {
+            return Collections.emptyList();
+        }
+        try (Stream<Path> files = Files.walk(base)) {
+            return toInputs(files.filter(Files::isRegularFile)
+                    .filter(path -> matcher.matches(base.relativize(path))), processors);
+        }
+    }
+
+    private static List<BatchInput> fromManifest(Path manifest, int processors) throws IOException {
+        Path base = manifest.toAbsolutePath().getParent();
+        List<BatchInput> inputs = new ArrayList<>();
+        for (String line : Files.readAllLines(manifest)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith(MANIFEST_COMMENT)) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            Path graph = Paths.get(parts[0]);
+            if (!graph.isAbsolute() && base != null) {
+                graph = base.resolve(graph);
+            }
+            int graphProcessors = processors;
+            if (parts.length > 1) {
+                try {
+                    graphProcessors = Integer.parseInt(parts[1]);
+                } catch (NumberFormatException nfe) {
+                    throw new RuntimeException("Invalid number of processors in manifest line: " + line);
+                }
+                if (graphProcessors < 1) {
+                    throw new RuntimeException("Insufficient processors in manifest line: " + line);
+                }
+            }
+            inputs.add(new BatchInput(graph.toString(), graphProcessors));
+        }
+        return inputs;
+    }
+
+    private static List<BatchInput> toInputs(Stream<Path> files, int processors) {
+        return files.map(Path::toString)
+                .sorted()
+                .map(filename -> new BatchInput(filename, processors))
+                .collect(Collectors.toList());
+    }
+}
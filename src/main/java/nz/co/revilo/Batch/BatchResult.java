@@ -0,0 +1,94 @@
+package nz.co.revilo.Batch;
+
+/**
+ * Outcome of solving one graph of a batch, written as a row of the summary CSV
+ */
+public class BatchResult {
+
+    public static final String CSV_HEADER = "input,output,nodes,processors,strategy,makespan,parse_ms,solve_ms,explored_states,broken_trees,status";
+    public static final String STATUS_OK = "OK";
+    public static final int NOT_SOLVED = -1;
+
+    private final BatchInput _input;
+    private String _outputFilename = "";
+    private int _nodes;
+    private String _strategy = "";
+    private int _makespan = NOT_SOLVED;
+    private long _parseMillis;
+    private long _solveMillis;
+    private long _exploredStates;
+    private long _brokenTrees;
+    private String _status = STATUS_OK;
+
+    public BatchResult(BatchInput input) {
+        _input = input;
+    }
+
+    void setOutputFilename(String outputFilename) {
+        _outputFilename = outputFilename;
+    }
+
+    void setNodes(int nodes) {
+        _nodes = nodes;
+    }
+
+    void setStrategy(String strategy) {
+        _strategy = strategy;
+    }
+
+    void setMakespan(int makespan) {
+        _makespan = makespan;
+    }
+
+    void setParseMillis(long parseMillis) {
+        _parseMillis = parseMillis;
+    }
+
+    void setSolveMillis(long solveMillis) {
+        _solveMillis = solveMillis;
+    }
+
+    void setSearchStatistics(long exploredStates, long brokenTrees) {
+        _exploredStates = exploredStates;
+        _brokenTrees = brokenTrees;
+    }
+
+    void setFailed(String reason) {
+        _status = reason;
+    }
+
+    public BatchInput getInput() {
+        return _input;
+    }
+
+    public int getMakespan() {
+        return _makespan;
+    }
+
+    public boolean isSolved() {
+        return STATUS_OK.equals(_status);
+    }
+
+    public String getStatus() {
+        return _status;
+    }
+
+    /**
+     * @return this result as a line of the summary CSV
+     */
+    public String toCsvRow() {
+        return csv(_input.getFilename()) + "," + csv(_outputFilename) + "," + _nodes + "," + _input.getProcessors() + ","
+                + _strategy + "," + _makespan + "," + _parseMillis + "," + _solveMillis + "," + _exploredStates + ","
+                + _brokenTrees + "," + csv(_status);
+    }
+
+    /**
+     * Quotes a CSV field if it contains anything that would break the row
+     */
+    private static String csv(String field) {
+        if (field.contains(",") || field.contains("\"") || field.contains("\n")) {
+            return "\"" + field.replace("\"", "\"\"") + "\"";
+        }
+        return field;
+    }
+}
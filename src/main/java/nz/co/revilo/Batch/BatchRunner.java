@@ -0,0 +1,269 @@
+package nz.co.revilo.Batch;
+
+import nz.co.revilo.App;
+import nz.co.revilo.Cache.ResultCache;
+import nz.co.revilo.Input.FileParser;
+import nz.co.revilo.Input.ParsedGraph;
+import nz.co.revilo.Output.DotFileWriter;
+import nz.co.revilo.Output.ScheduleResult;
+import nz.co.revilo.Scheduling.AlgorithmManager;
+import nz.co.revilo.Scheduling.SharedPoolSolver;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves many graphs in the one process on a shared pool of worker threads.
+ * <p>
+ * Graphs are parsed ahead on their own thread while earlier graphs are being solved. Small graphs are solved
+ * sequentially, one per worker, while larger graphs share their search tree out over the whole pool (see
+ * SharedPoolSolver). Every schedule is written to the output directory along with a summary CSV of the batch. Inputs
+ * with the same name, e.g. from different directories, have a number added to their output's name.
+ */
+public class BatchRunner {
+
+    public static final String DEFAULT_OUTPUT_DIRECTORY = "batch-output";
+    public static final String SUMMARY_FILENAME = "summary.csv";
+    // How many parsed graphs may wait to be handed to a worker, and how many more may wait in the pool, per worker
+    public static final int PARSE_AHEAD_PER_THREAD = 2;
+    // How often the solve stage checks the parse stage is still running while it waits for a graph
+    private static final long PARSE_CHECK_MILLIS = 100;
+
+    private final List<BatchInput> _inputs;
+    private final int _threads;
+    private final File _outputDirectory;
+    private ResultCache _resultCache;
+
+    /**
+     * @param inputs          graphs to solve
+     * @param threads         number of worker threads shared by all graphs
+     * @param outputDirectory directory to write schedules and the summary to
+     */
+    public BatchRunner(List<BatchInput> inputs, int threads, String outputDirectory) {
+        _inputs = inputs;
+        _threads = threads;
+        _outputDirectory = new File(outputDirectory);
+    }
+
+    /**
+     * @param cache schedules already found, shared by every graph of the batch, or null to always search
+     */
+    public void setResultCache(ResultCache cache) {
+        _resultCache = cache;
+    }
+
+    /**
+     * Solves every graph of the batch and writes the summary
+     *
+     * @return results in the same order as the inputs
+     */
+    public List<BatchResult> run() {
+        if (!_outputDirectory.isDirectory() && !_outputDirectory.mkdirs()) {
+            throw new RuntimeException("Output directory could not be created");
+        }
+
+        SharedPoolSolver solver = new SharedPoolSolver(_threads);
+        ExecutorService parser = Executors.newSingleThreadExecutor();
+        BlockingQueue<ParsedInput> parsed = new ArrayBlockingQueue<>(_threads * PARSE_AHEAD_PER_THREAD);
+        Semaphore unsolved = new Semaphore(_threads * PARSE_AHEAD_PER_THREAD);
+        List<String> outputFilenames = outputFilenames();
+        List<Future<BatchResult>> solving = new ArrayList<>(_inputs.size());
+        long start = System.currentTimeMillis();
+
+        try {
+            // Parse stage, blocks when enough graphs are waiting to be handed to the pool
+            Future<?> parsing = parser.submit(() -> {
+                for (int i = 0; i < _inputs.size(); i++) {
+                    parsed.put(parse(_inputs.get(i), outputFilenames.get(i)));
+                }
+                return null;
+            });
+
+            // Solve stage, blocks when enough graphs are waiting in the pool, so only that many parsed graphs are held
+            // besides those being solved and memory stays bounded
+            for (int i = 0; i < _inputs.size(); i++) {
+                ParsedInput next = nextParsed(parsed, parsing);
+                unsolved.acquire();
+                solving.add(solver.submit(() -> {
+                    try {
+                        return solve(next, solver);
+                    } finally {
+                        unsolved.release();
+                    }
+                }));
+            }
+
+            List<BatchResult> results = new ArrayList<>(solving.size());
+            for (Future<BatchResult> result : solving) {
+                results.add(result.get());
+            }
+
+            writeSummary(results);
+            int failed = 0;
+            for (BatchResult result : results) {
+                if (!result.isSolved()) {
+                    failed++;
+                }
+            }
+            System.out.println("Batch of " + results.size() + " graphs took "
+                    + ((System.currentTimeMillis() - start) / App.MILLISECONDS_PER_SECOND) + " seconds, " + failed
+                    + " failed. Summary written to " + new File(_outputDirectory, SUMMARY_FILENAME).getPath());
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Batch was interrupted");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Batch failed: " + e.getCause().getMessage());
+        } finally {
+            parser.shutdownNow();
+            solver.shutdown();
+        }
+    }
+
+    /**
+     * Waits for the next graph from the parse stage, checking the parse stage hasn't stopped without it
+     *
+     * @throws ExecutionException if the parse stage failed, e.g. ran out of memory
+     */
+    private static ParsedInput nextParsed(BlockingQueue<ParsedInput> parsed, Future<?> parsing)
+            throws InterruptedException, ExecutionException {
+        while (true) {
+            ParsedInput next = parsed.poll(PARSE_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+            if (next != null) {
+                return next;
+            } else if (parsing.isDone() && parsed.isEmpty()) {
+                parsing.get();
+                throw new RuntimeException("Batch failed: graphs stopped being parsed");
+            }
+        }
+    }
+
+    /**
+     * Parses a graph on the parse thread, recording a graph which can't be read as failed in its result
+     */
+    private ParsedInput parse(BatchInput input, String outputFilename) {
+        ParsedInput parsed = new ParsedInput(input, outputFilename);
+        long start = System.currentTimeMillis();
+        try {
+            parsed._graph = ParsedGraph.parse(input.getFilename());
+        } catch (FileNotFoundException e) {
+            parsed._result.setFailed("Input file does not exist");
+        } catch (RuntimeException e) {
+            parsed._result.setFailed("Input file could not be parsed: " + e.getMessage());
+        }
+        parsed._result.setParseMillis(System.currentTimeMillis() - start);
+        return parsed;
+    }
+
+    /**
+     * Solves a parsed graph on a worker of the pool and writes its schedule
+     */
+    private BatchResult solve(ParsedInput parsed, SharedPoolSolver solver) {
+        BatchResult result = parsed._result;
+        if (parsed._graph == null) {
+            return result;
+        }
+
+        int nodes = parsed._graph.getNodeCount();
+        int processors = parsed._input.getProcessors();
+        result.setNodes(nodes);
+        AlgorithmManager manager = solver.createManager(nodes, processors);
+        manager.setResultCache(_resultCache);
+        result.setStrategy(solver.strategyFor(nodes));
+
+        // Kept to be written once solved, so a schedule which can't be saved fails only its own graph
+        ScheduleResult[] schedule = new ScheduleResult[1];
+        manager.inform(found -> schedule[0] = found);
+        String outputFilename = parsed._outputFilename;
+        result.setOutputFilename(outputFilename);
+
+        long start = System.currentTimeMillis();
+        try {
+            parsed._graph.replay(manager);
+            result.setMakespan(manager.getUpperBound());
+        } catch (RuntimeException e) {
+            result.setFailed("Could not be solved: " + e.getMessage());
+        }
+        result.setSolveMillis(System.currentTimeMillis() - start);
+        if (schedule[0] != null) {
+            try {
+                new DotFileWriter(outputFilename).writeSchedule(schedule[0]);
+            } catch (IOException e) {
+                result.setFailed("Schedule could not be saved: " + e.getMessage());
+            }
+        }
+        result.setSearchStatistics(manager.getExploredStates(), manager.getBrokenTrees());
+        return result;
+    }
+
+    /**
+     * The output file of a graph is named like a single run's output but placed in the output directory. When inputs
+     * have the same name, ignoring case and extension, the later ones get -2, -3... after it and are reported
+     *
+     * @return output filenames in the same order as the inputs
+     */
+    private List<String> outputFilenames() {
+        List<String> filenames = new ArrayList<>(_inputs.size());
+        Set<String> used = new HashSet<>();
+        for (BatchInput input : _inputs) {
+            String name = new File(FileParser.uncompressedName(input.getFilename())).getName();
+            int extension = name.lastIndexOf('.');
+            if (extension > 0) {
+                name = name.substring(0, extension);
+            }
+            String unique = name;
+            for (int copy = 2; !used.add(unique.toLowerCase(Locale.ROOT)); copy++) {
+                unique = name + "-" + copy;
+            }
+            String filename = new File(_outputDirectory, unique + App.DEFAULT_OUTPUT_FILENAME).getPath();
+            if (!unique.equals(name)) {
+                System.err.println("Another input is also named " + name + ", so the schedule of "
+                        + input.getFilename() + " is written to " + filename);
+            }
+            filenames.add(filename);
+        }
+        return filenames;
+    }
+
+    private void writeSummary(List<BatchResult> results) {
+        try (PrintWriter summary = new PrintWriter(new File(_outputDirectory, SUMMARY_FILENAME), "UTF-8")) {
+            summary.println(BatchResult.CSV_HEADER);
+            for (BatchResult result : results) {
+                summary.println(result.toCsvRow());
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Summary could not be saved");
+        }
+    }
+
+    /**
+     * A graph handed from the parse stage to the solve stage
+     */
+    private static class ParsedInput {
+        private final BatchInput _input;
+        private final BatchResult _result;
+        private final String _outputFilename;
+        private ParsedGraph _graph;
+
+        ParsedInput(BatchInput input, String outputFilename) {
+            _input = input;
+            _outputFilename = outputFilename;
+            _result = new BatchResult(input);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package nz.co.revilo.Batch;
+
+import nz.co.revilo.App;
+import nz.co.revilo.Cache.ResultCache;
+import nz.co.revilo.Input.DotGraphStream;
+import nz.co.revilo.Input.ParsedGraph;
+import nz.co.revilo.Output.DotFileWriter;
+import nz.co.revilo.Scheduling.AlgorithmManager;
+import nz.co.revilo.Scheduling.SharedPoolSolver;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Solves the digraphs of a DotGraphStream on a shared pool of worker threads as they are read, writing all of their
+ * schedules to one output in the order the digraphs were read.
+ * <p>
+ * Each digraph goes to the pool as soon as its closing brace is read, and its schedule is written on its own thread
+ * once the schedules of every digraph before it have been. Reading waits while enough digraphs are being solved or
+ * waiting to be written, so memory stays bounded however many digraphs there are. A digraph which can't be read or
+ * solved gets a DOT comment saying so in place of its schedule.
+ */
+public class StreamRunner {
+
+    // Put after the last schedule to stop the write stage
+    private static final Future<String> END_OF_STREAM = CompletableFuture.completedFuture(null);
+    // How often reading checks the write stage hasn't failed while it waits for room
+    private static final long WRITE_CHECK_MILLIS = 100;
+
+    private final DotGraphStream _graphs;
+    private final int _processors;
+    private final int _threads;
+    private final Writer _output;
+    private final AtomicInteger _failed = new AtomicInteger();
+    private ResultCache _resultCache;
+
+    /**
+     * @param graphs     digraphs to solve
+     * @param processors number of processors every digraph is scheduled on
+     * @param threads    number of worker threads shared by all digraphs
+     * @param output     where the schedules are written, flushed after each one
+     */
+    public StreamRunner(DotGraphStream graphs, int processors, int threads, Writer output) {
+        _graphs = graphs;
+        _processors = processors;
+        _threads = threads;
+        _output = output;
+    }
+
+    /**
+     * @param cache schedules already found, shared by every digraph of the stream, or null to always search
+     */
+    public void setResultCache(ResultCache cache) {
+        _resultCache = cache;
+    }
+
+    /**
+     * Solves every digraph of the stream
+     *
+     * @return number of digraphs read
+     */
+    public int run() {
+        SharedPoolSolver solver = new SharedPoolSolver(_threads);
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        BlockingQueue<Future<String>> solving = new ArrayBlockingQueue<>(_threads * BatchRunner.PARSE_AHEAD_PER_THREAD);
+        long start = System.currentTimeMillis();
+
+        try {
+            // Write stage, takes the schedules in the order the digraphs were read
+            Future<?> written = writer.submit(() -> {
+                for (Future<String> next; (next = solving.take()) != END_OF_STREAM; ) {
+                    _output.write(next.get());
+                    _output.flush();
+                }
+                return null;
+            });
+
+            // Read stage, hands each digraph to the pool as soon as it has been read
+            while (true) {
+                ParsedGraph graph;
+                try {
+                    graph = _graphs.next();
+                } catch (RuntimeException e) {
+                    put(solving, CompletableFuture.completedFuture(
+                            failure(_graphs.getGraphsRead(), "could not be parsed: " + e.getMessage())), written);
+                    continue;
+                }
+                if (graph == null) {
+                    break;
+                }
+                int index = _graphs.getGraphsRead();
+                put(solving, solver.submit(() -> solve(graph, index, solver)), written);
+            }
+            put(solving, END_OF_STREAM, written);
+            written.get();
+
+            System.out.println("Stream of " + _graphs.getGraphsRead() + " graphs took "
+                    + ((System.currentTimeMillis() - start) / App.MILLISECONDS_PER_SECOND) + " seconds, "
+                    + _failed.get() + " failed");
+            return _graphs.getGraphsRead();
+        } catch (IOException e) {
+            throw new RuntimeException("Stream could not be read: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Stream was interrupted");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Stream failed: " + e.getCause().getMessage());
+        } finally {
+            writer.shutdownNow();
+            solver.shutdown();
+        }
+    }
+
+    /**
+     * Solves a digraph on a worker of the pool
+     *
+     * @return its schedule
+     */
+    private String solve(ParsedGraph graph, int index, SharedPoolSolver solver) {
+        AlgorithmManager manager = solver.createManager(graph.getNodeCount(), _processors);
+        manager.setResultCache(_resultCache);
+        StringWriter schedule = new StringWriter();
+        manager.inform(new DotFileWriter(schedule));
+        try {
+            graph.replay(manager);
+        } catch (RuntimeException e) {
+            return failure(index, "could not be solved: " + e.getMessage());
+        }
+        return schedule.toString();
+    }
+
+    /**
+     * @return comment standing in for the schedule of a digraph which failed
+     */
+    private String failure(int index, String message) {
+        _failed.incrementAndGet();
+        return "// Digraph " + index + " " + message.replace('\n', ' ') + System.lineSeparator();
+    }
+
+    /**
+     * Queues a schedule for the write stage, waiting for room but giving up if the write stage has failed
+     */
+    private static void put(BlockingQueue<Future<String>> solving, Future<String> schedule, Future<?> written)
+            throws InterruptedException, ExecutionException {
+        while (!solving.offer(schedule, WRITE_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (written.isDone()) {
+                written.get();
+            }
+        }
+    }
+}
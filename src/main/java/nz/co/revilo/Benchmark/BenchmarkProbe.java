@@ -0,0 +1,200 @@
+package nz.co.revilo.Benchmark;
+
+import nz.co.revilo.Input.ParsedGraph;
+import nz.co.revilo.Input.SparseGraph;
+import nz.co.revilo.Output.ScheduleResult;
+import nz.co.revilo.Output.ScheduleResultListener;
+import nz.co.revilo.Scheduling.AlgorithmManager;
+import nz.co.revilo.Scheduling.BranchAndBoundAlgorithmManager;
+import nz.co.revilo.Scheduling.ForkJoinBranchAndBoundAlgorithmManager;
+import nz.co.revilo.Scheduling.ParallelBranchAndBoundAlgorithmManager;
+import pt.runtime.ParaTask;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Solves a single graph with one engine and thread count in a JVM of its own, started by SolverBenchmark, and prints
+ * what it measured on a line starting with RESULT_PREFIX. Running each solve in a fresh JVM keeps the peak memory
+ * figures its own and stops one run's JIT and heap state from favouring the next.
+ * <p>
+ * How long each searching thread was busy is the CPU time it used during the solve, taken for the threads which used
+ * the most, as many as searched. Steals are counted by the fork/join pool, ParaTask doesn't count them.
+ * <p>
+ * Usage: BenchmarkProbe [graph file] [processors] [engine] [threads]
+ */
+public final class BenchmarkProbe {
+
+    // Engines a graph can be solved with
+    public static final String SEQUENTIAL_ENGINE = "sequential";
+    public static final String FORK_JOIN_ENGINE = "forkjoin";
+    public static final String PARATASK_ENGINE = "paratask";
+
+    public static final String RESULT_PREFIX = "BENCHMARK ";
+    public static final int NOT_MEASURED = -1;
+
+    private static final String PEAK_RSS_FIELD = "VmHWM:";
+    private static final long NANOSECONDS_PER_MILLISECOND = 1000000;
+
+    private BenchmarkProbe() {
+    }
+
+    /**
+     * Solves the graph and prints the nodes, makespan, milliseconds to the first incumbent and to the proven optimum,
+     * states explored and pruned, peak resident set and heap in kilobytes, steals and the milliseconds each searching
+     * thread was busy, separated by commas
+     */
+    public static void main(String[] args) throws FileNotFoundException {
+        SparseGraph graph = ParsedGraph.parse(args[0]).getGraph();
+        int processors = Integer.parseInt(args[1]);
+        String engine = args[2];
+        int threads = Integer.parseInt(args[3]);
+        ForkJoinPool pool = engine.equals(FORK_JOIN_ENGINE) ? new ForkJoinPool(threads) : null;
+        AlgorithmManager manager = createManager(engine, processors, threads, pool);
+
+        long[] firstIncumbent = {NOT_MEASURED};
+        int[] makespan = {NOT_MEASURED};
+        Map<Long, Long> cpuBefore = threadCpuTimes();
+        long start = System.nanoTime();
+        manager.optimalInform(optimal -> {
+            synchronized (firstIncumbent) {
+                if (firstIncumbent[0] == NOT_MEASURED) {
+                    firstIncumbent[0] = System.nanoTime() - start;
+                }
+            }
+        });
+        manager.inform(new ScheduleResultListener() {
+            @Override
+            public void finalSchedule(ScheduleResult schedule) {
+                makespan[0] = schedule.getMakespan();
+            }
+        });
+        manager.parsedGraph(graph);
+        long optimum = System.nanoTime() - start;
+        List<Long> busy = busyMillis(cpuBefore, threadCpuTimes(), threads);
+
+        StringBuilder busyList = new StringBuilder();
+        for (long millis : busy) {
+            busyList.append(busyList.length() == 0 ? "" : ",").append(millis);
+        }
+        System.out.println(RESULT_PREFIX + graph.getNodeCount() + " " + makespan[0] + " "
+                + (firstIncumbent[0] == NOT_MEASURED ? NOT_MEASURED : firstIncumbent[0] / NANOSECONDS_PER_MILLISECOND)
+                + " " + optimum / NANOSECONDS_PER_MILLISECOND + " " + manager.getExploredStates() + " "
+                + manager.getBrokenTrees() + " " + peakResidentKilobytes() + " " + peakHeapKilobytes() + " "
+                + (pool == null ? NOT_MEASURED : pool.getStealCount()) + " " + busyList);
+        System.exit(0);
+    }
+
+    /**
+     * @param engine  one of the engines, e.g. SEQUENTIAL_ENGINE
+     * @param threads threads searching, including ParaTask's master thread as App counts them
+     * @param pool    pool of that many threads for FORK_JOIN_ENGINE, otherwise unused
+     * @return the manager searching with the engine
+     */
+    static AlgorithmManager createManager(String engine, int processors, int threads, ForkJoinPool pool) {
+        switch (engine) {
+            case SEQUENTIAL_ENGINE:
+                return new BranchAndBoundAlgorithmManager(processors);
+            case FORK_JOIN_ENGINE:
+                return new ForkJoinBranchAndBoundAlgorithmManager(processors, pool);
+            case PARATASK_ENGINE:
+                ParaTask.setThreadPoolSize(ParaTask.ThreadPoolType.ALL, threads - 1);
+                ParaTask.init();
+                return new ParallelBranchAndBoundAlgorithmManager(processors, threads - 1);
+            default:
+                throw new RuntimeException("Unknown engine " + engine + ", expected one of " + SEQUENTIAL_ENGINE
+                        + ", " + FORK_JOIN_ENGINE + " or " + PARATASK_ENGINE);
+        }
+    }
+
+    /**
+     * @return whether the engine can search on that many threads: the sequential engine only on one, ParaTask on at
+     * least two as it needs a master thread
+     */
+    static boolean runsOn(String engine, int threads) {
+        switch (engine) {
+            case SEQUENTIAL_ENGINE:
+                return threads == 1;
+            case PARATASK_ENGINE:
+                return threads >= 2;
+            default:
+                return threads >= 1;
+        }
+    }
+
+    /**
+     * @return CPU time used so far by each live thread outside the JVM's system thread group, by thread id
+     */
+    private static Map<Long, Long> threadCpuTimes() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        Map<Long, Long> times = new HashMap<>();
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            ThreadGroup group = thread.getThreadGroup();
+            if (group != null && !group.getName().equals("system")) {
+                long time = threadBean.isThreadCpuTimeSupported() ? threadBean.getThreadCpuTime(thread.getId()) : -1;
+                if (time >= 0) {
+                    times.put(thread.getId(), time);
+                }
+            }
+        }
+        return times;
+    }
+
+    /**
+     * @return CPU time used between the two snapshots by the threads which used the most, as many as searched and
+     * busiest first, with threads which never ran counted as 0
+     */
+    private static List<Long> busyMillis(Map<Long, Long> before, Map<Long, Long> after, int threads) {
+        List<Long> busy = new ArrayList<>();
+        for (Map.Entry<Long, Long> thread : after.entrySet()) {
+            busy.add((thread.getValue() - before.getOrDefault(thread.getKey(), 0L)) / NANOSECONDS_PER_MILLISECOND);
+        }
+        busy.sort(Collections.reverseOrder());
+        while (busy.size() < threads) {
+            busy.add(0L);
+        }
+        return new ArrayList<>(busy.subList(0, threads));
+    }
+
+    /**
+     * @return the most memory the process has had resident, or NOT_MEASURED where /proc isn't available
+     */
+    private static long peakResidentKilobytes() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"), StandardCharsets.US_ASCII)) {
+                if (line.startsWith(PEAK_RSS_FIELD)) {
+                    return Long.parseLong(line.substring(PEAK_RSS_FIELD.length()).trim().split("\\s+")[0]);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // not Linux
+        }
+        return NOT_MEASURED;
+    }
+
+    /**
+     * @return the sum of the heap pools' peak usage
+     */
+    private static long peakHeapKilobytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak / 1024;
+    }
+}
@@ -0,0 +1,241 @@
+package nz.co.revilo.Benchmark;
+
+import nz.co.revilo.Output.JsonLinesScheduleWriter;
+
+import java.io.File;
+
+/**
+ * What one benchmark run of a graph with an engine and thread count measured, written as a row of the results CSV and
+ * an object of the results JSON
+ */
+public class BenchmarkResult {
+
+    public static final String CSV_HEADER = "graph,nodes,processors,engine,threads,makespan,expected,first_incumbent_ms,"
+            + "optimum_ms,explored_states,pruned_states,states_per_second,peak_rss_kb,peak_heap_kb,baseline_ms,"
+            + "change_percent,status,steals,thread_busy_ms";
+    public static final String STATUS_OK = "OK";
+    public static final String STATUS_WRONG_MAKESPAN = "WRONG_MAKESPAN";
+    public static final String STATUS_REGRESSION = "REGRESSION";
+    public static final String STATUS_TIMEOUT = "TIMEOUT";
+    // Solved, but the graph isn't in the expected optima so the makespan couldn't be checked
+    public static final String STATUS_NOT_EXPECTED = "NOT_IN_EXPECTED";
+    public static final int NOT_MEASURED = BenchmarkProbe.NOT_MEASURED;
+
+    private final String _graph;
+    private final int _processors;
+    private final String _engine;
+    private final int _threads;
+    private int _nodes = NOT_MEASURED;
+    private int _makespan = NOT_MEASURED;
+    private int _expected = NOT_MEASURED;
+    private long _firstIncumbentMillis = NOT_MEASURED;
+    private long _optimumMillis = NOT_MEASURED;
+    private long _exploredStates;
+    private long _prunedStates;
+    private long _peakResidentKilobytes = NOT_MEASURED;
+    private long _peakHeapKilobytes = NOT_MEASURED;
+    private long _baselineMillis = NOT_MEASURED;
+    private String _status = STATUS_OK;
+    private long _steals = NOT_MEASURED;
+    private long[] _threadBusyMillis = new long[0];
+
+    /**
+     * @param graph      the graph file
+     * @param processors number of processors it's scheduled on
+     * @param engine     engine searching, one of BenchmarkProbe's
+     * @param threads    threads searching
+     */
+    public BenchmarkResult(String graph, int processors, String engine, int threads) {
+        _graph = graph;
+        _processors = processors;
+        _engine = engine;
+        _threads = threads;
+    }
+
+    /**
+     * Takes the measurements a BenchmarkProbe printed
+     *
+     * @param line the probe's line, without BenchmarkProbe.RESULT_PREFIX
+     */
+    void setMeasurements(String line) {
+        String[] values = line.trim().split(" ");
+        _nodes = Integer.parseInt(values[0]);
+        _makespan = Integer.parseInt(values[1]);
+        _firstIncumbentMillis = Long.parseLong(values[2]);
+        _optimumMillis = Long.parseLong(values[3]);
+        _exploredStates = Long.parseLong(values[4]);
+        _prunedStates = Long.parseLong(values[5]);
+        _peakResidentKilobytes = Long.parseLong(values[6]);
+        _peakHeapKilobytes = Long.parseLong(values[7]);
+        _steals = Long.parseLong(values[8]);
+        String[] busy = values[9].split(",");
+        _threadBusyMillis = new long[busy.length];
+        for (int i = 0; i < busy.length; i++) {
+            _threadBusyMillis[i] = Long.parseLong(busy[i]);
+        }
+    }
+
+    /**
+     * Checks the makespan found against the optimum expected, marking the run as not checked if none is known
+     */
+    void setExpected(int expected) {
+        _expected = expected;
+        if (!_status.equals(STATUS_OK)) {
+            return;
+        }
+        if (expected == NOT_MEASURED) {
+            _status = STATUS_NOT_EXPECTED;
+        } else if (_makespan != expected) {
+            _status = STATUS_WRONG_MAKESPAN;
+        }
+    }
+
+    /**
+     * Marks the run as a regression if it took more than the threshold longer than the baseline. Runs of the baseline
+     * shorter than minimumMillis are too short to compare. A run that has already failed keeps its status.
+     */
+    void setBaselineMillis(long baselineMillis, int thresholdPercent, long minimumMillis) {
+        _baselineMillis = baselineMillis;
+        if (_status.equals(STATUS_OK) && baselineMillis >= minimumMillis && getChangePercent() > thresholdPercent) {
+            _status = STATUS_REGRESSION;
+        }
+    }
+
+    void setFailed(String reason) {
+        _status = reason;
+    }
+
+    public String getGraph() {
+        return _graph;
+    }
+
+    public int getProcessors() {
+        return _processors;
+    }
+
+    public String getEngine() {
+        return _engine;
+    }
+
+    public int getThreads() {
+        return _threads;
+    }
+
+    public int getMakespan() {
+        return _makespan;
+    }
+
+    /**
+     * @return the optimum the makespan was checked against, or NOT_MEASURED if there was none
+     */
+    public int getExpected() {
+        return _expected;
+    }
+
+    public long getOptimumMillis() {
+        return _optimumMillis;
+    }
+
+    public long getExploredStates() {
+        return _exploredStates;
+    }
+
+    public String getStatus() {
+        return _status;
+    }
+
+    /**
+     * @return tasks stolen between the fork/join pool's threads, or NOT_MEASURED for other engines
+     */
+    public long getSteals() {
+        return _steals;
+    }
+
+    /**
+     * @return milliseconds of CPU time each searching thread used, busiest first
+     */
+    public long[] getThreadBusyMillis() {
+        return _threadBusyMillis.clone();
+    }
+
+    /**
+     * @return whether the run found an optimal schedule, which may still be wrong or slower than the baseline
+     */
+    public boolean isSolved() {
+        return _status.equals(STATUS_OK) || _status.equals(STATUS_WRONG_MAKESPAN) || _status.equals(STATUS_REGRESSION)
+                || _status.equals(STATUS_NOT_EXPECTED);
+    }
+
+    /**
+     * @return explored states per second of search, or 0 if the search took under a millisecond
+     */
+    public long getStatesPerSecond() {
+        return _optimumMillis > 0 ? _exploredStates * 1000 / _optimumMillis : 0;
+    }
+
+    /**
+     * @return how much longer than the baseline the run took as a percentage, or 0 without a baseline
+     */
+    public long getChangePercent() {
+        if (_baselineMillis <= 0 || _optimumMillis == NOT_MEASURED) {
+            return 0;
+        }
+        return Math.round((_optimumMillis - _baselineMillis) * 100.0 / _baselineMillis);
+    }
+
+    /**
+     * @return what identifies the same run in another set of results: the graph's file name, processors, engine and
+     * threads
+     */
+    public String key() {
+        return key(_graph, _processors, _engine, _threads);
+    }
+
+    static String key(String graph, int processors, String engine, int threads) {
+        return new File(graph).getName() + " " + processors + " " + engine + " " + threads;
+    }
+
+    /**
+     * @return this result as a line of the results CSV
+     */
+    public String toCsvRow() {
+        return csv(_graph) + "," + _nodes + "," + _processors + "," + _engine + "," + _threads + "," + _makespan + ","
+                + _expected + "," + _firstIncumbentMillis + "," + _optimumMillis + "," + _exploredStates + ","
+                + _prunedStates + "," + getStatesPerSecond() + "," + _peakResidentKilobytes + ","
+                + _peakHeapKilobytes + "," + _baselineMillis + "," + getChangePercent() + "," + csv(_status) + ","
+                + _steals + "," + join(_threadBusyMillis, ";");
+    }
+
+    /**
+     * @return this result as an object of the results JSON, with the same fields as the CSV
+     */
+    public String toJson() {
+        return "{\"graph\":" + JsonLinesScheduleWriter.quote(_graph) + ",\"nodes\":" + _nodes + ",\"processors\":"
+                + _processors + ",\"engine\":" + JsonLinesScheduleWriter.quote(_engine) + ",\"threads\":" + _threads
+                + ",\"makespan\":" + _makespan + ",\"expected\":" + _expected + ",\"first_incumbent_ms\":"
+                + _firstIncumbentMillis + ",\"optimum_ms\":" + _optimumMillis + ",\"explored_states\":"
+                + _exploredStates + ",\"pruned_states\":" + _prunedStates + ",\"states_per_second\":"
+                + getStatesPerSecond() + ",\"peak_rss_kb\":" + _peakResidentKilobytes + ",\"peak_heap_kb\":"
+                + _peakHeapKilobytes + ",\"baseline_ms\":" + _baselineMillis + ",\"change_percent\":"
+                + getChangePercent() + ",\"status\":" + JsonLinesScheduleWriter.quote(_status) + ",\"steals\":"
+                + _steals + ",\"thread_busy_ms\":[" + join(_threadBusyMillis, ",") + "]}";
+    }
+
+    private static String join(long[] values, String separator) {
+        StringBuilder joined = new StringBuilder();
+        for (long value : values) {
+            joined.append(joined.length() == 0 ? "" : separator).append(value);
+        }
+        return joined.toString();
+    }
+
+    /**
+     * Quotes a CSV field if it contains anything that would break the row
+     */
+    static String csv(String field) {
+        if (field.contains(",") || field.contains("\"") || field.contains("\n")) {
+            return "\"" + field.replace("\"", "\"\"") + "\"";
+        }
+        return field;
+    }
+}
@@ -0,0 +1,111 @@
+package nz.co.revilo.Benchmark;
+
+import nz.co.revilo.Batch.BatchInput;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Manifest of the optimal makespans of graphs, which benchmark runs are checked against. Each line is a graph's file
+ * name, without its directory, the number of processors and the optimal makespan on them, e.g.
+ * <pre>
+ * Fork_Nodes_10_CCR_0.10_WeightType_Random.gxl 2 300
+ * </pre>
+ * Lines starting with BatchInput.MANIFEST_COMMENT are ignored.
+ */
+public class ExpectedOptima {
+
+    private final Map<String, Integer> _makespans = new HashMap<>();
+
+    /**
+     * @param filename the manifest
+     * @return the optima it lists
+     */
+    public static ExpectedOptima read(String filename) {
+        ExpectedOptima optima = new ExpectedOptima();
+        try {
+            int lineNumber = 0;
+            for (String line : Files.readAllLines(Paths.get(filename), StandardCharsets.UTF_8)) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith(BatchInput.MANIFEST_COMMENT)) {
+                    continue;
+                }
+                String[] fields = line.split("\\s+");
+                if (fields.length < 3) {
+                    throw new RuntimeException(filename + " line " + lineNumber + ": Expected graph, processors "
+                            + "and makespan");
+                }
+                try {
+                    int processors = Integer.parseInt(fields[fields.length - 2]);
+                    int makespan = Integer.parseInt(fields[fields.length - 1]);
+                    String graph = line.replaceFirst("\\s+\\S+\\s+\\S+$", "");
+                    optima._makespans.put(key(graph, processors), makespan);
+                } catch (NumberFormatException e) {
+                    throw new RuntimeException(filename + " line " + lineNumber + ": Invalid processors or makespan");
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Expected optima could not be read: " + e.getMessage());
+        }
+        return optima;
+    }
+
+    /**
+     * Writes the makespans of the solved runs as a manifest, once for each graph and number of processors. A graph is
+     * left out if a run's makespan differs from the optimum it was expected to find, or runs of it differ from each
+     * other, as then the optimum isn't known.
+     *
+     * @param filename the manifest, which is replaced
+     * @param results  runs, the solved runs of each graph and processors have to agree
+     * @throws IOException if the manifest can't be written
+     */
+    public static void write(String filename, List<BenchmarkResult> results) throws IOException {
+        Map<String, Integer> makespans = new LinkedHashMap<>();
+        Set<String> disagreeing = new HashSet<>();
+        for (BenchmarkResult result : results) {
+            if (!result.isSolved()) {
+                continue;
+            }
+            String key = key(result.getGraph(), result.getProcessors());
+            Integer recorded = makespans.putIfAbsent(key, result.getMakespan());
+            if ((recorded != null && recorded != result.getMakespan()) || (result.getExpected() != BenchmarkResult.NOT_MEASURED
+                    && result.getExpected() != result.getMakespan())) {
+                disagreeing.add(key);
+            }
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add(BatchInput.MANIFEST_COMMENT + " graph processors optimal-makespan");
+        for (Map.Entry<String, Integer> makespan : makespans.entrySet()) {
+            if (disagreeing.contains(makespan.getKey())) {
+                System.err.println("Runs of " + makespan.getKey() + " processors found different makespans, left out of "
+                        + filename);
+            } else {
+                lines.add(makespan.getKey() + " " + makespan.getValue());
+            }
+        }
+        Files.write(Paths.get(filename), lines, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the optimal makespan of the graph on that many processors, or BenchmarkResult.NOT_MEASURED if it isn't
+     * listed
+     */
+    public int get(String graph, int processors) {
+        return _makespans.getOrDefault(key(graph, processors), BenchmarkResult.NOT_MEASURED);
+    }
+
+    private static String key(String graph, int processors) {
+        return new File(graph).getName() + " " + processors;
+    }
+}
@@ -0,0 +1,157 @@
+package nz.co.revilo.Benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares each parallel run with the sequential engine's run of the same graph on the same processors. Speedup is the
+ * sequential time to the proven optimum over the run's, efficiency the speedup per thread and search overhead how many
+ * more states the run explored. Busy time is the CPU time the searching threads used, idle time what's left of their
+ * wall clock time.
+ * <p>
+ * Branch and bound can explore a different tree in parallel, finding a good incumbent sooner or later than the
+ * sequential search, so runs faster than linear are marked ANOMALY_SUPERLINEAR and runs with more threads slower than
+ * the sequential engine ANOMALY_SLOWDOWN.
+ */
+public class ScalabilityReport {
+
+    public static final String CSV_HEADER = "graph,processors,engine,threads,optimum_ms,sequential_ms,speedup,"
+            + "efficiency,explored_states,sequential_states,search_overhead_percent,steals,busy_ms,idle_ms,"
+            + "min_thread_busy_ms,max_thread_busy_ms,anomaly";
+    public static final String ANOMALY_SUPERLINEAR = "SUPERLINEAR";
+    public static final String ANOMALY_SLOWDOWN = "SLOWDOWN";
+
+    private final List<BenchmarkResult> _runs = new ArrayList<>();
+    private final Map<String, BenchmarkResult> _references = new HashMap<>();
+
+    /**
+     * @param results the runs, only solved runs are compared and only with a solved sequential run on one thread
+     */
+    public ScalabilityReport(List<BenchmarkResult> results) {
+        for (BenchmarkResult result : results) {
+            if (result.isSolved() && result.getEngine().equals(BenchmarkProbe.SEQUENTIAL_ENGINE)) {
+                _references.putIfAbsent(referenceKey(result), result);
+            }
+        }
+        for (BenchmarkResult result : results) {
+            if (result.isSolved() && !result.getEngine().equals(BenchmarkProbe.SEQUENTIAL_ENGINE)
+                    && _references.containsKey(referenceKey(result))) {
+                _runs.add(result);
+            }
+        }
+    }
+
+    /**
+     * @return the parallel runs compared, in the order they were run
+     */
+    public List<BenchmarkResult> getRuns() {
+        return new ArrayList<>(_runs);
+    }
+
+    /**
+     * @return sequential time to the proven optimum over the run's, or 0 if the run took under a millisecond
+     */
+    public double getSpeedup(BenchmarkResult run) {
+        return run.getOptimumMillis() > 0
+                ? (double) reference(run).getOptimumMillis() / run.getOptimumMillis() : 0;
+    }
+
+    /**
+     * @return speedup per thread, 1 being linear
+     */
+    public double getEfficiency(BenchmarkResult run) {
+        return getSpeedup(run) / run.getThreads();
+    }
+
+    /**
+     * @return how many more states the run explored than the sequential run as a percentage, negative if fewer
+     */
+    public long getSearchOverheadPercent(BenchmarkResult run) {
+        long sequential = reference(run).getExploredStates();
+        return sequential > 0 ? Math.round((run.getExploredStates() - sequential) * 100.0 / sequential) : 0;
+    }
+
+    /**
+     * @return ANOMALY_SUPERLINEAR, ANOMALY_SLOWDOWN or an empty string
+     */
+    public String getAnomaly(BenchmarkResult run) {
+        if (getSpeedup(run) > run.getThreads()) {
+            return ANOMALY_SUPERLINEAR;
+        } else if (run.getThreads() > 1 && getSpeedup(run) < 1) {
+            return ANOMALY_SLOWDOWN;
+        }
+        return "";
+    }
+
+    /**
+     * @return milliseconds the searching threads were busy in total
+     */
+    public static long getBusyMillis(BenchmarkResult run) {
+        long busy = 0;
+        for (long millis : run.getThreadBusyMillis()) {
+            busy += millis;
+        }
+        return busy;
+    }
+
+    /**
+     * @return milliseconds the searching threads weren't busy in total during the search
+     */
+    public static long getIdleMillis(BenchmarkResult run) {
+        return Math.max(0, run.getThreads() * run.getOptimumMillis() - getBusyMillis(run));
+    }
+
+    /**
+     * @return the report as the lines of SolverBenchmark.SCALABILITY_CSV
+     */
+    public List<String> toCsv() {
+        List<String> lines = new ArrayList<>();
+        lines.add(CSV_HEADER);
+        for (BenchmarkResult run : _runs) {
+            long[] busy = run.getThreadBusyMillis();
+            BenchmarkResult reference = reference(run);
+            lines.add(BenchmarkResult.csv(run.getGraph()) + "," + run.getProcessors() + ","
+                    + run.getEngine() + "," + run.getThreads() + "," + run.getOptimumMillis() + ","
+                    + reference.getOptimumMillis() + "," + format(getSpeedup(run)) + ","
+                    + format(getEfficiency(run)) + "," + run.getExploredStates() + ","
+                    + reference.getExploredStates() + "," + getSearchOverheadPercent(run) + "," + run.getSteals()
+                    + "," + getBusyMillis(run) + "," + getIdleMillis(run) + ","
+                    + (busy.length > 0 ? busy[busy.length - 1] : 0) + "," + (busy.length > 0 ? busy[0] : 0) + ","
+                    + getAnomaly(run));
+        }
+        return lines;
+    }
+
+    /**
+     * @return a line for each run compared, highlighting anomalies
+     */
+    public List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        for (BenchmarkResult run : _runs) {
+            String line = new File(run.getGraph()).getName() + " on " + run.getProcessors() + " processors, "
+                    + run.getEngine() + " on " + run.getThreads() + " threads: speedup " + format(getSpeedup(run))
+                    + ", efficiency " + format(getEfficiency(run)) + ", search overhead "
+                    + String.format(Locale.ROOT, "%+d", getSearchOverheadPercent(run)) + "%, "
+                    + (run.getSteals() == BenchmarkResult.NOT_MEASURED ? "" : run.getSteals() + " steals, ")
+                    + "busy " + getBusyMillis(run) + " ms, idle " + getIdleMillis(run) + " ms";
+            lines.add(getAnomaly(run).isEmpty() ? line : line + "  <-- " + getAnomaly(run));
+        }
+        return lines;
+    }
+
+    private BenchmarkResult reference(BenchmarkResult run) {
+        return _references.get(referenceKey(run));
+    }
+
+    private static String referenceKey(BenchmarkResult result) {
+        return result.getGraph() + " " + result.getProcessors();
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+}
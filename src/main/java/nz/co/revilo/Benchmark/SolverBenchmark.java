@@ -0,0 +1,339 @@
+package nz.co.revilo.Benchmark;
+
+import nz.co.revilo.Batch.BatchInput;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solves every graph of a set on every number of processors with every engine and thread count, each in a
+ * BenchmarkProbe JVM of its own, and writes what was measured to RESULTS_CSV and RESULTS_JSON in the output directory.
+ * Makespans are checked against expected optima and times to the proven optimum against a baseline, the RESULTS_CSV
+ * of an earlier run. The benchmark passes only if every run found the expected makespan in time without regressing.
+ * <p>
+ * Measuring scalability, each graph is also solved by the sequential engine on one thread first, which every other
+ * run is compared with in a ScalabilityReport written to SCALABILITY_CSV.
+ */
+public class SolverBenchmark {
+
+    public static final String DEFAULT_OUTPUT_DIRECTORY = "benchmark-output";
+    public static final String RESULTS_CSV = "results.csv";
+    public static final String RESULTS_JSON = "results.json";
+    public static final String SCALABILITY_CSV = "scalability.csv";
+    public static final String DEFAULT_ENGINES = BenchmarkProbe.SEQUENTIAL_ENGINE + ","
+            + BenchmarkProbe.FORK_JOIN_ENGINE + "," + BenchmarkProbe.PARATASK_ENGINE;
+    public static final String DEFAULT_THREADS = "1,2,4";
+    public static final int DEFAULT_THRESHOLD_PERCENT = 10;
+    public static final int DEFAULT_TIMEOUT_SECONDS = 60;
+    // Baseline runs shorter than this vary too much between runs to call slower runs regressions
+    public static final long MINIMUM_COMPARABLE_MILLIS = 50;
+    public static final int FAILED_EXIT_STATUS = 3;
+
+    private final List<String> _graphs;
+    private final List<Integer> _processors;
+    private final List<String> _engines;
+    private final List<Integer> _threads;
+    private ExpectedOptima _expected;
+    private Map<String, Long> _baseline;
+    private int _thresholdPercent = DEFAULT_THRESHOLD_PERCENT;
+    private int _timeoutSeconds = DEFAULT_TIMEOUT_SECONDS;
+    private boolean _scalability;
+
+    /**
+     * @param graphs     a graph file, or a directory, glob or manifest of graph files as for a batch
+     * @param processors comma separated numbers of processors to schedule each graph on
+     * @param engines    comma separated engines, BenchmarkProbe's
+     * @param threads    comma separated thread counts, each engine is run on those it can use
+     */
+    public SolverBenchmark(String graphs, String processors, String engines, String threads) {
+        _graphs = new ArrayList<>();
+        if (BatchInput.isGraphFile(graphs) && new File(graphs).isFile()) {
+            _graphs.add(graphs);
+        } else {
+            for (BatchInput input : BatchInput.resolve(graphs, 1)) {
+                _graphs.add(input.getFilename());
+            }
+        }
+        _processors = parseCounts(processors, "processors");
+        _engines = Arrays.asList(engines.split(","));
+        for (String engine : _engines) {
+            if (!engine.equals(BenchmarkProbe.SEQUENTIAL_ENGINE) && !engine.equals(BenchmarkProbe.FORK_JOIN_ENGINE)
+                    && !engine.equals(BenchmarkProbe.PARATASK_ENGINE)) {
+                throw new RuntimeException("Unknown engine " + engine + ", expected " + DEFAULT_ENGINES);
+            }
+        }
+        _threads = parseCounts(threads, "threads");
+    }
+
+    /**
+     * @param filename manifest of expected optima, see ExpectedOptima
+     */
+    public void setExpected(String filename) {
+        _expected = ExpectedOptima.read(filename);
+    }
+
+    /**
+     * @param filename RESULTS_CSV of an earlier run to compare times against
+     */
+    public void setBaseline(String filename) {
+        _baseline = readBaseline(filename);
+    }
+
+    /**
+     * @param thresholdPercent how much longer than the baseline a run can take before it's a regression
+     */
+    public void setThresholdPercent(int thresholdPercent) {
+        _thresholdPercent = thresholdPercent;
+    }
+
+    /**
+     * @param timeoutSeconds how long a run can take before it's stopped
+     */
+    public void setTimeoutSeconds(int timeoutSeconds) {
+        _timeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * @param scalability whether to run the sequential reference and write a ScalabilityReport
+     */
+    public void setScalability(boolean scalability) {
+        _scalability = scalability;
+    }
+
+    /**
+     * @param maximum most threads, usually the number of cores
+     * @return 1 and each doubling below maximum, then maximum, separated by commas
+     */
+    public static String scalingThreads(int maximum) {
+        StringBuilder threads = new StringBuilder("1");
+        for (int count = 2; count < maximum; count *= 2) {
+            threads.append(",").append(count);
+        }
+        return maximum > 1 ? threads + "," + maximum : threads.toString();
+    }
+
+    /**
+     * Runs every combination in turn, printing a line for each, and writes the results
+     *
+     * @param outputDirectory where RESULTS_CSV and RESULTS_JSON, and SCALABILITY_CSV if measuring scalability, are
+     *                        written, created if need be
+     * @return the results in the order they were run
+     */
+    public List<BenchmarkResult> run(String outputDirectory) {
+        List<BenchmarkResult> results = new ArrayList<>();
+        for (String graph : _graphs) {
+            for (int processors : _processors) {
+                if (_scalability) {
+                    BenchmarkResult reference = runProbe(graph, processors, BenchmarkProbe.SEQUENTIAL_ENGINE, 1);
+                    results.add(reference);
+                    System.out.println(describe(reference));
+                }
+                for (String engine : _engines) {
+                    for (int threads : _threads) {
+                        boolean reference = _scalability && engine.equals(BenchmarkProbe.SEQUENTIAL_ENGINE);
+                        if (BenchmarkProbe.runsOn(engine, threads) && !reference) {
+                            BenchmarkResult result = runProbe(graph, processors, engine, threads);
+                            results.add(result);
+                            System.out.println(describe(result));
+                        }
+                    }
+                }
+            }
+        }
+
+        try {
+            Path directory = Files.createDirectories(Paths.get(outputDirectory));
+            List<String> csv = new ArrayList<>();
+            List<String> json = new ArrayList<>();
+            csv.add(BenchmarkResult.CSV_HEADER);
+            for (BenchmarkResult result : results) {
+                csv.add(result.toCsvRow());
+                json.add((json.isEmpty() ? "[" : ",") + result.toJson());
+            }
+            json.add(json.isEmpty() ? "[]" : "]");
+            Files.write(directory.resolve(RESULTS_CSV), csv, StandardCharsets.UTF_8);
+            Files.write(directory.resolve(RESULTS_JSON), json, StandardCharsets.UTF_8);
+            if (_scalability) {
+                ScalabilityReport report = new ScalabilityReport(results);
+                Files.write(directory.resolve(SCALABILITY_CSV), report.toCsv(), StandardCharsets.UTF_8);
+                for (String line : report.describe()) {
+                    System.out.println(line);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Benchmark results could not be written: " + e.getMessage());
+        }
+
+        int failed = 0;
+        for (BenchmarkResult result : results) {
+            if (!result.getStatus().equals(BenchmarkResult.STATUS_OK)) {
+                failed++;
+            }
+        }
+        System.out.println(results.size() + " benchmark runs, " + failed + " failed. Results written to "
+                + new File(outputDirectory, RESULTS_CSV).getPath());
+        return results;
+    }
+
+    /**
+     * @return whether every run found the expected makespan in time without regressing
+     */
+    public static boolean passed(List<BenchmarkResult> results) {
+        for (BenchmarkResult result : results) {
+            if (!result.getStatus().equals(BenchmarkResult.STATUS_OK)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Starts a BenchmarkProbe JVM with the same classpath and waits for it, up to the timeout
+     */
+    private BenchmarkResult runProbe(String graph, int processors, String engine, int threads) {
+        BenchmarkResult result = new BenchmarkResult(graph, processors, engine, threads);
+        File output = null;
+        try {
+            output = File.createTempFile("revilo-benchmark", ".txt");
+            Process probe = new ProcessBuilder(
+                    Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", System.getProperty("java.class.path"), BenchmarkProbe.class.getName(),
+                    graph, Integer.toString(processors), engine, Integer.toString(threads))
+                    .redirectOutput(output)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            if (!probe.waitFor(_timeoutSeconds, TimeUnit.SECONDS)) {
+                probe.destroyForcibly().waitFor();
+                result.setFailed(BenchmarkResult.STATUS_TIMEOUT);
+                return result;
+            }
+            for (String line : Files.readAllLines(output.toPath(), StandardCharsets.UTF_8)) {
+                if (line.startsWith(BenchmarkProbe.RESULT_PREFIX)) {
+                    result.setMeasurements(line.substring(BenchmarkProbe.RESULT_PREFIX.length()));
+                }
+            }
+            if (result.getMakespan() == BenchmarkResult.NOT_MEASURED) {
+                result.setFailed("FAILED (exit status " + probe.exitValue() + ")");
+                return result;
+            }
+        } catch (IOException e) {
+            result.setFailed("FAILED (" + e.getMessage() + ")");
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            result.setFailed("FAILED (interrupted)");
+            return result;
+        } finally {
+            if (output != null) {
+                output.delete();
+            }
+        }
+
+        if (_expected != null) {
+            result.setExpected(_expected.get(graph, processors));
+        }
+        if (_baseline != null && _baseline.containsKey(result.key())) {
+            result.setBaselineMillis(_baseline.get(result.key()), _thresholdPercent, MINIMUM_COMPARABLE_MILLIS);
+        }
+        return result;
+    }
+
+    /**
+     * @return a line describing the run, highlighting what made it fail
+     */
+    private static String describe(BenchmarkResult result) {
+        String run = new File(result.getGraph()).getName() + " on " + result.getProcessors() + " processors, "
+                + result.getEngine() + " on " + result.getThreads() + " threads: ";
+        if (!result.isSolved()) {
+            return run + result.getStatus();
+        }
+        String line = run + "makespan " + result.getMakespan() + " in " + result.getOptimumMillis() + " ms, "
+                + result.getStatesPerSecond() + " states/s";
+        if (!result.getStatus().equals(BenchmarkResult.STATUS_OK)) {
+            line += "  <-- " + result.getStatus()
+                    + (result.getStatus().equals(BenchmarkResult.STATUS_REGRESSION)
+                    ? " (+" + result.getChangePercent() + "% on the baseline)" : "");
+        }
+        return line;
+    }
+
+    /**
+     * @return time to the proven optimum of each run of an earlier RESULTS_CSV, by BenchmarkResult.key
+     */
+    private static Map<String, Long> readBaseline(String filename) {
+        try {
+            List<String> lines = Files.readAllLines(Paths.get(filename), StandardCharsets.UTF_8);
+            // Columns are found by name so results written before columns were added can still be the baseline
+            List<String> columns = lines.isEmpty() ? new ArrayList<>() : Arrays.asList(lines.get(0).split(","));
+            if (!columns.containsAll(Arrays.asList("graph", "processors", "engine", "threads", "optimum_ms"))) {
+                throw new RuntimeException("Baseline " + filename + " isn't a " + RESULTS_CSV + " of the benchmark");
+            }
+            Map<String, Long> baseline = new HashMap<>();
+            for (String line : lines.subList(1, lines.size())) {
+                List<String> row = splitCsv(line);
+                if (Long.parseLong(row.get(columns.indexOf("optimum_ms"))) != BenchmarkResult.NOT_MEASURED) {
+                    baseline.put(BenchmarkResult.key(row.get(columns.indexOf("graph")),
+                            Integer.parseInt(row.get(columns.indexOf("processors"))),
+                            row.get(columns.indexOf("engine")), Integer.parseInt(row.get(columns.indexOf("threads")))),
+                            Long.parseLong(row.get(columns.indexOf("optimum_ms"))));
+                }
+            }
+            return baseline;
+        } catch (IOException e) {
+            throw new RuntimeException("Baseline could not be read: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return the fields of a CSV row, unquoted
+     */
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted && c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                field.append('"');
+                i++;
+            } else if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * @return the positive numbers in a comma separated list
+     */
+    static List<Integer> parseCounts(String list, String what) {
+        List<Integer> counts = new ArrayList<>();
+        for (String count : list.split(",")) {
+            try {
+                counts.add(Integer.parseInt(count.trim()));
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Invalid " + what + " " + count + ", expected numbers separated by commas");
+            }
+            if (counts.get(counts.size() - 1) < 1) {
+                throw new RuntimeException("Need at least one of " + what);
+            }
+        }
+        return counts;
+    }
+}
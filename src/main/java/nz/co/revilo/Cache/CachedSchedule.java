@@ -0,0 +1,34 @@
+package nz.co.revilo.Cache;
+
+/**
+ * An optimal schedule held by the result cache, with one start time and processor per node
+ */
+public class CachedSchedule {
+
+    private final int _makespan;
+    private final int[] _startTimes;
+    private final int[] _processors;
+
+    /**
+     * @param makespan   finish time of the last node
+     * @param startTimes start time of each node
+     * @param processors processor of each node, from 0
+     */
+    public CachedSchedule(int makespan, int[] startTimes, int[] processors) {
+        _makespan = makespan;
+        _startTimes = startTimes;
+        _processors = processors;
+    }
+
+    public int getMakespan() {
+        return _makespan;
+    }
+
+    public int[] getStartTimes() {
+        return _startTimes;
+    }
+
+    public int[] getProcessors() {
+        return _processors;
+    }
+}
@@ -0,0 +1,285 @@
+package nz.co.revilo.Cache;
+
+import nz.co.revilo.Input.SparseGraph;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A weighted task graph put into an order which doesn't depend on what its nodes are called or the order they were
+ * read in, so the same graph always has the same hash.
+ * <p>
+ * Nodes are ordered by colour refinement: every node starts with its weight, and each round a node's colour becomes
+ * its old colour together with the weights and colours at both ends of its arcs, until no more nodes can be told
+ * apart. Nodes still alike are split one at a time, refining after each. Graphs with symmetric parts this can't order
+ * the same way every time just miss the cache, as entries are only used when the whole canonical graph matches.
+ */
+public class CanonicalGraph {
+
+    private static final int NO_ARC = -1;
+
+    private final int[] _order;
+    private final int[] _position;
+    private final byte[] _encoding;
+    private final String _hash;
+
+    private CanonicalGraph(int[] order, byte[] encoding, String hash) {
+        _order = order;
+        _position = new int[order.length];
+        for (int position = 0; position < order.length; position++) {
+            _position[order[position]] = position;
+        }
+        _encoding = encoding;
+        _hash = hash;
+    }
+
+    /**
+     * Puts a graph given in adjacency matrix form into canonical order
+     *
+     * @param nodeWeights weight of each node
+     * @param arcs        arcs[from][to] is true where there is an arc
+     * @param arcWeights  weight of each arc
+     * @return the canonical graph
+     */
+    public static CanonicalGraph of(int[] nodeWeights, boolean[][] arcs, int[][] arcWeights) {
+        return of(SparseGraph.fromDense(null, new String[nodeWeights.length], nodeWeights, arcs, arcWeights));
+    }
+
+    /**
+     * Puts a graph into canonical order
+     *
+     * @param graph the graph, whose names don't matter
+     * @return the canonical graph
+     */
+    public static CanonicalGraph of(SparseGraph graph) {
+        int numNodes = graph.getNodeCount();
+        int[] nodeWeights = graph.getNodeWeights();
+        List<List<int[]>> outArcs = new ArrayList<>();
+        List<List<int[]>> inArcs = new ArrayList<>();
+        for (int node = 0; node < numNodes; node++) {
+            List<int[]> out = new ArrayList<>(graph.outEnd(node) - graph.outStart(node));
+            for (int arc = graph.outStart(node); arc < graph.outEnd(node); arc++) {
+                out.add(new int[]{graph.outTarget(arc), graph.outWeight(arc)});
+            }
+            outArcs.add(out);
+            List<int[]> in = new ArrayList<>(graph.inEnd(node) - graph.inStart(node));
+            for (int arc = graph.inStart(node); arc < graph.inEnd(node); arc++) {
+                in.add(new int[]{graph.inSource(arc), graph.inWeight(arc)});
+            }
+            inArcs.add(in);
+        }
+
+        int[] colours = refine(new int[numNodes], nodeWeights, outArcs, inArcs);
+        int distinct = countColours(colours);
+        while (distinct < numNodes) {
+            // Split off the first node of the first colour shared by several nodes
+            int[] sizes = new int[numNodes];
+            for (int colour : colours) {
+                sizes[colour]++;
+            }
+            int shared = 0;
+            while (sizes[shared] < 2) {
+                shared++;
+            }
+            int chosen = 0;
+            while (colours[chosen] != shared) {
+                chosen++;
+            }
+            for (int node = 0; node < numNodes; node++) {
+                if (colours[node] > shared || (colours[node] == shared && node != chosen)) {
+                    colours[node]++;
+                }
+            }
+            colours = refine(colours, nodeWeights, outArcs, inArcs);
+            distinct = countColours(colours);
+        }
+
+        int[] order = new int[numNodes];
+        for (int node = 0; node < numNodes; node++) {
+            order[colours[node]] = node;
+        }
+        byte[] encoding = encode(order, colours, nodeWeights, outArcs);
+        return new CanonicalGraph(order, encoding, sha256(encoding));
+    }
+
+    /**
+     * @return hex SHA-256 of the canonical encoding
+     */
+    public String getHash() {
+        return _hash;
+    }
+
+    /**
+     * @return number of nodes of the graph
+     */
+    public int getNodeCount() {
+        return _order.length;
+    }
+
+    /**
+     * @return the graph written out in canonical order, equal for two graphs only if they are the same graph
+     */
+    public byte[] getEncoding() {
+        return _encoding.clone();
+    }
+
+    /**
+     * @param encoding another canonical encoding
+     * @return whether it is this graph
+     */
+    public boolean matches(byte[] encoding) {
+        return Arrays.equals(_encoding, encoding);
+    }
+
+    /**
+     * @param values one value per node in the order the graph was read in
+     * @return the values in canonical order
+     */
+    public int[] toCanonicalOrder(int[] values) {
+        int[] canonical = new int[values.length];
+        for (int node = 0; node < values.length; node++) {
+            canonical[_position[node]] = values[node];
+        }
+        return canonical;
+    }
+
+    /**
+     * @param canonical one value per node in canonical order
+     * @return the values in the order the graph was read in
+     */
+    public int[] toInputOrder(int[] canonical) {
+        int[] values = new int[canonical.length];
+        for (int position = 0; position < canonical.length; position++) {
+            values[_order[position]] = canonical[position];
+        }
+        return values;
+    }
+
+    /**
+     * Refines colours until no more nodes can be told apart. Colours are numbered 0 upwards by sorting the nodes'
+     * signatures, so they don't depend on the order of the nodes.
+     */
+    private static int[] refine(int[] colours, int[] nodeWeights, List<List<int[]>> outArcs, List<List<int[]>> inArcs) {
+        int numNodes = colours.length;
+        int distinct = countColours(colours);
+        while (true) {
+            int[][] signatures = new int[numNodes][];
+            for (int node = 0; node < numNodes; node++) {
+                int[] out = neighbourColours(outArcs.get(node), colours);
+                int[] in = neighbourColours(inArcs.get(node), colours);
+                int[] signature = new int[3 + out.length + in.length];
+                signature[0] = colours[node];
+                signature[1] = nodeWeights[node];
+                signature[2] = out.length;
+                System.arraycopy(out, 0, signature, 3, out.length);
+                System.arraycopy(in, 0, signature, 3 + out.length, in.length);
+                signatures[node] = signature;
+            }
+
+            Integer[] nodes = new Integer[numNodes];
+            for (int node = 0; node < numNodes; node++) {
+                nodes[node] = node;
+            }
+            Comparator<Integer> bySignature = (a, b) -> compare(signatures[a], signatures[b]);
+            Arrays.sort(nodes, bySignature);
+            int[] refined = new int[numNodes];
+            int colour = 0;
+            for (int i = 0; i < numNodes; i++) {
+                if (i > 0 && bySignature.compare(nodes[i - 1], nodes[i]) != 0) {
+                    colour++;
+                }
+                refined[nodes[i]] = colour;
+            }
+
+            int refinedDistinct = numNodes == 0 ? 0 : colour + 1;
+            if (refinedDistinct == distinct) {
+                return refined;
+            }
+            colours = refined;
+            distinct = refinedDistinct;
+        }
+    }
+
+    /**
+     * @return (weight, colour) pairs of a node's arcs, sorted and flattened
+     */
+    private static int[] neighbourColours(List<int[]> arcs, int[] colours) {
+        long[] pairs = new long[arcs.size()];
+        for (int i = 0; i < pairs.length; i++) {
+            int[] arc = arcs.get(i);
+            pairs[i] = ((long) arc[1] << 32) | (colours[arc[0]] & 0xFFFFFFFFL);
+        }
+        Arrays.sort(pairs);
+        int[] flat = new int[pairs.length * 2];
+        for (int i = 0; i < pairs.length; i++) {
+            flat[2 * i] = (int) (pairs[i] >> 32);
+            flat[2 * i + 1] = (int) pairs[i];
+        }
+        return flat;
+    }
+
+    private static int compare(int[] a, int[] b) {
+        for (int i = 0; i < Math.min(a.length, b.length); i++) {
+            if (a[i] != b[i]) {
+                return Integer.compare(a[i], b[i]);
+            }
+        }
+        return Integer.compare(a.length, b.length);
+    }
+
+    private static int countColours(int[] colours) {
+        int max = -1;
+        for (int colour : colours) {
+            max = Math.max(max, colour);
+        }
+        return max + 1;
+    }
+
+    /**
+     * Writes node count, node weights and then each node's arcs as (target, weight), all in canonical order
+     */
+    private static byte[] encode(int[] order, int[] position, int[] nodeWeights, List<List<int[]>> outArcs) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(order.length);
+            for (int node : order) {
+                out.writeInt(nodeWeights[node]);
+            }
+            for (int node : order) {
+                List<int[]> arcs = outArcs.get(node);
+                long[] targets = new long[arcs.size()];
+                for (int i = 0; i < targets.length; i++) {
+                    targets[i] = ((long) position[arcs.get(i)[0]] << 32) | (arcs.get(i)[1] & 0xFFFFFFFFL);
+                }
+                Arrays.sort(targets);
+                for (long target : targets) {
+                    out.writeInt((int) (target >> 32));
+                    out.writeInt((int) target);
+                }
+                out.writeInt(NO_ARC);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not encode graph", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            StringBuilder hex = new StringBuilder();
+            for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
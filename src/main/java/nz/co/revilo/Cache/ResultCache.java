@@ -0,0 +1,219 @@
+package nz.co.revilo.Cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optimal schedules already found, kept in a directory with the most recently used also held in memory. Entries are
+ * keyed by the canonical hash of the graph and the number of processors, so a graph that was solved before under
+ * different node names or in a different order is found too. Safe to share between threads.
+ * <p>
+ * Each entry is one file of big-endian ints: magic, version, processors, the canonical encoding's length and bytes,
+ * the makespan, then the start time and processor of every node in canonical order.
+ */
+public class ResultCache {
+
+    public static final int MAGIC = 0x52565343;
+    public static final int VERSION = 1;
+    public static final String FILE_EXTENSION = ".rvs";
+    public static final int DEFAULT_MEMORY_ENTRIES = 256;
+    // Bytes of an entry besides the encoding and the nodes: magic, version, processors, encoding length, makespan and
+    // node count
+    private static final int HEADER_BYTES = 6 * Integer.BYTES;
+
+    private final File _directory;
+    private final Map<String, Entry> _memory;
+    private final AtomicLong _hits = new AtomicLong();
+    private final AtomicLong _misses = new AtomicLong();
+
+    /**
+     * @param directory where entries are kept, created if needed
+     */
+    public ResultCache(String directory) {
+        this(directory, DEFAULT_MEMORY_ENTRIES);
+    }
+
+    /**
+     * @param directory     where entries are kept, created if needed
+     * @param memoryEntries number of most recently used entries also kept in memory
+     */
+    public ResultCache(String directory, int memoryEntries) {
+        _directory = new File(directory);
+        if (!_directory.isDirectory() && !_directory.mkdirs()) {
+            throw new RuntimeException("Cache directory could not be created");
+        }
+        _memory = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > memoryEntries;
+            }
+        };
+    }
+
+    /**
+     * Finds the optimal schedule of a graph if it has been solved before
+     *
+     * @param graph      the graph in canonical order
+     * @param processors number of processors scheduled on
+     * @return the schedule with nodes in the order the graph was read in, or null if it hasn't been solved
+     */
+    public CachedSchedule lookup(CanonicalGraph graph, int processors) {
+        String key = keyOf(graph, processors);
+        Entry entry;
+        synchronized (_memory) {
+            entry = _memory.get(key);
+        }
+        if (entry == null) {
+            entry = read(fileOf(key), processors, graph.getNodeCount());
+            if (entry != null) {
+                synchronized (_memory) {
+                    _memory.put(key, entry);
+                }
+            }
+        }
+        if (entry == null || !graph.matches(entry._encoding)) {
+            _misses.incrementAndGet();
+            return null;
+        }
+        _hits.incrementAndGet();
+        return new CachedSchedule(entry._makespan, graph.toInputOrder(entry._startTimes), graph.toInputOrder(entry._processors));
+    }
+
+    /**
+     * Keeps the optimal schedule of a graph. Failing to write it to disk only loses the entry.
+     *
+     * @param graph      the graph in canonical order
+     * @param processors number of processors scheduled on
+     * @param schedule   the schedule with nodes in the order the graph was read in
+     */
+    public void store(CanonicalGraph graph, int processors, CachedSchedule schedule) {
+        String key = keyOf(graph, processors);
+        Entry entry = new Entry(graph.getEncoding(), schedule.getMakespan(),
+                graph.toCanonicalOrder(schedule.getStartTimes()), graph.toCanonicalOrder(schedule.getProcessors()));
+        synchronized (_memory) {
+            _memory.put(key, entry);
+        }
+        try {
+            write(fileOf(key), processors, entry);
+        } catch (IOException e) {
+            System.err.println("Result could not be written to the cache: " + e.getMessage());
+        }
+    }
+
+    public long getHits() {
+        return _hits.get();
+    }
+
+    public long getMisses() {
+        return _misses.get();
+    }
+
+    private static String keyOf(CanonicalGraph graph, int processors) {
+        return graph.getHash() + "-p" + processors;
+    }
+
+    private File fileOf(String key) {
+        return new File(_directory, key + FILE_EXTENSION);
+    }
+
+    /**
+     * @return the entry in a file, or null if there is none or it can't be read. Lengths in the file are checked against
+     * the file's length and the graph's node count before anything is allocated, so a corrupt entry is only a miss.
+     */
+    private static Entry read(File file, int processors, int graphNodes) {
+        if (!file.isFile()) {
+            return null;
+        }
+        long expectedLength = HEADER_BYTES + graphNodes * 2L * Integer.BYTES;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readInt() != processors) {
+                return null;
+            }
+            int encodingLength = in.readInt();
+            if (encodingLength < 0 || expectedLength + encodingLength != file.length()) {
+                throw new IOException("wrong length");
+            }
+            byte[] encoding = new byte[encodingLength];
+            in.readFully(encoding);
+            int makespan = in.readInt();
+            int numNodes = in.readInt();
+            if (numNodes != graphNodes) {
+                throw new IOException("wrong node count");
+            }
+            int[] startTimes = new int[numNodes];
+            int[] nodeProcessors = new int[numNodes];
+            for (int node = 0; node < numNodes; node++) {
+                startTimes[node] = in.readInt();
+            }
+            for (int node = 0; node < numNodes; node++) {
+                nodeProcessors[node] = in.readInt();
+            }
+            return new Entry(encoding, makespan, startTimes, nodeProcessors);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Ignoring unreadable cache entry " + file.getName());
+            return null;
+        }
+    }
+
+    /**
+     * Writes an entry to a temporary file and moves it into place, so readers never see half an entry
+     */
+    private void write(File file, int processors, Entry entry) throws IOException {
+        File temporary = File.createTempFile(file.getName(), ".tmp", _directory);
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(processors);
+                out.writeInt(entry._encoding.length);
+                out.write(entry._encoding);
+                out.writeInt(entry._makespan);
+                out.writeInt(entry._startTimes.length);
+                for (int startTime : entry._startTimes) {
+                    out.writeInt(startTime);
+                }
+                for (int processor : entry._processors) {
+                    out.writeInt(processor);
+                }
+            }
+            try {
+                Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+    }
+
+    /**
+     * A schedule in canonical order with the graph it belongs to
+     */
+    private static class Entry {
+        private final byte[] _encoding;
+        private final int _makespan;
+        private final int[] _startTimes;
+        private final int[] _processors;
+
+        Entry(byte[] encoding, int makespan, int[] startTimes, int[] processors) {
+            _encoding = encoding;
+            _makespan = makespan;
+            _startTimes = startTimes;
+            _processors = processors;
+        }
+    }
+}
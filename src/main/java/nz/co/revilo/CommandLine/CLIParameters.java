@@ -1,6 +1,12 @@
 package nz.co.revilo.CommandLine;
 
 import com.beust.jcommander.Parameter;
+import nz.co.revilo.Benchmark.SolverBenchmark;
+import nz.co.revilo.Daemon.DaemonProtocol;
+import nz.co.revilo.Generator.GraphGenerator;
+import nz.co.revilo.Output.DotFileProducer;
+import nz.co.revilo.Scheduling.CheckpointingBranchAndBoundAlgorithmManager;
+import nz.co.revilo.Scheduling.CoreBudgetScheduler;
 
 /**
  * Holds the parameters used for CLI parsing as well as their getters. The instance variables
@@ -20,6 +26,68 @@ public class CLIParameters {
     private String _outputName = null; //should get input name actually
     @Parameter(names={"--help", "-h"}, help = true)
     private boolean help;
+    @Parameter(names = {"--batch", "-b"})
+    private boolean _batch = false;
+    @Parameter(names = {"--daemon"})
+    private boolean _daemon = false;
+    @Parameter(names = {"--client"})
+    private boolean _client = false;
+    @Parameter(names = {"--port"})
+    private int _port = DaemonProtocol.DEFAULT_PORT;
+    @Parameter(names = {"--priority"})
+    private int _priority = CoreBudgetScheduler.DEFAULT_PRIORITY;
+    @Parameter(names = {"--deadline"})
+    private long _deadline = CoreBudgetScheduler.NO_DEADLINE;
+    @Parameter(names = {"--cache"})
+    private String _cacheDirectory = null;
+    @Parameter(names = {"--warm-start"})
+    private String _warmStartFilename = null;
+    @Parameter(names = {"--checkpoint"})
+    private String _checkpointFilename = null;
+    @Parameter(names = {"--checkpoint-interval"})
+    private int _checkpointIntervalSeconds = (int) (CheckpointingBranchAndBoundAlgorithmManager.DEFAULT_INTERVAL_MILLIS / 1000);
+    @Parameter(names = {"--resume"})
+    private boolean _resume = false;
+    @Parameter(names = {"--coordinate"})
+    private boolean _coordinate = false;
+    @Parameter(names = {"--worker"})
+    private boolean _worker = false;
+    @Parameter(names = {"--stream"})
+    private boolean _stream = false;
+    @Parameter(names = {"--progressive"})
+    private boolean _progressive = false;
+    @Parameter(names = {"--format"})
+    private String _format = DotFileProducer.DOT_FORMAT;
+    @Parameter(names = {"--profile"})
+    private String _profileFilename = null;
+    @Parameter(names = {"--engines"})
+    private String _engines = SolverBenchmark.DEFAULT_ENGINES;
+    @Parameter(names = {"--threads"})
+    private String _threads = null;
+    @Parameter(names = {"--scalability"})
+    private boolean _scalability = false;
+    @Parameter(names = {"--expected"})
+    private String _expectedFilename = null;
+    @Parameter(names = {"--record-expected"})
+    private String _recordExpectedFilename = null;
+    @Parameter(names = {"--baseline"})
+    private String _baselineFilename = null;
+    @Parameter(names = {"--threshold"})
+    private int _thresholdPercent = SolverBenchmark.DEFAULT_THRESHOLD_PERCENT;
+    @Parameter(names = {"--timeout"})
+    private int _timeoutSeconds = SolverBenchmark.DEFAULT_TIMEOUT_SECONDS;
+    @Parameter(names = {"--ccr"})
+    private String _ccr = Double.toString(GraphGenerator.DEFAULT_CCR);
+    @Parameter(names = {"--weights"})
+    private String _weights = GraphGenerator.RANDOM_WEIGHTS;
+    @Parameter(names = {"--seed"})
+    private long _seed = GraphGenerator.DEFAULT_SEED;
+    @Parameter(names = {"--density"})
+    private String _density = Double.toString(GraphGenerator.DEFAULT_DENSITY);
+    @Parameter(names = {"--branching"})
+    private int _branching = GraphGenerator.DEFAULT_BRANCHING;
+    @Parameter(names = {"--unbalanced"})
+    private boolean _unbalanced = false;
 
     /**
      * Gets the amount of cores to paralelise processing on
@@ -57,6 +125,285 @@ public class CLIParameters {
         return help;
     }
 
+    /**
+     * Whether the input is a directory, glob or manifest of graphs to solve as a batch
+     *
+     * @return batch switch
+     */
+    public boolean getBatch() {
+        return _batch;
+    }
+
+    /**
+     * Whether to run as a solver daemon instead of solving a single graph
+     *
+     * @return daemon switch
+     */
+    public boolean getDaemon() {
+        return _daemon;
+    }
+
+    /**
+     * Whether to have a running daemon solve the graph instead of solving it in this process
+     *
+     * @return client switch
+     */
+    public boolean getClient() {
+        return _client;
+    }
+
+    /**
+     * The loopback port the daemon listens on
+     *
+     * @return daemon port
+     */
+    public int getPort() {
+        return _port;
+    }
+
+    /**
+     * Relative importance of a solve sent to the daemon
+     *
+     * @return priority, at least 1
+     */
+    public int getPriority() {
+        return _priority;
+    }
+
+    /**
+     * Milliseconds a solve sent to the daemon should be done within
+     *
+     * @return deadline, 0 for none
+     */
+    public long getDeadline() {
+        return _deadline;
+    }
+
+    /**
+     * Directory of schedules already found, checked before solving
+     *
+     * @return cache directory, null when no cache is used
+     */
+    public String getCacheDirectory() {
+        return _cacheDirectory;
+    }
+
+    /**
+     * Output file of an earlier run to start the search from
+     *
+     * @return previous output filename, null to start cold
+     */
+    public String getWarmStartFilename() {
+        return _warmStartFilename;
+    }
+
+    /**
+     * File the search's progress is saved to
+     *
+     * @return checkpoint filename, null when no checkpoints are written
+     */
+    public String getCheckpointFilename() {
+        return _checkpointFilename;
+    }
+
+    /**
+     * How often the search's progress is saved
+     *
+     * @return seconds between checkpoints
+     */
+    public int getCheckpointIntervalSeconds() {
+        return _checkpointIntervalSeconds;
+    }
+
+    /**
+     * Whether to carry on from the checkpoint file
+     *
+     * @return resume switch
+     */
+    public boolean getResume() {
+        return _resume;
+    }
+
+    /**
+     * Whether to share the search out between worker processes
+     *
+     * @return coordinator switch
+     */
+    public boolean getCoordinate() {
+        return _coordinate;
+    }
+
+    /**
+     * Whether to search subtrees for a coordinator instead of solving a single graph
+     *
+     * @return worker switch
+     */
+    public boolean getWorker() {
+        return _worker;
+    }
+
+    /**
+     * Whether the input holds many digraphs one after another, whose schedules are all written to the output
+     *
+     * @return stream switch
+     */
+    public boolean getStream() {
+        return _stream;
+    }
+
+    /**
+     * Whether the output file is replaced by every better schedule found during the search
+     *
+     * @return progressive switch
+     */
+    public boolean getProgressive() {
+        return _progressive;
+    }
+
+    /**
+     * Gets the format the schedule is written in
+     *
+     * @return one of DotFileProducer's formats, if it's a valid one
+     */
+    public String getFormat() {
+        return _format;
+    }
+
+    /**
+     * Gets the file the search's profile by depth is written to
+     *
+     * @return profile filename, null when no profile is written
+     */
+    public String getProfileFilename() {
+        return _profileFilename;
+    }
+
+    /**
+     * Gets the engines a benchmark runs
+     *
+     * @return comma separated engines
+     */
+    public String getEngines() {
+        return _engines;
+    }
+
+    /**
+     * Gets the thread counts a benchmark runs the engines on
+     *
+     * @return comma separated thread counts, or null for the benchmark's default
+     */
+    public String getThreads() {
+        return _threads;
+    }
+
+    /**
+     * Gets whether a benchmark compares each run with the sequential engine to measure how the search scales
+     *
+     * @return true to measure scalability
+     */
+    public boolean getScalability() {
+        return _scalability;
+    }
+
+    /**
+     * Gets the manifest of optimal makespans a benchmark is checked against
+     *
+     * @return name of the manifest, or null not to check makespans
+     */
+    public String getExpectedFilename() {
+        return _expectedFilename;
+    }
+
+    /**
+     * Gets where a benchmark writes the makespans it found as a manifest of optimal makespans
+     *
+     * @return name of the manifest, or null not to write one
+     */
+    public String getRecordExpectedFilename() {
+        return _recordExpectedFilename;
+    }
+
+    /**
+     * Gets the results of an earlier benchmark to compare times against
+     *
+     * @return name of the results CSV, or null not to compare
+     */
+    public String getBaselineFilename() {
+        return _baselineFilename;
+    }
+
+    /**
+     * Gets how much slower than the baseline a benchmark run can be before it's a regression
+     *
+     * @return threshold in percent
+     */
+    public int getThresholdPercent() {
+        return _thresholdPercent;
+    }
+
+    /**
+     * Gets how long a benchmark run can take before it's stopped
+     *
+     * @return timeout in seconds
+     */
+    public int getTimeoutSeconds() {
+        return _timeoutSeconds;
+    }
+
+    /**
+     * Gets the communication to computation ratios of generated graphs
+     *
+     * @return comma separated ratios
+     */
+    public String getCcr() {
+        return _ccr;
+    }
+
+    /**
+     * Gets the distribution node and arc weights of generated graphs are drawn from
+     *
+     * @return one of GraphGenerator.WEIGHT_DISTRIBUTIONS
+     */
+    public String getWeights() {
+        return _weights;
+    }
+
+    /**
+     * Gets the seed of the random numbers generated graphs are made from
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return _seed;
+    }
+
+    /**
+     * Gets the arcs per node of generated random graphs
+     *
+     * @return density, a number
+     */
+    public String getDensity() {
+        return _density;
+    }
+
+    /**
+     * Gets the most children of generated tree nodes and branches of series parallel splits, or pipeline lanes
+     *
+     * @return the branching
+     */
+    public int getBranching() {
+        return _branching;
+    }
+
+    /**
+     * Gets whether generated trees have nodes joining random parents rather than being filled level by level
+     *
+     * @return true for unbalanced trees
+     */
+    public boolean getUnbalanced() {
+        return _unbalanced;
+    }
+
     /**
      * Sets the desired file output name
      *
@@ -0,0 +1,190 @@
+package nz.co.revilo.Daemon;
+
+import nz.co.revilo.Input.FileParser;
+import nz.co.revilo.Scheduling.CoreBudgetScheduler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Client for submitting graphs to a running SolverDaemon. One connection can be used for any number of graphs.
+ */
+public class DaemonClient implements Closeable {
+
+    private final Socket _socket;
+    private final DataInputStream _in;
+    private final DataOutputStream _out;
+
+    /**
+     * Connects to a daemon on this machine
+     *
+     * @param port the daemon is listening on
+     * @throws IOException if there is no daemon on the port
+     */
+    public DaemonClient(int port) throws IOException {
+        _socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        _in = new DataInputStream(new BufferedInputStream(_socket.getInputStream()));
+        _out = new DataOutputStream(new BufferedOutputStream(_socket.getOutputStream()));
+    }
+
+    /**
+     * Sends a graph file to the daemon, in the format given by its extension, and waits for its schedule
+     *
+     * @param filename   graph file to solve
+     * @param processors number of processors to schedule on
+     * @return the schedule and search statistics
+     * @throws IOException if the file can't be read or the daemon can't be reached
+     */
+    public Result solve(String filename, int processors) throws IOException {
+        return solve(filename, processors, CoreBudgetScheduler.DEFAULT_PRIORITY, CoreBudgetScheduler.NO_DEADLINE);
+    }
+
+    /**
+     * Sends a graph file to the daemon with a priority and deadline, and waits for its schedule
+     *
+     * @param filename   graph file to solve, which may be compressed, or - for standard input
+     * @param processors number of processors to schedule on
+     * @param priority   relative importance of the solve, at least 1
+     * @param deadline   milliseconds the solve should be done within, or 0 for none
+     * @return the schedule and search statistics
+     * @throws IOException if the file can't be read or the daemon can't be reached
+     */
+    public Result solve(String filename, int processors, int priority, long deadline) throws IOException {
+        if (!filename.equals(FileParser.STANDARD_STREAM) && !new File(filename).isFile()) {
+            throw new FileNotFoundException(filename);
+        }
+        byte[] graph = FileParser.readAllBytes(filename);
+        String name = filename.equals(FileParser.STANDARD_STREAM)
+                ? FileParser.STANDARD_INPUT_NAME + FileParser.extensionOf(graph)
+                : new File(FileParser.uncompressedName(filename)).getName();
+        return solve(name, DaemonProtocol.formatOf(name), graph, processors, priority, deadline);
+    }
+
+    /**
+     * Sends a graph to the daemon and waits for its schedule
+     *
+     * @param name       name of the graph file
+     * @param format     one of the DaemonProtocol formats
+     * @param graph      the graph in that format
+     * @param processors number of processors to schedule on
+     * @return the schedule and search statistics
+     * @throws IOException if the daemon can't be reached
+     */
+    public Result solve(String name, byte format, byte[] graph, int processors) throws IOException {
+        return solve(name, format, graph, processors, CoreBudgetScheduler.DEFAULT_PRIORITY, CoreBudgetScheduler.NO_DEADLINE);
+    }
+
+    /**
+     * Sends a graph to the daemon with a priority and deadline, and waits for its schedule
+     *
+     * @param name       name of the graph file
+     * @param format     one of the DaemonProtocol formats
+     * @param graph      the graph in that format
+     * @param processors number of processors to schedule on
+     * @param priority   relative importance of the solve, at least 1
+     * @param deadline   milliseconds the solve should be done within, or 0 for none
+     * @return the schedule and search statistics
+     * @throws IOException if the daemon can't be reached
+     */
+    public Result solve(String name, byte format, byte[] graph, int processors, int priority, long deadline) throws IOException {
+        _out.writeInt(DaemonProtocol.MAGIC);
+        _out.writeByte(DaemonProtocol.SOLVE);
+        _out.writeByte(format);
+        _out.writeInt(processors);
+        _out.writeInt(priority);
+        _out.writeLong(deadline);
+        _out.writeUTF(name);
+        _out.writeInt(graph.length);
+        _out.write(graph);
+        _out.flush();
+
+        checkStatus();
+        Result result = new Result();
+        result._makespan = _in.readInt();
+        result._nodes = _in.readInt();
+        result._parseMillis = _in.readLong();
+        result._solveMillis = _in.readLong();
+        result._exploredStates = _in.readLong();
+        result._brokenTrees = _in.readLong();
+        byte[] schedule = new byte[_in.readInt()];
+        _in.readFully(schedule);
+        result._schedule = new String(schedule, StandardCharsets.UTF_8);
+        return result;
+    }
+
+    /**
+     * Asks the daemon to stop listening
+     *
+     * @throws IOException if the daemon can't be reached
+     */
+    public void shutdownDaemon() throws IOException {
+        _out.writeInt(DaemonProtocol.MAGIC);
+        _out.writeByte(DaemonProtocol.SHUTDOWN);
+        _out.flush();
+        checkStatus();
+    }
+
+    @Override
+    public void close() throws IOException {
+        _socket.close();
+    }
+
+    private void checkStatus() throws IOException {
+        if (_in.readByte() != DaemonProtocol.OK) {
+            throw new RuntimeException(_in.readUTF());
+        }
+    }
+
+    /**
+     * Schedule found by the daemon along with statistics about the search
+     */
+    public static class Result {
+        private int _makespan;
+        private int _nodes;
+        private long _parseMillis;
+        private long _solveMillis;
+        private long _exploredStates;
+        private long _brokenTrees;
+        private String _schedule;
+
+        public int getMakespan() {
+            return _makespan;
+        }
+
+        public int getNodes() {
+            return _nodes;
+        }
+
+        public long getParseMillis() {
+            return _parseMillis;
+        }
+
+        public long getSolveMillis() {
+            return _solveMillis;
+        }
+
+        public long getExploredStates() {
+            return _exploredStates;
+        }
+
+        public long getBrokenTrees() {
+            return _brokenTrees;
+        }
+
+        /**
+         * @return the schedule as the contents of an output DOT file
+         */
+        public String getSchedule() {
+            return _schedule;
+        }
+    }
+}
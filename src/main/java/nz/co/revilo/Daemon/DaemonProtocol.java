@@ -0,0 +1,86 @@
+package nz.co.revilo.Daemon;
+
+import nz.co.revilo.Input.BinaryGraphFormat;
+import nz.co.revilo.Input.BinaryGraphReader;
+import nz.co.revilo.Input.DotFileReader;
+import nz.co.revilo.Input.FileParser;
+import nz.co.revilo.Input.GxlFileReader;
+
+import java.io.InputStreamReader;
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Messages between the solver daemon and its clients, all numbers big-endian as written by DataOutputStream.
+ * <pre>
+ * request:  int magic, byte type
+ *           SOLVE:    byte format, int processors, int priority, long deadline ms (0 for none), UTF name,
+ *                     int length, byte[length] graph
+ *           SHUTDOWN: nothing more
+ * response: byte status
+ *           OK:    int makespan, int nodes, long parse ms, long solve ms, long explored states, long broken trees,
+ *                  int length, byte[length] schedule as a UTF-8 DOT file
+ *           ERROR: UTF message
+ * </pre>
+ * A connection may send any number of requests, each is answered before the next is read. A graph length that is
+ * negative or more than the daemon accepts is answered with an ERROR and the connection closed, as the rest of it can't
+ * be read. Priority and deadline decide how many of the daemon's threads the solve gets while other solves are
+ * running, see CoreBudgetScheduler.
+ */
+public final class DaemonProtocol {
+
+    public static final int MAGIC = 0x52564C44;
+    public static final int DEFAULT_PORT = 4649;
+
+    // Request types
+    public static final byte SOLVE = 1;
+    public static final byte SHUTDOWN = 2;
+
+    // Graph formats
+    public static final byte DOT_FORMAT = 0;
+    public static final byte GXL_FORMAT = 1;
+    public static final byte BINARY_FORMAT = 2;
+
+    // Response statuses
+    public static final byte OK = 0;
+    public static final byte ERROR = 1;
+
+    private DaemonProtocol() {
+    }
+
+    /**
+     * @param filename name of a graph file
+     * @return format to send the file as, by its extension
+     */
+    public static byte formatOf(String filename) {
+        String upper = filename.toUpperCase();
+        if (upper.endsWith(".GXL")) {
+            return GXL_FORMAT;
+        } else if (BinaryGraphFormat.isBinaryGraphFile(filename)) {
+            return BINARY_FORMAT;
+        }
+        return DOT_FORMAT;
+    }
+
+    /**
+     * Creates the parser for a graph received by the daemon
+     *
+     * @param format  format the graph was sent in
+     * @param name    name of the graph file on the client
+     * @param payload the graph
+     * @return parser for the graph
+     */
+    public static FileParser parserFor(byte format, String name, byte[] payload) {
+        switch (format) {
+            case DOT_FORMAT:
+                return new DotFileReader(name, ByteBuffer.wrap(payload));
+            case GXL_FORMAT:
+                return new GxlFileReader(name, new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8));
+            case BINARY_FORMAT:
+                return new BinaryGraphReader(name, ByteBuffer.wrap(payload));
+            default:
+                throw new IllegalArgumentException("Unknown graph format " + format);
+        }
+    }
+}
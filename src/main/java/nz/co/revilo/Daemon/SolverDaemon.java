@@ -0,0 +1,225 @@
+package nz.co.revilo.Daemon;
+
+import nz.co.revilo.Cache.ResultCache;
+import nz.co.revilo.Input.ParsedGraph;
+import nz.co.revilo.Output.DotFileWriter;
+import nz.co.revilo.Scheduling.BudgetedBranchAndBoundAlgorithmManager;
+import nz.co.revilo.Scheduling.CoreBudgetScheduler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long running solver process listening on a loopback socket, so each graph doesn't pay for starting a JVM, loading
+ * classes and warming up the JIT. Every connection gets its own thread while searching happens on worker threads
+ * shared by all connections, budgeted between the solves running at the time by their priority and deadline.
+ */
+public class SolverDaemon implements Closeable {
+
+    // Connections waiting to be accepted
+    public static final int BACKLOG = 50;
+    // Largest graph a client may send, so a bad length can't make the daemon run out of memory
+    public static final int DEFAULT_MAX_GRAPH_BYTES = 256 * 1024 * 1024;
+
+    private final ServerSocket _server;
+    private final CoreBudgetScheduler _scheduler;
+    private final ExecutorService _connections;
+    private volatile ResultCache _resultCache;
+    private volatile int _maxGraphBytes = DEFAULT_MAX_GRAPH_BYTES;
+    private volatile boolean _closed;
+
+    /**
+     * Binds the daemon to the loopback address
+     *
+     * @param port    to listen on, 0 picks any free port
+     * @param threads number of worker threads shared by all solves
+     * @throws IOException if the port can't be bound
+     */
+    public SolverDaemon(int port, int threads) throws IOException {
+        _server = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+        _scheduler = new CoreBudgetScheduler(threads);
+        _connections = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "revilo-daemon-connection");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return port the daemon is listening on
+     */
+    public int getPort() {
+        return _server.getLocalPort();
+    }
+
+    /**
+     * @param cache schedules already found, shared by every solve, or null to always search
+     */
+    public void setResultCache(ResultCache cache) {
+        _resultCache = cache;
+    }
+
+    /**
+     * @param maxGraphBytes largest graph a client may send, larger ones are answered with an error
+     */
+    public void setMaxGraphBytes(int maxGraphBytes) {
+        _maxGraphBytes = maxGraphBytes;
+    }
+
+    /**
+     * Accepts connections until the daemon is closed or a client asks it to shut down
+     */
+    public void serve() {
+        System.out.println("Revilo daemon listening on " + _server.getInetAddress().getHostAddress() + ":" + getPort()
+                + " with " + _scheduler.getThreads() + " threads");
+        while (!_closed) {
+            try {
+                Socket socket = _server.accept();
+                _connections.submit(() -> handle(socket));
+            } catch (IOException e) {
+                if (!_closed) {
+                    System.err.println("Daemon could not accept a connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops listening and stops the workers, solves still running are answered with an error
+     */
+    @Override
+    public void close() {
+        _closed = true;
+        try {
+            _server.close();
+        } catch (IOException e) {
+            System.err.println("Daemon socket could not be closed: " + e.getMessage());
+        }
+        _connections.shutdown();
+        _scheduler.close();
+    }
+
+    /**
+     * Answers requests on a connection until the client hangs up
+     */
+    private void handle(Socket socket) {
+        try (Socket connection = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(connection.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(connection.getOutputStream()))) {
+            while (true) {
+                int magic;
+                try {
+                    magic = in.readInt();
+                } catch (EOFException e) {
+                    return; // client is done
+                }
+                if (magic != DaemonProtocol.MAGIC) {
+                    error(out, "Not a revilo request");
+                    return;
+                }
+                byte type = in.readByte();
+                if (type == DaemonProtocol.SHUTDOWN) {
+                    out.writeByte(DaemonProtocol.OK);
+                    out.flush();
+                    close();
+                    return;
+                } else if (type != DaemonProtocol.SOLVE) {
+                    error(out, "Unknown request type " + type);
+                    return;
+                }
+                try {
+                    if (!solve(in, out)) {
+                        return;
+                    }
+                } catch (RuntimeException e) {
+                    error(out, "Request failed: " + e);
+                }
+            }
+        } catch (SocketException e) {
+            // client went away, nothing to answer
+        } catch (IOException e) {
+            System.err.println("Daemon connection failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads a graph, solves it on the shared workers and writes back the schedule and search statistics
+     *
+     * @return false if the graph couldn't be read, so the rest of the connection can't be either
+     */
+    private boolean solve(DataInputStream in, DataOutputStream out) throws IOException {
+        byte format = in.readByte();
+        int processors = in.readInt();
+        int priority = in.readInt();
+        long deadline = in.readLong();
+        String name = in.readUTF();
+        int length = in.readInt();
+        if (length < 0 || length > _maxGraphBytes) {
+            error(out, "Graph of " + length + " bytes is not between 0 and " + _maxGraphBytes + " bytes");
+            return false;
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+
+        if (processors < 1) {
+            error(out, "Insufficient processors to solve problem");
+            return true;
+        }
+
+        long parseStart = System.currentTimeMillis();
+        ParsedGraph graph = new ParsedGraph();
+        try {
+            DaemonProtocol.parserFor(format, name, payload).startParsing(graph);
+        } catch (RuntimeException e) {
+            error(out, "Input file could not be parsed: " + e.getMessage());
+            return true;
+        }
+        long parseMillis = System.currentTimeMillis() - parseStart;
+
+        BudgetedBranchAndBoundAlgorithmManager manager = new BudgetedBranchAndBoundAlgorithmManager(processors,
+                _scheduler, priority, deadline);
+        manager.setResultCache(_resultCache);
+        StringWriter schedule = new StringWriter();
+        manager.inform(new DotFileWriter(schedule));
+        long solveStart = System.currentTimeMillis();
+        try {
+            graph.replay(manager);
+        } catch (RuntimeException e) {
+            error(out, "Could not be solved: " + e.getMessage());
+            return true;
+        }
+        long solveMillis = System.currentTimeMillis() - solveStart;
+
+        byte[] scheduleBytes = schedule.toString().getBytes(StandardCharsets.UTF_8);
+        out.writeByte(DaemonProtocol.OK);
+        out.writeInt(manager.getUpperBound());
+        out.writeInt(graph.getNodeCount());
+        out.writeLong(parseMillis);
+        out.writeLong(solveMillis);
+        out.writeLong(manager.getExploredStates());
+        out.writeLong(manager.getBrokenTrees());
+        out.writeInt(scheduleBytes.length);
+        out.write(scheduleBytes);
+        out.flush();
+        return true;
+    }
+
+    private static void error(DataOutputStream out, String message) throws IOException {
+        out.writeByte(DaemonProtocol.ERROR);
+        out.writeUTF(message == null ? "" : message);
+        out.flush();
+    }
+}
@@ -0,0 +1,36 @@
+package nz.co.revilo.Distributed;
+
+/**
+ * Messages between a search coordinator and its workers, all numbers big-endian as written by DataOutputStream. Every
+ * message starts with a byte type.
+ * <pre>
+ * coordinator to worker:
+ *   GRAPH:    int magic, int processors, int length, byte[length] graph in BinaryGraphFormat
+ *   WORK:     int id, int bound, int depth, depth * (int node, int processor) placements from the empty schedule
+ *   BOUND:    int bound, sent whenever any worker finds a shorter schedule
+ *   FINISH:   nothing more, the search is over
+ * worker to coordinator:
+ *   IMPROVED: int makespan, then int start time and int processor of every node
+ *   DONE:     int id, int number of counts, then the long counts since the last DONE as SearchCounters.export
+ *             gives them
+ * </pre>
+ * The coordinator sends the graph as soon as a worker connects, then one piece of work at a time, each sent after
+ * the worker's DONE for the last one.
+ */
+public final class DistributedProtocol {
+
+    public static final int MAGIC = 0x52564457;
+
+    // Coordinator to worker
+    public static final byte GRAPH = 1;
+    public static final byte WORK = 2;
+    public static final byte BOUND = 3;
+    public static final byte FINISH = 4;
+
+    // Worker to coordinator
+    public static final byte IMPROVED = 10;
+    public static final byte DONE = 11;
+
+    private DistributedProtocol() {
+    }
+}
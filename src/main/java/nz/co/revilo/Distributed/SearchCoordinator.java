@@ -0,0 +1,415 @@
+package nz.co.revilo.Distributed;
+
+import nz.co.revilo.Input.BinaryGraphFormat;
+import nz.co.revilo.Scheduling.BnBSchedule;
+import nz.co.revilo.Scheduling.BranchAndBoundAlgorithmManager;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Algorithm manager for branch and bound which shares the search out between worker processes connecting on a
+ * loopback port. The top of the search tree is explored here down to the split depth, and each schedule reached there
+ * is handed to a worker as the placements leading to it. Whenever a worker finds a shorter schedule its length is sent
+ * on to the other workers as their bound. Work held by a worker whose connection drops is handed to another worker, and
+ * if every worker has gone the subtrees left are searched here.
+ */
+public class SearchCoordinator extends BranchAndBoundAlgorithmManager implements Closeable {
+
+    // Number of placements explored here before handing subtrees to workers
+    public static final int DEFAULT_SPLIT_DEPTH = 3;
+    // Connections waiting to be accepted
+    public static final int BACKLOG = 50;
+    // How often the coordinator checks whether every worker has gone with subtrees left to search
+    private static final long WORKER_CHECK_MILLIS = 1000;
+
+    private final ServerSocket _server;
+    private final int _splitDepth;
+    private final List<int[]> _prefixes = new ArrayList<>();
+    private BnBSchedule[] _path;
+
+    // Guarded by this
+    private final Deque<Integer> _pending = new ArrayDeque<>();
+    private final Map<WorkerConnection, Integer> _assigned = new HashMap<>();
+    private final List<WorkerConnection> _connections = new ArrayList<>();
+    private final List<WorkerConnection> _idle = new ArrayList<>();
+    private int _completed;
+    private int[] _bestStarts;
+    private int[] _bestProcessors;
+    private byte[] _encodedGraph;
+    private boolean _serving;
+    private boolean _workersJoined;
+    private boolean _orphaned;
+    private CountDownLatch _finished;
+
+    // Whether the search is below the split depth here, so children are searched rather than kept for workers
+    private boolean _searchingLocally;
+
+    /**
+     * Binds the coordinator to the loopback address, workers can connect from then on
+     *
+     * @param processingCores number of cores specified for the final schedule
+     * @param port to listen on, 0 picks any free port
+     * @throws IOException if the port can't be bound
+     */
+    public SearchCoordinator(int processingCores, int port) throws IOException {
+        this(processingCores, port, DEFAULT_SPLIT_DEPTH);
+    }
+
+    /**
+     * @param processingCores number of cores specified for the final schedule
+     * @param port to listen on, 0 picks any free port
+     * @param splitDepth number of placements explored here before handing subtrees to workers
+     * @throws IOException if the port can't be bound
+     */
+    public SearchCoordinator(int processingCores, int port, int splitDepth) throws IOException {
+        super(processingCores);
+        _server = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+        _splitDepth = splitDepth;
+    }
+
+    /**
+     * @return port workers connect to
+     */
+    public int getPort() {
+        return _server.getLocalPort();
+    }
+
+    /**
+     * Stops accepting workers
+     */
+    @Override
+    public void close() {
+        try {
+            _server.close();
+        } catch (IOException e) {
+            System.err.println("Coordinator socket could not be closed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Explores the top of the tree, then hands the subtrees below it to workers and waits for all of them
+     */
+    @Override
+    protected void startBnb() {
+        _path = new BnBSchedule[numNodes + 2];
+        while (!rootSchedules.isEmpty()) {
+            _path[1] = rootSchedules.remove(0);
+            bnb(_path[1]);
+        }
+
+        synchronized (this) {
+            _encodedGraph = BinaryGraphFormat.encode(_graph);
+            for (int id = 0; id < _prefixes.size(); id++) {
+                _pending.add(id);
+            }
+            _finished = new CountDownLatch(_pending.isEmpty() ? 0 : 1);
+            _serving = true;
+        }
+        Thread acceptor = new Thread(this::acceptWorkers, "revilo-coordinator-accept");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        System.out.println("Coordinator waiting for workers on port " + getPort() + " to search " + _prefixes.size() + " subtrees");
+
+        try {
+            while (!_finished.await(WORKER_CHECK_MILLIS, TimeUnit.MILLISECONDS)) {
+                for (Integer id = takeOrphanedSubtree(); id != null; id = takeOrphanedSubtree()) {
+                    searchLocally(id);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for workers");
+        } finally {
+            close();
+        }
+
+        synchronized (this) {
+            _serving = false;
+            if (_bestStarts != null) {
+                BnBSchedule best = rebuildSchedule(_bestStarts, _bestProcessors);
+                if (optimalSchedule == null || best.getMaxFinishTime() < optimalSchedule.getMaxFinishTime()) {
+                    setOptimalSchedule(best);
+                }
+            }
+        }
+    }
+
+    /**
+     * Explores children here above the split depth, below it keeps each child as a subtree for a worker unless the
+     * subtree is being searched here
+     */
+    @Override
+    protected void branch(BnBSchedule schedule, List<BnBSchedule> nextSchedules) {
+        if (_searchingLocally) {
+            super.branch(schedule, nextSchedules);
+            return;
+        }
+        int depth = schedule.getClosedNodes().size();
+        if (depth < _splitDepth) {
+            for (BnBSchedule nextSchedule : nextSchedules) {
+                _path[depth + 1] = nextSchedule;
+                bnb(nextSchedule);
+            }
+            return;
+        }
+        for (BnBSchedule nextSchedule : nextSchedules) {
+            _path[depth + 1] = nextSchedule;
+            int[] prefix = new int[(depth + 1) * 2];
+            for (int level = 1; level <= depth + 1; level++) {
+                int node = addedNode(level == 1 ? null : _path[level - 1], _path[level]);
+                prefix[(level - 1) * 2] = node;
+                prefix[(level - 1) * 2 + 1] = _path[level].getClosedNodes().get(node).getB();
+            }
+            _prefixes.add(prefix);
+        }
+    }
+
+    /**
+     * Only takes a schedule found here if no worker has found a shorter one in the meantime
+     */
+    @Override
+    protected synchronized void setOptimalSchedule(BnBSchedule schedule) {
+        if (optimalSchedule == null || schedule.getMaxFinishTime() < upperBound.get()) {
+            super.setOptimalSchedule(schedule);
+        }
+    }
+
+    /**
+     * @return a subtree to search here because every worker that joined has gone, or null if there is none
+     */
+    private synchronized Integer takeOrphanedSubtree() {
+        if (!_serving || !_workersJoined || !_connections.isEmpty() || _pending.isEmpty()) {
+            return null;
+        }
+        if (!_orphaned) {
+            _orphaned = true;
+            System.err.println("Every worker has gone, searching " + _pending.size() + " subtrees here until one joins");
+        }
+        return _pending.poll();
+    }
+
+    /**
+     * Searches a subtree on this thread as a worker would, while workers that join take the others
+     */
+    private void searchLocally(int id) {
+        int[] prefix = _prefixes.get(id);
+        BnBSchedule schedule = null;
+        for (int i = 0; i < prefix.length; i += 2) {
+            schedule = new BnBSchedule(this, schedule, prefix[i], prefix[i + 1]);
+        }
+        _searchingLocally = true;
+        try {
+            bnb(schedule);
+        } finally {
+            _searchingLocally = false;
+        }
+        synchronized (this) {
+            _completed++;
+            finishIfDone();
+        }
+    }
+
+    /**
+     * Accepts workers until the search is over
+     */
+    private void acceptWorkers() {
+        while (true) {
+            try {
+                Socket socket = _server.accept();
+                WorkerConnection connection = new WorkerConnection(socket);
+                Thread reader = new Thread(() -> connection.read(), "revilo-coordinator-worker");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                return; // closed once the search is over
+            }
+        }
+    }
+
+    /**
+     * Gives a worker its next subtree, or finishes the search if every subtree is done
+     */
+    private synchronized void dispatch(WorkerConnection connection) {
+        if (!_serving) {
+            connection.send(DistributedProtocol.FINISH, null);
+        } else if (!_pending.isEmpty()) {
+            int id = _pending.poll();
+            _assigned.put(connection, id);
+            connection.send(DistributedProtocol.WORK, out -> {
+                int[] prefix = _prefixes.get(id);
+                out.writeInt(id);
+                out.writeInt(upperBound.get());
+                out.writeInt(prefix.length / 2);
+                for (int value : prefix) {
+                    out.writeInt(value);
+                }
+            });
+        } else if (!finishIfDone()) {
+            _idle.add(connection);
+        }
+    }
+
+    /**
+     * Finishes the search if every subtree is done, telling every worker
+     *
+     * @return whether the search is finished
+     */
+    private synchronized boolean finishIfDone() {
+        if (_completed < _prefixes.size()) {
+            return false;
+        }
+        _serving = false;
+        for (WorkerConnection other : _connections) {
+            other.send(DistributedProtocol.FINISH, null);
+        }
+        _finished.countDown();
+        return true;
+    }
+
+    private synchronized void joined(WorkerConnection connection) {
+        _connections.add(connection);
+        _workersJoined = true;
+        _orphaned = false;
+        dispatch(connection);
+    }
+
+    private synchronized void done(WorkerConnection connection, int id, long[] counted) {
+        counters.addExported(counted);
+        if (_assigned.get(connection) != null && _assigned.get(connection) == id) {
+            _assigned.remove(connection);
+            _completed++;
+        }
+        dispatch(connection);
+    }
+
+    private synchronized void improved(WorkerConnection from, int makespan, int[] starts, int[] processors) {
+        if (makespan >= upperBound.get()) {
+            return;
+        }
+        upperBound.set(makespan);
+        atomicBound.set(makespan);
+        _bestStarts = starts;
+        _bestProcessors = processors;
+        for (WorkerConnection connection : _connections) {
+            if (connection != from) {
+                connection.send(DistributedProtocol.BOUND, out -> out.writeInt(makespan));
+            }
+        }
+    }
+
+    /**
+     * Puts the work of a worker that went away back at the front of the queue for another worker, or for the
+     * coordinator to search if it was the last one
+     */
+    private synchronized void lost(WorkerConnection connection) {
+        _connections.remove(connection);
+        _idle.remove(connection);
+        Integer id = _assigned.remove(connection);
+        if (id != null) {
+            _pending.addFirst(id);
+            System.err.println("Worker lost, its subtree is handed to another worker");
+            if (!_idle.isEmpty()) {
+                dispatch(_idle.remove(0));
+            }
+        }
+    }
+
+    /**
+     * Writes the body of a message
+     */
+    private interface MessageBody {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * A connected worker
+     */
+    private class WorkerConnection {
+        private final Socket _socket;
+        private final DataInputStream _in;
+        private final DataOutputStream _out;
+
+        WorkerConnection(Socket socket) throws IOException {
+            _socket = socket;
+            _in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            _out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        /**
+         * Sends the graph and then reads the worker's messages until it goes away
+         */
+        void read() {
+            try {
+                synchronized (SearchCoordinator.this) {
+                    send(DistributedProtocol.GRAPH, out -> {
+                        out.writeInt(DistributedProtocol.MAGIC);
+                        out.writeInt(_processingCores);
+                        out.writeInt(_encodedGraph.length);
+                        out.write(_encodedGraph);
+                    });
+                    joined(this);
+                }
+                while (true) {
+                    byte type = _in.readByte();
+                    if (type == DistributedProtocol.IMPROVED) {
+                        int makespan = _in.readInt();
+                        int[] starts = new int[numNodes];
+                        int[] processors = new int[numNodes];
+                        for (int node = 0; node < numNodes; node++) {
+                            starts[node] = _in.readInt();
+                            processors[node] = _in.readInt();
+                        }
+                        improved(this, makespan, starts, processors);
+                    } else if (type == DistributedProtocol.DONE) {
+                        int id = _in.readInt();
+                        long[] counted = new long[_in.readInt()];
+                        for (int counter = 0; counter < counted.length; counter++) {
+                            counted[counter] = _in.readLong();
+                        }
+                        done(this, id, counted);
+                    } else {
+                        throw new IOException("Unknown message type " + type);
+                    }
+                }
+            } catch (IOException e) {
+                lost(this);
+                try {
+                    _socket.close();
+                } catch (IOException ignored) {
+                    // already gone
+                }
+            }
+        }
+
+        /**
+         * Sends a message, ignoring failures as the reader finds out the worker has gone
+         */
+        synchronized void send(byte type, MessageBody body) {
+            try {
+                _out.writeByte(type);
+                if (body != null) {
+                    body.write(_out);
+                }
+                _out.flush();
+            } catch (IOException e) {
+                // reader notices the connection is gone
+            }
+        }
+    }
+}
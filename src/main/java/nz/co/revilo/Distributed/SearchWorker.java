@@ -0,0 +1,199 @@
+package nz.co.revilo.Distributed;
+
+import nz.co.revilo.Input.BinaryGraphFormat;
+import nz.co.revilo.Scheduling.BnBSchedule;
+import nz.co.revilo.Scheduling.BranchAndBoundAlgorithmManager;
+import nz.co.revilo.Scheduling.SearchCounters;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Worker process of a distributed search. Connects to a SearchCoordinator on the loopback address, then searches the
+ * subtrees it is given depth first until the coordinator says the search is over. Shorter schedules found are sent to
+ * the coordinator straight away, and bounds found by other workers are used as soon as they arrive.
+ */
+public class SearchWorker implements Closeable {
+
+    // Put on the work queue when there will be no more work
+    private static final int[] NO_MORE_WORK = new int[0];
+
+    private final Socket _socket;
+    private final DataInputStream _in;
+    private final DataOutputStream _out;
+    private final BlockingQueue<int[]> _work = new LinkedBlockingQueue<>();
+    private int _subtrees;
+
+    /**
+     * @param port the coordinator is listening on
+     * @throws IOException if the coordinator can't be reached
+     */
+    public SearchWorker(int port) throws IOException {
+        _socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        _in = new DataInputStream(new BufferedInputStream(_socket.getInputStream()));
+        _out = new DataOutputStream(new BufferedOutputStream(_socket.getOutputStream()));
+    }
+
+    /**
+     * @return number of subtrees searched so far
+     */
+    public int getSubtrees() {
+        return _subtrees;
+    }
+
+    /**
+     * Searches subtrees until the coordinator finishes the search or goes away
+     *
+     * @throws IOException if the coordinator doesn't send a graph
+     */
+    public void run() throws IOException {
+        if (_in.readByte() != DistributedProtocol.GRAPH || _in.readInt() != DistributedProtocol.MAGIC) {
+            throw new IOException("Not a revilo coordinator");
+        }
+        int processors = _in.readInt();
+        byte[] graph = new byte[_in.readInt()];
+        _in.readFully(graph);
+
+        WorkerManager manager = new WorkerManager(processors);
+        Thread reader = new Thread(() -> read(manager), "revilo-worker-reader");
+        reader.setDaemon(true);
+        reader.start();
+        BinaryGraphFormat.decode(ByteBuffer.wrap(graph), manager);
+    }
+
+    @Override
+    public void close() throws IOException {
+        _socket.close();
+    }
+
+    /**
+     * Reads work and bounds from the coordinator until it finishes the search or goes away
+     */
+    private void read(WorkerManager manager) {
+        try {
+            while (true) {
+                byte type = _in.readByte();
+                if (type == DistributedProtocol.WORK) {
+                    int id = _in.readInt();
+                    int bound = _in.readInt();
+                    int[] item = new int[2 + _in.readInt() * 2];
+                    item[0] = id;
+                    item[1] = bound;
+                    for (int i = 2; i < item.length; i++) {
+                        item[i] = _in.readInt();
+                    }
+                    _work.add(item);
+                } else if (type == DistributedProtocol.BOUND) {
+                    manager.offerBound(_in.readInt());
+                } else if (type == DistributedProtocol.FINISH) {
+                    break;
+                } else {
+                    throw new IOException("Unknown message type " + type);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Coordinator went away: " + e.getMessage());
+        }
+        _work.add(NO_MORE_WORK);
+    }
+
+    private synchronized void send(byte type, int[] values, long[] counters) throws IOException {
+        _out.writeByte(type);
+        for (int value : values) {
+            _out.writeInt(value);
+        }
+        for (long counter : counters) {
+            _out.writeLong(counter);
+        }
+        _out.flush();
+    }
+
+    /**
+     * Searches the subtrees on the work queue of the graph the coordinator sent, rather than the whole tree
+     */
+    private class WorkerManager extends BranchAndBoundAlgorithmManager {
+
+        WorkerManager(int processingCores) {
+            super(processingCores);
+        }
+
+        /**
+         * Takes on a bound found by another worker if it is better
+         */
+        synchronized void offerBound(int bound) {
+            if (bound < upperBound.get()) {
+                upperBound.set(bound);
+                atomicBound.set(bound);
+            }
+        }
+
+        @Override
+        protected void startBnb() {
+            long[] reported = new long[counters.getDepths() * SearchCounters.COUNTERS];
+            try {
+                while (true) {
+                    int[] item = _work.take();
+                    if (item == NO_MORE_WORK) {
+                        return;
+                    }
+                    offerBound(item[1]);
+                    BnBSchedule schedule = null;
+                    for (int i = 2; i < item.length; i += 2) {
+                        schedule = new BnBSchedule(this, schedule, item[i], item[i + 1]);
+                    }
+                    bnb(schedule);
+                    _subtrees++;
+
+                    long[] counted = counters.export();
+                    long[] since = new long[counted.length];
+                    for (int count = 0; count < counted.length; count++) {
+                        since[count] = counted[count] - reported[count];
+                    }
+                    send(DistributedProtocol.DONE, new int[]{item[0], since.length}, since);
+                    reported = counted;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                System.err.println("Coordinator went away: " + e.getMessage());
+            }
+        }
+
+        /**
+         * Also sends the schedule to the coordinator, so the other workers hear of the new bound
+         */
+        @Override
+        protected void setOptimalSchedule(BnBSchedule schedule) {
+            super.setOptimalSchedule(schedule);
+            Map<Integer, BnBSchedule.Tuple<Integer, Integer>> closedNodes = schedule.getClosedNodes();
+            int[] values = new int[1 + numNodes * 2];
+            values[0] = schedule.getMaxFinishTime();
+            for (int node = 0; node < numNodes; node++) {
+                values[1 + node * 2] = closedNodes.get(node).getA();
+                values[2 + node * 2] = closedNodes.get(node).getB();
+            }
+            try {
+                send(DistributedProtocol.IMPROVED, values, new long[0]);
+            } catch (IOException e) {
+                // the reader finds out the coordinator has gone
+            }
+        }
+
+        /**
+         * The coordinator returns the results of the whole search
+         */
+        @Override
+        protected void returnResults() {
+        }
+    }
+}
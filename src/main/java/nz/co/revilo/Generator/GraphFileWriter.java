@@ -0,0 +1,129 @@
+package nz.co.revilo.Generator;
+
+import nz.co.revilo.Input.BinaryGraphFormat;
+import nz.co.revilo.Input.DotFileReader;
+import nz.co.revilo.Input.GxlFileReader;
+import nz.co.revilo.Input.SparseGraph;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Writes a graph in a form the parsers read: DOT or GXL laid out as the files in test_inputs are, or the
+ * BinaryGraphFormat
+ */
+public final class GraphFileWriter {
+
+    public static final String DOT_FORMAT = "dot";
+    public static final String GXL_FORMAT = "gxl";
+    public static final String BINARY_FORMAT = "binary";
+
+    private GraphFileWriter() {
+    }
+
+    /**
+     * @param format DOT_FORMAT, GXL_FORMAT or BINARY_FORMAT
+     * @return the extension of files in the format
+     */
+    public static String extensionOf(String format) {
+        switch (format) {
+            case DOT_FORMAT:
+                return DotFileReader.FILE_EXTENSION;
+            case GXL_FORMAT:
+                return GxlFileReader.FILE_EXTENSION;
+            case BINARY_FORMAT:
+                return BinaryGraphFormat.FILE_EXTENSION;
+            default:
+                throw new RuntimeException("Unknown graph format " + format + ", expected " + DOT_FORMAT + ", "
+                        + GXL_FORMAT + " or " + BINARY_FORMAT);
+        }
+    }
+
+    /**
+     * @param graph  the graph
+     * @param format DOT_FORMAT, GXL_FORMAT or BINARY_FORMAT
+     * @param output where it's written, left open
+     * @throws IOException if it can't be written
+     */
+    public static void write(SparseGraph graph, String format, OutputStream output) throws IOException {
+        extensionOf(format);
+        if (format.equals(BINARY_FORMAT)) {
+            output.write(BinaryGraphFormat.encode(graph));
+            output.flush();
+            return;
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        if (format.equals(DOT_FORMAT)) {
+            writeDot(graph, writer);
+        } else {
+            writeGxl(graph, writer);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Writes each node followed by the arcs into it
+     */
+    private static void writeDot(SparseGraph graph, Writer writer) throws IOException {
+        String name = graph.getGraphName() == null ? "" : graph.getGraphName();
+        writer.write("digraph \"" + name.replace("\\", "\\\\").replace("\"", "\\\"") + "\" {\n");
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            writer.write("\t" + graph.getNodeName(node) + "\t [Weight=" + graph.getNodeWeight(node) + "];\n");
+            for (int arc = graph.inStart(node); arc < graph.inEnd(node); arc++) {
+                writer.write("\t" + graph.getNodeName(graph.inSource(arc)) + " -> " + graph.getNodeName(node)
+                        + "\t [Weight=" + graph.inWeight(arc) + "];\n");
+            }
+        }
+        writer.write("}\n");
+    }
+
+    private static void writeGxl(SparseGraph graph, Writer writer) throws IOException {
+        long computation = 0;
+        long communication = 0;
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            computation += graph.getNodeWeight(node);
+        }
+        for (int arc = 0; arc < graph.getArcCount(); arc++) {
+            communication += graph.outWeight(arc);
+        }
+
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<gxl>\n");
+        writer.write("\t<graph id=\"" + xml(graph.getGraphName() == null ? "" : graph.getGraphName()) + "\">\n");
+        writeAttr(writer, "\t\t", "No of nodes", "int", Integer.toString(graph.getNodeCount()));
+        writeAttr(writer, "\t\t", "No of edges", "int", Integer.toString(graph.getArcCount()));
+        writeAttr(writer, "\t\t", "Density", "float",
+                String.format(Locale.ROOT, "%.2f", (double) graph.getArcCount() / graph.getNodeCount()));
+        writeAttr(writer, "\t\t", "CCR", "float",
+                String.format(Locale.ROOT, "%.2f", computation > 0 ? (double) communication / computation : 0));
+        writeAttr(writer, "\t\t", "Total sequential time", "int", Long.toString(computation));
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            writer.write("\t\t<node id=\"" + xml(graph.getNodeName(node)) + "\">\n");
+            writeAttr(writer, "\t\t\t", "Weight", "int", Integer.toString(graph.getNodeWeight(node)));
+            writer.write("\t\t</node>\n");
+        }
+        for (int from = 0; from < graph.getNodeCount(); from++) {
+            for (int arc = graph.outStart(from); arc < graph.outEnd(from); arc++) {
+                writer.write("\t\t<edge from=\"" + xml(graph.getNodeName(from)) + "\" to=\""
+                        + xml(graph.getNodeName(graph.outTarget(arc))) + "\">\n");
+                writeAttr(writer, "\t\t\t", "Weight", "int", Integer.toString(graph.outWeight(arc)));
+                writer.write("\t\t</edge>\n");
+            }
+        }
+        writer.write("\t</graph>\n</gxl>\n");
+    }
+
+    private static void writeAttr(Writer writer, String indent, String name, String type, String value)
+            throws IOException {
+        writer.write(indent + "<attr name=\"" + name + "\">\n" + indent + "\t<" + type + ">" + value + "</" + type
+                + ">\n" + indent + "</attr>\n");
+    }
+
+    private static String xml(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,355 @@
+package nz.co.revilo.Generator;
+
+import nz.co.revilo.Input.SparseGraph;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Makes task graphs of the families in test_inputs at any size, named the same way, e.g.
+ * {@code Stencil_Nodes_50_CCR_1.00_WeightType_Random}. Nodes are numbered in a topological order, every arc going from
+ * a lower to a higher node, and node and arc weights are drawn from the weight distribution. Then the arc weights, or
+ * the node weights for ratios under the drawn one, are scaled up so the total arc weight over the total node weight,
+ * the communication to computation ratio, is close to the one asked for. The name gives the ratio actually made.
+ * <p>
+ * The same family, size, options and seed always make the same graph.
+ */
+public class GraphGenerator {
+
+    public static final String FORK = "Fork";
+    public static final String JOIN = "Join";
+    public static final String FORK_JOIN = "Fork_Join";
+    public static final String IN_TREE = "InTree";
+    public static final String OUT_TREE = "OutTree";
+    public static final String PIPELINE = "Pipeline";
+    public static final String SERIES_PARALLEL = "SeriesParallel";
+    public static final String STENCIL = "Stencil";
+    public static final String RANDOM = "Random";
+    public static final String INDEPENDENT = "Independent";
+    public static final String FAMILIES = FORK + "," + JOIN + "," + FORK_JOIN + "," + IN_TREE + "," + OUT_TREE + ","
+            + PIPELINE + "," + SERIES_PARALLEL + "," + STENCIL + "," + RANDOM + "," + INDEPENDENT;
+
+    // Weight distributions, each averaging about MEAN_WEIGHT before scaling
+    public static final String RANDOM_WEIGHTS = "random";
+    public static final String CONSTANT_WEIGHTS = "constant";
+    public static final String BIMODAL_WEIGHTS = "bimodal";
+    public static final String EXPONENTIAL_WEIGHTS = "exponential";
+    public static final String WEIGHT_DISTRIBUTIONS = RANDOM_WEIGHTS + "," + CONSTANT_WEIGHTS + "," + BIMODAL_WEIGHTS
+            + "," + EXPONENTIAL_WEIGHTS;
+    public static final int MEAN_WEIGHT = 10;
+
+    public static final double DEFAULT_CCR = 1.0;
+    public static final double DEFAULT_DENSITY = 1.5;
+    public static final int DEFAULT_BRANCHING = 3;
+    public static final long DEFAULT_SEED = 1;
+
+    // Chance of a series parallel graph splitting into parallel branches rather than two graphs in series
+    private static final double PARALLEL_CHANCE = 0.5;
+    // Chance of a bimodal weight being heavy
+    private static final double HEAVY_CHANCE = 0.2;
+
+    private final String _family;
+    private final int _nodes;
+    private double _ccr = DEFAULT_CCR;
+    private String _weights = RANDOM_WEIGHTS;
+    private long _seed = DEFAULT_SEED;
+    private double _density = DEFAULT_DENSITY;
+    private int _branching = DEFAULT_BRANCHING;
+    private boolean _balanced = true;
+
+    private Random _random;
+    private int[] _arcFrom;
+    private int[] _arcTo;
+    private int _arcCount;
+
+    /**
+     * @param family one of FAMILIES
+     * @param nodes  number of tasks
+     */
+    public GraphGenerator(String family, int nodes) {
+        if (!Arrays.asList(FAMILIES.split(",")).contains(family)) {
+            throw new RuntimeException("Unknown graph family " + family + ", expected one of " + FAMILIES);
+        }
+        if (nodes < 1) {
+            throw new RuntimeException("A graph needs at least one node");
+        }
+        _family = family;
+        _nodes = nodes;
+    }
+
+    /**
+     * @param ccr total arc weight over total node weight, more than 0
+     */
+    public void setCcr(double ccr) {
+        if (!(ccr > 0)) {
+            throw new RuntimeException("Communication to computation ratio must be more than 0");
+        }
+        _ccr = ccr;
+    }
+
+    /**
+     * @param weights one of WEIGHT_DISTRIBUTIONS
+     */
+    public void setWeights(String weights) {
+        if (!Arrays.asList(WEIGHT_DISTRIBUTIONS.split(",")).contains(weights)) {
+            throw new RuntimeException("Unknown weights " + weights + ", expected one of " + WEIGHT_DISTRIBUTIONS);
+        }
+        _weights = weights;
+    }
+
+    public void setSeed(long seed) {
+        _seed = seed;
+    }
+
+    /**
+     * @param density arcs per node of RANDOM graphs
+     */
+    public void setDensity(double density) {
+        if (!(density >= 0)) {
+            throw new RuntimeException("Density can't be negative");
+        }
+        _density = density;
+    }
+
+    /**
+     * @param branching most children of a tree node or branches of a series parallel split, and lanes of a PIPELINE
+     */
+    public void setBranching(int branching) {
+        if (branching < 1 || (_family.equals(SERIES_PARALLEL) && branching < 2)) {
+            throw new RuntimeException("Branching must be at least 1, and 2 for series parallel graphs");
+        }
+        _branching = branching;
+    }
+
+    /**
+     * @param balanced whether trees are filled level by level, rather than nodes joining random parents
+     */
+    public void setBalanced(boolean balanced) {
+        _balanced = balanced;
+    }
+
+    /**
+     * @return a new graph
+     */
+    public SparseGraph generate() {
+        _random = new Random(_seed);
+        _arcFrom = new int[Math.max(16, _nodes * 2)];
+        _arcTo = new int[_arcFrom.length];
+        _arcCount = 0;
+
+        switch (_family) {
+            case FORK:
+            case JOIN:
+                for (int node = 1; node < _nodes; node++) {
+                    addArc(_family.equals(FORK) ? 0 : node - 1, _family.equals(FORK) ? node : _nodes - 1);
+                }
+                break;
+            case FORK_JOIN:
+                for (int node = 1; node < _nodes - 1; node++) {
+                    addArc(0, node);
+                    addArc(node, _nodes - 1);
+                }
+                if (_nodes == 2) {
+                    addArc(0, 1);
+                }
+                break;
+            case IN_TREE:
+            case OUT_TREE:
+                tree(_family.equals(IN_TREE));
+                break;
+            case PIPELINE:
+                // Lanes of chains, each stage also feeding the next stage of the lane beside it
+                for (int node = 0; node + _branching < _nodes; node++) {
+                    addArc(node, node + _branching);
+                    if (node % _branching + 1 < _branching && node + _branching + 1 < _nodes) {
+                        addArc(node, node + _branching + 1);
+                    }
+                }
+                break;
+            case SERIES_PARALLEL:
+                seriesParallel(0, _nodes);
+                break;
+            case STENCIL:
+                // Rows of about the square root of half the nodes, each node feeding its three neighbours below
+                int width = Math.max(1, (int) Math.round(Math.sqrt(_nodes / 2.0)));
+                for (int node = 0; node + width < _nodes; node++) {
+                    int column = node % width;
+                    for (int below = Math.max(0, column - 1); below <= Math.min(width - 1, column + 1); below++) {
+                        if (node - column + width + below < _nodes) {
+                            addArc(node, node - column + width + below);
+                        }
+                    }
+                }
+                break;
+            case RANDOM:
+                random();
+                break;
+            default:
+                break;
+        }
+
+        int[] nodeWeights = new int[_nodes];
+        long computation = 0;
+        for (int node = 0; node < _nodes; node++) {
+            nodeWeights[node] = weight();
+            computation += nodeWeights[node];
+        }
+        int[] arcWeights = new int[_arcCount];
+        long drawn = 0;
+        for (int arc = 0; arc < _arcCount; arc++) {
+            arcWeights[arc] = weight();
+            drawn += arcWeights[arc];
+        }
+        // Scales whichever of the arc and node weights goes up, so neither is rounded to nothing
+        double scale = drawn > 0 ? _ccr * computation / drawn : 1;
+        long communication = 0;
+        for (int arc = 0; arc < _arcCount; arc++) {
+            arcWeights[arc] = (int) Math.max(1, Math.round(arcWeights[arc] * Math.max(1, scale)));
+            communication += arcWeights[arc];
+        }
+        if (scale < 1) {
+            computation = 0;
+            for (int node = 0; node < _nodes; node++) {
+                nodeWeights[node] = (int) Math.max(1, Math.round(nodeWeights[node] / scale));
+                computation += nodeWeights[node];
+            }
+        }
+
+        String[] nodeNames = new String[_nodes];
+        for (int node = 0; node < _nodes; node++) {
+            nodeNames[node] = Integer.toString(node);
+        }
+        return new SparseGraph(name((double) communication / computation), nodeNames, nodeWeights, _arcFrom, _arcTo,
+                arcWeights, _arcCount);
+    }
+
+    /**
+     * Joins each node but the root to a parent before it, the arc pointing to the parent for in trees
+     */
+    private void tree(boolean inTree) {
+        // Nodes which can still take children, a balanced tree always taking the first
+        int[] open = new int[_nodes];
+        int[] children = new int[_nodes];
+        int openCount = 1;
+        int first = 0;
+        for (int node = 1; node < _nodes; node++) {
+            int slot = _balanced ? first : first + _random.nextInt(openCount - first);
+            int parent = open[slot];
+            if (inTree) {
+                // Numbered backwards so arcs still go from lower to higher nodes, the root last
+                addArc(_nodes - 1 - node, _nodes - 1 - parent);
+            } else {
+                addArc(parent, node);
+            }
+            if (++children[parent] == _branching) {
+                open[slot] = open[first++];
+            }
+            open[openCount++] = node;
+        }
+    }
+
+    /**
+     * Makes a series parallel graph of count nodes numbered from first, with first its only source and first + count
+     * - 1 its only sink. It splits into two graphs in series, or a fork, parallel branches and a join. Splits are
+     * kept even enough for the recursion to stay shallow on large graphs.
+     */
+    private void seriesParallel(int first, int count) {
+        int last = first + count - 1;
+        if (count == 2) {
+            addArc(first, last);
+        } else if (count > 3 && _random.nextDouble() < PARALLEL_CHANCE) {
+            int branches = 2 + _random.nextInt(Math.min(_branching, count - 2) - 1);
+            int start = first + 1;
+            for (int branch = 0; branch < branches; branch++) {
+                int size = (count - 2) / branches + (branch < (count - 2) % branches ? 1 : 0);
+                seriesParallel(start, size);
+                addArc(first, start);
+                addArc(start + size - 1, last);
+                start += size;
+            }
+        } else if (count > 2) {
+            int head = count / 4 + _random.nextInt(count / 2) + 1;
+            seriesParallel(first, head);
+            seriesParallel(first + head, count - head);
+            addArc(first + head - 1, first + head);
+        }
+    }
+
+    /**
+     * Adds about density arcs per node between distinct random pairs of nodes, each going to the later node
+     */
+    private void random() {
+        long pairs = (long) _nodes * (_nodes - 1) / 2;
+        long arcs = Math.min(pairs, Math.round(_density * _nodes));
+        Set<Long> added = new HashSet<>();
+        if (arcs > pairs / 2) {
+            // Dense graphs keep each pair with the right chance rather than drawing pairs until enough are new
+            for (int from = 0; from < _nodes; from++) {
+                for (int to = from + 1; to < _nodes; to++) {
+                    if (_random.nextDouble() * pairs < arcs) {
+                        addArc(from, to);
+                    }
+                }
+            }
+            return;
+        }
+        while (added.size() < arcs) {
+            int a = _random.nextInt(_nodes);
+            int b = _random.nextInt(_nodes);
+            if (a != b && added.add((long) Math.min(a, b) * _nodes + Math.max(a, b))) {
+                addArc(Math.min(a, b), Math.max(a, b));
+            }
+        }
+    }
+
+    private void addArc(int from, int to) {
+        if (_arcCount == _arcFrom.length) {
+            _arcFrom = Arrays.copyOf(_arcFrom, _arcCount * 2);
+            _arcTo = Arrays.copyOf(_arcTo, _arcCount * 2);
+        }
+        _arcFrom[_arcCount] = from;
+        _arcTo[_arcCount++] = to;
+    }
+
+    /**
+     * @return a weight of at least 1 drawn from the distribution
+     */
+    private int weight() {
+        switch (_weights) {
+            case CONSTANT_WEIGHTS:
+                return MEAN_WEIGHT;
+            case BIMODAL_WEIGHTS:
+                // Mostly light with a heavy fifth, averaging about MEAN_WEIGHT
+                return _random.nextDouble() < HEAVY_CHANCE
+                        ? 3 * MEAN_WEIGHT + _random.nextInt(MEAN_WEIGHT)
+                        : 1 + _random.nextInt(MEAN_WEIGHT / 2 + 1);
+            case EXPONENTIAL_WEIGHTS:
+                return 1 + (int) (-Math.log(1 - _random.nextDouble()) * (MEAN_WEIGHT - 1));
+            default:
+                return 1 + _random.nextInt(2 * MEAN_WEIGHT - 1);
+        }
+    }
+
+    /**
+     * @return the name test_inputs would give the graph
+     */
+    private String name(double ccr) {
+        String family = _family;
+        if (_family.equals(IN_TREE) || _family.equals(OUT_TREE)) {
+            family += (_balanced ? "-Balanced" : "-Unbalanced") + "-MaxBf-" + _branching;
+        } else if (_family.equals(SERIES_PARALLEL)) {
+            family += "-MaxBf-" + _branching;
+        }
+        String name = family + "_Nodes_" + _nodes;
+        if (_family.equals(RANDOM)) {
+            name += String.format(Locale.ROOT, "_Density_%.2f", (double) _arcCount / _nodes);
+        }
+        if (!_family.equals(INDEPENDENT)) {
+            name += String.format(Locale.ROOT, "_CCR_%.2f", ccr);
+        }
+        return name + "_WeightType_" + Character.toUpperCase(_weights.charAt(0)) + _weights.substring(1);
+    }
+}
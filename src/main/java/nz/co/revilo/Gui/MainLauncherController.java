@@ -20,6 +20,7 @@ import javafx.stage.Stage;
 import nz.co.revilo.App;
 import nz.co.revilo.Gui.GanttChart.ExtraData;
 import nz.co.revilo.Output.NewOptimalResultListener;
+import nz.co.revilo.Output.ScheduleResult;
 import nz.co.revilo.Output.ScheduleResultListener;
 import nz.co.revilo.Scheduling.BnBSchedule;
 
@@ -34,13 +35,8 @@ public class MainLauncherController implements Initializable, ScheduleResultList
     public static final String processorTitle = "PSR ";
 
     App app;
-    protected String _graphName;
-    protected List<String> _nodeNames;
-    protected List<List<Boolean>> _arcs;
-    protected List<List<Integer>> _arcWeights;
-    protected List<Integer> _nodeWeights;
-    protected List<Integer> _nodeStarts;
-    protected List<Integer> _nodeProcessor;
+    // Best schedule found so far, null until there is one
+    protected ScheduleResult _schedule;
 
     private Stage thisStage;
     private GUIScheduleResult results;
@@ -52,7 +48,6 @@ public class MainLauncherController implements Initializable, ScheduleResultList
      * @param ml main launcher
      */
     public MainLauncherController(App app, MainLauncher ml) {
-        _nodeStarts = new ArrayList<>();
         thisStage = ml.getPrimaryStage();
         this.app = app;
         this.ml = ml;
@@ -147,8 +142,8 @@ public class MainLauncherController implements Initializable, ScheduleResultList
             @Override
             public void run() {
 
-                double explored = App.getAlgorithmManager().getExploredStates().get();
-                double broken = App.getAlgorithmManager().getBrokenTrees().get();
+                double explored = App.getAlgorithmManager().getExploredStates();
+                double broken = App.getAlgorithmManager().getBrokenTrees();
                 double percentage = explored == 0 ? 0 : 100.0*broken/explored;
                 Platform.runLater(() -> {
                     // calculate current used memory
@@ -187,21 +182,11 @@ public class MainLauncherController implements Initializable, ScheduleResultList
      * Notifies the UI that the final schedule has been found and update the status bar
      * @author Terran Kroft
      *
-     * @param graphName     Name of graph
-     * @param nodeNames     Name of each task
-     * @param arcs          The existence of arcs
-     * @param arcWeights    How long to transfer results of task completion to another processor
-     * @param nodeWeights   How long each task takes
-     * @param nodeStarts    When each task starts
-     * @param nodeProcessor What processor each task is on
+     * @param schedule the schedule and the graph it schedules
      */
     @Override
-    public void finalSchedule(String graphName, List<String> nodeNames, List<List<Boolean>> arcs, List<List<Integer>> arcWeights, List<Integer> nodeWeights, List<Integer> nodeStarts, List<Integer> nodeProcessor) {
-        _graphName = graphName;
-        _nodeNames = nodeNames;
-        _nodeWeights = nodeWeights;
-        _nodeStarts = nodeStarts;
-        _nodeProcessor = nodeProcessor;
+    public void finalSchedule(ScheduleResult schedule) {
+        _schedule = schedule;
 
         Platform.runLater(() -> {
             systemLabel.setText("COMPLETE");
@@ -242,8 +227,16 @@ public class MainLauncherController implements Initializable, ScheduleResultList
         ArrayList<XYChart.Series> processorCat = new ArrayList<>();
         ArrayList<ArrayList<String>> pcatName = new ArrayList<>();
 
-        long lowestNodeWeight = (long) Collections.min(_nodeWeights);
-        long highestNodeWeight = (long) Collections.max(_nodeWeights);
+        ScheduleResult schedule = _schedule;
+        if (schedule == null) {
+            return;
+        }
+        long lowestNodeWeight = Long.MAX_VALUE;
+        long highestNodeWeight = Long.MIN_VALUE;
+        for (int i = 0; i < schedule.getNodeCount(); i++) {
+            lowestNodeWeight = Math.min(lowestNodeWeight, schedule.getNodeWeight(i));
+            highestNodeWeight = Math.max(highestNodeWeight, schedule.getNodeWeight(i));
+        }
 
         for (int i = 0; i < App.getExecCores(); i++) {
             processorCatStr.add(processorTitle + i);
@@ -251,8 +244,8 @@ public class MainLauncherController implements Initializable, ScheduleResultList
             pcatName.add(new ArrayList<>());
         }
 
-        for (int i = 0; i < _nodeStarts.size(); i++) { //using node starts as not all nodes might be set yet
-            int psr = _nodeProcessor.get(i);
+        for (int i = 0; i < schedule.getNodeCount(); i++) {
+            int psr = schedule.getProcessor(i);
             XYChart.Series psrCat = processorCat.get(psr);
             ArrayList<String> pcat = pcatName.get(psr);
             String styleclass;
@@ -264,8 +257,8 @@ public class MainLauncherController implements Initializable, ScheduleResultList
                 case 4: styleclass = "gantt4"; break;
                 default: styleclass = "ganttdefault"; break;
             }
-            XYChart.Data data = new XYChart.Data(_nodeStarts.get(i), (processorTitle + (psr + 1)), new ExtraData(_nodeWeights.get(i), styleclass));
-            String iterNodeName = _nodeNames.get(i);
+            XYChart.Data data = new XYChart.Data(schedule.getStartTime(i), (processorTitle + (psr + 1)), new ExtraData(schedule.getNodeWeight(i), styleclass));
+            String iterNodeName = schedule.getNodeName(i);
 
             psrCat.getData().add(data);
             pcat.add(iterNodeName);
@@ -306,15 +299,7 @@ public class MainLauncherController implements Initializable, ScheduleResultList
      */
     @Override
     public void newOptimal(BnBSchedule optimal) {
-        _graphName = App.getAlgorithmManager().getGraphName();
-        _nodeNames = App.getAlgorithmManager().getNodeNames();
-        _nodeWeights = App.getAlgorithmManager().getNodeWeights();
-        _nodeStarts = new ArrayList<>();
-        _nodeProcessor = new ArrayList<>();
-        for(int nodeId=0; nodeId< _nodeWeights.size(); nodeId++){
-            _nodeStarts.add(optimal.getClosedNodes().get(nodeId).getA());//start times
-            _nodeProcessor.add(optimal.getClosedNodes().get(nodeId).getB());//processors scheduled on
-        }
+        _schedule = App.getAlgorithmManager().resultOf(optimal);
         Platform.runLater(() -> {
             updateGantt();
             statusLabel.setText("New optimal schedule found with length " + App.getAlgorithmManager().getAtomicBound() + ".");
@@ -0,0 +1,176 @@
+package nz.co.revilo.Input;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary form of a graph, read without any text parsing. All numbers are big-endian.
+ * <pre>
+ * int      magic ("RVLG")
+ * short    version
+ * short    flags (unused, 0)
+ * int      n, number of nodes
+ * int      m, number of arcs
+ * int[n]   node weights
+ * int[n+1] arc offsets, the arcs out of node i are at [offsets[i], offsets[i+1])
+ * int[m]   arc targets, increasing within each node's arcs
+ * int[m]   arc weights
+ * name     graph name
+ * name[n]  node names
+ * </pre>
+ * where a name is an int byte length followed by that many bytes of UTF-8.
+ * <p>
+ * The arcs are in the same compressed sparse row form as a SparseGraph, so a decoded graph is handed over as read.
+ * Text graphs are converted once with {@code revilo convert} and files ending in FILE_EXTENSION are then memory-mapped
+ * by a BinaryGraphReader.
+ */
+public final class BinaryGraphFormat {
+
+    public static final int MAGIC = 0x52564C47;
+    public static final short VERSION = 1;
+    public static final String FILE_EXTENSION = ".rvg";
+
+    private BinaryGraphFormat() {
+    }
+
+    /**
+     * Encodes a graph given in the old adjacency matrix form
+     *
+     * @return the encoded graph
+     */
+    public static byte[] encode(String graphName, String[] nodeNames, int[] nodeWeights, boolean[][] arcs, int[][] arcWeights) {
+        return encode(SparseGraph.fromDense(graphName, nodeNames, nodeWeights, arcs, arcWeights));
+    }
+
+    /**
+     * Encodes a graph as parsers give it to a ParseResultListener
+     *
+     * @return the encoded graph
+     */
+    public static byte[] encode(SparseGraph graph) {
+        int n = graph.getNodeCount();
+        int m = graph.getArcCount();
+
+        byte[][] names = new byte[n + 1][];
+        int nameBytes = 0;
+        names[0] = (graph.getGraphName() == null ? "" : graph.getGraphName()).getBytes(StandardCharsets.UTF_8);
+        for (int node = 0; node < n; node++) {
+            names[node + 1] = graph.getNodeName(node).getBytes(StandardCharsets.UTF_8);
+        }
+        for (byte[] name : names) {
+            nameBytes += Integer.BYTES + name.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES * 4 + Integer.BYTES * (n + n + 1 + m + m) + nameBytes);
+        buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(n).putInt(m);
+        for (int node = 0; node < n; node++) {
+            buffer.putInt(graph.getNodeWeight(node));
+        }
+        for (int node = 0; node < n; node++) {
+            buffer.putInt(graph.outStart(node));
+        }
+        buffer.putInt(m);
+        for (int arc = 0; arc < m; arc++) {
+            buffer.putInt(graph.outTarget(arc));
+        }
+        for (int arc = 0; arc < m; arc++) {
+            buffer.putInt(graph.outWeight(arc));
+        }
+        for (byte[] name : names) {
+            buffer.putInt(name.length).put(name);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Decodes a graph from the buffer's position and gives it to the listener
+     *
+     * @param buffer   holding an encoded graph
+     * @param listener To inform of parsing results
+     */
+    public static void decode(ByteBuffer buffer, ParseResultListener listener) {
+        listener.parsedGraph(read(buffer));
+    }
+
+    /**
+     * Decodes a graph from the buffer's position
+     *
+     * @param buffer holding an encoded graph
+     * @return the graph
+     */
+    public static SparseGraph read(ByteBuffer buffer) {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a binary graph");
+            }
+            short version = buffer.getShort();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported binary graph version " + version);
+            }
+            buffer.getShort();
+            int n = buffer.getInt();
+            int m = buffer.getInt();
+            if (n < 0 || m < 0 || Integer.BYTES * (2L * n + 1 + 2L * m) > buffer.remaining()) {
+                throw new IllegalArgumentException("Binary graph is truncated");
+            }
+
+            int[] nodeWeights = new int[n];
+            buffer.asIntBuffer().get(nodeWeights);
+            buffer.position(buffer.position() + Integer.BYTES * n);
+            int[] offsets = new int[n + 1];
+            buffer.asIntBuffer().get(offsets);
+            buffer.position(buffer.position() + Integer.BYTES * (n + 1));
+            int[] targets = new int[m];
+            buffer.asIntBuffer().get(targets);
+            buffer.position(buffer.position() + Integer.BYTES * m);
+            int[] weights = new int[m];
+            buffer.asIntBuffer().get(weights);
+            buffer.position(buffer.position() + Integer.BYTES * m);
+
+            String graphName = readName(buffer);
+            String[] nodeNames = new String[n];
+            for (int node = 0; node < n; node++) {
+                nodeNames[node] = readName(buffer);
+            }
+
+            return SparseGraph.fromCsr(graphName.isEmpty() ? null : graphName, nodeNames, nodeWeights, offsets,
+                    targets, weights);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Binary graph is truncated");
+        }
+    }
+
+    /**
+     * Reads a DOT or GXL file and writes it in this format
+     *
+     * @param inputFilename  graph to convert, read by the parser matching its extension
+     * @param output         where the encoded graph is written
+     * @throws FileNotFoundException if the input doesn't exist
+     * @throws IOException           if the output can't be written
+     */
+    public static void convert(String inputFilename, OutputStream output) throws IOException {
+        output.write(encode(ParsedGraph.parse(inputFilename).getGraph()));
+    }
+
+    /**
+     * @param filename name of a file
+     * @return whether the file is in this format, by its extension
+     */
+    public static boolean isBinaryGraphFile(String filename) {
+        return filename.toUpperCase().endsWith(FILE_EXTENSION.toUpperCase());
+    }
+
+    private static String readName(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("Not a binary graph");
+        }
+        byte[] name = new byte[length];
+        buffer.get(name);
+        return new String(name, StandardCharsets.UTF_8);
+    }
+}
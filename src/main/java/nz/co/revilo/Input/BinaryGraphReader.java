@@ -0,0 +1,73 @@
+package nz.co.revilo.Input;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * BinaryGraphReader is a FileParser for graphs in the BinaryGraphFormat, so nothing has to be parsed from text. Files
+ * are memory-mapped, unless they're compressed, and their arrays are copied out in bulk.
+ */
+public class BinaryGraphReader extends FileParser {
+
+    private final ByteBuffer _buffer;
+
+    /**
+     * Constructs a BinaryGraphReader with the filename to map
+     *
+     * @param filename is the name of the file to open
+     */
+    public BinaryGraphReader(String filename) {
+        super(filename);
+        _buffer = null;
+    }
+
+    /**
+     * Constructs a BinaryGraphReader reading the encoded graph from a stream, such as standard input
+     *
+     * @param name   name standing in for the filename
+     * @param stream where the graph is read from
+     */
+    public BinaryGraphReader(String name, InputStream stream) {
+        super(name, stream);
+        _buffer = null;
+    }
+
+    /**
+     * Constructs a BinaryGraphReader over an encoded graph which is already in memory
+     *
+     * @param name   name standing in for the filename
+     * @param buffer holding the encoded graph
+     */
+    public BinaryGraphReader(String name, ByteBuffer buffer) {
+        super(name);
+        _buffer = buffer;
+    }
+
+    /**
+     * Decodes the graph and informs the listener of it
+     *
+     * @param newListener To inform of parsing results
+     * @throws FileNotFoundException Thrown if the file name given doesn't exist
+     */
+    @Override
+    public void startParsing(ParseResultListener newListener) throws FileNotFoundException {
+        ByteBuffer buffer = null;
+        try {
+            buffer = _buffer == null ? openBytes() : _buffer.duplicate();
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (IOException e) {
+            fileReadingError(e);
+        }
+
+        SparseGraph graph;
+        try {
+            graph = BinaryGraphFormat.read(buffer);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(getFilename() + ": " + e.getMessage());
+        }
+        newListener.parsedGraph(graph);
+    }
+}
@@ -0,0 +1,163 @@
+package nz.co.revilo.Input;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Puts together the graphs read from the chunks of a DOT file, numbering the nodes in the order they first appear
+ * across the chunks as reading the file in one go would. A node first appears in the earliest chunk naming it and
+ * chunks number their nodes in the order they appear, so the nodes are numbered by chunk and then by their number in
+ * that chunk. Names are split into as many partitions by their hash as there are chunks, so that each partition can
+ * find where its names first appear on its own thread. Every step is done for all of the chunks or partitions at the
+ * same time except adding up how many nodes first appear in each chunk and setting the node weights, where the last
+ * weight given has to win.
+ */
+final class DotChunkMerger {
+
+    // Starting size of each partition's first appearances
+    private static final int INITIAL_NAMES = 64;
+
+    private final ByteBuffer _buffer;
+    private final List<DotStatements> _chunks;
+
+    private DotChunkMerger(ByteBuffer buffer, List<DotStatements> chunks) {
+        _buffer = buffer;
+        _chunks = chunks;
+    }
+
+    /**
+     * @param buffer the chunks were read from
+     * @param chunks in the order they are in the file
+     * @return the whole graph
+     */
+    static GraphBuilder merge(ByteBuffer buffer, List<DotStatements> chunks) {
+        return new DotChunkMerger(buffer, chunks).merge();
+    }
+
+    private GraphBuilder merge() {
+        int count = _chunks.size();
+
+        // Sorts each chunk's nodes into partitions by name hash, keeping their order within each partition
+        int[][] partitionStarts = new int[count][];
+        int[][] partitioned = new int[count][];
+        forEachChunk(chunk -> {
+            DotNameTable names = _chunks.get(chunk).getNames();
+            int[] starts = new int[count + 1];
+            for (int node = 0; node < names.size(); node++) {
+                starts[partitionOf(names.getHash(node), count) + 1]++;
+            }
+            for (int partition = 0; partition < count; partition++) {
+                starts[partition + 1] += starts[partition];
+            }
+            int[] next = Arrays.copyOf(starts, count);
+            int[] nodes = new int[names.size()];
+            for (int node = 0; node < names.size(); node++) {
+                nodes[next[partitionOf(names.getHash(node), count)]++] = node;
+            }
+            partitionStarts[chunk] = starts;
+            partitioned[chunk] = nodes;
+        });
+
+        // Finds where each name first appears, as its chunk in the high half and its number in that chunk in the low
+        // half, going through each partition's names chunk by chunk
+        long[][] firstOf = new long[count][];
+        for (int chunk = 0; chunk < count; chunk++) {
+            firstOf[chunk] = new long[partitioned[chunk].length];
+        }
+        forEachChunk(partition -> {
+            DotNameTable seen = new DotNameTable(_buffer);
+            long[] appearances = new long[INITIAL_NAMES];
+            for (int chunk = 0; chunk < count; chunk++) {
+                DotNameTable names = _chunks.get(chunk).getNames();
+                for (int i = partitionStarts[chunk][partition]; i < partitionStarts[chunk][partition + 1]; i++) {
+                    int node = partitioned[chunk][i];
+                    int hash = names.getHash(node), start = names.getStart(node), length = names.getLength(node);
+                    int name = seen.indexOf(hash, start, length);
+                    if (name < 0) {
+                        name = seen.add(hash, start, length);
+                        if (name == appearances.length) {
+                            appearances = Arrays.copyOf(appearances, name * 2);
+                        }
+                        appearances[name] = appearance(chunk, node);
+                    }
+                    firstOf[chunk][node] = appearances[name];
+                }
+            }
+        });
+
+        // Numbers the nodes first appearing in each chunk from 0, the other nodes get -1
+        int[][] ranks = new int[count][];
+        int[] newNodes = new int[count + 1];
+        forEachChunk(chunk -> {
+            ranks[chunk] = new int[firstOf[chunk].length];
+            int rank = 0;
+            for (int node = 0; node < firstOf[chunk].length; node++) {
+                ranks[chunk][node] = firstOf[chunk][node] == appearance(chunk, node) ? rank++ : -1;
+            }
+            newNodes[chunk + 1] = rank;
+        });
+        for (int chunk = 0; chunk < count; chunk++) {
+            newNodes[chunk + 1] += newNodes[chunk];
+        }
+
+        // Numbers every node of every chunk in the whole graph
+        int nodeCount = newNodes[count];
+        String[] nodeNames = new String[nodeCount];
+        int[][] nodes = new int[count][];
+        forEachChunk(chunk -> {
+            GraphBuilder part = _chunks.get(chunk).getGraph();
+            nodes[chunk] = new int[ranks[chunk].length];
+            for (int node = 0; node < nodes[chunk].length; node++) {
+                if (ranks[chunk][node] >= 0) {
+                    nodes[chunk][node] = newNodes[chunk] + ranks[chunk][node];
+                    nodeNames[nodes[chunk][node]] = part.getNodeName(node);
+                } else {
+                    int firstChunk = (int) (firstOf[chunk][node] >>> 32);
+                    nodes[chunk][node] = newNodes[firstChunk] + ranks[firstChunk][(int) firstOf[chunk][node]];
+                }
+            }
+        });
+
+        int[] nodeWeights = new int[nodeCount];
+        Arrays.fill(nodeWeights, DotFileReader.DEFAULT_WEIGHT);
+        for (int chunk = 0; chunk < count; chunk++) {
+            GraphBuilder part = _chunks.get(chunk).getGraph();
+            for (int node = 0; node < nodes[chunk].length; node++) {
+                if (part.getNodeWeight(node) != DotFileReader.DEFAULT_WEIGHT) {
+                    nodeWeights[nodes[chunk][node]] = part.getNodeWeight(node);
+                }
+            }
+        }
+
+        // Arcs stay in file order
+        int[] arcStarts = new int[count + 1];
+        for (int chunk = 0; chunk < count; chunk++) {
+            arcStarts[chunk + 1] = arcStarts[chunk] + _chunks.get(chunk).getGraph().getArcCount();
+        }
+        int[] arcFrom = new int[arcStarts[count]];
+        int[] arcTo = new int[arcStarts[count]];
+        int[] arcWeights = new int[arcStarts[count]];
+        forEachChunk(chunk -> _chunks.get(chunk).getGraph().copyArcs(nodes[chunk], arcFrom, arcTo, arcWeights,
+                arcStarts[chunk]));
+
+        return new GraphBuilder(nodeNames, nodeWeights, arcFrom, arcTo, arcWeights);
+    }
+
+    private void forEachChunk(IntConsumer step) {
+        IntStream.range(0, _chunks.size()).parallel().forEach(step);
+    }
+
+    private static long appearance(int chunk, int node) {
+        return ((long) chunk << 32) | node;
+    }
+
+    /**
+     * @return partition of a name by the top bits of its hash, the bottom bits place it in a DotNameTable
+     */
+    private static int partitionOf(int hash, int partitions) {
+        return (int) (((hash & 0xFFFFFFFFL) * partitions) >>> 32);
+    }
+}
@@ -1,50 +1,43 @@
 package nz.co.revilo.Input;
 
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 /**
  * DotFileReader is a class that extends FileParser it's purpose is to read the file and place the digraph in to a
  * data-structure and give it to a ParseResultListener.
+ * <p>
+ * The file is memory-mapped, or read into memory if it's compressed or a stream, and tokenized in a single pass by a DotTokenizer, so statements can be laid out in any
+ * way: several to a line or split over lines, with quoted names and with attributes other than Weight, which are
+ * skipped. Node names are looked up straight from the file's bytes, so a String is only made for each new node.
+ * <p>
+ * Large files are split into chunks at line starts which are read at the same time, see readChunks.
  *
  * @author Michael Kemp
  * @version 1.0
  */
 public class DotFileReader extends FileParser {
 
-    // Regex for string matchers that will extract the required information from the string
-    public static final Pattern GRAPH_NAME_MATCH = Pattern.compile("[\\s]*digraph[\\s]*\"(.*)\"[\\s]*\\{[\\s]*");
-    public static final Pattern ARC_FROM_MATCH = Pattern.compile("[\\s]*([\\p{Alnum}]*)[\\s]*.>[\\s]*[\\p{Alnum}]*[\\s]*\\[[\\s]*[Ww]eight[\\s]*[=][\\s]*[\\p{Digit}]*[\\s]*][\\s]*;");
-    public static final Pattern ARC_TO_MATCH = Pattern.compile("[\\s]*[\\p{Alnum}]*[\\s]*.>[\\s]*([\\p{Alnum}]*)[\\s]*\\[[\\s]*[Ww]eight[\\s]*[=][\\s]*[\\p{Digit}]*[\\s]*][\\s]*;");
-    public static final Pattern ARC_WEIGHT_MATCH = Pattern.compile("[\\s]*[\\p{Alnum}]*[\\s]*.>[\\s]*[\\p{Alnum}]*[\\s]*\\[[\\s]*[Ww]eight[\\s]*[=][\\s]*([\\p{Digit}]*)[\\s]*][\\s]*;");
-    public static final Pattern NODE_NAME_MATCH = Pattern.compile("[\\s]*([\\p{Alnum}]*)[\\s]*\\[[\\s]*[Ww]eight[\\s]*[=][\\s]*[\\p{Digit}]*[\\s]*][\\s]*;");
-    public static final Pattern NODE_WEIGHT_MATCH = Pattern.compile("[\\s]*[\\p{Alnum}]*[\\s]*\\[[\\s]*[Ww]eight[\\s]*[=][\\s]*([\\p{Digit}]*)[\\s]*][\\s]*;");
-
-    // Regex for string matchers of line types
-    public static final String ARC_LINE_MATCH = "[\\s]*[\\p{Alnum}]*[\\s]*.>[\\s]*[\\p{Alnum}]*[\\s]*\\[[\\s]*[Ww]eight[\\s]*[=][\\s]*[\\p{Digit}]*[\\s]*][\\s]*;";
-    public static final String NODE_LINE_MATCH = "[\\s]*[\\p{Alnum}]*[\\s]*\\[[\\s]*[Ww]eight[\\s]*[=][\\s]*[\\p{Digit}]*[\\s]*][\\s]*;";
-    public static final String GRAPH_NAME_LINE_MATCH = "[\\s]*digraph[\\s]*\".*\"[\\s]*\\{[\\s]*";
-    public static final String END_OF_DOT_FILE_MATCH = "[\\s]*}[\\s]*";
-
     // Default weight for arcs and nodes if not defined
     public static final int DEFAULT_WEIGHT = -1;
+    public static final String FILE_EXTENSION = ".dot";
 
-    // First match found by matcher
-    public static final int FIRST_MATCH = 1;
+    // Files are only split into chunks at least this big, smaller ones are read faster on one thread
+    private static final int MIN_CHUNK_BYTES = 1 << 20;
+    // How far past where a chunk would start to look for a line after a semicolon
+    private static final int STATEMENT_SEARCH_BYTES = 1 << 16;
+
+    private final ByteBuffer _bytes;
+    private int _threads = Runtime.getRuntime().availableProcessors();
 
-    private HashMap<String, Integer> _nodeNames;
-    private List<Integer> _nodeWeights;
-    private HashMap<String, HashMap<String, Integer>> _arcs;
-    private String[] _nodeNamesList;
     private String _graphName;
+    private DotTokenizer _tokens;
 
     private ParseResultListener _listener;
 
@@ -56,6 +49,52 @@ public class DotFileReader extends FileParser {
      */
     public DotFileReader(String filename) {
         super(filename);
+        _bytes = null;
+    }
+
+    /**
+     * Constructs a DotFileReader reading the graph from a source other than a file
+     *
+     * @param name   name standing in for the filename
+     * @param source where the graph is read from
+     */
+    public DotFileReader(String name, Reader source) {
+        super(name, source);
+        _bytes = null;
+    }
+
+    /**
+     * Constructs a DotFileReader reading the graph from a stream of bytes, such as standard input
+     *
+     * @param name   name standing in for the filename
+     * @param stream where the graph is read from
+     */
+    public DotFileReader(String name, InputStream stream) {
+        super(name, stream);
+        _bytes = null;
+    }
+
+    /**
+     * Constructs a DotFileReader over DOT text which is already in memory
+     *
+     * @param name  name standing in for the filename
+     * @param bytes the DOT text as UTF-8
+     */
+    public DotFileReader(String name, ByteBuffer bytes) {
+        super(name);
+        _bytes = bytes;
+    }
+
+    /**
+     * Sets how many threads a large file is read on, by default one per available processor
+     *
+     * @param threads at least 1
+     */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread to read on");
+        }
+        _threads = threads;
     }
 
     /**
@@ -68,171 +107,143 @@ public class DotFileReader extends FileParser {
     public void startParsing(ParseResultListener newListener) throws FileNotFoundException {
         // Sets fields
         _listener = newListener;
-        BufferedReader reader = openFile();
-
-        // Initialises the data structures
-        _nodeNames = new HashMap<>();
-        _nodeWeights = new ArrayList<>();
-        _arcs = new HashMap<>();
-
-        /*
-         Reads the file using regex by checking the line is of an expected format then extracts information from the
-         lines by matching with regex
-          */
+        ByteBuffer bytes = null;
         try {
-            // Read the first line to get started
-            String line = reader.readLine();
-
-            // Continue reading the file if there's a next line and the current line isn't a closing line
-            while ((line != null) && !line.contains(END_OF_DOT_FILE_MATCH)) {
-                // Arcs
-                if (line.matches(ARC_LINE_MATCH)) {
-                    createArc(line);
-
-                    // Nodes
-                } else if (line.matches(NODE_LINE_MATCH)) {
-                    createNode(line);
-
-                    // Graph name
-                } else if (line.matches(GRAPH_NAME_LINE_MATCH)) {
-                    graphName(line);
-                }
-
-                // Reads the next line in the file
-                line = reader.readLine();
-            }
-
-            // Problems reading the file
+            bytes = _bytes == null ? openBytes() : _bytes.duplicate();
+        } catch (FileNotFoundException e) {
+            throw e;
         } catch (IOException e) {
             fileReadingError(e);
         }
-
-        // Converts nodes from the generic type data structures to a primitive form
-        String[] nodeNamesPrimitive = new String[_nodeWeights.size()];
-        int[] nodeWeightsPrimitive = new int[_nodeWeights.size()];
-        List<String> tempNames = new ArrayList<>(_nodeNames.keySet());
-        _nodeNamesList = new String[_nodeWeights.size()];
-        // For every node copies information into new structure
-        for (int i = 0; i < _nodeWeights.size(); i++) {
-            String tempName = tempNames.get(i);
-            int location = _nodeNames.get(tempName);
-            _nodeNamesList[location] = tempName;
-            nodeWeightsPrimitive[location] = _nodeWeights.get(location);
-            nodeNamesPrimitive[location] = tempName;
+        _graphName = null;
+        _tokens = new DotTokenizer(bytes, getFilename());
+        header();
+
+        // Reads the statements in chunks if the file is big enough, otherwise or if that fails in one go
+        GraphBuilder graph = null;
+        int chunks = Math.min(_threads, (bytes.limit() - _tokens.tokenStart()) / MIN_CHUNK_BYTES);
+        if (chunks > 1) {
+            graph = readChunks(bytes, chunks);
         }
-
-        // Converts arcs from the generic type data structures to a primitive form
-        boolean[][] arcsPrimitive = new boolean[_nodeWeights.size()][_nodeWeights.size()];
-        int[][] arcWeightsPrimitive = new int[_nodeWeights.size()][_nodeWeights.size()];
-        // From every node to every node (self included) copies the weights and if it doesn't exist DEFAULT_WEIGHT is used
-        for (int from = 0; from < nodeNamesPrimitive.length; from++) {
-            // Any arc that doesn't exist has a DEFAULT_WEIGHT default weight
-            Arrays.fill(arcWeightsPrimitive[from], DEFAULT_WEIGHT);
-            for (int to = 0; to < nodeNamesPrimitive.length; to++) {
-                // If the from node
-                if (_arcs.containsKey(nodeNamesPrimitive[from])) {
-                    // Goes to the to node
-                    if (_arcs.get(nodeNamesPrimitive[from]).containsKey(nodeNamesPrimitive[to])) {
-                        // Copy the weight
-                        arcsPrimitive[from][to] = true;
-                        arcWeightsPrimitive[from][to] = _arcs.get(nodeNamesPrimitive[from]).get(nodeNamesPrimitive[to]);
-                    }
-                }
-            }
+        if (graph == null) {
+            DotStatements statements = new DotStatements(_tokens, bytes);
+            statements.read(Integer.MAX_VALUE);
+            graph = statements.getGraph();
         }
+        _tokens = null;
 
         // Informs the listener about the freshly read graph
-        _listener.ParsingResults(_graphName, _nodeNamesList, nodeWeightsPrimitive, arcsPrimitive, arcWeightsPrimitive);
+        graph.inform(_graphName, _listener);
     }
 
     /**
-     * Gets the graph name from the current line
-     *
-     * @param line
-     * @author Michael Kemp
+     * Reads the start of the digraph, [strict] digraph [name] {, leaving the tokenizer on the first statement
      */
-    private void graphName(String line) {
-        // Extracts the graph name from the line
-        Matcher m = GRAPH_NAME_MATCH.matcher(line);
-        m.find();
-        // Sets the graph name
-        _graphName = m.group(FIRST_MATCH);
+    private void header() {
+        _tokens.next();
+        if (_tokens.isKeyword("strict")) {
+            _tokens.next();
+        }
+        if (_tokens.isKeyword("graph")) {
+            throw _tokens.error("Graph must be a digraph");
+        } else if (!_tokens.isKeyword("digraph")) {
+            throw _tokens.error("Expected digraph");
+        }
+        if (_tokens.next() == DotTokenizer.ID) {
+            _graphName = _tokens.text();
+            _tokens.next();
+        }
+        if (_tokens.type() != DotTokenizer.OPEN_BRACE) {
+            throw _tokens.error(_tokens.type() == DotTokenizer.END ? "Ended while expecting {" : "Expected {");
+        }
+        _tokens.next();
     }
 
     /**
-     * Creates a node with a weight based on the line
+     * Reads the statements of the digraph split into chunks, each on its own thread, then puts their graphs together
+     * with a DotChunkMerger.
+     * <p>
+     * Chunks start at the start of a line, which is only known to also be the start of a statement once the chunk
+     * before has been read up to it. A chunk which started part way through a statement, a string or a comment is read
+     * again from where the chunk before it stopped.
      *
-     * @param line
-     * @autho Michael Kemp
+     * @param bytes  holding the digraph
+     * @param chunks number of chunks to read at the same time
+     * @return the graph, or null if there is a mistake in the digraph, to be read in one go to say where
      */
-    private void createNode(String line) {
-        // Extracts the node name from the line
-        Matcher m = NODE_NAME_MATCH.matcher(line);
-        m.find();
-        String name = m.group(FIRST_MATCH);
-        // Extracts the node weight from the line
-        m = NODE_WEIGHT_MATCH.matcher(line);
-        m.find();
-        int weight = Integer.parseInt(m.group(FIRST_MATCH));
-        // If the node exists the weight is updated else it is created and weight is recorded
-        if (_nodeNames.containsKey(name)) {
-            _nodeWeights.set(_nodeNames.get(name), weight);
-        } else {
-            _nodeNames.put(name, _nodeWeights.size());
-            _nodeWeights.add(weight);
+    private GraphBuilder readChunks(ByteBuffer bytes, int chunks) {
+        int bodyStart = _tokens.tokenStart();
+        long bodySize = bytes.limit() - bodyStart;
+        int[] starts = new int[chunks + 1];
+        starts[0] = bodyStart;
+        starts[chunks] = Integer.MAX_VALUE;
+        for (int chunk = 1; chunk < chunks; chunk++) {
+            starts[chunk] = lineAfter(bytes, bodyStart + (int) (bodySize * chunk / chunks));
         }
+
+        DotStatements[] read = new DotStatements[chunks];
+        IntStream.range(0, chunks).parallel()
+                .forEach(chunk -> read[chunk] = readChunk(bytes, starts[chunk], starts[chunk + 1]));
+
+        List<DotStatements> statements = new ArrayList<>();
+        for (int chunk = 0; chunk < chunks; chunk++) {
+            DotStatements previous = chunk == 0 ? null : statements.get(statements.size() - 1);
+            if (previous != null && previous.isClosed()) {
+                break;
+            }
+            DotStatements current = read[chunk];
+            if (previous != null && (current == null || current.getStart() != previous.getStop())) {
+                current = readChunk(bytes, previous.getStop(), starts[chunk + 1]);
+            }
+            if (current == null) {
+                return null;
+            }
+            statements.add(current);
+        }
+        if (!statements.get(statements.size() - 1).isClosed()) {
+            return null;
+        }
+        return DotChunkMerger.merge(bytes, statements);
     }
 
     /**
-     * Creates an arc and if need be the nodes in the arc too (with invalid weights) based on the line
+     * Reads the statements starting in a chunk
      *
-     * @param line
-     * @author Michael Kemp
+     * @param position where to start reading, at the start of a line or a token
+     * @param end      where the next chunk starts
+     * @return the statements read, or null if there was a mistake
      */
-    private void createArc(String line) {
-        // Extracts information about the arc (from, to and weight)
-        // Extracts which node the arc is from
-        Matcher m = ARC_FROM_MATCH.matcher(line);
-        m.find();
-        String from = m.group(FIRST_MATCH);
-        // Extracts which node the arc is to
-        m = ARC_TO_MATCH.matcher(line);
-        m.find();
-        String to = m.group(FIRST_MATCH);
-        // Extracts the weight of the arc
-        m = ARC_WEIGHT_MATCH.matcher(line);
-        m.find();
-        int weight = Integer.parseInt(m.group(FIRST_MATCH));
-
-        // Places information about the arc into data structures
-        // If the from node isn't defined yet then it is temporarily created with a negative weight
-        if (!_nodeNames.containsKey(from)) {
-            _nodeWeights.set(_nodeNames.get(from), DEFAULT_WEIGHT);
-        }
-        // If the to node isn't defined yet then it is temporarily created with a negative weight
-        if (!_nodeNames.containsKey(to)) {
-            _nodeWeights.set(_nodeNames.get(to), DEFAULT_WEIGHT);
-        }
-        // If the from node doesn't have an arc list then one is made
-        if (!_arcs.containsKey(from)) {
-            _arcs.put(from, new HashMap<>());
-        }
-        // Replaces the weight information in the arc if it already exists otherwise creates the arc
-        if (!_arcs.get(from).containsKey(to)) {
-            _arcs.get(from).put(to, weight);
-        } else {
-            _arcs.get(from).replace(to, weight);
+    private DotStatements readChunk(ByteBuffer bytes, int position, int end) {
+        DotTokenizer tokens = new DotTokenizer(bytes, getFilename(), position);
+        try {
+            tokens.next();
+            DotStatements statements = new DotStatements(tokens, bytes);
+            statements.read(end);
+            return statements;
+        } catch (RuntimeException e) {
+            return null;
         }
     }
 
     /**
-     * Opens the file given in the filename
-     *
-     * @author Michael Kemp
-     * @return BufferedReader of the file
-     * @throws FileNotFoundException
+     * @return where a line starts after the position, preferring one after a line ending in a semicolon as that line
+     * most likely starts a statement
      */
-    private BufferedReader openFile() throws FileNotFoundException {
-        return new BufferedReader(new FileReader(getFilename()));
+    private static int lineAfter(ByteBuffer bytes, int position) {
+        int searchEnd = (int) Math.min(bytes.limit(), (long) position + STATEMENT_SEARCH_BYTES);
+        int firstLine = -1;
+        for (int i = position; i < bytes.limit() && (i < searchEnd || firstLine < 0); i++) {
+            if (bytes.get(i) != '\n') {
+                continue;
+            }
+            if (firstLine < 0) {
+                firstLine = i + 1;
+            }
+            int end = i > position && bytes.get(i - 1) == '\r' ? i - 1 : i;
+            if (end > position && bytes.get(end - 1) == ';') {
+                return i + 1;
+            }
+        }
+        return firstLine < 0 ? bytes.limit() : firstLine;
     }
 }
@@ -0,0 +1,176 @@
+package nz.co.revilo.Input;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Reads a file or stream holding any number of DOT digraphs one after another, a digraph at a time. The bytes of each
+ * digraph are found by following its braces, passing over strings and comments, and are then read by a DotFileReader,
+ * so only one digraph is held in memory however long the stream is.
+ */
+public class DotGraphStream implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // What the byte being looked at is part of
+    private static final int STATEMENTS = 0;
+    private static final int QUOTED = 1;
+    private static final int LINE_COMMENT = 2;
+    private static final int BLOCK_COMMENT = 3;
+    private static final int HTML = 4;
+
+    private final String _name;
+    private final InputStream _stream;
+    private final byte[] _input = new byte[BUFFER_SIZE];
+    private int _inputPosition;
+    private int _inputLimit;
+
+    // Bytes of the digraph being found, kept between digraphs so it only grows to fit the largest
+    private byte[] _graph = new byte[BUFFER_SIZE];
+    private int _graphsRead;
+
+    /**
+     * @param name   of the stream, for error messages
+     * @param stream holding the digraphs, decompressed
+     */
+    public DotGraphStream(String name, InputStream stream) {
+        _name = name;
+        _stream = stream;
+    }
+
+    /**
+     * Opens a file of digraphs, which is decompressed if its name ends in .gz, or standard input for -
+     *
+     * @param filename name of the file, or FileParser.STANDARD_STREAM
+     * @return stream of the file's digraphs
+     * @throws java.io.FileNotFoundException if the file doesn't exist
+     * @throws IOException                   if the file can't be read
+     */
+    public static DotGraphStream open(String filename) throws IOException {
+        boolean standardInput = filename.equals(FileParser.STANDARD_STREAM);
+        return new DotGraphStream(standardInput ? FileParser.STANDARD_INPUT_NAME : filename,
+                FileParser.openInput(filename));
+    }
+
+    /**
+     * Reads the next digraph. A digraph with a mistake in it throws once its closing brace has been found, so the
+     * digraphs after it can still be read.
+     *
+     * @return the digraph, or null after the last one
+     * @throws IOException if the stream can't be read
+     */
+    public ParsedGraph next() throws IOException {
+        int length = nextGraph();
+        if (length < 0) {
+            return null;
+        }
+        _graphsRead++;
+        ParsedGraph graph = new ParsedGraph();
+        new DotFileReader(_name + " digraph " + _graphsRead, ByteBuffer.wrap(_graph, 0, length)).startParsing(graph);
+        return graph;
+    }
+
+    /**
+     * @return number of digraphs read so far, including any which had mistakes
+     */
+    public int getGraphsRead() {
+        return _graphsRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        _stream.close();
+    }
+
+    /**
+     * Copies the bytes of the next digraph into _graph, up to and including its closing brace
+     *
+     * @return how many bytes the digraph is, or -1 if there is nothing but whitespace and comments left
+     */
+    private int nextGraph() throws IOException {
+        int length = 0, state = STATEMENTS, depth = 0, angles = 0;
+        boolean lineStart = true, escaped = false, significant = false;
+        byte previous = 0;
+        while (true) {
+            if (_inputPosition == _inputLimit) {
+                _inputLimit = Math.max(_stream.read(_input), 0);
+                _inputPosition = 0;
+                if (_inputLimit == 0) {
+                    // Whatever is left is read as a digraph so its mistake is reported
+                    return significant ? length : -1;
+                }
+            }
+            byte b = _input[_inputPosition++];
+
+            // Whitespace between digraphs is dropped so line numbers count from the digraph's first line
+            if (length == 0 && state == STATEMENTS && Character.isWhitespace(b)) {
+                continue;
+            }
+            if (length == _graph.length) {
+                _graph = Arrays.copyOf(_graph, length * 2);
+            }
+            _graph[length++] = b;
+
+            switch (state) {
+                case QUOTED:
+                    if (escaped) {
+                        escaped = false;
+                    } else if (b == '\\') {
+                        escaped = true;
+                    } else if (b == '"') {
+                        state = STATEMENTS;
+                    }
+                    break;
+                case LINE_COMMENT:
+                    if (b == '\n') {
+                        state = STATEMENTS;
+                        lineStart = true;
+                    }
+                    break;
+                case BLOCK_COMMENT:
+                    if (previous == '*' && b == '/') {
+                        state = STATEMENTS;
+                        b = 0;
+                    }
+                    break;
+                case HTML:
+                    if (b == '<') {
+                        angles++;
+                    } else if (b == '>' && --angles == 0) {
+                        state = STATEMENTS;
+                    }
+                    break;
+                default:
+                    if (b == '\n') {
+                        lineStart = true;
+                    } else if (b == ' ' || b == '\t' || b == '\r' || b == '\f') {
+                        break;
+                    } else if (b == '#' && lineStart) {
+                        state = LINE_COMMENT;
+                    } else if (b == '/' && previous == '/') {
+                        state = LINE_COMMENT;
+                    } else if (b == '*' && previous == '/') {
+                        state = BLOCK_COMMENT;
+                        b = 0;
+                    } else if (b != '/') {
+                        significant = true;
+                        lineStart = false;
+                        if (b == '"') {
+                            state = QUOTED;
+                        } else if (b == '<') {
+                            state = HTML;
+                            angles = 1;
+                        } else if (b == '{') {
+                            depth++;
+                        } else if (b == '}' && depth > 0 && --depth == 0) {
+                            return length;
+                        }
+                    }
+            }
+            previous = b;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package nz.co.revilo.Input;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Numbers the node names of a DOT file in the order they're added, looking them up by where their bytes are in the
+ * file rather than by a String. Open addressing keeps the table at most half full.
+ */
+final class DotNameTable {
+
+    // Starting size of the name arrays
+    private static final int INITIAL_NAMES = 64;
+
+    private final ByteBuffer _buffer;
+
+    // Where each node's name is in the buffer
+    private int[] _starts = new int[INITIAL_NAMES];
+    private int[] _lengths = new int[INITIAL_NAMES];
+    private int[] _hashes = new int[INITIAL_NAMES];
+    private int _size;
+
+    // Name hash in the high half and node index + 1 in the low half by name hash, 0 is empty, so most names which
+    // aren't a match are passed over without looking at the name arrays
+    private long[] _table = new long[INITIAL_NAMES * 2];
+
+    /**
+     * @param buffer holding the names
+     */
+    DotNameTable(ByteBuffer buffer) {
+        _buffer = buffer;
+    }
+
+    /**
+     * @return number of the name with these bytes, or -1 if it hasn't been added
+     */
+    int indexOf(int hash, int start, int length) {
+        int mask = _table.length - 1;
+        for (int slot = hash & mask; _table[slot] != 0; slot = (slot + 1) & mask) {
+            if ((int) (_table[slot] >>> 32) != hash) {
+                continue;
+            }
+            int node = (int) _table[slot] - 1;
+            if (_lengths[node] == length && sameBytes(_buffer, _starts[node], start, length)) {
+                return node;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a name which isn't in the table yet
+     *
+     * @return its number
+     */
+    int add(int hash, int start, int length) {
+        int node = _size++;
+        if (node == _starts.length) {
+            _starts = Arrays.copyOf(_starts, node * 2);
+            _lengths = Arrays.copyOf(_lengths, node * 2);
+            _hashes = Arrays.copyOf(_hashes, node * 2);
+        }
+        _starts[node] = start;
+        _lengths[node] = length;
+        _hashes[node] = hash;
+
+        if (_size * 2 > _table.length) {
+            _table = new long[_table.length * 2];
+            for (int existing = 0; existing < _size; existing++) {
+                insert(existing);
+            }
+        } else {
+            insert(node);
+        }
+        return node;
+    }
+
+    int getStart(int node) {
+        return _starts[node];
+    }
+
+    int getLength(int node) {
+        return _lengths[node];
+    }
+
+    int getHash(int node) {
+        return _hashes[node];
+    }
+
+    int size() {
+        return _size;
+    }
+
+    private void insert(int node) {
+        int mask = _table.length - 1;
+        int slot = _hashes[node] & mask;
+        while (_table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        _table[slot] = ((long) _hashes[node] << 32) | (node + 1);
+    }
+
+    /**
+     * @return whether the bytes at the two places in the buffer are the same
+     */
+    static boolean sameBytes(ByteBuffer buffer, int start, int otherStart, int length) {
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(start + i) != buffer.get(otherStart + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
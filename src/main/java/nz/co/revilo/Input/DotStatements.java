@@ -0,0 +1,175 @@
+package nz.co.revilo.Input;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the statements in the body of a DOT digraph into a GraphBuilder, numbering nodes in the order they first
+ * appear. A DotFileReader reads a whole body with one of these, or splits a large one between several which each read
+ * the statements starting in their part of the file.
+ */
+final class DotStatements {
+
+    private final DotTokenizer _tokens;
+    private final GraphBuilder _graph = new GraphBuilder();
+    private final DotNameTable _names;
+    private final int _start;
+    private boolean _closed;
+
+    /**
+     * @param tokens on the first token to read
+     * @param buffer the tokenizer is reading
+     */
+    DotStatements(DotTokenizer tokens, ByteBuffer buffer) {
+        _tokens = tokens;
+        _names = new DotNameTable(buffer);
+        _start = tokens.tokenStart();
+    }
+
+    /**
+     * Reads statements until the closing brace of the digraph, or until the next one would start at or after the end
+     *
+     * @param end where to stop reading statements
+     */
+    void read(int end) {
+        while (_tokens.type() != DotTokenizer.CLOSE_BRACE && _tokens.tokenStart() < end) {
+            if (_tokens.type() == DotTokenizer.SEPARATOR) {
+                _tokens.next();
+            } else {
+                statement();
+            }
+        }
+        _closed = _tokens.type() == DotTokenizer.CLOSE_BRACE;
+    }
+
+    /**
+     * @return where the first token read starts
+     */
+    int getStart() {
+        return _start;
+    }
+
+    /**
+     * @return where the token after the last statement read starts
+     */
+    int getStop() {
+        return _tokens.tokenStart();
+    }
+
+    /**
+     * @return whether reading stopped at the closing brace of the digraph
+     */
+    boolean isClosed() {
+        return _closed;
+    }
+
+    GraphBuilder getGraph() {
+        return _graph;
+    }
+
+    DotNameTable getNames() {
+        return _names;
+    }
+
+    /**
+     * Reads a node, arc, attribute or graph attribute statement, leaving the tokenizer on the token after it
+     */
+    private void statement() {
+        expect(DotTokenizer.ID, "a statement");
+        if (_tokens.isKeyword("subgraph")) {
+            throw _tokens.error("Subgraphs are not supported");
+        }
+
+        // Default attributes for the graph, nodes or edges, e.g. graph [CCR=10.0]
+        if (_tokens.isKeyword("graph") || _tokens.isKeyword("node") || _tokens.isKeyword("edge")) {
+            _tokens.next();
+            attributes();
+            return;
+        }
+
+        // Graph attribute, e.g. rankdir=LR
+        if (_tokens.peek() == DotTokenizer.EQUALS) {
+            _tokens.next();
+            _tokens.next();
+            expect(DotTokenizer.ID, "a value");
+            _tokens.next();
+            return;
+        }
+
+        int node = nodeIndex();
+        _tokens.next();
+
+        // Node
+        if (_tokens.type() != DotTokenizer.EDGE_OP) {
+            int weight = attributes();
+            if (weight != DotFileReader.DEFAULT_WEIGHT) {
+                _graph.setNodeWeight(node, weight);
+            }
+            return;
+        }
+
+        // Arcs, a chain a -> b -> c gives each arc the same attributes
+        int firstArc = _graph.getArcCount();
+        while (_tokens.type() == DotTokenizer.EDGE_OP) {
+            _tokens.next();
+            expect(DotTokenizer.ID, "a node after ->");
+            int to = nodeIndex();
+            _graph.addArc(node, to);
+            node = to;
+            _tokens.next();
+        }
+        int weight = attributes();
+        for (int arc = firstArc; arc < _graph.getArcCount(); arc++) {
+            _graph.setArcWeight(arc, weight);
+        }
+    }
+
+    /**
+     * Reads any attribute lists, [key=value, ...] [...], leaving the tokenizer on the token after them
+     *
+     * @return the Weight attribute, or DEFAULT_WEIGHT if there wasn't one
+     */
+    private int attributes() {
+        int weight = DotFileReader.DEFAULT_WEIGHT;
+        while (_tokens.type() == DotTokenizer.OPEN_BRACKET) {
+            _tokens.next();
+            while (_tokens.type() != DotTokenizer.CLOSE_BRACKET) {
+                expect(DotTokenizer.ID, "an attribute");
+                boolean isWeight = _tokens.equalsIgnoreCase("weight");
+                if (_tokens.next() == DotTokenizer.EQUALS) {
+                    _tokens.next();
+                    expect(DotTokenizer.ID, "a value");
+                    if (isWeight) {
+                        weight = _tokens.intValue();
+                    }
+                    _tokens.next();
+                }
+                if (_tokens.type() == DotTokenizer.SEPARATOR) {
+                    _tokens.next();
+                }
+            }
+            _tokens.next();
+        }
+        return weight;
+    }
+
+    private void expect(int type, String what) {
+        if (_tokens.type() != type) {
+            throw _tokens.error(_tokens.type() == DotTokenizer.END ? "Ended while expecting " + what : "Expected " + what);
+        }
+    }
+
+    /**
+     * Finds the node named by the current ID, creating it with DEFAULT_WEIGHT if it hasn't been seen
+     *
+     * @return index of the node
+     */
+    private int nodeIndex() {
+        int hash = _tokens.hash();
+        int node = _names.indexOf(hash, _tokens.start(), _tokens.length());
+        if (node < 0) {
+            node = _graph.addNode(_tokens.text());
+            _names.add(hash, _tokens.start(), _tokens.length());
+        }
+        return node;
+    }
+}
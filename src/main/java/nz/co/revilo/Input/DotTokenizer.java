@@ -0,0 +1,355 @@
+package nz.co.revilo.Input;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Splits DOT text into tokens in one pass over its bytes, without regexes and without making a String of every token.
+ * Whitespace and line breaks are insignificant, and comments ({@code //}, {@code /* *}{@code /} and {@code #} lines)
+ * are skipped. IDs are plain names and numbers, quoted strings or HTML strings. The current token is read through the
+ * accessors and is only turned into a String when asked for its text.
+ */
+final class DotTokenizer {
+
+    // Token types
+    static final int END = 0;
+    static final int ID = 1;
+    static final int EDGE_OP = 2;
+    static final int OPEN_BRACE = 3;
+    static final int CLOSE_BRACE = 4;
+    static final int OPEN_BRACKET = 5;
+    static final int CLOSE_BRACKET = 6;
+    static final int EQUALS = 7;
+    static final int SEPARATOR = 8;
+
+    // FNV-1a
+    private static final int HASH_OFFSET = 0x811C9DC5;
+    private static final int HASH_PRIME = 0x01000193;
+
+    private final ByteBuffer _buffer;
+    private final String _name;
+    private final int _begin;
+    private final int _limit;
+    private int _position;
+    private int _line = 1;
+
+    // Current token, an ID's bytes are [_start, _end) without any quotes, the token itself starts at _tokenStart
+    private int _type;
+    private int _tokenStart;
+    private int _start;
+    private int _end;
+    private int _tokenLine;
+    private boolean _quoted;
+
+    /**
+     * @param buffer holding the DOT text as UTF-8, from its position to its limit
+     * @param name   of the input, for error messages
+     */
+    DotTokenizer(ByteBuffer buffer, String name) {
+        this(buffer, name, buffer.position());
+    }
+
+    /**
+     * Starts tokenizing part way through the text, line numbers then count from there
+     *
+     * @param buffer   holding the DOT text as UTF-8, from its position to its limit
+     * @param name     of the input, for error messages
+     * @param position where to start, which should be the start of a line or of a token
+     */
+    DotTokenizer(ByteBuffer buffer, String name, int position) {
+        _buffer = buffer;
+        _name = name;
+        _begin = buffer.position();
+        _position = position;
+        _limit = buffer.limit();
+    }
+
+    /**
+     * Moves on to the next token
+     *
+     * @return its type
+     */
+    int next() {
+        skipInsignificant();
+        _tokenStart = _position;
+        _tokenLine = _line;
+        _quoted = false;
+        if (_position >= _limit) {
+            return _type = END;
+        }
+        byte b = _buffer.get(_position);
+        switch (b) {
+            case '{':
+                _position++;
+                return _type = OPEN_BRACE;
+            case '}':
+                _position++;
+                return _type = CLOSE_BRACE;
+            case '[':
+                _position++;
+                return _type = OPEN_BRACKET;
+            case ']':
+                _position++;
+                return _type = CLOSE_BRACKET;
+            case '=':
+                _position++;
+                return _type = EQUALS;
+            case ';':
+            case ',':
+                _position++;
+                return _type = SEPARATOR;
+            case '"':
+                return _type = quoted();
+            case '<':
+                return _type = html();
+            default:
+                if (isEdgeOp(_position)) {
+                    _position += 2;
+                    return _type = EDGE_OP;
+                }
+                if (!isIdByte(b)) {
+                    throw error("Unexpected '" + (char) (b & 0xFF) + "'");
+                }
+                _start = _position;
+                while (_position < _limit && isIdByte(_buffer.get(_position)) && !isEdgeOp(_position)) {
+                    _position++;
+                }
+                _end = _position;
+                return _type = ID;
+        }
+    }
+
+    /**
+     * Looks at the type of the next token without moving on to it
+     *
+     * @return its type
+     */
+    int peek() {
+        int position = _position, line = _line, type = _type, tokenStart = _tokenStart, start = _start, end = _end;
+        int tokenLine = _tokenLine;
+        boolean quoted = _quoted;
+        int next = next();
+        _position = position;
+        _line = line;
+        _type = type;
+        _tokenStart = tokenStart;
+        _start = start;
+        _end = end;
+        _tokenLine = tokenLine;
+        _quoted = quoted;
+        return next;
+    }
+
+    /**
+     * @return type of the current token
+     */
+    int type() {
+        return _type;
+    }
+
+    /**
+     * @return where the current token starts, including any quote
+     */
+    int tokenStart() {
+        return _tokenStart;
+    }
+
+    /**
+     * @return text of the current ID, unquoted
+     */
+    String text() {
+        byte[] bytes = new byte[_end - _start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = _buffer.get(_start + i);
+        }
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        return _quoted ? text.replace("\\\"", "\"") : text;
+    }
+
+    /**
+     * @param keyword lower case ASCII
+     * @return whether the current token is an unquoted ID spelling the keyword in any case, as DOT keywords are
+     */
+    boolean isKeyword(String keyword) {
+        return _type == ID && !_quoted && equalsIgnoreCase(keyword);
+    }
+
+    /**
+     * @param name lower case ASCII
+     * @return whether the current ID spells the name in any case, quoted or not
+     */
+    boolean equalsIgnoreCase(String name) {
+        if (_type != ID || _end - _start != name.length()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            int b = _buffer.get(_start + i);
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if (b != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the current ID read as a non-negative whole number
+     */
+    int intValue() {
+        if (_type != ID || _start == _end) {
+            throw error("Expected a number");
+        }
+        long value = 0;
+        for (int i = _start; i < _end; i++) {
+            byte b = _buffer.get(i);
+            if (b < '0' || b > '9') {
+                throw error("Expected a whole number but found \"" + text() + "\"");
+            }
+            value = value * 10 + (b - '0');
+            if (value > Integer.MAX_VALUE) {
+                throw error("Number \"" + text() + "\" is too large");
+            }
+        }
+        return (int) value;
+    }
+
+    /**
+     * @return hash of the current ID's bytes
+     */
+    int hash() {
+        int hash = HASH_OFFSET;
+        for (int i = _start; i < _end; i++) {
+            hash = (hash ^ (_buffer.get(i) & 0xFF)) * HASH_PRIME;
+        }
+        return hash;
+    }
+
+    /**
+     * @return where the current ID's bytes start, only meaningful while the buffer is
+     */
+    int start() {
+        return _start;
+    }
+
+    /**
+     * @return length in bytes of the current ID
+     */
+    int length() {
+        return _end - _start;
+    }
+
+    /**
+     * @param message what went wrong
+     * @return exception saying where the current token is
+     */
+    RuntimeException error(String message) {
+        return new RuntimeException(_name + " line " + _tokenLine + ": " + message);
+    }
+
+    /**
+     * Skips whitespace and comments, counting lines
+     */
+    private void skipInsignificant() {
+        boolean lineStart = _position == _begin || _buffer.get(_position - 1) == '\n';
+        while (_position < _limit) {
+            byte b = _buffer.get(_position);
+            if (b == '\n') {
+                _line++;
+                _position++;
+                lineStart = true;
+            } else if (b == ' ' || b == '\t' || b == '\r' || b == '\f') {
+                _position++;
+            } else if (b == '#' && lineStart) {
+                skipLine();
+            } else if (b == '/' && _position + 1 < _limit && _buffer.get(_position + 1) == '/') {
+                skipLine();
+            } else if (b == '/' && _position + 1 < _limit && _buffer.get(_position + 1) == '*') {
+                int line = _line;
+                _position += 2;
+                while (_position < _limit && !(_buffer.get(_position) == '*' && _position + 1 < _limit && _buffer.get(_position + 1) == '/')) {
+                    if (_buffer.get(_position) == '\n') {
+                        _line++;
+                    }
+                    _position++;
+                }
+                if (_position >= _limit) {
+                    throw new RuntimeException(_name + " line " + line + ": Comment is never closed");
+                }
+                _position += 2;
+                lineStart = false;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void skipLine() {
+        while (_position < _limit && _buffer.get(_position) != '\n') {
+            _position++;
+        }
+    }
+
+    /**
+     * Reads a quoted string, in which only \" is an escape
+     */
+    private int quoted() {
+        _quoted = true;
+        _start = ++_position;
+        while (_position < _limit) {
+            byte b = _buffer.get(_position);
+            if (b == '"') {
+                _end = _position++;
+                return ID;
+            } else if (b == '\\' && _position + 1 < _limit) {
+                if (_buffer.get(_position + 1) == '\n') {
+                    _line++;
+                }
+                _position += 2;
+            } else {
+                if (b == '\n') {
+                    _line++;
+                }
+                _position++;
+            }
+        }
+        throw error("Quoted string is never closed");
+    }
+
+    /**
+     * Reads an HTML string, which is delimited by balanced angle brackets
+     */
+    private int html() {
+        int depth = 0;
+        _start = _position + 1;
+        while (_position < _limit) {
+            byte b = _buffer.get(_position++);
+            if (b == '<') {
+                depth++;
+            } else if (b == '>' && --depth == 0) {
+                _end = _position - 1;
+                return ID;
+            } else if (b == '\n') {
+                _line++;
+            }
+        }
+        throw error("HTML string is never closed");
+    }
+
+    private boolean isEdgeOp(int position) {
+        if (_buffer.get(position) != '-' || position + 1 >= _limit) {
+            return false;
+        }
+        byte next = _buffer.get(position + 1);
+        return next == '>' || next == '-';
+    }
+
+    /**
+     * @return whether the byte can be part of a plain name or number, anything outside ASCII can be
+     */
+    private static boolean isIdByte(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9') || b == '_' || b == '.'
+                || b == '-' || b < 0;
+    }
+}
@@ -1,6 +1,21 @@
 package nz.co.revilo.Input;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
 
 /**
  * FileParser is an abstract class designed to be extended to give all the required functionality to read a DOT file
@@ -13,7 +28,21 @@ public abstract class FileParser {
 
     public static final int FILE_CANT_BE_READ_EXIT_STATUS = 1;
 
+    // Filename meaning standard input, and the name it's given in messages
+    public static final String STANDARD_STREAM = "-";
+    public static final String STANDARD_INPUT_NAME = "stdin";
+
+    // Extension of gzip compressed files, after the extension of what they hold
+    public static final String COMPRESSED_EXTENSION = ".gz";
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Largest input read into one array or mapped as one buffer, a little under the largest array the JVM allows
+    private static final int MAX_INPUT_BYTES = Integer.MAX_VALUE - 8;
+    private static final int GZIP_MAGIC = 0x1F8B;
+
     private String _filename;
+    private Reader _source;
+    private InputStream _stream;
 
     /**
      * Constructor for the class which sets the file name
@@ -24,6 +53,143 @@ public abstract class FileParser {
         _filename = filename;
     }
 
+    /**
+     * Constructor for graphs which aren't read from a file, such as those sent to the daemon
+     *
+     * @param name   name standing in for the filename
+     * @param source where the graph is read from
+     */
+    public FileParser(String name, Reader source) {
+        _filename = name;
+        _source = source;
+    }
+
+    /**
+     * Constructor for graphs read from a stream of bytes, such as standard input. The stream is read to its end but
+     * left open.
+     *
+     * @param name   name standing in for the filename
+     * @param stream where the graph is read from
+     */
+    public FileParser(String name, InputStream stream) {
+        _filename = name;
+        _stream = stream;
+    }
+
+    /**
+     * Creates the parser matching the file extension of the given file, GXL files get a GxlFileReader, binary graphs
+     * get a BinaryGraphReader and everything else is read as DOT. Files ending in COMPRESSED_EXTENSION are decompressed
+     * as they're read and STANDARD_STREAM reads standard input, see forStream.
+     *
+     * @param filename is the name of the file to open
+     * @return parser for the file
+     */
+    public static FileParser forFile(String filename) {
+        if (filename.equals(STANDARD_STREAM)) {
+            try {
+                return forStream(STANDARD_INPUT_NAME, System.in);
+            } catch (IOException e) {
+                throw new RuntimeException("Standard input could not be read: " + e.getMessage());
+            }
+        }
+        String uncompressed = uncompressedName(filename);
+        if (uncompressed.toUpperCase().matches(".*\\.GXL")) {
+            return new GxlFileReader(filename);
+        } else if (BinaryGraphFormat.isBinaryGraphFile(uncompressed)) {
+            return new BinaryGraphReader(filename);
+        } else {
+            return new DotFileReader(filename);
+        }
+    }
+
+    /**
+     * Creates the parser for a stream which has no file extension, by looking at how the stream starts. Gzip
+     * compressed streams are decompressed, and then a binary graph starts with its magic number, GXL with {@code <}
+     * and anything else is read as DOT.
+     *
+     * @param name   name standing in for the filename
+     * @param stream where the graph is read from
+     * @return parser for the stream
+     * @throws IOException if the start of the stream can't be read
+     */
+    public static FileParser forStream(String name, InputStream stream) throws IOException {
+        InputStream input = decompressed(stream);
+        String extension = extensionOf(input);
+        if (extension.equals(GxlFileReader.FILE_EXTENSION)) {
+            return new GxlFileReader(name, input);
+        } else if (extension.equals(BinaryGraphFormat.FILE_EXTENSION)) {
+            return new BinaryGraphReader(name, input);
+        } else {
+            return new DotFileReader(name, input);
+        }
+    }
+
+    /**
+     * Reads the whole of a graph file, decompressed
+     *
+     * @param filename name of a file, which may be compressed, or STANDARD_STREAM
+     * @return the file's bytes
+     * @throws IOException if the file can't be read
+     */
+    public static byte[] readAllBytes(String filename) throws IOException {
+        try (InputStream input = openInput(filename)) {
+            return readAll(input, filename);
+        }
+    }
+
+    /**
+     * Opens a file for reading, decompressing it if its name ends in COMPRESSED_EXTENSION, or standard input for
+     * STANDARD_STREAM, decompressing it if it starts like gzip
+     *
+     * @param filename name of the file
+     * @return buffered stream of the file's bytes
+     * @throws FileNotFoundException if the file doesn't exist
+     * @throws IOException if the file can't be read
+     */
+    public static InputStream openInput(String filename) throws IOException {
+        if (filename.equals(STANDARD_STREAM)) {
+            return decompressed(System.in);
+        }
+        InputStream file = new FileInputStream(filename);
+        try {
+            return new BufferedInputStream(isCompressed(filename) ? new GZIPInputStream(file, BUFFER_SIZE) : file,
+                    BUFFER_SIZE);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param filename name of a file
+     * @return whether the file is gzip compressed, by its extension
+     */
+    public static boolean isCompressed(String filename) {
+        return filename.toUpperCase().endsWith(COMPRESSED_EXTENSION.toUpperCase());
+    }
+
+    /**
+     * @param filename name of a file
+     * @return the name without COMPRESSED_EXTENSION, whose extension says what the file holds
+     */
+    public static String uncompressedName(String filename) {
+        return isCompressed(filename) ? filename.substring(0, filename.length() - COMPRESSED_EXTENSION.length()) : filename;
+    }
+
+    /**
+     * Guesses what a graph with no file extension holds from how it starts
+     *
+     * @param graph the graph's bytes, decompressed
+     * @return the file extension it would have, the DOT one unless it's GXL or a binary graph
+     */
+    public static String extensionOf(byte[] graph) {
+        try {
+            return extensionOf(new ByteArrayInputStream(graph));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     /**
      * @author Michael Kemp
      * @return the filename of the file the FileParser is to parse/has parsed, as set in the constructor
@@ -32,6 +198,147 @@ public abstract class FileParser {
         return _filename;
     }
 
+    /**
+     * @return the source given instead of a file, or null if the file is read
+     */
+    protected final Reader getSource() {
+        return _source;
+    }
+
+    /**
+     * Opens the file given in the filename, or the source given instead of a file
+     *
+     * @author Michael Kemp
+     * @return BufferedReader of the file
+     * @throws FileNotFoundException
+     */
+    protected final BufferedReader openFile() throws FileNotFoundException {
+        if (_source != null) {
+            return _source instanceof BufferedReader ? (BufferedReader) _source : new BufferedReader(_source);
+        }
+        return new BufferedReader(new FileReader(getFilename()));
+    }
+
+    /**
+     * Opens the file given in the filename, or the stream given instead of a file, as bytes
+     *
+     * @return buffered stream of the input, decompressed, which only closes the file and not a stream given instead
+     * @throws FileNotFoundException if the file doesn't exist
+     * @throws IOException if the input can't be read
+     */
+    protected final InputStream openStream() throws IOException {
+        if (_stream == null) {
+            return openInput(getFilename());
+        }
+        return new FilterInputStream(_stream) {
+            @Override
+            public void close() {
+                // The stream was given open and is left that way
+            }
+        };
+    }
+
+    /**
+     * Maps the file given in the filename into memory, or reads the whole of a compressed file, stream or source given
+     * instead of a file as UTF-8
+     *
+     * @return buffer from the start to the end of the input
+     * @throws FileNotFoundException if the file doesn't exist
+     * @throws IOException if the input can't be read
+     */
+    protected final ByteBuffer openBytes() throws IOException {
+        if (_stream != null) {
+            return ByteBuffer.wrap(readAll(_stream, getFilename()));
+        }
+        if (_source == null && isCompressed(getFilename())) {
+            try (InputStream input = openInput(getFilename())) {
+                return ByteBuffer.wrap(readAll(input, getFilename()));
+            }
+        }
+        if (_source != null) {
+            StringBuilder text = new StringBuilder();
+            CharBuffer chunk = CharBuffer.allocate(8192);
+            while (_source.read(chunk) != -1) {
+                chunk.flip();
+                text.append(chunk);
+                chunk.clear();
+            }
+            return ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        try (FileChannel channel = new FileInputStream(getFilename()).getChannel()) {
+            if (channel.size() > MAX_INPUT_BYTES) {
+                throw tooLarge(getFilename());
+            }
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * @return the stream, decompressed if it starts like gzip, able to be reset to its start while the start is looked at
+     */
+    private static InputStream decompressed(InputStream stream) throws IOException {
+        InputStream input = new BufferedInputStream(stream, BUFFER_SIZE);
+        input.mark(Short.BYTES);
+        int magic = input.read() << 8 | input.read();
+        input.reset();
+        return magic == GZIP_MAGIC ? new BufferedInputStream(new GZIPInputStream(input, BUFFER_SIZE), BUFFER_SIZE) : input;
+    }
+
+    /**
+     * Looks at the start of a stream which supports mark, leaving it where it was
+     */
+    private static String extensionOf(InputStream input) throws IOException {
+        input.mark(BUFFER_SIZE);
+        try {
+            int magic = 0;
+            for (int i = 0; i < Integer.BYTES; i++) {
+                magic = magic << 8 | (input.read() & 0xFF);
+            }
+            if (magic == BinaryGraphFormat.MAGIC) {
+                return BinaryGraphFormat.FILE_EXTENSION;
+            }
+            input.reset();
+            int b = input.read();
+            for (int read = 1; b != -1 && Character.isWhitespace(b) && read < BUFFER_SIZE; read++) {
+                b = input.read();
+            }
+            return b == '<' ? GxlFileReader.FILE_EXTENSION : DotFileReader.FILE_EXTENSION;
+        } finally {
+            input.reset();
+        }
+    }
+
+    /**
+     * Reads a stream to its end
+     *
+     * @throws RuntimeException if the stream holds more than MAX_INPUT_BYTES
+     */
+    private static byte[] readAll(InputStream input, String name) throws IOException {
+        byte[] bytes = new byte[BUFFER_SIZE];
+        int length = 0;
+        for (int read; (read = input.read(bytes, length, bytes.length - length)) != -1; ) {
+            length += read;
+            if (length == bytes.length) {
+                if (length == MAX_INPUT_BYTES) {
+                    if (input.read() != -1) {
+                        throw tooLarge(name);
+                    }
+                    return bytes;
+                }
+                bytes = Arrays.copyOf(bytes, (int) Math.min(2L * bytes.length, MAX_INPUT_BYTES));
+            }
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    /**
+     * @return the error for an input over MAX_INPUT_BYTES, naming it
+     */
+    private static RuntimeException tooLarge(String name) {
+        return new RuntimeException("Input too large: " + name + " is over " + MAX_INPUT_BYTES + " bytes");
+    }
+
     /**
      * If an error occurs during file reading and there is no obvious way to recover from it, gracefully quite while
      * giving diagnostic information from the exception
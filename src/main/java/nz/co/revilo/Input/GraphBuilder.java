@@ -0,0 +1,119 @@
+package nz.co.revilo.Input;
+
+import java.util.Arrays;
+
+/**
+ * Collects the nodes and arcs of a graph into growable primitive arrays as a parser reads them, then gives the graph
+ * to a ParseResultListener as a SparseGraph. Nodes are numbered in the order they're added, and a later arc between
+ * the same two nodes replaces the earlier one.
+ */
+final class GraphBuilder {
+
+    // Starting sizes of the growable arrays
+    private static final int INITIAL_NODES = 64;
+    private static final int INITIAL_ARCS = 128;
+
+    private String[] _nodeNames = new String[INITIAL_NODES];
+    private int[] _nodeWeights = new int[INITIAL_NODES];
+    private int _nodeCount;
+
+    private int[] _arcFrom = new int[INITIAL_ARCS];
+    private int[] _arcTo = new int[INITIAL_ARCS];
+    private int[] _arcWeights = new int[INITIAL_ARCS];
+    private int _arcCount;
+
+    GraphBuilder() {
+    }
+
+    /**
+     * Takes nodes and arcs which have already been collected
+     */
+    GraphBuilder(String[] nodeNames, int[] nodeWeights, int[] arcFrom, int[] arcTo, int[] arcWeights) {
+        _nodeNames = nodeNames;
+        _nodeWeights = nodeWeights;
+        _nodeCount = nodeNames.length;
+        _arcFrom = arcFrom;
+        _arcTo = arcTo;
+        _arcWeights = arcWeights;
+        _arcCount = arcFrom.length;
+    }
+
+    /**
+     * Adds a node with DEFAULT_WEIGHT until its weight is read
+     *
+     * @param name of the node, not already added
+     * @return index of the node
+     */
+    int addNode(String name) {
+        if (_nodeCount == _nodeNames.length) {
+            _nodeNames = Arrays.copyOf(_nodeNames, _nodeCount * 2);
+            _nodeWeights = Arrays.copyOf(_nodeWeights, _nodeCount * 2);
+        }
+        _nodeNames[_nodeCount] = name;
+        _nodeWeights[_nodeCount] = DotFileReader.DEFAULT_WEIGHT;
+        return _nodeCount++;
+    }
+
+    void setNodeWeight(int node, int weight) {
+        _nodeWeights[node] = weight;
+    }
+
+    int getNodeCount() {
+        return _nodeCount;
+    }
+
+    String getNodeName(int node) {
+        return _nodeNames[node];
+    }
+
+    int getNodeWeight(int node) {
+        return _nodeWeights[node];
+    }
+
+    /**
+     * Adds an arc with DEFAULT_WEIGHT until its weight is read
+     *
+     * @return index of the arc
+     */
+    int addArc(int from, int to) {
+        if (_arcCount == _arcFrom.length) {
+            _arcFrom = Arrays.copyOf(_arcFrom, _arcCount * 2);
+            _arcTo = Arrays.copyOf(_arcTo, _arcCount * 2);
+            _arcWeights = Arrays.copyOf(_arcWeights, _arcCount * 2);
+        }
+        _arcFrom[_arcCount] = from;
+        _arcTo[_arcCount] = to;
+        _arcWeights[_arcCount] = DotFileReader.DEFAULT_WEIGHT;
+        return _arcCount++;
+    }
+
+    void setArcWeight(int arc, int weight) {
+        _arcWeights[arc] = weight;
+    }
+
+    int getArcCount() {
+        return _arcCount;
+    }
+
+    /**
+     * Copies the arcs into arrays, with their nodes numbered as another builder numbers them
+     *
+     * @param nodes  index in the other builder of each node
+     * @param offset where in the arrays to put the first arc
+     */
+    void copyArcs(int[] nodes, int[] arcFrom, int[] arcTo, int[] arcWeights, int offset) {
+        for (int arc = 0; arc < _arcCount; arc++) {
+            arcFrom[offset + arc] = nodes[_arcFrom[arc]];
+            arcTo[offset + arc] = nodes[_arcTo[arc]];
+            arcWeights[offset + arc] = _arcWeights[arc];
+        }
+    }
+
+    /**
+     * Informs the listener of the graph
+     */
+    void inform(String graphName, ParseResultListener listener) {
+        listener.parsedGraph(new SparseGraph(graphName, Arrays.copyOf(_nodeNames, _nodeCount),
+                Arrays.copyOf(_nodeWeights, _nodeCount), _arcFrom, _arcTo, _arcWeights, _arcCount));
+    }
+}
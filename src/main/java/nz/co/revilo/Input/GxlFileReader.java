@@ -1,56 +1,48 @@
 package nz.co.revilo.Input;
 
-import java.io.BufferedReader;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
+import java.io.InputStream;
+import java.io.Reader;
 import java.util.HashMap;
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 /**
  * GxlFileReader is a class that extends FileParser it's purpose is to read the file and place the digraph in to a
  * data-structure and give it to a ParseResultListener.
+ * <p>
+ * The XML is streamed through an XMLStreamReader, so it may be laid out in any way and only the graph itself is kept
+ * in memory. Nodes and edges are taken from the first graph element, each with the int of its Weight attr.
  *
  * @author Michael Kemp
  * @version 1.0
  */
 public class GxlFileReader extends FileParser {
 
-    // Regex for string matchers that will extract the required information from the string
-    public static final Pattern GRAPH_NAME_MATCH = Pattern.compile("[\\s]*<graph id=\"(.*)\">[\\s]*");
-    public static final Pattern ARC_FROM_MATCH = Pattern.compile("[\\s]*<edge from=\"(.*)\" to=\".*\">[\\s]*");
-    public static final Pattern ARC_TO_MATCH = Pattern.compile("[\\s]*<edge from=\".*\" to=\"(.*)\">[\\s]*");
-    public static final Pattern NODE_NAME_MATCH = Pattern.compile("[\\s]*<node id=\"(.*)\">[\\s]*");
-    public static final Pattern WEIGHT_INT_MATCH = Pattern.compile("[\\s]*<int>(.*)</int>[\\s]*");
-
-    // Regex for string matchers of _line types
-    public static final String ARC_LINE_MATCH = "[\\s]*<edge from=\".*\" to=\".*\">[\\s]*";
-    public static final String NODE_LINE_MATCH = "[\\s]*<node id=\".*\">[\\s]*";
-    public static final String GRAPH_NAME_LINE_MATCH = "[\\s]*<graph id=\".*\">[\\s]*";
-    public static final String WEIGHT_LINE_MATCH = "[\\s]*<attr name=\"Weight\">[\\s]*";
-
     // Default weight for arcs and nodes if not defined
-    public static final int DEFAULT_WEIGHT = -1;
-
-    // First match found by matcher
-    public static final int FIRST_MATCH = 1;
-
-    private HashMap<String, Integer> _nodeNames;
-    private List<Integer> _nodeWeights;
-    private HashMap<String, HashMap<String, Integer>> _arcs;
-    private String[] _nodeNamesList;
+    public static final int DEFAULT_WEIGHT = DotFileReader.DEFAULT_WEIGHT;
+    public static final String FILE_EXTENSION = ".gxl";
+
+    // Element and attribute names
+    private static final String GRAPH = "graph";
+    private static final String NODE = "node";
+    private static final String EDGE = "edge";
+    private static final String ATTR = "attr";
+    private static final String INT = "int";
+    private static final String WEIGHT = "Weight";
+
+    private GraphBuilder _graph;
+    private Map<String, Integer> _nodeNames;
     private String _graphName;
 
     private ParseResultListener _listener;
 
-    private String _line;
-
     /**
-     * Constructs a DotFileReader with the filename to read
+     * Constructs a GxlFileReader with the filename to read
      * @author Michael Kemp
      * @param filename is the name of the file to open
      */
@@ -58,6 +50,26 @@ public class GxlFileReader extends FileParser {
         super(filename);
     }
 
+    /**
+     * Constructs a GxlFileReader reading the graph from a source other than a file
+     *
+     * @param name   name standing in for the filename
+     * @param source where the graph is read from
+     */
+    public GxlFileReader(String name, Reader source) {
+        super(name, source);
+    }
+
+    /**
+     * Constructs a GxlFileReader reading the graph from a stream of bytes, such as standard input
+     *
+     * @param name   name standing in for the filename
+     * @param stream where the graph is read from
+     */
+    public GxlFileReader(String name, InputStream stream) {
+        super(name, stream);
+    }
+
     /**
      * Initiates reading the file and interpreting it as a DAG then informs the listener of the read graph data.
      * @author Michael Kemp
@@ -67,185 +79,131 @@ public class GxlFileReader extends FileParser {
     public void startParsing(ParseResultListener newListener) throws FileNotFoundException {
         // Sets fields
         _listener = newListener;
-        BufferedReader reader = openFile();
 
         // Initialises the data structures
+        _graph = new GraphBuilder();
         _nodeNames = new HashMap<>();
-        _nodeWeights = new ArrayList<>();
-        _arcs = new HashMap<>();
-
-        /*
-         Reads the file using regex by checking the _line is of an expected format then extracts information from the lines by matching with regex
-          */
-        try {
-            // Read the first _line
-            _line = reader.readLine();
-
-            // Continue reading the file if there's a next _line and the current _line isn't a closing _line
-            while (_line != null) {
-                // Arcs
-                if (_line.matches(ARC_LINE_MATCH)) {
-                    createArc(reader);
-
-                    // Nodes
-                } else if (_line.matches(NODE_LINE_MATCH)) {
-                    createNode(reader);
-
-                    // Graph name
-                } else if (_line.matches(GRAPH_NAME_LINE_MATCH)) {
-                    graphName();
-
-                }
-
-                // Reads the next _line in the file
-                _line = reader.readLine();
-            }
-            // Problems reading the file
+        _graphName = null;
+
+        XMLInputFactory factory = createFactory();
+        XMLStreamReader xml = null;
+        try (InputStream file = getSource() == null ? openStream() : null) {
+            xml = file == null ? factory.createXMLStreamReader(getSource()) : factory.createXMLStreamReader(file);
+            graph(xml);
+        } catch (FileNotFoundException e) {
+            throw e;
+        } catch (XMLStreamException e) {
+            int line = e.getLocation() == null ? -1 : e.getLocation().getLineNumber();
+            throw new RuntimeException(getFilename() + " line " + line + ": " + e.getMessage());
         } catch (IOException e) {
             fileReadingError(e);
-        }
-
-        // Converts nodes from the generic type data structures to a primitive form
-        // Primitive data structure
-        String[] nodeNamesPrimitive = new String[_nodeWeights.size()];
-        int[] nodeWeightsPrimitive = new int[_nodeWeights.size()];
-        List<String> tempNames = new ArrayList<>(_nodeNames.keySet());
-        _nodeNamesList = new String[_nodeWeights.size()];
-        // For every node copies information into new structure
-        for (int i = 0; i < _nodeWeights.size(); i++) {
-            String tempName = tempNames.get(i);
-            int location = _nodeNames.get(tempName);
-            _nodeNamesList[location] = tempName;
-            nodeWeightsPrimitive[location] = _nodeWeights.get(location);
-            nodeNamesPrimitive[location] = tempName;
-        }
-
-        // Converts arcs from the generic type data structures to a primitive form
-        boolean[][] arcsPrimitive = new boolean[_nodeWeights.size()][_nodeWeights.size()];
-        int[][] arcWeightsPrimitive = new int[_nodeWeights.size()][_nodeWeights.size()];
-        // From every node to every node (self included) copies the weights and if it doesn't exist DEFAULT_WEIGHT is used
-        for (int from = 0; from < nodeNamesPrimitive.length; from++) {
-            // Any arc that doesn't exist has a DEFAULT_WEIGHT default weight
-            Arrays.fill(arcWeightsPrimitive[from], DEFAULT_WEIGHT);
-            for (int to = 0; to < nodeNamesPrimitive.length; to++) {
-                // If the from node
-                if (_arcs.containsKey(nodeNamesPrimitive[from])) {
-                    // Goes to the to node
-                    if (_arcs.get(nodeNamesPrimitive[from]).containsKey(nodeNamesPrimitive[to])) {
-                        // Copy the weight
-                        arcsPrimitive[from][to] = true;
-                        arcWeightsPrimitive[from][to] = _arcs.get(nodeNamesPrimitive[from]).get(nodeNamesPrimitive[to]);
-                    }
+        } finally {
+            if (xml != null) {
+                try {
+                    xml.close();
+                } catch (XMLStreamException ignored) {
+                    // nothing more is read
                 }
             }
         }
 
         // Informs the listener about the freshly read graph
-        _listener.ParsingResults(_graphName, _nodeNamesList, nodeWeightsPrimitive, arcsPrimitive, arcWeightsPrimitive);
+        _graph.inform(_graphName, _listener);
     }
 
-
     /**
-     * Uses the currently loaded line to extract a graph name
-     *
-     * @author Michael Kemp
+     * Reads the nodes and edges of the first graph element, skipping everything else
      */
-    private void graphName() {
-        // Extracts the graph name from the _line
-        Matcher m = GRAPH_NAME_MATCH.matcher(_line);
-        m.find();
-        // Sets the graph name
-        _graphName = m.group(FIRST_MATCH);
-    }
-
-    /**
-     * Takes the file reader and creates a node if needed, if it already exists then the weight is updated
-     *
-     * @param reader
-     * @throws IOException
-     * @author Michael Kemp
-     */
-    private void createNode(BufferedReader reader) throws IOException {
-        // Extracts the node name from the _line
-        Matcher m = NODE_NAME_MATCH.matcher(_line);
-        m.find();
-        String name = m.group(FIRST_MATCH);
-
-        _line = reader.readLine();
-        if (_line != null && _line.matches(WEIGHT_LINE_MATCH)) {
-            _line = reader.readLine();
-            if (_line != null) {
-                // Extracts the node weight from the _line
-                m = WEIGHT_INT_MATCH.matcher(_line);
-                m.find();
-                int weight = Integer.parseInt(m.group(FIRST_MATCH));
-                // If the node exists the weight is updated else it is created and weight is recorded
-                if (_nodeNames.containsKey(name)) {
-                    _nodeWeights.set(_nodeNames.get(name), weight);
-                } else {
-                    _nodeNames.put(name, _nodeWeights.size());
-                    _nodeWeights.add(weight);
+    private void graph(XMLStreamReader xml) throws XMLStreamException {
+        int depth = 0;
+        int graphDepth = -1;
+        // Node or edge being read and the depth of its element, -1 when not in one
+        int node = -1;
+        int arc = -1;
+        int ownerDepth = -1;
+        boolean inWeight = false;
+
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+                String element = xml.getLocalName();
+                if (graphDepth == -1) {
+                    if (GRAPH.equals(element)) {
+                        graphDepth = depth;
+                        _graphName = xml.getAttributeValue(null, "id");
+                    }
+                } else if (depth == graphDepth + 1 && NODE.equals(element)) {
+                    node = nodeIndex(xml, "id");
+                    ownerDepth = depth;
+                } else if (depth == graphDepth + 1 && EDGE.equals(element)) {
+                    int from = nodeIndex(xml, "from");
+                    arc = _graph.addArc(from, nodeIndex(xml, "to"));
+                    ownerDepth = depth;
+                } else if (depth == ownerDepth + 1 && ATTR.equals(element)) {
+                    inWeight = WEIGHT.equalsIgnoreCase(xml.getAttributeValue(null, "name"));
+                } else if (inWeight && INT.equals(element)) {
+                    // Reading the text moves on to the int's end element
+                    int weight = weight(xml, xml.getElementText());
+                    depth--;
+                    if (node != -1) {
+                        _graph.setNodeWeight(node, weight);
+                    } else {
+                        _graph.setArcWeight(arc, weight);
+                    }
                 }
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth == ownerDepth) {
+                    node = -1;
+                    arc = -1;
+                    ownerDepth = -1;
+                } else if (depth == ownerDepth + 1) {
+                    inWeight = false;
+                } else if (depth == graphDepth) {
+                    return; // only the first graph is read
+                }
+                depth--;
             }
         }
     }
 
     /**
-     * Takes the file reader and creates an arc (and even the nodes if necessary with default weights)
+     * Finds the node named by an attribute of the current element, creating it with DEFAULT_WEIGHT if it hasn't been
+     * seen
      *
-     * @param reader
-     * @throws IOException
-     * @author Michael Kemp
+     * @return index of the node
      */
-    private void createArc(BufferedReader reader) throws IOException {
-        // Extracts information about the arc (from, to and weight)
-        // Extracts which node the arc is from
-        Matcher m = ARC_FROM_MATCH.matcher(_line);
-        m.find();
-        String from = m.group(FIRST_MATCH);
-        // Extracts which node the arc is to
-        m = ARC_TO_MATCH.matcher(_line);
-        m.find();
-        String to = m.group(FIRST_MATCH);
-        // Extracts the weight of the arc
-        _line = reader.readLine();
-        if (_line != null && _line.matches(WEIGHT_LINE_MATCH)) {
-            _line = reader.readLine();
-            if (_line != null) {
-                m = WEIGHT_INT_MATCH.matcher(_line);
-                m.find();
-                int weight = Integer.parseInt(m.group(FIRST_MATCH));
-
-                // Places information about the arc into data structures
-                // If the from node isn't defined yet then it is temporarily created with a negative weight
-                if (!_nodeNames.containsKey(from)) {
-                    _nodeWeights.set(_nodeNames.get(from), DEFAULT_WEIGHT);
-                }
-                // If the to node isn't defined yet then it is temporarily created with a negative weight
-                if (!_nodeNames.containsKey(to)) {
-                    _nodeWeights.set(_nodeNames.get(to), DEFAULT_WEIGHT);
-                }
-                // If the from node doesn't have an arc list then one is made
-                if (!_arcs.containsKey(from)) {
-                    _arcs.put(from, new HashMap<>());
-                }
-                // Replaces the weight information in the arc if it already exists otherwise creates the arc
-                if (!_arcs.get(from).containsKey(to)) {
-                    _arcs.get(from).put(to, weight);
-                } else {
-                    _arcs.get(from).replace(to, weight);
-                }
-            }
+    private int nodeIndex(XMLStreamReader xml, String attribute) {
+        String name = xml.getAttributeValue(null, attribute);
+        if (name == null) {
+            throw new RuntimeException(getFilename() + " line " + xml.getLocation().getLineNumber() + ": "
+                    + xml.getLocalName() + " has no " + attribute);
+        }
+        Integer node = _nodeNames.get(name);
+        if (node == null) {
+            node = _graph.addNode(name);
+            _nodeNames.put(name, node);
+        }
+        return node;
+    }
+
+    private int weight(XMLStreamReader xml, String text) {
+        try {
+            return Integer.parseInt(text.trim());
+        } catch (NumberFormatException e) {
+            throw new RuntimeException(getFilename() + " line " + xml.getLocation().getLineNumber()
+                    + ": Expected a whole number weight but found \"" + text.trim() + "\"");
         }
     }
 
     /**
-     * Opens the file given in the filename
-     * @author Michael Kemp
-     * @return BufferedReader of the file
-     * @throws FileNotFoundException
+     * GXL files don't need DTDs or external entities, so neither is read
      */
-    private BufferedReader openFile() throws FileNotFoundException {
-        return new BufferedReader(new FileReader(getFilename()));
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
     }
 }
@@ -3,6 +3,9 @@ package nz.co.revilo.Input;
 /**
  * ParseResultListener is the interface which allows for getting updated with results from a FileParser object when
  * parsing a DOT file is complete.
+ * <p>
+ * Parsers give the graph to parsedGraph in sparse form. Listeners which still take adjacency matrices only implement
+ * ParsingResults, and parsedGraph makes the matrices for them.
  *
  * @author Michael Kemp (mkem114)
  * @version 1.0
@@ -15,4 +18,14 @@ public interface ParseResultListener {
      */
     void ParsingResults(String graphName, String[] nodeNames, int[] nodeWeights, boolean[][] arcs, int[][] arcWeights);
 
+    /**
+     * Called by parsers with the graph they read. Gives the graph to ParsingResults as adjacency matrices unless
+     * overridden, which takes memory in proportion to nodes squared.
+     *
+     * @param graph the parsed graph
+     */
+    default void parsedGraph(SparseGraph graph) {
+        ParsingResults(graph.getGraphName(), graph.getNodeNames(), graph.getNodeWeights(), graph.toDenseArcs(),
+                graph.toDenseArcWeights());
+    }
 }
@@ -0,0 +1,71 @@
+package nz.co.revilo.Input;
+
+import java.io.FileNotFoundException;
+
+/**
+ * ParsedGraph is a ParseResultListener which holds on to the parsing results so that a graph can be read ahead of
+ * time, on another thread, and given to an algorithm manager later.
+ */
+public class ParsedGraph implements ParseResultListener {
+
+    private SparseGraph _graph;
+
+    /**
+     * Parses the given file with the parser matching its extension
+     *
+     * @param filename is the name of the file to open
+     * @return the parsed graph
+     * @throws FileNotFoundException Thrown if the file name given doesn't exist
+     */
+    public static ParsedGraph parse(String filename) throws FileNotFoundException {
+        ParsedGraph graph = new ParsedGraph();
+        FileParser.forFile(filename).startParsing(graph);
+        return graph;
+    }
+
+    /**
+     * Keeps the results of the parser
+     */
+    @Override
+    public void parsedGraph(SparseGraph graph) {
+        _graph = graph;
+    }
+
+    /**
+     * Keeps results given in the old adjacency matrix form
+     */
+    @Override
+    public void ParsingResults(String graphName, String[] nodeNames, int[] nodeWeights, boolean[][] arcs, int[][] arcWeights) {
+        _graph = SparseGraph.fromDense(graphName, nodeNames, nodeWeights, arcs, arcWeights);
+    }
+
+    /**
+     * Gives the kept results to a listener as if it was parsing the file itself
+     *
+     * @param listener To inform of parsing results
+     */
+    public void replay(ParseResultListener listener) {
+        listener.parsedGraph(_graph);
+    }
+
+    /**
+     * @return the number of nodes in the graph
+     */
+    public int getNodeCount() {
+        return _graph == null ? 0 : _graph.getNodeCount();
+    }
+
+    /**
+     * @return the name of the graph
+     */
+    public String getGraphName() {
+        return _graph == null ? null : _graph.getGraphName();
+    }
+
+    /**
+     * @return the parsed graph
+     */
+    public SparseGraph getGraph() {
+        return _graph;
+    }
+}
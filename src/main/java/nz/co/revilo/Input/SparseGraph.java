@@ -0,0 +1,346 @@
+package nz.co.revilo.Input;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A parsed graph held in compressed sparse row form, taking memory in proportion to its nodes and arcs rather than
+ * nodes squared. Nodes are numbered from 0 and arcs are numbered from 0 in two orders: by their from node for the
+ * out arcs and by their to node for the in arcs, each sorted by the node at the other end. Arc a out of a node is one
+ * of outStart(node) &lt;= a &lt; outEnd(node), and likewise for in arcs.
+ * <p>
+ * The adjacency matrices of the old ParseResultListener contract can still be made, for callers which need them.
+ */
+public final class SparseGraph {
+
+    private final String _graphName;
+    private final String[] _nodeNames;
+    private final int[] _nodeWeights;
+
+    private final int[] _outOffsets;
+    private final int[] _outTargets;
+    private final int[] _outWeights;
+    private final int[] _inOffsets;
+    private final int[] _inSources;
+    private final int[] _inWeights;
+
+    // Built the first time a node is looked up by name
+    private volatile Map<String, Integer> _nodeIndex;
+
+    /**
+     * Builds a graph from its arcs in any order, a later arc between the same two nodes replaces the earlier one
+     *
+     * @param graphName   name of the graph, may be null
+     * @param nodeNames   name of each node
+     * @param nodeWeights weight of each node
+     * @param arcFrom     from node of each arc
+     * @param arcTo       to node of each arc
+     * @param arcWeights  weight of each arc
+     * @param arcCount    number of arcs in the arc arrays
+     */
+    public SparseGraph(String graphName, String[] nodeNames, int[] nodeWeights, int[] arcFrom, int[] arcTo,
+                       int[] arcWeights, int arcCount) {
+        int n = nodeWeights.length;
+        if (nodeNames.length != n) {
+            throw new IllegalArgumentException("Every node needs a name and a weight");
+        }
+        for (int arc = 0; arc < arcCount; arc++) {
+            if (arcFrom[arc] < 0 || arcFrom[arc] >= n || arcTo[arc] < 0 || arcTo[arc] >= n) {
+                throw new IllegalArgumentException("Arc " + arc + " joins nodes which don't exist");
+            }
+        }
+        _graphName = graphName;
+        _nodeNames = nodeNames;
+        _nodeWeights = nodeWeights;
+
+        // Radix sort of arc numbers by to node then from node, each pass stable so duplicates stay in read order
+        int[] byTo = countingSort(identity(arcCount), arcTo, n);
+        int[] sorted = countingSort(byTo, arcFrom, n);
+
+        // Keeps the last of each run of arcs between the same two nodes
+        int unique = 0;
+        for (int i = 0; i < arcCount; i++) {
+            int arc = sorted[i];
+            if (i + 1 < arcCount && arcFrom[sorted[i + 1]] == arcFrom[arc] && arcTo[sorted[i + 1]] == arcTo[arc]) {
+                continue;
+            }
+            sorted[unique++] = arc;
+        }
+
+        _outOffsets = new int[n + 1];
+        _outTargets = new int[unique];
+        _outWeights = new int[unique];
+        for (int i = 0; i < unique; i++) {
+            int arc = sorted[i];
+            _outOffsets[arcFrom[arc] + 1]++;
+            _outTargets[i] = arcTo[arc];
+            _outWeights[i] = arcWeights[arc];
+        }
+        for (int node = 0; node < n; node++) {
+            _outOffsets[node + 1] += _outOffsets[node];
+        }
+        _inOffsets = new int[n + 1];
+        _inSources = new int[unique];
+        _inWeights = new int[unique];
+        fillInArcs();
+    }
+
+    /**
+     * Takes a graph whose out arcs are already in compressed sparse row form, as the BinaryGraphFormat holds them,
+     * so only the in arcs are worked out
+     */
+    private SparseGraph(String graphName, String[] nodeNames, int[] nodeWeights, int[] outOffsets, int[] outTargets,
+                        int[] outWeights) {
+        _graphName = graphName;
+        _nodeNames = nodeNames;
+        _nodeWeights = nodeWeights;
+        _outOffsets = outOffsets;
+        _outTargets = outTargets;
+        _outWeights = outWeights;
+        _inOffsets = new int[nodeWeights.length + 1];
+        _inSources = new int[outTargets.length];
+        _inWeights = new int[outTargets.length];
+        fillInArcs();
+    }
+
+    /**
+     * Takes the arrays of a graph already in compressed sparse row form without copying or sorting them
+     *
+     * @param offsets    the arcs out of node i are at [offsets[i], offsets[i+1])
+     * @param targets    to node of each arc, increasing within each node's arcs
+     * @param arcWeights weight of each arc
+     * @return the graph
+     */
+    static SparseGraph fromCsr(String graphName, String[] nodeNames, int[] nodeWeights, int[] offsets, int[] targets,
+                               int[] arcWeights) {
+        int n = nodeWeights.length;
+        int m = targets.length;
+        if (nodeNames.length != n || offsets.length != n + 1 || arcWeights.length != m) {
+            throw new IllegalArgumentException("Every node needs a name and a weight, and every arc a weight");
+        }
+        if (offsets[0] != 0 || offsets[n] != m) {
+            throw new IllegalArgumentException("Arc offsets don't cover the arcs");
+        }
+        for (int from = 0; from < n; from++) {
+            if (offsets[from] > offsets[from + 1]) {
+                throw new IllegalArgumentException("Arc offsets go backwards at node " + from);
+            }
+            for (int arc = offsets[from]; arc < offsets[from + 1]; arc++) {
+                if (targets[arc] < 0 || targets[arc] >= n) {
+                    throw new IllegalArgumentException("Arc " + arc + " joins nodes which don't exist");
+                }
+                if (arc > offsets[from] && targets[arc] <= targets[arc - 1]) {
+                    throw new IllegalArgumentException("Arcs out of node " + from + " aren't sorted");
+                }
+            }
+        }
+        return new SparseGraph(graphName, nodeNames, nodeWeights, offsets, targets, arcWeights);
+    }
+
+    /**
+     * Adapts a graph given in the old adjacency matrix form
+     *
+     * @return the same graph
+     */
+    public static SparseGraph fromDense(String graphName, String[] nodeNames, int[] nodeWeights, boolean[][] arcs,
+                                        int[][] arcWeights) {
+        int n = nodeWeights.length;
+        int m = 0;
+        for (int from = 0; from < n; from++) {
+            for (int to = 0; to < n; to++) {
+                if (arcs[from][to]) {
+                    m++;
+                }
+            }
+        }
+        int[] arcFrom = new int[m];
+        int[] arcTo = new int[m];
+        int[] weights = new int[m];
+        int arc = 0;
+        for (int from = 0; from < n; from++) {
+            for (int to = 0; to < n; to++) {
+                if (arcs[from][to]) {
+                    arcFrom[arc] = from;
+                    arcTo[arc] = to;
+                    weights[arc++] = arcWeights[from][to];
+                }
+            }
+        }
+        return new SparseGraph(graphName, nodeNames, nodeWeights, arcFrom, arcTo, weights, m);
+    }
+
+    public String getGraphName() {
+        return _graphName;
+    }
+
+    public int getNodeCount() {
+        return _nodeWeights.length;
+    }
+
+    public int getArcCount() {
+        return _outTargets.length;
+    }
+
+    public String getNodeName(int node) {
+        return _nodeNames[node];
+    }
+
+    public int getNodeWeight(int node) {
+        return _nodeWeights[node];
+    }
+
+    /**
+     * @return the name of every node, not to be changed
+     */
+    public String[] getNodeNames() {
+        return _nodeNames;
+    }
+
+    /**
+     * @return the weight of every node, not to be changed
+     */
+    public int[] getNodeWeights() {
+        return _nodeWeights;
+    }
+
+    /**
+     * @param name of a node
+     * @return its number, or -1 if there is no node by that name
+     */
+    public int indexOf(String name) {
+        Map<String, Integer> index = _nodeIndex;
+        if (index == null) {
+            index = new HashMap<>(_nodeNames.length * 2);
+            for (int node = 0; node < _nodeNames.length; node++) {
+                index.put(_nodeNames[node], node);
+            }
+            _nodeIndex = index;
+        }
+        Integer node = index.get(name);
+        return node == null ? -1 : node;
+    }
+
+    public int outStart(int node) {
+        return _outOffsets[node];
+    }
+
+    public int outEnd(int node) {
+        return _outOffsets[node + 1];
+    }
+
+    public int outTarget(int arc) {
+        return _outTargets[arc];
+    }
+
+    public int outWeight(int arc) {
+        return _outWeights[arc];
+    }
+
+    public int inStart(int node) {
+        return _inOffsets[node];
+    }
+
+    public int inEnd(int node) {
+        return _inOffsets[node + 1];
+    }
+
+    public int inSource(int arc) {
+        return _inSources[arc];
+    }
+
+    public int inWeight(int arc) {
+        return _inWeights[arc];
+    }
+
+    /**
+     * @return whether there is an arc between the nodes, found by binary search of the from node's arcs
+     */
+    public boolean hasArc(int from, int to) {
+        return Arrays.binarySearch(_outTargets, _outOffsets[from], _outOffsets[from + 1], to) >= 0;
+    }
+
+    /**
+     * @return weight of the arc between the nodes, or DEFAULT_WEIGHT if there isn't one
+     */
+    public int getArcWeight(int from, int to) {
+        int arc = Arrays.binarySearch(_outTargets, _outOffsets[from], _outOffsets[from + 1], to);
+        return arc >= 0 ? _outWeights[arc] : DotFileReader.DEFAULT_WEIGHT;
+    }
+
+    /**
+     * @return arcs[from][to] is true where there is an arc, for the old ParseResultListener contract
+     */
+    public boolean[][] toDenseArcs() {
+        int n = getNodeCount();
+        boolean[][] arcs = new boolean[n][n];
+        for (int from = 0; from < n; from++) {
+            for (int arc = outStart(from); arc < outEnd(from); arc++) {
+                arcs[from][_outTargets[arc]] = true;
+            }
+        }
+        return arcs;
+    }
+
+    /**
+     * @return weight of each arc, DEFAULT_WEIGHT where there is none, for the old ParseResultListener contract
+     */
+    public int[][] toDenseArcWeights() {
+        int n = getNodeCount();
+        int[][] arcWeights = new int[n][n];
+        for (int from = 0; from < n; from++) {
+            Arrays.fill(arcWeights[from], DotFileReader.DEFAULT_WEIGHT);
+            for (int arc = outStart(from); arc < outEnd(from); arc++) {
+                arcWeights[from][_outTargets[arc]] = _outWeights[arc];
+            }
+        }
+        return arcWeights;
+    }
+
+    /**
+     * Fills in the in arcs from the out arcs, going through them in from node order so their sources are sorted
+     */
+    private void fillInArcs() {
+        int n = _nodeWeights.length;
+        for (int target : _outTargets) {
+            _inOffsets[target + 1]++;
+        }
+        for (int node = 0; node < n; node++) {
+            _inOffsets[node + 1] += _inOffsets[node];
+        }
+        int[] inNext = Arrays.copyOf(_inOffsets, n);
+        for (int from = 0; from < n; from++) {
+            for (int arc = _outOffsets[from]; arc < _outOffsets[from + 1]; arc++) {
+                int in = inNext[_outTargets[arc]]++;
+                _inSources[in] = from;
+                _inWeights[in] = _outWeights[arc];
+            }
+        }
+    }
+
+    private static int[] identity(int length) {
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = i;
+        }
+        return values;
+    }
+
+    /**
+     * @return the items stably sorted by their key, keys being below range
+     */
+    private static int[] countingSort(int[] items, int[] keys, int range) {
+        int[] starts = new int[range + 1];
+        for (int item : items) {
+            starts[keys[item] + 1]++;
+        }
+        for (int key = 0; key < range; key++) {
+            starts[key + 1] += starts[key];
+        }
+        int[] sorted = new int[items.length];
+        for (int item : items) {
+            sorted[starts[keys[item]]++] = item;
+        }
+        return sorted;
+    }
+}
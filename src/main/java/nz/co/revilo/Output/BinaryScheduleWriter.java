@@ -0,0 +1,60 @@
+package nz.co.revilo.Output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Implementation of DotFileProducer which writes the schedule as fixed-width binary records, so the record of any task
+ * is found without reading the others. All numbers are big-endian.
+ * <pre>
+ * int        magic ("RVLS")
+ * short      version
+ * short      flags (unused, 0)
+ * int        n, number of tasks
+ * int        makespan
+ * record[n]  a task's start, processor (from 1 as in the DOT output) and finish, as three ints
+ * name       graph name
+ * name[n]    task names
+ * </pre>
+ * where a name is an int byte length followed by that many bytes of UTF-8, as in the binary graph format. Task i's
+ * record starts at HEADER_BYTES + i * RECORD_BYTES. There's no Writer constructor, as the records aren't text.
+ */
+public class BinaryScheduleWriter extends DotFileProducer {
+    public static final int MAGIC = 0x52564C53;
+    public static final short VERSION = 1;
+    public static final String FILE_EXTENSION = ".rvo";
+    public static final int HEADER_BYTES = Integer.BYTES * 4;
+    public static final int RECORD_BYTES = Integer.BYTES * 3;
+
+    public BinaryScheduleWriter(String filename) {
+        super(filename, FILE_EXTENSION);
+    }
+
+    public BinaryScheduleWriter(OutputStream stream) {
+        super(stream);
+    }
+
+    /**
+     * Writes the header, a record for each node and then the names
+     *
+     * @param output buffer set up and used to create the new file, and write output to it
+     */
+    @Override
+    protected void produceOutput(ByteOutput output) throws IOException {
+        int tasks = _schedule.getNodeCount();
+        output.int32(MAGIC).int32(VERSION << Short.SIZE).int32(tasks).int32(_schedule.getMakespan());
+        for (int node = 0; node < tasks; node++) {
+            int start = _schedule.getStartTime(node);
+            output.int32(start).int32(_schedule.getProcessor(node) + 1).int32(start + _schedule.getNodeWeight(node));
+        }
+        writeName(output, _schedule.getGraphName() == null ? "" : _schedule.getGraphName());
+        for (int node = 0; node < tasks; node++) {
+            writeName(output, _schedule.getNodeName(node));
+        }
+    }
+
+    private static void writeName(ByteOutput output, String name) throws IOException {
+        byte[] bytes = ByteOutput.encode(name);
+        output.int32(bytes.length).bytes(bytes);
+    }
+}
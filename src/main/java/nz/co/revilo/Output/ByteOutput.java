@@ -0,0 +1,122 @@
+package nz.co.revilo.Output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes text straight into a byte buffer which is written to a channel whenever it fills, so output is made without
+ * building a String for every line. Numbers are written digit by digit and names are encoded by the caller once, as
+ * they're written many times. The buffer is kept for the next channel once one is finished.
+ */
+final class ByteOutput {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+
+    private final ByteBuffer _buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final byte[] _digits = new byte[11];
+    private WritableByteChannel _channel;
+
+    /**
+     * Starts writing to a channel
+     *
+     * @param channel written to as the buffer fills and by finish
+     */
+    void start(WritableByteChannel channel) {
+        _channel = channel;
+        _buffer.clear();
+    }
+
+    /**
+     * Writes whatever is left in the buffer to the channel, which is left open
+     *
+     * @throws IOException if the channel can't be written
+     */
+    void finish() throws IOException {
+        drain();
+        _channel = null;
+    }
+
+    /**
+     * @param text only ASCII characters, such as DOT punctuation and attribute names
+     */
+    ByteOutput ascii(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            if (!_buffer.hasRemaining()) {
+                drain();
+            }
+            _buffer.put((byte) text.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * @param bytes text already encoded, e.g. by encode
+     */
+    ByteOutput bytes(byte[] bytes) throws IOException {
+        for (int written = 0; written < bytes.length; ) {
+            if (!_buffer.hasRemaining()) {
+                drain();
+            }
+            int length = Math.min(bytes.length - written, _buffer.remaining());
+            _buffer.put(bytes, written, length);
+            written += length;
+        }
+        return this;
+    }
+
+    /**
+     * @param value written in decimal
+     */
+    ByteOutput number(int value) throws IOException {
+        long remaining = Math.abs((long) value);
+        int start = _digits.length;
+        do {
+            _digits[--start] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+        if (value < 0) {
+            _digits[--start] = '-';
+        }
+        if (_buffer.remaining() < _digits.length - start) {
+            drain();
+        }
+        _buffer.put(_digits, start, _digits.length - start);
+        return this;
+    }
+
+    /**
+     * @param value written as four bytes, big-endian
+     */
+    ByteOutput int32(int value) throws IOException {
+        if (_buffer.remaining() < Integer.BYTES) {
+            drain();
+        }
+        _buffer.putInt(value);
+        return this;
+    }
+
+    /**
+     * Ends a line with the platform's line separator, as println would
+     */
+    ByteOutput newLine() throws IOException {
+        return bytes(LINE_SEPARATOR);
+    }
+
+    /**
+     * @return the text as UTF-8, for writing with bytes
+     */
+    static byte[] encode(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void drain() throws IOException {
+        _buffer.flip();
+        while (_buffer.hasRemaining()) {
+            _channel.write(_buffer);
+        }
+        _buffer.clear();
+    }
+}
@@ -0,0 +1,56 @@
+package nz.co.revilo.Output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Implementation of DotFileProducer which writes the schedule as CSV, a HEADER line then a row for each task in the
+ * order of the graph's nodes. Processors are numbered from 1 as in the DOT output, names holding a comma, quote or line
+ * break are quoted as in RFC 4180, and every line ends in a single \n.
+ */
+public class CsvScheduleWriter extends DotFileProducer {
+    public static final String FILE_EXTENSION = ".csv";
+    public static final String HEADER = "name,start,processor,finish";
+
+    public CsvScheduleWriter(String filename) {
+        super(filename, FILE_EXTENSION);
+    }
+
+    public CsvScheduleWriter(Writer destination) {
+        super(destination);
+    }
+
+    public CsvScheduleWriter(OutputStream stream) {
+        super(stream);
+    }
+
+    /**
+     * Writes the header and a row for each node
+     *
+     * @param output buffer set up and used to create the new file, and write output to it
+     */
+    @Override
+    protected void produceOutput(ByteOutput output) throws IOException {
+        output.ascii(HEADER).ascii("\n");
+        for (int node = 0; node < _schedule.getNodeCount(); node++) {
+            int start = _schedule.getStartTime(node);
+            output.bytes(ByteOutput.encode(quote(_schedule.getNodeName(node)))).ascii(",").number(start)
+                    .ascii(",").number(_schedule.getProcessor(node) + 1)
+                    .ascii(",").number(start + _schedule.getNodeWeight(node)).ascii("\n");
+        }
+    }
+
+    /**
+     * @return the name, in quotes with its quotes doubled if it needs them
+     */
+    static String quote(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + name.replace("\"", "\"\"") + '"';
+            }
+        }
+        return name;
+    }
+}
@@ -1,7 +1,23 @@
 package nz.co.revilo.Output;
 
-import java.io.PrintWriter;
-import java.util.List;
+import nz.co.revilo.Input.FileParser;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * Abstract class for reading in information from the final schedule which is required in producing an output file. The
@@ -15,57 +31,195 @@ public abstract class DotFileProducer implements ScheduleResultListener {
     // Character set to write the file in
     public static final String CHAR_SET = "UTF-8";
     public static final int FILE_CANT_BE_SAVED_EXIT_STATUS = 2;
+    // Added to the output filename for the file a schedule is written to before it replaces the output
+    public static final String TEMPORARY_EXTENSION = ".tmp";
+
+    private static final int BUFFER_SIZE = 1 << 16;
 
     // Data structure to accept and write from scheduling manager
     protected String _outputFilename;
-    protected String _graphName;
-    protected List<String> _nodeNames;
-    protected List<List<Boolean>> _arcs;
-    protected List<List<Integer>> _arcWeights;
-    protected List<Integer> _nodeWeights;
-    protected List<Integer> _nodeStarts;
-    protected List<Integer> _nodeProcessor;
+    protected ScheduleResult _schedule;
+
+    // Written to instead of the output file when given
+    private Writer _destination;
+    private OutputStream _stream;
+
+    // Encodes every schedule written, keeping its buffer between them
+    private final ByteOutput _output = new ByteOutput();
+
+    // Formats schedules can be written in, given with --format
+    public static final String DOT_FORMAT = "dot";
+    public static final String JSON_LINES_FORMAT = "jsonl";
+    public static final String CSV_FORMAT = "csv";
+    public static final String BINARY_FORMAT = "binary";
 
     /**
-     * DotFileProducer constructor which sets the file name of the output schedule DOT file.
+     * DotFileProducer constructor which sets the file name of the output schedule DOT file, which is gzip compressed if
+     * the name ends in .dot.gz
      *
      * @param outputFilename
      */
     public DotFileProducer(String outputFilename) {
+        this(outputFilename, DotFileWriter.FILE_EXTENSION);
+    }
+
+    /**
+     * Constructor for producers writing files of another format, whose extension is added to the file name unless it
+     * already ends in it, before any .gz
+     *
+     * @param outputFilename name of the output file
+     * @param extension      extension of the format, starting with a dot
+     */
+    protected DotFileProducer(String outputFilename, String extension) {
         _outputFilename = outputFilename;
-        if (!_outputFilename.toUpperCase().endsWith(".DOT")) {
-            _outputFilename = outputFilename + ".dot";
+        if (!FileParser.uncompressedName(_outputFilename).toUpperCase().endsWith(extension.toUpperCase())) {
+            _outputFilename = outputFilename + extension;
         }
     }
 
+    /**
+     * Creates the producer writing a format to a file, as FileParser.forFile creates the reader of a file
+     *
+     * @param format   one of the formats, e.g. DOT_FORMAT
+     * @param filename name of the output file
+     * @return producer of the format
+     */
+    public static DotFileProducer forFile(String format, String filename) {
+        switch (checkFormat(format)) {
+            case JSON_LINES_FORMAT:
+                return new JsonLinesScheduleWriter(filename);
+            case CSV_FORMAT:
+                return new CsvScheduleWriter(filename);
+            case BINARY_FORMAT:
+                return new BinaryScheduleWriter(filename);
+            default:
+                return new DotFileWriter(filename);
+        }
+    }
+
+    /**
+     * Creates the producer writing a format to a stream, such as standard output
+     *
+     * @param format one of the formats, e.g. DOT_FORMAT
+     * @param stream where the schedule is written, flushed but left open
+     * @return producer of the format
+     */
+    public static DotFileProducer forStream(String format, OutputStream stream) {
+        switch (checkFormat(format)) {
+            case JSON_LINES_FORMAT:
+                return new JsonLinesScheduleWriter(stream);
+            case CSV_FORMAT:
+                return new CsvScheduleWriter(stream);
+            case BINARY_FORMAT:
+                return new BinaryScheduleWriter(stream);
+            default:
+                return new DotFileWriter(stream);
+        }
+    }
+
+    /**
+     * @param format one of the formats, e.g. DOT_FORMAT
+     * @return extension of the format's files, starting with a dot
+     */
+    public static String extensionOf(String format) {
+        switch (checkFormat(format)) {
+            case JSON_LINES_FORMAT:
+                return JsonLinesScheduleWriter.FILE_EXTENSION;
+            case CSV_FORMAT:
+                return CsvScheduleWriter.FILE_EXTENSION;
+            case BINARY_FORMAT:
+                return BinaryScheduleWriter.FILE_EXTENSION;
+            default:
+                return DotFileWriter.FILE_EXTENSION;
+        }
+    }
+
+    private static String checkFormat(String format) {
+        switch (format) {
+            case DOT_FORMAT:
+            case JSON_LINES_FORMAT:
+            case CSV_FORMAT:
+            case BINARY_FORMAT:
+                return format;
+            default:
+                throw new RuntimeException("Unknown output format " + format + ", expected one of " + DOT_FORMAT
+                        + ", " + JSON_LINES_FORMAT + ", " + CSV_FORMAT + " or " + BINARY_FORMAT);
+        }
+    }
+
+    /**
+     * Opens a file to write output to as a channel, compressing it if its name ends in FileParser.COMPRESSED_EXTENSION
+     *
+     * @param filename name of the file
+     * @return channel to the file, which is replaced
+     * @throws IOException if the file can't be created
+     */
+    public static WritableByteChannel openChannel(String filename) throws IOException {
+        return openChannel(Paths.get(filename), FileParser.isCompressed(filename));
+    }
+
+    private static WritableByteChannel openChannel(Path path, boolean compressed) throws IOException {
+        FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        if (!compressed) {
+            return file;
+        }
+        try {
+            return Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(file), BUFFER_SIZE));
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens a file to write output to, compressing it if its name ends in FileParser.COMPRESSED_EXTENSION
+     *
+     * @param filename name of the file
+     * @return buffered stream to the file
+     * @throws IOException if the file can't be created
+     */
+    public static OutputStream openOutput(String filename) throws IOException {
+        OutputStream file = new FileOutputStream(filename);
+        try {
+            return FileParser.isCompressed(filename) ? new GZIPOutputStream(file, BUFFER_SIZE)
+                    : new BufferedOutputStream(file, BUFFER_SIZE);
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * DotFileProducer constructor for writing the schedule somewhere other than a file, e.g. back to a daemon client.
+     * The destination is flushed but left open.
+     *
+     * @param destination where the schedule is written
+     */
+    public DotFileProducer(Writer destination) {
+        _destination = destination;
+    }
+
+    /**
+     * DotFileProducer constructor for writing the schedule to a stream, such as standard output. The stream is flushed
+     * but left open.
+     *
+     * @param stream where the schedule is written
+     */
+    public DotFileProducer(OutputStream stream) {
+        _stream = stream;
+    }
+
     /**
      * Accepts data about how tasks are going to be run on each processor and at what time then calls produceOutput()
      *
-     * @param graphName     Name of graph
-     * @param nodeNames     Name of each task
-     * @param arcs          The existence of arcs
-     * @param arcWeights    How long to transfer results of task completion to another processor
-     * @param nodeWeights   How long each task takes
-     * @param nodeStarts    When each task starts
-     * @param nodeProcessor What processor each task is on
+     * @param schedule the schedule and the graph it schedules
      */
     @Override
-    final public void finalSchedule(String graphName, List<String> nodeNames, List<List<Boolean>> arcs, List<List<Integer>> arcWeights, List<Integer> nodeWeights, List<Integer> nodeStarts, List<Integer> nodeProcessor) {
-        // Sets data structure
-        _graphName = graphName;
-        _nodeNames = nodeNames;
-        _arcs = arcs;
-        _arcWeights = arcWeights;
-        _nodeWeights = nodeWeights;
-        _nodeStarts = nodeStarts;
-        _nodeProcessor = nodeProcessor;
-
+    final public void finalSchedule(ScheduleResult schedule) {
         // Attempts to print the graph to a file
         try {
-            PrintWriter pw = new PrintWriter(_outputFilename, CHAR_SET);
-            produceOutput(pw);
-            pw.flush();
-            pw.close();
+            writeSchedule(schedule);
         } catch (Exception e) {
             System.err.println("File could not be saved");
             System.err.println(e.getMessage());
@@ -75,9 +229,74 @@ public abstract class DotFileProducer implements ScheduleResultListener {
     }
 
     /**
-     * Abstract method for producing an output file in DOT file format (to be implemented by child classes).
+     * Writes the schedule to the output, for callers which carry on when it can't be saved rather than exiting as
+     * finalSchedule does
+     *
+     * @param schedule the schedule and the graph it schedules
+     * @throws IOException if the schedule can't be written
+     */
+    public void writeSchedule(ScheduleResult schedule) throws IOException {
+        if (_destination != null) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            write(schedule, Channels.newChannel(bytes));
+            _destination.write(bytes.toString(CHAR_SET));
+            _destination.flush();
+        } else if (_stream != null) {
+            write(schedule, Channels.newChannel(_stream));
+            _stream.flush();
+        } else {
+            try (WritableByteChannel channel = openChannel(_outputFilename)) {
+                write(schedule, channel);
+            }
+        }
+    }
+
+    /**
+     * Writes a schedule to the output filename plus TEMPORARY_EXTENSION then renames it over the output file, so the
+     * output file always holds a whole schedule, the old one or the new one. Only for producers writing to a file.
+     *
+     * @param schedule the schedule and the graph it schedules
+     * @throws IOException if the schedule can't be written or the output file replaced
+     */
+    public void replaceOutput(ScheduleResult schedule) throws IOException {
+        if (_outputFilename == null) {
+            throw new IllegalStateException("Only an output file can be replaced");
+        }
+        Path output = Paths.get(_outputFilename);
+        Path temporary = Paths.get(_outputFilename + TEMPORARY_EXTENSION);
+        try (WritableByteChannel channel = openChannel(temporary, FileParser.isCompressed(_outputFilename))) {
+            write(schedule, channel);
+        }
+        try {
+            Files.move(temporary, output, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, output, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @return name of the output file, or null if the schedule is written elsewhere
+     */
+    public String getOutputFilename() {
+        return _outputFilename;
+    }
+
+    /**
+     * Encodes the schedule through the reused buffer, which is written to the channel as it fills
+     */
+    private synchronized void write(ScheduleResult schedule, WritableByteChannel channel) throws IOException {
+        _schedule = schedule;
+        _output.start(channel);
+        produceOutput(_output);
+        _output.finish();
+    }
+
+    /**
+     * Abstract method for producing an output file in DOT file format, or the child class's own format (to be
+     * implemented by child classes).
      *
-     * @param output PrintWriter set up and used to create the new DOT file, and print output to it
+     * @param output buffer set up and used to create the new file, and write output to it
+     * @throws IOException if the output can't be written
      */
-    protected abstract void produceOutput(PrintWriter output);
+    protected abstract void produceOutput(ByteOutput output) throws IOException;
 }
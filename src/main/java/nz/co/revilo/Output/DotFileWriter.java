@@ -1,62 +1,81 @@
 package nz.co.revilo.Output;
 
-import java.io.PrintWriter;
+import nz.co.revilo.Input.SparseGraph;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
 
 /**
  * Implementation of DotFileProducer which uses produced output by iterating through the nodes and edges of the graph,
- * and printing details in the required format.
+ * and printing details in the required format. Only the arcs in the graph's adjacency lists are visited, so writing
+ * takes time in proportion to the nodes and arcs.
  *
  * @author Michael Kemp
  * @version 1.0
  */
 public class DotFileWriter extends DotFileProducer {
+    public static final String FILE_EXTENSION = ".dot";
+
     public DotFileWriter(String filename) {
         super(filename);
     }
 
+    public DotFileWriter(Writer destination) {
+        super(destination);
+    }
+
+    public DotFileWriter(OutputStream stream) {
+        super(stream);
+    }
+
     /**
-     * Iterates through all the nodes and edges to create a scheduling results DOT file
+     * Iterates through the nodes and then each node's arcs to create a scheduling results DOT file, encoding each node
+     * name once
      *
      * @author Michael Kemp
-     * @param output PrintWriter set up and used to create the new DOT file, and print output to it
+     * @param output buffer set up and used to create the new DOT file, and write output to it
      */
-    protected void produceOutput(PrintWriter output) {
+    protected void produceOutput(ByteOutput output) throws IOException {
         // Prints graph name
+        String graphName = _schedule.getGraphName();
         String temp;
         // If there's a name
-        if (_graphName != null) {
+        if (graphName != null) {
             // And it's longer than 1 character
-            if (_graphName.length() > 1) {
+            if (graphName.length() > 1) {
                 // Capitalise the first character
-                temp = _graphName.substring(0, 1).toUpperCase() + _graphName.substring(1);
+                temp = graphName.substring(0, 1).toUpperCase() + graphName.substring(1);
             } else {
                 // otherwise just capitalise the whole thing
-                temp = _graphName.toUpperCase();
+                temp = graphName.toUpperCase();
             }
         } else {
             // and if there isn't a name then it's empty
             temp = "";
         }
         // Prints the graph name
-        output.println("digraph \"output" + temp + "\" {");
+        output.ascii("digraph \"output").bytes(ByteOutput.encode(temp)).ascii("\" {").newLine();
 
         // Prints nodes with their weights
-        for (int node = 0; node < _arcs.size(); node++) {
-            output.println("\t\t" + _nodeNames.get(node) + "\t\t[Weight=" + _nodeWeights.get(node) + ",Start=" +
-                    _nodeStarts.get(node) + ",Processor=" + (_nodeProcessor.get(node)+1) + "];");
+        SparseGraph graph = _schedule.getGraph();
+        byte[][] names = new byte[graph.getNodeCount()][];
+        for (int node = 0; node < graph.getNodeCount(); node++) {
+            names[node] = ByteOutput.encode(graph.getNodeName(node));
+            output.ascii("\t\t").bytes(names[node]).ascii("\t\t[Weight=").number(graph.getNodeWeight(node))
+                    .ascii(",Start=").number(_schedule.getStartTime(node))
+                    .ascii(",Processor=").number(_schedule.getProcessor(node) + 1).ascii("];").newLine();
         }
 
-        // Prints arcs with their weights
-        for (int from = 0; from < _arcs.size(); from++) {
-            for (int to = 0; to < _arcs.get(from).size(); to++) {
-                if (_arcs.get(from).get(to)) {
-                    output.println("\t\t" + _nodeNames.get(from) + " -> " + _nodeNames.get(to) + "\t[Weight=" +
-                            _arcWeights.get(from).get(to) + "];");
-                }
+        // Prints arcs with their weights, in the order of the adjacency matrix
+        for (int from = 0; from < graph.getNodeCount(); from++) {
+            for (int arc = graph.outStart(from); arc < graph.outEnd(from); arc++) {
+                output.ascii("\t\t").bytes(names[from]).ascii(" -> ").bytes(names[graph.outTarget(arc)])
+                        .ascii("\t[Weight=").number(graph.outWeight(arc)).ascii("];").newLine();
             }
         }
 
         // Print the closing line
-        output.println("}");
+        output.ascii("}").newLine();
     }
 }
@@ -0,0 +1,63 @@
+package nz.co.revilo.Output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Implementation of DotFileProducer which writes the schedule as JSON Lines, one record per task in the order of the
+ * graph's nodes, e.g.
+ * <pre>
+ * {"name":"a","start":0,"processor":1,"finish":2}
+ * </pre>
+ * Processors are numbered from 1 as in the DOT output, and every line ends in a single \n as JSON Lines requires.
+ */
+public class JsonLinesScheduleWriter extends DotFileProducer {
+    public static final String FILE_EXTENSION = ".jsonl";
+
+    public JsonLinesScheduleWriter(String filename) {
+        super(filename, FILE_EXTENSION);
+    }
+
+    public JsonLinesScheduleWriter(Writer destination) {
+        super(destination);
+    }
+
+    public JsonLinesScheduleWriter(OutputStream stream) {
+        super(stream);
+    }
+
+    /**
+     * Writes a record for each node
+     *
+     * @param output buffer set up and used to create the new file, and write output to it
+     */
+    @Override
+    protected void produceOutput(ByteOutput output) throws IOException {
+        for (int node = 0; node < _schedule.getNodeCount(); node++) {
+            int start = _schedule.getStartTime(node);
+            output.ascii("{\"name\":").bytes(ByteOutput.encode(quote(_schedule.getNodeName(node))))
+                    .ascii(",\"start\":").number(start)
+                    .ascii(",\"processor\":").number(_schedule.getProcessor(node) + 1)
+                    .ascii(",\"finish\":").number(start + _schedule.getNodeWeight(node)).ascii("}\n");
+        }
+    }
+
+    /**
+     * @return the name as a JSON string, in quotes with quotes, backslashes and control characters escaped
+     */
+    public static String quote(String name) {
+        StringBuilder quoted = new StringBuilder(name.length() + 2).append('"');
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < ' ') {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,136 @@
+package nz.co.revilo.Output;
+
+import nz.co.revilo.Scheduling.AlgorithmManager;
+import nz.co.revilo.Scheduling.BnBSchedule;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Keeps the output file holding the best schedule found so far while the search runs, so it can be picked up at any
+ * time, even if the run is killed before the schedule is proven optimal. Each improvement is written by a thread of
+ * its own through DotFileProducer.replaceOutput, so the search only hands over the schedule. Improvements arriving
+ * while one is being written, or within MINIMUM_WRITE_INTERVAL_MILLIS of the last write, are coalesced into a single
+ * write of the best of them. The final schedule replaces the output the same way once the writer has stopped.
+ */
+public class ProgressiveOutput implements NewOptimalResultListener, ScheduleResultListener {
+
+    public static final long MINIMUM_WRITE_INTERVAL_MILLIS = 200;
+
+    private final AlgorithmManager _manager;
+    private final DotFileProducer _producer;
+    private final Thread _writer;
+
+    // Guarded by this: best schedule not written yet, its makespan, and whether the writer should stop
+    private BnBSchedule _pending;
+    private int _bestMakespan = Integer.MAX_VALUE;
+    private boolean _finished;
+
+    // Only changed by the writer thread
+    private volatile int _writes;
+
+    /**
+     * Starts the writer, which waits for improvements. The manager has this set as its optimal listener and is told
+     * to inform this of the final schedule, in place of the producer.
+     *
+     * @param manager  the manager searching, which turns schedules into ScheduleResults
+     * @param producer writes to the output file
+     */
+    public ProgressiveOutput(AlgorithmManager manager, DotFileProducer producer) {
+        _manager = manager;
+        _producer = producer;
+        _writer = new Thread(this::writeImprovements, "Progressive output");
+        _writer.setDaemon(true);
+        _writer.start();
+        manager.optimalInform(this);
+        manager.inform(this);
+    }
+
+    /**
+     * Hands a better schedule to the writer, keeping only the best if it hasn't been written yet
+     *
+     * @param optimal a complete schedule, which isn't changed after it's found
+     */
+    @Override
+    public synchronized void newOptimal(BnBSchedule optimal) {
+        if (!_finished && optimal.getMaxFinishTime() < _bestMakespan) {
+            _bestMakespan = optimal.getMaxFinishTime();
+            _pending = optimal;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Stops the writer, dropping any improvement it hasn't written, and replaces the output with the final schedule
+     *
+     * @param schedule the optimal schedule
+     * @throws UncheckedIOException if the output can't be replaced, for the caller to choose how to exit
+     */
+    @Override
+    public void finalSchedule(ScheduleResult schedule) {
+        synchronized (this) {
+            _finished = true;
+            _pending = null;
+            notifyAll();
+        }
+        try {
+            _writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            _producer.replaceOutput(schedule);
+        } catch (IOException e) {
+            throw new UncheckedIOException("File could not be saved: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return how many improved schedules have been written before the final one
+     */
+    public int getWrites() {
+        return _writes;
+    }
+
+    /**
+     * Writes the best schedule waiting, then waits out the minimum interval so any improvements found meanwhile are
+     * written together
+     */
+    private void writeImprovements() {
+        while (true) {
+            BnBSchedule schedule;
+            synchronized (this) {
+                while (_pending == null && !_finished) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (_finished) {
+                    return;
+                }
+                schedule = _pending;
+                _pending = null;
+            }
+            try {
+                _producer.replaceOutput(_manager.resultOf(schedule));
+                _writes++;
+            } catch (IOException e) {
+                // The final schedule is still written, which reports the output can't be saved
+                System.err.println("Improved schedule could not be saved: " + e.getMessage());
+            }
+            synchronized (this) {
+                long until = System.currentTimeMillis() + MINIMUM_WRITE_INTERVAL_MILLIS;
+                for (long left = MINIMUM_WRITE_INTERVAL_MILLIS; left > 0 && !_finished;
+                     left = until - System.currentTimeMillis()) {
+                    try {
+                        wait(left);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
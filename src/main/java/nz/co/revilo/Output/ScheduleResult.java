@@ -0,0 +1,225 @@
+package nz.co.revilo.Output;
+
+import nz.co.revilo.Input.SparseGraph;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * A final schedule as given to ScheduleResultListeners: when and on which processor each task starts, alongside the
+ * graph it schedules. Start times and processors are kept in arrays indexed by node and the arcs are read out of the
+ * graph's adjacency lists, so nothing is boxed unless a listener asks for the list form.
+ */
+public final class ScheduleResult {
+
+    private final SparseGraph _graph;
+    private final int[] _startTimes;
+    private final int[] _processors;
+    private final int _makespan;
+
+    /**
+     * @param graph      the graph scheduled
+     * @param startTimes when each node starts, which is copied
+     * @param processors processor each node is on, from 0, which is copied
+     */
+    public ScheduleResult(SparseGraph graph, int[] startTimes, int[] processors) {
+        if (startTimes.length != graph.getNodeCount() || processors.length != graph.getNodeCount()) {
+            throw new IllegalArgumentException("Schedule has " + startTimes.length + " start times and "
+                    + processors.length + " processors for " + graph.getNodeCount() + " nodes");
+        }
+        _graph = graph;
+        _startTimes = startTimes.clone();
+        _processors = processors.clone();
+        int makespan = 0;
+        for (int node = 0; node < startTimes.length; node++) {
+            makespan = Math.max(makespan, startTimes[node] + graph.getNodeWeight(node));
+        }
+        _makespan = makespan;
+    }
+
+    /**
+     * Makes a schedule given in the old list form
+     *
+     * @return the same schedule
+     */
+    public static ScheduleResult fromLists(String graphName, List<String> nodeNames, List<List<Boolean>> arcs,
+                                           List<List<Integer>> arcWeights, List<Integer> nodeWeights,
+                                           List<Integer> nodeStarts, List<Integer> nodeProcessor) {
+        int nodes = nodeNames.size();
+        boolean[][] denseArcs = new boolean[nodes][nodes];
+        int[][] denseArcWeights = new int[nodes][nodes];
+        int[] weights = new int[nodes];
+        int[] startTimes = new int[nodes];
+        int[] processors = new int[nodes];
+        for (int from = 0; from < nodes; from++) {
+            for (int to = 0; to < nodes; to++) {
+                denseArcs[from][to] = arcs.get(from).get(to);
+                denseArcWeights[from][to] = arcWeights.get(from).get(to);
+            }
+            weights[from] = nodeWeights.get(from);
+            startTimes[from] = nodeStarts.get(from);
+            processors[from] = nodeProcessor.get(from);
+        }
+        return new ScheduleResult(SparseGraph.fromDense(graphName, nodeNames.toArray(new String[nodes]), weights,
+                denseArcs, denseArcWeights), startTimes, processors);
+    }
+
+    public SparseGraph getGraph() {
+        return _graph;
+    }
+
+    public String getGraphName() {
+        return _graph.getGraphName();
+    }
+
+    public int getNodeCount() {
+        return _graph.getNodeCount();
+    }
+
+    public String getNodeName(int node) {
+        return _graph.getNodeName(node);
+    }
+
+    public int getNodeWeight(int node) {
+        return _graph.getNodeWeight(node);
+    }
+
+    public int getStartTime(int node) {
+        return _startTimes[node];
+    }
+
+    /**
+     * @return processor the node is on, from 0
+     */
+    public int getProcessor(int node) {
+        return _processors[node];
+    }
+
+    /**
+     * @return when the last task finishes
+     */
+    public int getMakespan() {
+        return _makespan;
+    }
+
+    /**
+     * @return node names as an unmodifiable list
+     */
+    public List<String> nodeNameList() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int node) {
+                return getNodeName(node);
+            }
+
+            @Override
+            public int size() {
+                return getNodeCount();
+            }
+        };
+    }
+
+    /**
+     * @return node weights as an unmodifiable list, boxed as they are read
+     */
+    public List<Integer> nodeWeightList() {
+        return new IntList() {
+            @Override
+            int getInt(int node) {
+                return getNodeWeight(node);
+            }
+        };
+    }
+
+    /**
+     * @return start times as an unmodifiable list, boxed as they are read
+     */
+    public List<Integer> startTimeList() {
+        return new IntList() {
+            @Override
+            int getInt(int node) {
+                return _startTimes[node];
+            }
+        };
+    }
+
+    /**
+     * @return processors as an unmodifiable list, boxed as they are read
+     */
+    public List<Integer> processorList() {
+        return new IntList() {
+            @Override
+            int getInt(int node) {
+                return _processors[node];
+            }
+        };
+    }
+
+    /**
+     * @return adjacency matrix as unmodifiable lists, each cell looked up in the adjacency lists as it is read
+     */
+    public List<List<Boolean>> arcList() {
+        return new AbstractList<List<Boolean>>() {
+            @Override
+            public List<Boolean> get(int from) {
+                return new AbstractList<Boolean>() {
+                    @Override
+                    public Boolean get(int to) {
+                        return _graph.hasArc(from, to);
+                    }
+
+                    @Override
+                    public int size() {
+                        return getNodeCount();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return getNodeCount();
+            }
+        };
+    }
+
+    /**
+     * @return arc weight matrix as unmodifiable lists, -1 where there's no arc, each cell looked up in the adjacency
+     * lists as it is read
+     */
+    public List<List<Integer>> arcWeightList() {
+        return new AbstractList<List<Integer>>() {
+            @Override
+            public List<Integer> get(int from) {
+                return new IntList() {
+                    @Override
+                    int getInt(int to) {
+                        return _graph.getArcWeight(from, to);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return getNodeCount();
+            }
+        };
+    }
+
+    /**
+     * List of one int per node
+     */
+    private abstract class IntList extends AbstractList<Integer> {
+
+        abstract int getInt(int index);
+
+        @Override
+        public Integer get(int index) {
+            return getInt(index);
+        }
+
+        @Override
+        public int size() {
+            return getNodeCount();
+        }
+    }
+}
@@ -1,15 +1,18 @@
 package nz.co.revilo.Scheduling;
 
+import nz.co.revilo.Cache.ResultCache;
 import nz.co.revilo.Input.ParseResultListener;
+import nz.co.revilo.Input.SparseGraph;
 import nz.co.revilo.Output.NewOptimalResultListener;
+import nz.co.revilo.Output.ScheduleResult;
 import nz.co.revilo.Output.ScheduleResultListener;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Observable;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -22,18 +25,19 @@ import java.util.concurrent.atomic.AtomicReference;
 public abstract class AlgorithmManager extends Observable implements ParseResultListener {
 
     protected int _processingCores;
-    protected AtomicLong brokenTrees;
-    protected AtomicLong exploredStates;
+    // Replaced with counters for every depth of each graph parsed
+    protected volatile SearchCounters counters = new SearchCounters();
     protected AtomicInteger atomicBound;
     protected AtomicInteger upperBound; // used in subclasses
+    protected SparseGraph _graph;
     protected int[] _nodeWeights;
-    protected boolean[][] _arcs;
-    protected int[][] _arcWeights;
     protected String[] _nodeNames;
     protected String _graphName;
     protected NewOptimalResultListener optimalListener;
     protected AtomicReference<NewOptimalResultListener> atomicListener;
     protected List<ScheduleResultListener> listeners = new ArrayList<>();
+    protected ResultCache resultCache;
+    protected WarmStart warmStart;
 
     /**
      * Sets the number of processing cores the tasks must be scheduled on.
@@ -41,9 +45,7 @@ public abstract class AlgorithmManager extends Observable implements ParseResult
      */
     public AlgorithmManager(int processingCores) {
         _processingCores = processingCores;
-        brokenTrees = new AtomicLong(0);
         atomicBound = new AtomicInteger(0);
-        exploredStates = new AtomicLong(0);
         upperBound = new AtomicInteger();
         atomicListener = new AtomicReference<>(null);
     }
@@ -56,13 +58,31 @@ public abstract class AlgorithmManager extends Observable implements ParseResult
     /**
      * Get the number of branches broken (i.e. branches that have been deemed not as good)
      *
-     * @return
+     * @return states pruned for any reason so far
      */
-    public AtomicLong getBrokenTrees() {
-        return brokenTrees;
+    public long getBrokenTrees() {
+        return counters.getPruned();
     }
     public AtomicInteger getAtomicBound() { return atomicBound; }
-    public AtomicLong getExploredStates() { return exploredStates; }
+    public long getExploredStates() { return counters.get(SearchCounters.EXPLORED); }
+
+    /**
+     * Gets what the search has counted, broken down by what happened to each state
+     *
+     * @return the counters, added up as they're read
+     */
+    public SearchCounters getCounters() {
+        return counters;
+    }
+
+    /**
+     * Gets what the search has done at each depth so far, or in all once it's done
+     *
+     * @return the profile as counted now
+     */
+    public SearchProfile getSearchProfile() {
+        return new SearchProfile(counters.snapshotByDepth());
+    }
 
 
     /**
@@ -83,6 +103,31 @@ public abstract class AlgorithmManager extends Observable implements ParseResult
         return _graphName;
     }
 
+    /**
+     * Gets the graph being scheduled
+     *
+     * @return the graph, or null before it has been parsed
+     */
+    public SparseGraph getGraph() {
+        return _graph;
+    }
+
+    /**
+     * Reads a complete schedule of the graph out into the form given to ScheduleResultListeners
+     *
+     * @param schedule with every node placed
+     * @return the schedule's start times and processors alongside the graph
+     */
+    public ScheduleResult resultOf(BnBSchedule schedule) {
+        int[] startTimes = new int[_graph.getNodeCount()];
+        int[] processors = new int[_graph.getNodeCount()];
+        for (Map.Entry<Integer, BnBSchedule.Tuple<Integer, Integer>> placed : schedule.getClosedNodes().entrySet()) {
+            startTimes[placed.getKey()] = placed.getValue().getA();
+            processors[placed.getKey()] = placed.getValue().getB();
+        }
+        return new ScheduleResult(_graph, startTimes, processors);
+    }
+
     /**
      * Getter for list of node names for easy Gantt setup
      *
@@ -116,6 +161,24 @@ public abstract class AlgorithmManager extends Observable implements ParseResult
         listeners.add(listener);
     }
 
+    /**
+     * Sets a cache of schedules already found, which is checked before searching and given the schedule found after
+     *
+     * @param cache the cache, or null to always search
+     */
+    public void setResultCache(ResultCache cache) {
+        resultCache = cache;
+    }
+
+    /**
+     * Sets a schedule of an earlier version of the graph to start the search from
+     *
+     * @param start the old schedule, or null to start cold
+     */
+    public void setWarmStart(WarmStart start) {
+        warmStart = start;
+    }
+
     public synchronized void optimalInform(NewOptimalResultListener listener) {
         atomicListener = new AtomicReference<>(listener);
         optimalListener = listener;
@@ -132,20 +195,30 @@ public abstract class AlgorithmManager extends Observable implements ParseResult
     /**
      * Template method for reading in graph information required to process a schedule, and executes the schedule (using
      * the execute() hook method.
+     * @param graph the parsed graph
+     */
+    @Override
+    public void parsedGraph(SparseGraph graph) {
+        _graph = graph;
+        _nodeWeights = graph.getNodeWeights();
+        _nodeNames = graph.getNodeNames();
+        _graphName = graph.getGraphName();
+        counters = new SearchCounters(graph.getNodeCount() + 1);
+
+        execute();
+    }
+
+    /**
+     * Schedules a graph given in the old adjacency matrix form
      * @param graphName
      * @param nodeNames
      * @param nodeWeights
      * @param arcs
      * @param arcWeights
      */
+    @Override
     public void ParsingResults(String graphName, String[] nodeNames, int[] nodeWeights, boolean[][] arcs, int[][] arcWeights) {
-        _arcWeights = arcWeights;
-        _arcs = arcs;
-        _nodeWeights = nodeWeights;
-        _nodeNames = nodeNames;
-        _graphName = graphName;
-
-        execute();
+        parsedGraph(SparseGraph.fromDense(graphName, nodeNames, nodeWeights, arcs, arcWeights));
     }
 
     /**
@@ -1,5 +1,7 @@
 package nz.co.revilo.Scheduling;
 
+import nz.co.revilo.Input.SparseGraph;
+
 import java.util.*;
 
 /**
@@ -53,11 +55,13 @@ public class BnBSchedule {
 			cloneParentSchedule(parentSchedule);
 
 			//when parents are done
-			for(int parent:NeighbourManagerHelper.getInneighbours(nodeId)){
+			SparseGraph graph=bnb._graph;
+			for(int arc=graph.inStart(nodeId); arc<graph.inEnd(nodeId); arc++){
+				int parent=graph.inSource(arc);
 				Tuple<Integer,Integer> parentAssignment=closedNodes.get(parent);
 				int dataReadyTime=parentAssignment.getA() + bnb._nodeWeights[parent];
 				if(processor!=parentAssignment.getB()) {
-					dataReadyTime+=bnb._arcWeights[parent][nodeId];
+					dataReadyTime+=graph.inWeight(arc);
 				}
 				startTime=dataReadyTime>startTime?dataReadyTime:startTime;
 			}
@@ -125,7 +129,7 @@ public class BnBSchedule {
 	 * 
 	 * @return ID of the schedule structure
 	 */
-    private String generateScheduleStructureId() {
+    String generateScheduleStructureId() {
     	// ID for assignments on each processor
         String[] ids = new String[bnb._processingCores];
         Arrays.fill(ids, " ");
@@ -206,9 +210,9 @@ public class BnBSchedule {
 	 * @param parent
 	 */
 	private void updateIndependentChildren(int parent) {
-		for(int child:NeighbourManagerHelper.getOutneighbours(parent)){
+		for(int child:bnb.neighbours.getOutneighbours(parent)){
 			boolean waitingForParent=false;
-			for(int p:NeighbourManagerHelper.getInneighbours(child)){
+			for(int p:bnb.neighbours.getInneighbours(child)){
 				if(openNodes.contains(p)){
 					waitingForParent=true; //still waiting on a parent
 					break; //move to next child node
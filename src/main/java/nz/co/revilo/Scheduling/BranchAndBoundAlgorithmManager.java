@@ -1,5 +1,8 @@
 package nz.co.revilo.Scheduling;
 
+import nz.co.revilo.Cache.CachedSchedule;
+import nz.co.revilo.Cache.CanonicalGraph;
+import nz.co.revilo.Output.ScheduleResult;
 import nz.co.revilo.Output.ScheduleResultListener;
 import nz.co.revilo.Scheduling.Astar.AstarSchedule;
 import nz.co.revilo.Scheduling.Astar.AstarTask;
@@ -18,13 +21,14 @@ public class BranchAndBoundAlgorithmManager extends AlgorithmManager {
 	protected List<Integer> sources = new ArrayList<>();
 	protected int[] bottomLevels;
 	protected int numNodes;
+	protected NeighbourManagerHelper neighbours;
 	protected int totalNodeWeights;
 	protected List<Integer> bottomUpSinks = new ArrayList<>();
 	protected List<BnBSchedule> rootSchedules = new ArrayList<>();
 	protected BnBSchedule optimalSchedule;
-	protected List<Integer> nodeStartTimes = new ArrayList<>();
-	protected List<Integer> nodeProcessors = new ArrayList<>();
 	protected Map<String, Object> existingScheduleStructures = new ConcurrentHashMap<>();
+	private CanonicalGraph canonicalGraph;
+	private WarmStart.Repair warmStartRepair;
 	private static Object stubObject = new Object();
 
 	public BranchAndBoundAlgorithmManager(int processingCores) {
@@ -34,18 +38,29 @@ public class BranchAndBoundAlgorithmManager extends AlgorithmManager {
 	@Override
 	protected void execute() {
 		numNodes = _nodeWeights.length;
+
+		//a graph solved before, maybe under other names, doesn't need searching again
+		if (resultCache != null) {
+			canonicalGraph = CanonicalGraph.of(_graph);
+			CachedSchedule cached = resultCache.lookup(canonicalGraph, _processingCores);
+			if (cached != null) {
+				returnCachedResults(cached);
+				return;
+			}
+		}
+
 		bottomLevels = new int[numNodes];
-		NeighbourManagerHelper.setUpHelper(numNodes, _arcs);
+		neighbours = new NeighbourManagerHelper(_graph);
 
 		for (int nodeId = 0; nodeId < numNodes; nodeId++) {
 			//get sources
-			if (!NeighbourManagerHelper.hasInneighbours(nodeId)) {
+			if (!neighbours.hasInneighbours(nodeId)) {
 				//if they don't have parents, then add it to a sources queue
 				sources.add(nodeId);
 			}
 
 			//get sinks
-			else if (!NeighbourManagerHelper.hasOutneighbours(nodeId)) {
+			else if (!neighbours.hasOutneighbours(nodeId)) {
 				bottomUpSinks.add(nodeId);
 				bottomLevels[nodeId] = _nodeWeights[nodeId];
 			}
@@ -63,6 +78,15 @@ public class BranchAndBoundAlgorithmManager extends AlgorithmManager {
 
 		calculateBottomLevels();
 
+		//the repaired old schedule is the schedule to beat, and gives the order to try assignments in
+		if (warmStart != null) {
+			warmStartRepair = warmStart.repair(this);
+			if (warmStartRepair.makespan < upperBound.get() && numNodes > 0) {
+				setOptimalSchedule(warmStartSchedule());
+			}
+			sources.sort(Comparator.comparingInt(node -> warmStartRepair.ranks[node]));
+		}
+
 		/*
 		 * Take turns with each root going on first
 		 * Matters when more roots than processors, so some roots can't start at time=0
@@ -71,6 +95,9 @@ public class BranchAndBoundAlgorithmManager extends AlgorithmManager {
 			BnBSchedule newSchedule = new BnBSchedule(this, null, nodeId, 0);
 			rootSchedules.add(newSchedule);
 		}    
+		// The empty schedule is expanded into the roots
+		counters.increment(0, SearchCounters.EXPANDED);
+		counters.add(1, SearchCounters.GENERATED, rootSchedules.size());
 
 		startBnb(); //polymorphic call depending on Parallel or not
 
@@ -91,28 +118,63 @@ public class BranchAndBoundAlgorithmManager extends AlgorithmManager {
 
 
 	/**
-	 * Return the optimal schedule found and it's information
+	 * Builds the repaired old schedule, placing nodes in repaired order as the search would
 	 *
-	 * @author Abby S
+	 * @return the complete repaired schedule
 	 */
-	private void returnResults() {
+	private BnBSchedule warmStartSchedule() {
+		int[] order = new int[numNodes];
 		for (int nodeId = 0; nodeId < numNodes; nodeId++) {
-			nodeStartTimes.add(optimalSchedule.closedNodes.get(nodeId).getA());//start times
-			nodeProcessors.add(optimalSchedule.closedNodes.get(nodeId).getB());//processors scheduled on
+			order[warmStartRepair.ranks[nodeId]] = nodeId;
+		}
+		BnBSchedule schedule = null;
+		for (int nodeId : order) {
+			schedule = new BnBSchedule(this, schedule, nodeId, warmStartRepair.processors[nodeId]);
 		}
+		return schedule;
+	}
+
+	/**
+	 * Return the optimal schedule found and it's information
+	 *
+	 * @author Abby S
+	 */
+	protected void returnResults() {
+		ScheduleResult result = resultOf(optimalSchedule);
 		System.out.println("Optimal length found: " + optimalSchedule.getMaxFinishTime());
 
-		//pass to outputs
+		if (resultCache != null) {
+			int[] startTimes = new int[numNodes];
+			int[] processors = new int[numNodes];
+			for (int nodeId = 0; nodeId < numNodes; nodeId++) {
+				startTimes[nodeId] = result.getStartTime(nodeId);
+				processors[nodeId] = result.getProcessor(nodeId);
+			}
+			resultCache.store(canonicalGraph, _processingCores, new CachedSchedule(optimalSchedule.getMaxFinishTime(), startTimes, processors));
+		}
+
+		informListeners(result);
+	}
+
+	/**
+	 * Return a schedule found in the result cache without searching
+	 *
+	 * @param cached the schedule, in the order the nodes were read in
+	 */
+	private void returnCachedResults(CachedSchedule cached) {
+		upperBound.set(cached.getMakespan());
+		atomicBound.set(cached.getMakespan());
+		System.out.println("Optimal length found: " + cached.getMakespan() + " (cached)");
+
+		informListeners(new ScheduleResult(_graph, cached.getStartTimes(), cached.getProcessors()));
+	}
+
+	/**
+	 * Pass the final schedule to the outputs
+	 */
+	private void informListeners(ScheduleResult result) {
 		for (ScheduleResultListener listener : getListeners()) {
-			listener.finalSchedule(
-					_graphName,
-					Arrays.asList(_nodeNames),
-					PrimitiveInterfaceHelper.primToBoolean2D(_arcs),
-					PrimitiveInterfaceHelper.primToInteger2D(_arcWeights),
-					PrimitiveInterfaceHelper.primToInteger1D(_nodeWeights),
-					nodeStartTimes,
-					nodeProcessors
-					);
+			listener.finalSchedule(result);
 		}
 	}
 
@@ -123,10 +185,11 @@ public class BranchAndBoundAlgorithmManager extends AlgorithmManager {
 	 * @author Abby S, Terran K
 	 */
 	protected void bnb(final BnBSchedule schedule) {
-        exploredStates.incrementAndGet();
+		int depth = schedule.closedNodes.size();
+		counters.explored(depth, upperBound.get() - schedule.lowerBound);
 		synchronized (this) {
 			if (schedule.lowerBound >= upperBound.get()) {
-				brokenTrees.incrementAndGet(); //this tree has broken
+				counters.increment(depth, SearchCounters.PRUNED_BY_BOUND); //this tree has broken
 				return; //break tree at this point
 			}
 		}
@@ -134,7 +197,7 @@ public class BranchAndBoundAlgorithmManager extends AlgorithmManager {
 		synchronized (this) {
 			//compare to existing schedule structures and remove if duplicate
 			if (existingScheduleStructures.containsKey(schedule._scheduleStructureId)) {
-				brokenTrees.incrementAndGet(); // this tree has broken
+				counters.increment(depth, SearchCounters.PRUNED_AS_DUPLICATE); // this tree has broken
 				return; //break tree at this point
 			} else {
 				existingScheduleStructures.put(schedule._scheduleStructureId, stubObject);
@@ -145,6 +208,7 @@ public class BranchAndBoundAlgorithmManager extends AlgorithmManager {
 			//found optimal for the root started with
 			//reached end of a valid schedule. Never broke off, so is optimal
 			if (schedule.openNodes.isEmpty()) {
+				counters.increment(depth, SearchCounters.COMPLETIONS);
 				//to make sure only optimal schedules get through
 				if (schedule.getMaxFinishTime() < upperBound.get()) {
 					setOptimalSchedule(schedule);
@@ -153,13 +217,37 @@ public class BranchAndBoundAlgorithmManager extends AlgorithmManager {
 			}
 		}
 
-		//continue DFS
+		//continue DFS, children always in the same order so a search can be resumed from a checkpoint
+		//with a warm start the old assignments come first: nodes in repaired order, each on its repaired processor
+		List<Integer> nodes = new ArrayList<>(schedule.independentNodes);
+		if (warmStartRepair == null) {
+			Collections.sort(nodes);
+		} else {
+			nodes.sort(Comparator.comparingInt(node -> warmStartRepair.ranks[node]));
+		}
 		List<BnBSchedule> nextSchedules = new ArrayList<>();
-		for (int node : schedule.independentNodes) {
+		for (int node : nodes) {
+			int preferred = warmStartRepair == null ? 0 : warmStartRepair.processors[node];
+			nextSchedules.add(new BnBSchedule(this, schedule, node, preferred));
 			for (int processor = 0; processor < _processingCores; processor++) {
-				nextSchedules.add(new BnBSchedule(this, schedule, node, processor));
+				if (processor != preferred) {
+					nextSchedules.add(new BnBSchedule(this, schedule, node, processor));
+				}
 			}
 		}
+		counters.increment(depth, SearchCounters.EXPANDED);
+		counters.add(depth + 1, SearchCounters.GENERATED, nextSchedules.size());
+		branch(schedule, nextSchedules);
+	}
+
+	/**
+	 * Explores the child schedules of a schedule. Done depth first on the current thread here, to be overridden by
+	 * child classes which hand children to other threads.
+	 *
+	 * @param schedule the parent schedule
+	 * @param nextSchedules the children of the parent schedule
+	 */
+	protected void branch(BnBSchedule schedule, List<BnBSchedule> nextSchedules) {
 		for (BnBSchedule nextSchedule : nextSchedules) {
 			bnb(nextSchedule);
 		}
@@ -172,6 +260,7 @@ public class BranchAndBoundAlgorithmManager extends AlgorithmManager {
 	 */
 	protected void setOptimalSchedule(BnBSchedule schedule) {
 		optimalSchedule = schedule;
+		counters.increment(schedule.closedNodes.size(), SearchCounters.INCUMBENT_UPDATES);
 
 		// if OptimalListener is null it means that we're not actually asking for updates
 		// because we are likely not using a visualization
@@ -183,6 +272,60 @@ public class BranchAndBoundAlgorithmManager extends AlgorithmManager {
 		atomicBound.set(upperBound.get());
 	}
 
+	/**
+	 * Places the nodes of a schedule given as start times and processors, in order of start time with parents first,
+	 * on their given processors. Each node then starts no later than it was given.
+	 *
+	 * @param starts start time of each node
+	 * @param processors processor of each node
+	 * @return the complete schedule
+	 */
+	protected BnBSchedule rebuildSchedule(int[] starts, int[] processors) {
+		int[] topologicalRank = new int[numNodes];
+		int[] waitingOn = new int[numNodes];
+		List<Integer> ready = new ArrayList<>();
+		for (int nodeId = 0; nodeId < numNodes; nodeId++) {
+			waitingOn[nodeId] = neighbours.getInneighbours(nodeId).size();
+			if (waitingOn[nodeId] == 0) {
+				ready.add(nodeId);
+			}
+		}
+		for (int rank = 0; !ready.isEmpty(); rank++) {
+			int nodeId = ready.remove(0);
+			topologicalRank[nodeId] = rank;
+			for (int child : neighbours.getOutneighbours(nodeId)) {
+				if (--waitingOn[child] == 0) {
+					ready.add(child);
+				}
+			}
+		}
+
+		List<Integer> order = new ArrayList<>();
+		for (int nodeId = 0; nodeId < numNodes; nodeId++) {
+			order.add(nodeId);
+		}
+		order.sort(Comparator.<Integer>comparingInt(nodeId -> starts[nodeId]).thenComparingInt(nodeId -> topologicalRank[nodeId]));
+		BnBSchedule schedule = null;
+		for (int nodeId : order) {
+			schedule = new BnBSchedule(this, schedule, nodeId, processors[nodeId]);
+		}
+		return schedule;
+	}
+
+	/**
+	 * @param parent a schedule, or null for the empty schedule
+	 * @param child one of its child schedules
+	 * @return the node the child adds to its parent
+	 */
+	protected static int addedNode(BnBSchedule parent, BnBSchedule child) {
+		for (int nodeId : child.closedNodes.keySet()) {
+			if (parent == null || !parent.closedNodes.containsKey(nodeId)) {
+				return nodeId;
+			}
+		}
+		throw new IllegalStateException("Child schedule adds no node");
+	}
+
 	/**
 	 * Calculates bottom level of each node in the graph
 	 * Using bottom-up approach
@@ -192,7 +335,7 @@ public class BranchAndBoundAlgorithmManager extends AlgorithmManager {
 	private void calculateBottomLevels() {
 		while (!bottomUpSinks.isEmpty()) {
 			int nodeId = bottomUpSinks.remove(0);
-			List<Integer> inneighbours = NeighbourManagerHelper.getInneighbours(nodeId);
+			List<Integer> inneighbours = neighbours.getInneighbours(nodeId);
 
 			for (int inneighbour : inneighbours) {
 				//bottom up add its weight to child's
@@ -200,7 +343,7 @@ public class BranchAndBoundAlgorithmManager extends AlgorithmManager {
 				//Farthest distance needed from bottom
 				bottomLevels[inneighbour] = bottomLevels[inneighbour] > fromGivenNode ? bottomLevels[inneighbour] : fromGivenNode;
 
-				List<Integer> inneighboursChildren = NeighbourManagerHelper.getOutneighbours(inneighbour); //nodes with 1 on the node's row
+				List<Integer> inneighboursChildren = new ArrayList<>(neighbours.getOutneighbours(inneighbour)); //nodes with 1 on the node's row
 				inneighboursChildren.remove(Integer.valueOf(nodeId)); //Integer or will treat the int as index
 				if (inneighboursChildren.isEmpty()) {
 					bottomUpSinks.add(inneighbour);//become a sink now that child is removed
@@ -214,7 +357,7 @@ public class BranchAndBoundAlgorithmManager extends AlgorithmManager {
 	 * @author Michael Kemp
 	 * @return an upper bound
 	 */
-	private int greedyUpperBound() {
+	int greedyUpperBound() {
 		//Number of Tasks
 		int numTasks = _nodeWeights.length;
 
@@ -226,10 +369,8 @@ public class BranchAndBoundAlgorithmManager extends AlgorithmManager {
 			otherTasks.add(task);
 		}
 		for (int fromTask = 0; fromTask < numTasks; fromTask++) { // remove tasks that have parents from start tasks
-			for (int toTask = 0; toTask < numTasks; toTask++) {
-				if (_arcs[fromTask][toTask]) {
-					startTasks.remove(toTask);
-				}
+			for (int arc = _graph.outStart(fromTask); arc < _graph.outEnd(fromTask); arc++) {
+				startTasks.remove(_graph.outTarget(arc));
 			}
 		}
 		otherTasks.removeAll(startTasks);
@@ -239,10 +380,8 @@ public class BranchAndBoundAlgorithmManager extends AlgorithmManager {
 		List<List<Integer>> partialDependencies = new ArrayList<>();
 		for (int toTask = 0; toTask < numTasks; toTask++) {
 			List<Integer> subList = new ArrayList<>();
-			for (int fromTask = 0; fromTask < numTasks; fromTask++) {
-				if (_arcs[fromTask][toTask]) {
-					subList.add(fromTask);
-				}
+			for (int arc = _graph.inStart(toTask); arc < _graph.inEnd(toTask); arc++) {
+				subList.add(_graph.inSource(arc));
 			}
 			partialDependencies.add(subList);
 		}
@@ -313,11 +452,11 @@ public class BranchAndBoundAlgorithmManager extends AlgorithmManager {
 					int workingDrt = childSchedule._processorLastUsed.get(processorNum);
 					for (AstarTask t : newSchedule._scheduled) {
 						// if there is a dependency
-						if (_arcs[t._taskNum][newTask._taskNum]) {
+						if (_graph.hasArc(t._taskNum, newTask._taskNum)) {
 							int temp = t._start + _nodeWeights[t._taskNum];
 							// add the edge weights if switching processors
 							if (t._processor != processorNum) {
-								temp += _arcWeights[t._taskNum][newTask._taskNum];
+								temp += _graph.getArcWeight(t._taskNum, newTask._taskNum);
 							}
 							// max of when parents are done and processor is available
 							if (temp > workingDrt) {
@@ -0,0 +1,100 @@
+package nz.co.revilo.Scheduling;
+
+import java.util.List;
+
+/**
+ * Algorithm manager for branch and bound which searches on the workers of a CoreBudgetScheduler. The number of
+ * workers on the search follows the thread budget the scheduler gives it, growing and shrinking while it runs.
+ */
+public class BudgetedBranchAndBoundAlgorithmManager extends BranchAndBoundAlgorithmManager {
+
+	private final CoreBudgetScheduler _scheduler;
+	private final int _priority;
+	private final long _deadline;
+	private volatile CoreBudgetScheduler.Job _job;
+	// Set once a worker has given its work back, so every level above it stops exploring too
+	private final ThreadLocal<boolean[]> _yielding = ThreadLocal.withInitial(() -> new boolean[1]);
+
+	/**
+	 * Constructor for a job with the default priority and no deadline
+	 *
+	 * @param processingCores number of cores specified for the final schedule
+	 * @param scheduler the scheduler whose workers run the search
+	 */
+	public BudgetedBranchAndBoundAlgorithmManager(int processingCores, CoreBudgetScheduler scheduler) {
+		this(processingCores, scheduler, CoreBudgetScheduler.DEFAULT_PRIORITY, CoreBudgetScheduler.NO_DEADLINE);
+	}
+
+	/**
+	 * Constructor which also sets how the scheduler weighs the job against others
+	 *
+	 * @param processingCores number of cores specified for the final schedule
+	 * @param scheduler the scheduler whose workers run the search
+	 * @param priority relative importance of the job, at least 1
+	 * @param deadline milliseconds from the start of the search it should be done by, or NO_DEADLINE
+	 */
+	public BudgetedBranchAndBoundAlgorithmManager(int processingCores, CoreBudgetScheduler scheduler, int priority, long deadline) {
+		super(processingCores);
+		_scheduler = scheduler;
+		_priority = priority;
+		_deadline = deadline;
+	}
+
+	/**
+	 * @return threads the scheduler currently has budgeted to this search, 0 when not searching
+	 */
+	public int getAllocatedThreads() {
+		CoreBudgetScheduler.Job job = _job;
+		return job == null ? 0 : job.getAllocation();
+	}
+
+	/**
+	 * Hands the root schedules to the scheduler and waits for its workers to explore the whole tree
+	 */
+	@Override
+	protected void startBnb() {
+		CoreBudgetScheduler.Job job = new CoreBudgetScheduler.Job(this, _priority, _deadline);
+		_job = job;
+		try {
+			_scheduler.start(job, rootSchedules);
+			rootSchedules.clear();
+			job.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException("Interrupted while waiting for the search to finish");
+		} finally {
+			_job = null;
+		}
+	}
+
+	/**
+	 * Explores the subtree of a schedule taken from the scheduler, called by its workers
+	 */
+	void search(BnBSchedule schedule) {
+		_yielding.get()[0] = false;
+		bnb(schedule);
+	}
+
+	/**
+	 * Explores children depth first, but gives the remaining children back to the scheduler when this worker is needed
+	 * by another job, or when this job has spare budget and nothing for another worker to take
+	 */
+	@Override
+	protected void branch(BnBSchedule schedule, List<BnBSchedule> nextSchedules) {
+		CoreBudgetScheduler.Job job = _job;
+		boolean[] yielding = _yielding.get();
+		for (int i = 0; i < nextSchedules.size(); i++) {
+			if (yielding[0] || job.tryYield()) {
+				yielding[0] = true;
+				_scheduler.giveBack(job, nextSchedules.subList(i, nextSchedules.size()));
+				return;
+			}
+			if (i + 1 < nextSchedules.size() && job.wantsMoreWork()) {
+				_scheduler.giveBack(job, nextSchedules.subList(i + 1, nextSchedules.size()));
+				bnb(nextSchedules.get(i));
+				return;
+			}
+			bnb(nextSchedules.get(i));
+		}
+	}
+}
@@ -0,0 +1,168 @@
+package nz.co.revilo.Scheduling;
+
+import nz.co.revilo.Input.SparseGraph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.CRC32;
+
+/**
+ * Progress of a depth first search, saved so it can be carried on after the process is stopped.
+ * <p>
+ * File layout, big-endian: int magic, int version, long graph fingerprint, int processors, int bound, int number of
+ * counts and the long counts as SearchCounters.export gives them, byte whether there is an incumbent followed by its start
+ * time and processor for every node, then int depth and for each depth the child cursor and the node and processor of the child being explored.
+ * Depth 0 is the root schedules, the cursor there being which root.
+ */
+public class Checkpoint {
+
+	public static final int MAGIC = 0x52564350;
+	public static final int VERSION = 3;
+
+	final long fingerprint;
+	final int processors;
+	final int bound;
+	// Every SearchCounters counter at every depth, as exported
+	final long[] counters;
+	// Start time and processor of each node of the best schedule so far, null if there is none yet
+	final int[] incumbentStarts;
+	final int[] incumbentProcessors;
+	// For each depth, index of the child being explored and the node and processor it adds
+	final int[] cursors;
+	final int[] pathNodes;
+	final int[] pathProcessors;
+
+	Checkpoint(long fingerprint, int processors, int bound, long[] counters, int[] incumbentStarts, int[] incumbentProcessors, int[] cursors, int[] pathNodes, int[] pathProcessors) {
+		this.fingerprint = fingerprint;
+		this.processors = processors;
+		this.bound = bound;
+		this.counters = counters;
+		this.incumbentStarts = incumbentStarts;
+		this.incumbentProcessors = incumbentProcessors;
+		this.cursors = cursors;
+		this.pathNodes = pathNodes;
+		this.pathProcessors = pathProcessors;
+	}
+
+	/**
+	 * Fingerprint of a graph, so a checkpoint isn't resumed against a different graph
+	 *
+	 * @return CRC32 of the node weights, arcs and arc weights
+	 */
+	static long fingerprint(SparseGraph graph) {
+		CRC32 crc = new CRC32();
+		ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES * 2);
+		crc.update(buffer.putInt(graph.getNodeCount()).array(), 0, Integer.BYTES);
+		for (int from = 0; from < graph.getNodeCount(); from++) {
+			buffer.clear();
+			crc.update(buffer.putInt(graph.getNodeWeight(from)).array(), 0, Integer.BYTES);
+			for (int arc = graph.outStart(from); arc < graph.outEnd(from); arc++) {
+				buffer.clear();
+				crc.update(buffer.putInt(graph.outTarget(arc)).putInt(graph.outWeight(arc)).array());
+			}
+		}
+		return crc.getValue();
+	}
+
+	/**
+	 * Reads a checkpoint
+	 *
+	 * @param file written by write
+	 * @return the checkpoint
+	 * @throws IOException if the file can't be read or isn't a checkpoint
+	 */
+	static Checkpoint read(File file) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("not a checkpoint file");
+			}
+			long fingerprint = in.readLong();
+			int processors = in.readInt();
+			int bound = in.readInt();
+			long[] counters = new long[in.readInt()];
+			for (int counter = 0; counter < counters.length; counter++) {
+				counters[counter] = in.readLong();
+			}
+			int[] incumbentStarts = null;
+			int[] incumbentProcessors = null;
+			if (in.readBoolean()) {
+				int numNodes = in.readInt();
+				incumbentStarts = new int[numNodes];
+				incumbentProcessors = new int[numNodes];
+				for (int node = 0; node < numNodes; node++) {
+					incumbentStarts[node] = in.readInt();
+					incumbentProcessors[node] = in.readInt();
+				}
+			}
+			int depth = in.readInt();
+			int[] cursors = new int[depth];
+			int[] pathNodes = new int[depth];
+			int[] pathProcessors = new int[depth];
+			for (int level = 0; level < depth; level++) {
+				cursors[level] = in.readInt();
+				pathNodes[level] = in.readInt();
+				pathProcessors[level] = in.readInt();
+			}
+			return new Checkpoint(fingerprint, processors, bound, counters, incumbentStarts, incumbentProcessors,
+					cursors, pathNodes, pathProcessors);
+		} catch (NegativeArraySizeException e) {
+			throw new IOException("corrupt checkpoint file");
+		}
+	}
+
+	/**
+	 * Writes the checkpoint to a temporary file and moves it into place, so a crash while writing leaves the last
+	 * checkpoint whole
+	 *
+	 * @param file to write to
+	 * @throws IOException if it can't be written
+	 */
+	void write(File file) throws IOException {
+		File directory = file.getAbsoluteFile().getParentFile();
+		File temporary = File.createTempFile(".revilo-" + file.getName(), ".tmp", directory);
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)))) {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeLong(fingerprint);
+				out.writeInt(processors);
+				out.writeInt(bound);
+				out.writeInt(counters.length);
+				for (long total : counters) {
+					out.writeLong(total);
+				}
+				out.writeBoolean(incumbentStarts != null);
+				if (incumbentStarts != null) {
+					out.writeInt(incumbentStarts.length);
+					for (int node = 0; node < incumbentStarts.length; node++) {
+						out.writeInt(incumbentStarts[node]);
+						out.writeInt(incumbentProcessors[node]);
+					}
+				}
+				out.writeInt(cursors.length);
+				for (int level = 0; level < cursors.length; level++) {
+					out.writeInt(cursors[level]);
+					out.writeInt(pathNodes[level]);
+					out.writeInt(pathProcessors[level]);
+				}
+			}
+			try {
+				Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporary.toPath());
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package nz.co.revilo.Scheduling;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Algorithm manager for branch and bound which regularly saves how far its depth first search has got to a checkpoint
+ * file, and can carry on from that file after the process is stopped. The checkpoint holds the child cursor and the
+ * path at each depth, the best schedule so far and the bound. Subtrees before the cursors are finished, so resuming
+ * goes straight back down the path and carries on from there. The file is removed once the search is done.
+ */
+public class CheckpointingBranchAndBoundAlgorithmManager extends BranchAndBoundAlgorithmManager {
+
+	public static final long DEFAULT_INTERVAL_MILLIS = 60000;
+
+	private final File _file;
+	private final long _intervalMillis;
+	private final boolean _resume;
+	private long _nextCheckpoint;
+	// Schedule at each depth of the current path, depth 1 being the root schedule
+	private BnBSchedule[] _path;
+	// Index of the child being explored at each depth, depth 0 being which root
+	private int[] _cursors;
+	private Checkpoint _resumeFrom;
+	private boolean _resuming;
+
+	/**
+	 * @param processingCores number of cores specified for the final schedule
+	 * @param checkpointFilename file the checkpoint is kept in
+	 * @param intervalMillis how often the checkpoint is written
+	 * @param resume whether to carry on from the checkpoint file if there is one
+	 */
+	public CheckpointingBranchAndBoundAlgorithmManager(int processingCores, String checkpointFilename, long intervalMillis, boolean resume) {
+		super(processingCores);
+		_file = new File(checkpointFilename);
+		_intervalMillis = intervalMillis;
+		_resume = resume;
+	}
+
+	/**
+	 * Explores the roots in order, starting from the checkpointed root when resuming
+	 */
+	@Override
+	protected void startBnb() {
+		_path = new BnBSchedule[numNodes + 2];
+		_cursors = new int[numNodes + 1];
+		int firstRoot = 0;
+		if (_resume && _file.isFile()) {
+			restore();
+			firstRoot = _resumeFrom.cursors[0];
+			System.out.println("Resuming from checkpoint with bound " + upperBound.get());
+		}
+
+		_nextCheckpoint = System.currentTimeMillis() + _intervalMillis;
+		for (int root = firstRoot; root < rootSchedules.size(); root++) {
+			BnBSchedule rootSchedule = rootSchedules.get(root);
+			if (_resuming) {
+				checkOnPath(null, rootSchedule, 0);
+			}
+			_cursors[0] = root;
+			_path[1] = rootSchedule;
+			bnb(rootSchedule);
+			_resuming = false;
+		}
+		rootSchedules.clear();
+
+		try {
+			Files.deleteIfExists(_file.toPath());
+		} catch (IOException e) {
+			System.err.println("Finished checkpoint could not be removed: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Explores children depth first, skipping those already finished when resuming and writing a checkpoint when one
+	 * is due
+	 */
+	@Override
+	protected void branch(BnBSchedule schedule, List<BnBSchedule> nextSchedules) {
+		int depth = schedule.closedNodes.size();
+		int first = 0;
+		boolean following = false;
+		if (_resuming) {
+			first = _resumeFrom.cursors[depth];
+			following = depth < _resumeFrom.cursors.length - 1;
+			if (first >= nextSchedules.size()) {
+				throw new RuntimeException("Checkpoint does not match the input graph");
+			}
+			checkOnPath(schedule, nextSchedules.get(first), depth);
+			_resuming = following;
+		}
+
+		for (int child = first; child < nextSchedules.size(); child++) {
+			_cursors[depth] = child;
+			_path[depth + 1] = nextSchedules.get(child);
+			if (System.currentTimeMillis() >= _nextCheckpoint) {
+				writeCheckpoint(depth);
+			}
+			bnb(nextSchedules.get(child));
+			if (following) {
+				// the rest of the saved path was pruned, or has been followed to its end
+				_resuming = false;
+				following = false;
+			}
+		}
+	}
+
+	/**
+	 * Saves the path down to a depth, the best schedule so far and the bound
+	 */
+	private void writeCheckpoint(int depth) {
+		int[] cursors = new int[depth + 1];
+		int[] pathNodes = new int[depth + 1];
+		int[] pathProcessors = new int[depth + 1];
+		for (int level = 0; level <= depth; level++) {
+			cursors[level] = _cursors[level];
+			pathNodes[level] = addedNode(level == 0 ? null : _path[level], _path[level + 1]);
+			pathProcessors[level] = _path[level + 1].closedNodes.get(pathNodes[level]).getB();
+		}
+
+		int[] incumbentStarts = null;
+		int[] incumbentProcessors = null;
+		BnBSchedule incumbent = optimalSchedule;
+		if (incumbent != null) {
+			incumbentStarts = new int[numNodes];
+			incumbentProcessors = new int[numNodes];
+			for (int nodeId = 0; nodeId < numNodes; nodeId++) {
+				incumbentStarts[nodeId] = incumbent.closedNodes.get(nodeId).getA();
+				incumbentProcessors[nodeId] = incumbent.closedNodes.get(nodeId).getB();
+			}
+		}
+
+		Checkpoint checkpoint = new Checkpoint(Checkpoint.fingerprint(_graph), _processingCores,
+				upperBound.get(), counters.export(), incumbentStarts, incumbentProcessors, cursors, pathNodes,
+				pathProcessors);
+		try {
+			checkpoint.write(_file);
+		} catch (IOException e) {
+			System.err.println("Checkpoint could not be written: " + e.getMessage());
+		}
+		_nextCheckpoint = System.currentTimeMillis() + _intervalMillis;
+	}
+
+	/**
+	 * Reads the checkpoint and takes back its bound, best schedule and statistics
+	 */
+	private void restore() {
+		try {
+			_resumeFrom = Checkpoint.read(_file);
+		} catch (IOException e) {
+			throw new RuntimeException("Checkpoint could not be read: " + e.getMessage());
+		}
+		if (_resumeFrom.fingerprint != Checkpoint.fingerprint(_graph)
+				|| _resumeFrom.processors != _processingCores
+				|| (_resumeFrom.incumbentStarts != null && _resumeFrom.incumbentStarts.length != numNodes)) {
+			throw new RuntimeException("Checkpoint does not match the input graph");
+		}
+
+		counters.addExported(_resumeFrom.counters);
+		upperBound.set(_resumeFrom.bound);
+		atomicBound.set(_resumeFrom.bound);
+		if (_resumeFrom.incumbentStarts != null) {
+			BnBSchedule incumbent = rebuildSchedule(_resumeFrom.incumbentStarts, _resumeFrom.incumbentProcessors);
+			if (incumbent.getMaxFinishTime() <= _resumeFrom.bound) {
+				setOptimalSchedule(incumbent);
+			}
+		}
+		_resuming = _resumeFrom.cursors.length > 1;
+	}
+
+	/**
+	 * Checks the child being resumed into adds the same node on the same processor as when the checkpoint was written
+	 */
+	private void checkOnPath(BnBSchedule parent, BnBSchedule child, int depth) {
+		int nodeId = addedNode(parent, child);
+		if (nodeId != _resumeFrom.pathNodes[depth] || child.closedNodes.get(nodeId).getB() != _resumeFrom.pathProcessors[depth]) {
+			throw new RuntimeException("Checkpoint does not match the input graph");
+		}
+	}
+}
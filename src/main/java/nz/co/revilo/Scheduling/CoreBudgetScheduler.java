@@ -0,0 +1,372 @@
+package nz.co.revilo.Scheduling;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shares a fixed number of worker threads between every search running in a long running process.
+ * <p>
+ * Each job is given a budget of threads. Jobs are first given one thread each, most urgent first (priority times how
+ * close the deadline is) and then smallest estimated remaining work first, so a huge graph can't starve small ones.
+ * Threads left over are shared out by priority, urgency and remaining work. Budgets are worked out again whenever a
+ * job starts or finishes, and every REBALANCE_INTERVAL_MILLIS as deadlines get closer.
+ * <p>
+ * Workers search subtrees taken from their job's frontier. A job with room in its budget splits its search as it goes
+ * so idle workers have something to take, and a job over its budget hands its unexplored subtrees back to the
+ * frontier so its workers can move to other jobs (see BudgetedBranchAndBoundAlgorithmManager).
+ */
+public class CoreBudgetScheduler implements Closeable {
+
+	public static final int DEFAULT_PRIORITY = 1;
+	public static final long NO_DEADLINE = 0;
+	// Deadlines further away than this don't make a job any more urgent
+	public static final long DEADLINE_HORIZON_MILLIS = 10000;
+	// A job whose deadline is this close, or past, is as urgent as it gets
+	public static final long URGENT_DEADLINE_MILLIS = 100;
+	public static final long REBALANCE_INTERVAL_MILLIS = 50;
+
+	private final int _threads;
+	private final List<Job> _jobs = new ArrayList<>();
+	private final List<Thread> _workers = new ArrayList<>();
+	private long _lastRebalance;
+	private boolean _closed;
+
+	/**
+	 * Starts the worker threads
+	 *
+	 * @param threads number of worker threads shared by all jobs
+	 */
+	public CoreBudgetScheduler(int threads) {
+		_threads = threads;
+		for (int i = 0; i < threads; i++) {
+			Thread worker = new Thread(this::work, "revilo-budget-worker-" + i);
+			worker.setDaemon(true);
+			_workers.add(worker);
+			worker.start();
+		}
+	}
+
+	/**
+	 * @return number of worker threads shared by all jobs
+	 */
+	public int getThreads() {
+		return _threads;
+	}
+
+	/**
+	 * @return number of jobs currently searching or waiting to
+	 */
+	public synchronized int getActiveJobs() {
+		return _jobs.size();
+	}
+
+	/**
+	 * Stops the workers once they finish their current subtree, jobs still running are failed
+	 */
+	@Override
+	public synchronized void close() {
+		_closed = true;
+		for (Job job : _jobs) {
+			job.fail(new IllegalStateException("Scheduler was closed"));
+		}
+		_jobs.clear();
+		notifyAll();
+	}
+
+	/**
+	 * Starts searching from the given root schedules
+	 *
+	 * @param job   the search to start
+	 * @param roots root schedules of the search tree
+	 */
+	synchronized void start(Job job, Collection<BnBSchedule> roots) {
+		if (_closed) {
+			throw new IllegalStateException("Scheduler was closed");
+		}
+		for (BnBSchedule root : roots) {
+			job.push(root);
+		}
+		if (job._frontier.isEmpty()) {
+			job._done.countDown();
+			return;
+		}
+		_jobs.add(job);
+		rebalance();
+		notifyAll();
+	}
+
+	/**
+	 * Gives unexplored subtrees back to a job's frontier for any worker to take
+	 *
+	 * @param job       the subtrees belong to
+	 * @param schedules roots of the subtrees
+	 */
+	synchronized void giveBack(Job job, List<BnBSchedule> schedules) {
+		for (BnBSchedule schedule : schedules) {
+			job.push(schedule);
+		}
+		notifyAll();
+	}
+
+	/**
+	 * Worker thread loop, repeatedly takes a subtree from the job most in need of a thread and searches it
+	 */
+	private void work() {
+		Job job = null;
+		BnBSchedule subtree = null;
+		while (true) {
+			synchronized (this) {
+				if (job != null) {
+					job.returnWorker(subtree);
+					if (job._active == 0 && job._frontier.isEmpty()) {
+						finish(job);
+					}
+				}
+				job = null;
+				while (job == null) {
+					if (_closed) {
+						return;
+					}
+					if (System.currentTimeMillis() - _lastRebalance >= REBALANCE_INTERVAL_MILLIS) {
+						rebalance();
+					}
+					job = pickJob();
+					if (job == null) {
+						try {
+							wait(REBALANCE_INTERVAL_MILLIS);
+						} catch (InterruptedException e) {
+							return;
+						}
+					}
+				}
+				subtree = job.takeWorker();
+			}
+
+			try {
+				job._manager.search(subtree);
+			} catch (RuntimeException e) {
+				synchronized (this) {
+					job.fail(e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Picks the job with the most unused budget which has a subtree to give
+	 */
+	private Job pickJob() {
+		Job best = null;
+		for (Job job : _jobs) {
+			if (!job._frontier.isEmpty() && job._active < job._allocation
+					&& (best == null || job._allocation - job._active > best._allocation - best._active)) {
+				best = job;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Removes a finished job and hands its threads to the others
+	 */
+	private void finish(Job job) {
+		if (_jobs.remove(job)) {
+			job._done.countDown();
+			rebalance();
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Works out the thread budget of every job
+	 */
+	private void rebalance() {
+		long now = System.currentTimeMillis();
+		_lastRebalance = now;
+		if (_jobs.isEmpty()) {
+			return;
+		}
+
+		// One thread each, most urgent and then least remaining work first
+		List<Job> order = new ArrayList<>(_jobs);
+		for (Job job : order) {
+			job._weight = job._priority * job.urgency(now);
+			job._allocation = 0;
+		}
+		order.sort(Comparator.comparingDouble((Job job) -> -job._weight).thenComparingLong(Job::remainingWork));
+		int spare = _threads;
+		for (Job job : order) {
+			if (spare == 0) {
+				break;
+			}
+			job._allocation = 1;
+			spare--;
+		}
+
+		// Spare threads shared out by weight and remaining work, largest remainders get the odd threads
+		if (spare > 0) {
+			double total = 0;
+			for (Job job : order) {
+				total += job._weight * job.remainingWork();
+			}
+			int given = 0;
+			double[] remainders = new double[order.size()];
+			for (int i = 0; i < order.size(); i++) {
+				Job job = order.get(i);
+				double share = total == 0 ? (double) spare / order.size() : spare * job._weight * job.remainingWork() / total;
+				int whole = (int) share;
+				job._allocation += whole;
+				given += whole;
+				remainders[i] = share - whole;
+			}
+			while (given < spare) {
+				int largest = 0;
+				for (int i = 1; i < remainders.length; i++) {
+					if (remainders[i] > remainders[largest]) {
+						largest = i;
+					}
+				}
+				order.get(largest)._allocation++;
+				remainders[largest] = -1;
+				given++;
+			}
+		}
+
+		for (Job job : order) {
+			job._excess.set(job._active - job._allocation);
+		}
+	}
+
+	/**
+	 * A search being run by the scheduler. Fields are guarded by the scheduler except where volatile or atomic, which
+	 * the search reads without locking to decide when to split or give work back.
+	 */
+	static class Job {
+		private final BudgetedBranchAndBoundAlgorithmManager _manager;
+		private final int _priority;
+		private final long _deadline;
+		private final Deque<BnBSchedule> _frontier = new ArrayDeque<>();
+		private final CountDownLatch _done = new CountDownLatch(1);
+		// Workers that should give their work back to get the job within budget
+		private final AtomicInteger _excess = new AtomicInteger();
+		private volatile int _allocation;
+		private volatile int _active;
+		private volatile int _frontierSize;
+		private long _frontierOpenNodes;
+		private long _activeOpenNodes;
+		private double _weight;
+		private RuntimeException _failure;
+
+		/**
+		 * @param manager  the manager the search belongs to
+		 * @param priority relative importance of the job, at least 1
+		 * @param deadline milliseconds from now the job should be done by, or NO_DEADLINE
+		 */
+		Job(BudgetedBranchAndBoundAlgorithmManager manager, int priority, long deadline) {
+			_manager = manager;
+			_priority = Math.max(1, priority);
+			_deadline = deadline == NO_DEADLINE ? NO_DEADLINE : System.currentTimeMillis() + deadline;
+		}
+
+		/**
+		 * @return whether a worker could be put to use if the job split its search
+		 */
+		boolean wantsMoreWork() {
+			return _frontierSize == 0 && _active < _allocation;
+		}
+
+		/**
+		 * Claims one of the job's excess workers, the caller should then give its work back
+		 *
+		 * @return whether the calling worker should leave the job
+		 */
+		boolean tryYield() {
+			while (true) {
+				int excess = _excess.get();
+				if (excess <= 0) {
+					return false;
+				}
+				if (_excess.compareAndSet(excess, excess - 1)) {
+					return true;
+				}
+			}
+		}
+
+		/**
+		 * @return threads currently budgeted to the job
+		 */
+		int getAllocation() {
+			return _allocation;
+		}
+
+		/**
+		 * Waits for the search to finish
+		 */
+		void await() throws InterruptedException {
+			_done.await();
+			if (_failure != null) {
+				throw _failure;
+			}
+		}
+
+		private void push(BnBSchedule schedule) {
+			_frontier.addLast(schedule);
+			_frontierSize = _frontier.size();
+			_frontierOpenNodes += schedule.openNodes.size();
+		}
+
+		private BnBSchedule takeWorker() {
+			// Most recently given back first, which keeps the search depth first
+			BnBSchedule schedule = _frontier.pollLast();
+			_frontierSize = _frontier.size();
+			_frontierOpenNodes -= schedule.openNodes.size();
+			_activeOpenNodes += schedule.openNodes.size();
+			_active++;
+			_excess.incrementAndGet();
+			return schedule;
+		}
+
+		private void returnWorker(BnBSchedule schedule) {
+			_activeOpenNodes -= schedule.openNodes.size();
+			_active--;
+			_excess.set(_active - _allocation);
+		}
+
+		private void fail(RuntimeException failure) {
+			if (_failure == null) {
+				_failure = failure;
+			}
+			_frontier.clear();
+			_frontierSize = 0;
+			_frontierOpenNodes = 0;
+			_done.countDown();
+		}
+
+		/**
+		 * Estimate of how much searching is left, the number of tasks still to be placed over all subtrees waiting
+		 * or being searched
+		 */
+		private long remainingWork() {
+			return Math.max(1, _frontierOpenNodes + _activeOpenNodes);
+		}
+
+		/**
+		 * How much sooner than other jobs this one should be run because of its deadline, between 1 and
+		 * DEADLINE_HORIZON_MILLIS / URGENT_DEADLINE_MILLIS
+		 */
+		private double urgency(long now) {
+			if (_deadline == NO_DEADLINE) {
+				return 1;
+			}
+			long left = Math.max(URGENT_DEADLINE_MILLIS, _deadline - now);
+			return Math.max(1.0, (double) DEADLINE_HORIZON_MILLIS / left);
+		}
+	}
+}
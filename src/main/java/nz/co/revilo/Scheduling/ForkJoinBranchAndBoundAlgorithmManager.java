@@ -0,0 +1,103 @@
+package nz.co.revilo.Scheduling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Algorithm manager for branch and bound which explores the top of the search tree as tasks on a shared ForkJoinPool.
+ * Below the split depth subtrees are explored depth first by whichever worker took them, so several graphs can share
+ * the same pool without any of them owning threads.
+ */
+public class ForkJoinBranchAndBoundAlgorithmManager extends BranchAndBoundAlgorithmManager {
+
+	// Number of scheduled nodes up to which children are handed to the pool as tasks
+	public static final int DEFAULT_SPLIT_DEPTH = 3;
+
+	private final ForkJoinPool _pool;
+	private final int _splitDepth;
+
+	/**
+	 * Constructor which sets the number of processing cores we are scheduling for and the pool to search on
+	 *
+	 * @param processingCores number of cores specified for the final schedule
+	 * @param pool the pool the search is shared out on
+	 */
+	public ForkJoinBranchAndBoundAlgorithmManager(int processingCores, ForkJoinPool pool) {
+		this(processingCores, pool, DEFAULT_SPLIT_DEPTH);
+	}
+
+	/**
+	 * Constructor which also sets how deep into the tree children are handed out as tasks
+	 *
+	 * @param processingCores number of cores specified for the final schedule
+	 * @param pool the pool the search is shared out on
+	 * @param splitDepth number of scheduled nodes up to which children are handed to the pool
+	 */
+	public ForkJoinBranchAndBoundAlgorithmManager(int processingCores, ForkJoinPool pool, int splitDepth) {
+		super(processingCores);
+		_pool = pool;
+		_splitDepth = splitDepth;
+	}
+
+	/**
+	 * Starts every root schedule as a task and waits for the whole tree to be explored. If already running on the
+	 * pool the current worker takes part in the search instead of blocking.
+	 */
+	@Override
+	protected void startBnb() {
+		List<BnBTask> tasks = new ArrayList<>();
+		while (!rootSchedules.isEmpty()) {
+			tasks.add(new BnBTask(rootSchedules.remove(0)));
+		}
+		RecursiveAction search = new RecursiveAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected void compute() {
+				invokeAll(tasks);
+			}
+		};
+		if (ForkJoinTask.getPool() == _pool) {
+			search.invoke();
+		} else {
+			_pool.invoke(search);
+		}
+	}
+
+	/**
+	 * Hands children near the top of the tree to the pool, deeper children are explored on this thread
+	 */
+	@Override
+	protected void branch(BnBSchedule schedule, List<BnBSchedule> nextSchedules) {
+		if (schedule.closedNodes.size() > _splitDepth || ForkJoinTask.getPool() != _pool) {
+			super.branch(schedule, nextSchedules);
+			return;
+		}
+		List<BnBTask> tasks = new ArrayList<>(nextSchedules.size());
+		for (BnBSchedule nextSchedule : nextSchedules) {
+			tasks.add(new BnBTask(nextSchedule));
+		}
+		ForkJoinTask.invokeAll(tasks);
+	}
+
+	/**
+	 * Explores the subtree of a single schedule
+	 */
+	private class BnBTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final BnBSchedule _schedule;
+
+		BnBTask(BnBSchedule schedule) {
+			_schedule = schedule;
+		}
+
+		@Override
+		protected void compute() {
+			bnb(_schedule);
+		}
+	}
+}
@@ -1,58 +1,57 @@
 package nz.co.revilo.Scheduling;
 
+import nz.co.revilo.Input.SparseGraph;
+
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
- * Static helper class to manage in and out neighbours
- * Uses the primitive interface and loops through matrices
+ * Helper class to manage in and out neighbours
+ * Lists of each node's neighbours are made once from the sparse graph, in ascending order
+ *
+ * One instance is made per graph being scheduled so that several algorithm managers can run in the same JVM
+ * without sharing graph state.
  * 
  * @author Abby S
  *
  */
 public class NeighbourManagerHelper {
-	static int numNodes;
-	static boolean[][] arcs;
-
-	public static void setUpHelper(int numNodes, boolean[][] arcs) {
-		NeighbourManagerHelper.numNodes=numNodes;
-		NeighbourManagerHelper.arcs=arcs;
-	}
-
-	static List<Integer> getOutneighbours(int nodeId) {
-		List<Integer> outneighbours=new ArrayList<>();
+	private final List<List<Integer>> outneighbours;
+	private final List<List<Integer>> inneighbours;
 
+	public NeighbourManagerHelper(SparseGraph graph) {
+		int numNodes=graph.getNodeCount();
+		outneighbours=new ArrayList<>(numNodes);
+		inneighbours=new ArrayList<>(numNodes);
 		for(int node=0; node<numNodes; node++){
-			if(arcs[nodeId][node]){
-				outneighbours.add(node);
+			List<Integer> out=new ArrayList<>(graph.outEnd(node)-graph.outStart(node));
+			for(int arc=graph.outStart(node); arc<graph.outEnd(node); arc++){
+				out.add(graph.outTarget(arc));
+			}
+			outneighbours.add(Collections.unmodifiableList(out));
+			List<Integer> in=new ArrayList<>(graph.inEnd(node)-graph.inStart(node));
+			for(int arc=graph.inStart(node); arc<graph.inEnd(node); arc++){
+				in.add(graph.inSource(arc));
 			}
+			inneighbours.add(Collections.unmodifiableList(in));
 		}
-		return outneighbours;
 	}
 
-	static List<Integer> getInneighbours(int nodeId) {
-		List<Integer> inneighbours=new ArrayList<>();
+	List<Integer> getOutneighbours(int nodeId) {
+		return outneighbours.get(nodeId);
+	}
 
-		for(int node=0; node<numNodes; node++){
-			if(arcs[node][nodeId]){
-				inneighbours.add(node);
-			}
-		}
-		return inneighbours;
+	List<Integer> getInneighbours(int nodeId) {
+		return inneighbours.get(nodeId);
 	}
 
-	static boolean hasInneighbours(int nodeId) {
-		for(int node=0; node<numNodes; node++){
-			if(arcs[node][nodeId]) return true;
-		}
-		return false;
+	boolean hasInneighbours(int nodeId) {
+		return !inneighbours.get(nodeId).isEmpty();
 	}
 
-	static boolean hasOutneighbours(int nodeId) {
-		for(int node=0; node<numNodes; node++){
-			if(arcs[nodeId][node]) return true;
-		}
-		return false;
+	boolean hasOutneighbours(int nodeId) {
+		return !outneighbours.get(nodeId).isEmpty();
 	}
 
 }
@@ -0,0 +1,185 @@
+package nz.co.revilo.Scheduling;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts what a search does at each depth, the number of nodes a schedule has placed, without threads contending for
+ * the same memory. Each thread counting gets counters of its own, padded so no two threads' counters share a cache
+ * line, and only that thread writes them, with an ordered store rather than an atomic read-modify-write. They are added
+ * up only when read, by the GUI or a report, so reads may be a moment behind the threads still counting.
+ */
+public class SearchCounters {
+
+	// Counters, indexes into a snapshot and into each depth of a snapshotByDepth
+	public static final int EXPLORED = 0;
+	public static final int PRUNED_BY_BOUND = 1;
+	public static final int PRUNED_AS_DUPLICATE = 2;
+	public static final int COMPLETIONS = 3;
+	public static final int INCUMBENT_UPDATES = 4;
+	public static final int EXPANDED = 5;
+	public static final int GENERATED = 6;
+	// Sum over the explored states of the upper bound less the state's lower bound when it was explored
+	public static final int BOUND_GAP_SUM = 7;
+	public static final int COUNTERS = 8;
+	public static final String[] NAMES = {"explored", "pruned_by_bound", "pruned_as_duplicate", "completions",
+			"incumbent_updates", "expanded", "generated", "bound_gap_sum"};
+
+	// Longs either side of a thread's counters, a 64 byte cache line
+	private static final int PADDING = 8;
+
+	private final int _depths;
+	private final List<AtomicLongArray> _cells = new CopyOnWriteArrayList<>();
+	private final ThreadLocal<AtomicLongArray> _cell;
+
+	/**
+	 * Counts at a single depth, 0
+	 */
+	public SearchCounters() {
+		this(1);
+	}
+
+	/**
+	 * @param depths number of depths counted at, one more than the nodes of the graph searched
+	 */
+	public SearchCounters(int depths) {
+		_depths = depths;
+		_cell = ThreadLocal.withInitial(() -> {
+			AtomicLongArray cell = new AtomicLongArray(PADDING + depths * COUNTERS + PADDING);
+			_cells.add(cell);
+			return cell;
+		});
+	}
+
+	/**
+	 * Counts one more at depth 0 on the calling thread's counters
+	 *
+	 * @param counter one of the counters, e.g. EXPLORED
+	 */
+	public void increment(int counter) {
+		add(0, counter, 1);
+	}
+
+	/**
+	 * Counts one more on the calling thread's counters
+	 *
+	 * @param depth   depth of the state counted
+	 * @param counter one of the counters, e.g. PRUNED_BY_BOUND
+	 */
+	public void increment(int depth, int counter) {
+		add(depth, counter, 1);
+	}
+
+	/**
+	 * @param depth   depth of the states counted
+	 * @param counter one of the counters, e.g. GENERATED
+	 * @param amount  to add to it on the calling thread's counters
+	 */
+	public void add(int depth, int counter, long amount) {
+		AtomicLongArray cell = _cell.get();
+		int index = PADDING + depth * COUNTERS + counter;
+		cell.lazySet(index, cell.get(index) + amount);
+	}
+
+	/**
+	 * Counts a state explored and its bound gap together, the search's most frequent count
+	 *
+	 * @param depth    depth of the state
+	 * @param boundGap the upper bound less the state's lower bound
+	 */
+	public void explored(int depth, long boundGap) {
+		AtomicLongArray cell = _cell.get();
+		int index = PADDING + depth * COUNTERS;
+		cell.lazySet(index + EXPLORED, cell.get(index + EXPLORED) + 1);
+		cell.lazySet(index + BOUND_GAP_SUM, cell.get(index + BOUND_GAP_SUM) + boundGap);
+	}
+
+	/**
+	 * @param counter one of the counters, e.g. EXPLORED
+	 * @return its total over every depth and thread
+	 */
+	public long get(int counter) {
+		long total = 0;
+		for (AtomicLongArray cell : _cells) {
+			for (int depth = 0; depth < _depths; depth++) {
+				total += cell.get(PADDING + depth * COUNTERS + counter);
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * @return states pruned for any reason
+	 */
+	public long getPruned() {
+		return get(PRUNED_BY_BOUND) + get(PRUNED_AS_DUPLICATE);
+	}
+
+	/**
+	 * @return the total of every counter over every depth, indexed by counter
+	 */
+	public long[] snapshot() {
+		long[] totals = new long[COUNTERS];
+		long[][] byDepth = snapshotByDepth();
+		for (long[] depth : byDepth) {
+			for (int counter = 0; counter < COUNTERS; counter++) {
+				totals[counter] += depth[counter];
+			}
+		}
+		return totals;
+	}
+
+	/**
+	 * @return the total of every counter at each depth, indexed by depth then counter
+	 */
+	public long[][] snapshotByDepth() {
+		long[][] totals = new long[_depths][COUNTERS];
+		for (AtomicLongArray cell : _cells) {
+			for (int depth = 0; depth < _depths; depth++) {
+				for (int counter = 0; counter < COUNTERS; counter++) {
+					totals[depth][counter] += cell.get(PADDING + depth * COUNTERS + counter);
+				}
+			}
+		}
+		return totals;
+	}
+
+	/**
+	 * @return every counter at every depth in one array, as checkpoints and workers pass them on
+	 */
+	public long[] export() {
+		long[] exported = new long[_depths * COUNTERS];
+		long[][] byDepth = snapshotByDepth();
+		for (int depth = 0; depth < _depths; depth++) {
+			System.arraycopy(byDepth[depth], 0, exported, depth * COUNTERS, COUNTERS);
+		}
+		return exported;
+	}
+
+	/**
+	 * Adds counts exported from counters of the same graph, e.g. before a search was stopped, to the calling thread's
+	 * counters
+	 *
+	 * @param exported as export gives them, anything beyond the depths counted here is ignored
+	 */
+	public void addExported(long[] exported) {
+		for (int index = 0; index < Math.min(exported.length, _depths * COUNTERS); index++) {
+			add(index / COUNTERS, index % COUNTERS, exported[index]);
+		}
+	}
+
+	/**
+	 * @return number of depths counted at
+	 */
+	public int getDepths() {
+		return _depths;
+	}
+
+	/**
+	 * @return how many threads have counted
+	 */
+	public int getThreads() {
+		return _cells.size();
+	}
+}
@@ -0,0 +1,83 @@
+package nz.co.revilo.Scheduling;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * What the search did at each depth, the number of nodes its schedules have placed: states generated, explored,
+ * expanded into children and pruned by each cause, how many children each expanded state had on average, and the
+ * average gap between the upper bound and an explored state's lower bound. A small gap where states are pruned by the
+ * bound means a tighter bound would cut the tree there; many duplicates means the duplicate check is paying its way.
+ * <p>
+ * Taken from the SearchCounters while the search runs or once it's done.
+ */
+public class SearchProfile {
+
+	public static final String CSV_HEADER = "depth,generated,explored,expanded,pruned_by_bound,pruned_as_duplicate,"
+			+ "completions,incumbent_updates,branching_factor,mean_bound_gap";
+
+	private final long[][] _byDepth;
+
+	/**
+	 * @param byDepth totals of the counters at each depth, as SearchCounters.snapshotByDepth gives them
+	 */
+	public SearchProfile(long[][] byDepth) {
+		_byDepth = byDepth;
+	}
+
+	/**
+	 * @return number of depths, one more than the nodes of the graph
+	 */
+	public int getDepths() {
+		return _byDepth.length;
+	}
+
+	/**
+	 * @param depth   a depth
+	 * @param counter one of the SearchCounters counters
+	 * @return its total at that depth
+	 */
+	public long get(int depth, int counter) {
+		return _byDepth[depth][counter];
+	}
+
+	/**
+	 * @return children generated at the next depth for each state expanded at this depth, or 0 if none was expanded
+	 */
+	public double getBranchingFactor(int depth) {
+		long expanded = _byDepth[depth][SearchCounters.EXPANDED];
+		return expanded == 0 || depth + 1 >= _byDepth.length
+				? 0 : (double) _byDepth[depth + 1][SearchCounters.GENERATED] / expanded;
+	}
+
+	/**
+	 * @return the upper bound less the lower bound of the states explored at the depth on average, or 0 if there were
+	 * none. Negative where most states there were already bounded past the best schedule when explored
+	 */
+	public double getMeanBoundGap(int depth) {
+		long explored = _byDepth[depth][SearchCounters.EXPLORED];
+		return explored == 0 ? 0 : (double) _byDepth[depth][SearchCounters.BOUND_GAP_SUM] / explored;
+	}
+
+	/**
+	 * @return the profile as CSV lines, a row for each depth a state was generated, explored or expanded at
+	 */
+	public List<String> toCsv() {
+		List<String> lines = new ArrayList<>();
+		lines.add(CSV_HEADER);
+		for (int depth = 0; depth < _byDepth.length; depth++) {
+			long[] counted = _byDepth[depth];
+			if (counted[SearchCounters.GENERATED] == 0 && counted[SearchCounters.EXPLORED] == 0
+					&& counted[SearchCounters.EXPANDED] == 0) {
+				continue;
+			}
+			lines.add(depth + "," + counted[SearchCounters.GENERATED] + "," + counted[SearchCounters.EXPLORED] + ","
+					+ counted[SearchCounters.EXPANDED] + "," + counted[SearchCounters.PRUNED_BY_BOUND] + ","
+					+ counted[SearchCounters.PRUNED_AS_DUPLICATE] + "," + counted[SearchCounters.COMPLETIONS] + ","
+					+ counted[SearchCounters.INCUMBENT_UPDATES] + ","
+					+ String.format(Locale.ROOT, "%.2f,%.2f", getBranchingFactor(depth), getMeanBoundGap(depth)));
+		}
+		return lines;
+	}
+}
@@ -0,0 +1,85 @@
+package nz.co.revilo.Scheduling;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * A pool of worker threads shared by every graph solved in a long running process (batches and the daemon). Decides
+ * per graph whether it is searched by a single worker or shared out over the whole pool.
+ */
+public class SharedPoolSolver {
+
+    public static final String SEQUENTIAL_STRATEGY = "sequential";
+    public static final String COOPERATIVE_STRATEGY = "cooperative";
+    // Graphs with at least this many tasks are searched by the whole pool rather than a single worker
+    public static final int COOPERATIVE_MIN_NODES = 20;
+
+    private final ForkJoinPool _pool;
+    private final int _threads;
+
+    /**
+     * @param threads number of worker threads shared by all graphs
+     */
+    public SharedPoolSolver(int threads) {
+        _threads = threads;
+        _pool = new ForkJoinPool(threads);
+    }
+
+    /**
+     * @param nodes number of tasks in the graph
+     * @return how a graph of that size is searched
+     */
+    public String strategyFor(int nodes) {
+        return (_threads > 1 && nodes >= COOPERATIVE_MIN_NODES) ? COOPERATIVE_STRATEGY : SEQUENTIAL_STRATEGY;
+    }
+
+    /**
+     * Creates the algorithm manager for a graph, which must then be run on this pool
+     *
+     * @param nodes      number of tasks in the graph
+     * @param processors number of processors the graph is scheduled on
+     * @return the algorithm manager
+     */
+    public AlgorithmManager createManager(int nodes, int processors) {
+        if (COOPERATIVE_STRATEGY.equals(strategyFor(nodes))) {
+            return new ForkJoinBranchAndBoundAlgorithmManager(processors, _pool);
+        }
+        return new BranchAndBoundAlgorithmManager(processors);
+    }
+
+    /**
+     * Starts a job on the pool without waiting for it
+     *
+     * @param job to run
+     * @return the job's result once it is done
+     */
+    public <T> ForkJoinTask<T> submit(Callable<T> job) {
+        return _pool.submit(job);
+    }
+
+    /**
+     * Runs a job on the pool and waits for it
+     *
+     * @param job to run
+     * @return the job's result
+     */
+    public <T> T invoke(Callable<T> job) throws InterruptedException, ExecutionException {
+        return _pool.submit(job).get();
+    }
+
+    /**
+     * @return number of worker threads in the pool
+     */
+    public int getThreads() {
+        return _threads;
+    }
+
+    /**
+     * Stops the pool once running jobs are done
+     */
+    public void shutdown() {
+        _pool.shutdown();
+    }
+}
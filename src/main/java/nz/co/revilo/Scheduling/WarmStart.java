@@ -0,0 +1,200 @@
+package nz.co.revilo.Scheduling;
+
+import nz.co.revilo.Input.FileParser;
+import nz.co.revilo.Input.SparseGraph;
+
+import java.io.BufferedReader;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A schedule found for an earlier version of a graph, used to start the search for the current graph. The old schedule
+ * is repaired to fit the current graph, keeping the old task order and processors where it can, and becomes the
+ * schedule the search has to beat, so only strictly shorter schedules are searched for. The search tries the repaired
+ * assignments before any others.
+ */
+public class WarmStart {
+
+	// Regex for the node lines of a schedule written by DotFileWriter
+	public static final Pattern SCHEDULED_NODE_MATCH = Pattern.compile("[\\s]*([\\p{Alnum}]*)[\\s]*\\[(.*)][\\s]*;");
+	public static final Pattern START_MATCH = Pattern.compile("[Ss]tart[\\s]*=[\\s]*([\\p{Digit}]+)");
+	public static final Pattern PROCESSOR_MATCH = Pattern.compile("[Pp]rocessor[\\s]*=[\\s]*([\\p{Digit}]+)");
+	public static final String ARC_LINE_MATCH = ".*->.*";
+
+	private final Map<String, Integer> _startTimes;
+	private final Map<String, Integer> _processors;
+
+	/**
+	 * @param startTimes old start time of each node by name
+	 * @param processors old processor of each node by name, from 0
+	 */
+	public WarmStart(Map<String, Integer> startTimes, Map<String, Integer> processors) {
+		_startTimes = startTimes;
+		_processors = processors;
+	}
+
+	/**
+	 * Reads a schedule written by DotFileWriter
+	 *
+	 * @param filename output file of an earlier run
+	 * @return the old schedule
+	 */
+	public static WarmStart fromFile(String filename) {
+		Map<String, Integer> startTimes = new HashMap<>();
+		Map<String, Integer> processors = new HashMap<>();
+		try (BufferedReader reader = new BufferedReader(
+				new InputStreamReader(FileParser.openInput(filename), StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				Matcher node = SCHEDULED_NODE_MATCH.matcher(line);
+				if (line.matches(ARC_LINE_MATCH) || !node.matches()) {
+					continue;
+				}
+				Matcher start = START_MATCH.matcher(node.group(2));
+				Matcher processor = PROCESSOR_MATCH.matcher(node.group(2));
+				if (start.find() && processor.find()) {
+					startTimes.put(node.group(1), Integer.parseInt(start.group(1)));
+					processors.put(node.group(1), Integer.parseInt(processor.group(1)) - 1);
+				}
+			}
+		} catch (FileNotFoundException e) {
+			throw new RuntimeException("Warm start file does not exist");
+		} catch (IOException | NumberFormatException e) {
+			throw new RuntimeException("Warm start file could not be read: " + e.getMessage());
+		}
+		return new WarmStart(startTimes, processors);
+	}
+
+	/**
+	 * Fits the old schedule to the current graph. Nodes are list scheduled, each time taking the ready node which
+	 * started first in the old schedule (new nodes by when they could start now) onto its old processor (new nodes,
+	 * or old processors that no longer exist, onto the processor they start earliest on). Processors are then
+	 * renumbered in order of first use, as the search always puts the first node on processor 0.
+	 *
+	 * @param bnb manager holding the current graph, after its neighbours are worked out
+	 * @return order and processor of each node and the length of the repaired schedule
+	 */
+	Repair repair(BranchAndBoundAlgorithmManager bnb) {
+		int numNodes = bnb.numNodes;
+		int processorCount = bnb._processingCores;
+		int[] waitingOn = new int[numNodes];
+		List<Integer> ready = new ArrayList<>();
+		for (int node = 0; node < numNodes; node++) {
+			waitingOn[node] = bnb.neighbours.getInneighbours(node).size();
+			if (waitingOn[node] == 0) {
+				ready.add(node);
+			}
+		}
+
+		int[] starts = new int[numNodes];
+		int[] processors = new int[numNodes];
+		int[] finishTimes = new int[processorCount];
+		int[] ranks = new int[numNodes];
+		for (int rank = 0; rank < numNodes; rank++) {
+			int next = -1;
+			long nextKey = Long.MAX_VALUE;
+			for (int node : ready) {
+				Integer oldStart = _startTimes.get(bnb._nodeNames[node]);
+				long key = oldStart != null ? oldStart : earliestStart(bnb, node, bestProcessor(bnb, node, starts, processors, finishTimes), starts, processors, finishTimes);
+				if (key < nextKey) {
+					next = node;
+					nextKey = key;
+				}
+			}
+			ready.remove(Integer.valueOf(next));
+
+			Integer oldProcessor = _processors.get(bnb._nodeNames[next]);
+			int processor = oldProcessor != null && oldProcessor >= 0 && oldProcessor < processorCount
+					? oldProcessor : bestProcessor(bnb, next, starts, processors, finishTimes);
+			starts[next] = earliestStart(bnb, next, processor, starts, processors, finishTimes);
+			processors[next] = processor;
+			finishTimes[processor] = starts[next] + bnb._nodeWeights[next];
+			ranks[next] = rank;
+
+			for (int child : bnb.neighbours.getOutneighbours(next)) {
+				if (--waitingOn[child] == 0) {
+					ready.add(child);
+				}
+			}
+		}
+
+		int makespan = 0;
+		for (int finishTime : finishTimes) {
+			makespan = Math.max(makespan, finishTime);
+		}
+
+		// Renumber processors by first use
+		int[] renumbered = new int[processorCount];
+		int used = 0;
+		Arrays.fill(renumbered, -1);
+		int[] order = new int[numNodes];
+		for (int node = 0; node < numNodes; node++) {
+			order[ranks[node]] = node;
+		}
+		for (int node : order) {
+			if (renumbered[processors[node]] == -1) {
+				renumbered[processors[node]] = used++;
+			}
+		}
+		for (int node = 0; node < numNodes; node++) {
+			processors[node] = renumbered[processors[node]];
+		}
+		return new Repair(ranks, processors, makespan);
+	}
+
+	/**
+	 * @return processor the node could start earliest on
+	 */
+	private static int bestProcessor(BranchAndBoundAlgorithmManager bnb, int node, int[] starts, int[] processors, int[] finishTimes) {
+		int best = 0;
+		for (int processor = 1; processor < finishTimes.length; processor++) {
+			if (earliestStart(bnb, node, processor, starts, processors, finishTimes) < earliestStart(bnb, node, best, starts, processors, finishTimes)) {
+				best = processor;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return when a node with every parent scheduled could start on a processor, as worked out in BnBSchedule
+	 */
+	private static int earliestStart(BranchAndBoundAlgorithmManager bnb, int node, int processor, int[] starts, int[] processors, int[] finishTimes) {
+		int startTime = finishTimes[processor];
+		SparseGraph graph = bnb._graph;
+		for (int arc = graph.inStart(node); arc < graph.inEnd(node); arc++) {
+			int parent = graph.inSource(arc);
+			int dataReadyTime = starts[parent] + bnb._nodeWeights[parent];
+			if (processors[parent] != processor) {
+				dataReadyTime += graph.inWeight(arc);
+			}
+			startTime = Math.max(startTime, dataReadyTime);
+		}
+		return startTime;
+	}
+
+	/**
+	 * The old schedule fitted to the current graph
+	 */
+	static class Repair {
+		// Position of each node in the repaired schedule's order
+		final int[] ranks;
+		// Processor of each node, numbered by first use
+		final int[] processors;
+		final int makespan;
+
+		Repair(int[] ranks, int[] processors, int makespan) {
+			this.ranks = ranks;
+			this.processors = processors;
+			this.makespan = makespan;
+		}
+	}
+}
@@ -0,0 +1,160 @@
+package nz.co.revilo;
+
+import nz.co.revilo.Batch.BatchInput;
+import nz.co.revilo.Batch.BatchResult;
+import nz.co.revilo.Batch.BatchRunner;
+import nz.co.revilo.Batch.StreamRunner;
+import nz.co.revilo.Input.DotGraphStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests solving graphs as a batch
+ */
+public class BatchTest {
+
+    @Rule
+    public TemporaryFolder temporary = new TemporaryFolder();
+
+    /**
+     * Tests that a manifest is solved in order, with per-line processor counts, missing files reported and a summary
+     * written
+     */
+    @Test
+    public void testManifestBatch() throws IOException {
+        Path directory = temporary.getRoot().toPath();
+        Path manifest = directory.resolve("graphs.txt");
+        String inputs = new File(AppTest.TEST_PATH).getAbsolutePath() + File.separator;
+        Files.write(manifest, Arrays.asList(
+                "# graphs for the batch test",
+                inputs + "input.dot",
+                inputs + "Nodes_7_OutTree.dot 2",
+                inputs + "asdfghjkl-nice.dot",
+                inputs + "Nodes_10_Random.dot 2"));
+
+        List<BatchInput> batch = BatchInput.resolve(manifest.toString(), 1);
+        assertEquals(4, batch.size());
+        assertEquals(2, batch.get(1).getProcessors());
+
+        Path output = directory.resolve("out");
+        List<BatchResult> results = new BatchRunner(batch, 2, output.toString()).run();
+        assertEquals(10, results.get(0).getMakespan());
+        assertEquals(28, results.get(1).getMakespan());
+        assertFalse(results.get(2).isSolved());
+        assertEquals(50, results.get(3).getMakespan());
+
+        assertTrue(output.resolve("input-output.dot").toFile().isFile());
+        List<String> summary = Files.readAllLines(output.resolve(BatchRunner.SUMMARY_FILENAME));
+        assertEquals(BatchResult.CSV_HEADER, summary.get(0));
+        assertEquals(5, summary.size());
+    }
+
+    /**
+     * Tests that digraphs one after another in a stream, with braces in strings and comments, are all solved and
+     * written in the order they were read, with a digraph which can't be read reported in its place
+     */
+    @Test
+    public void testStreamSolvedInOrder() throws IOException {
+        String diamond = new String(Files.readAllBytes(Paths.get(AppTest.TEST_PATH, "input.dot")), StandardCharsets.UTF_8);
+        String tree = new String(Files.readAllBytes(Paths.get(AppTest.TEST_PATH, "Nodes_7_OutTree.dot")),
+                StandardCharsets.UTF_8);
+        String stream = diamond + "/* } not the end { */\n" + tree + "digraph \"}\" {\n a -> ;\n}\n"
+                + "digraph quoted { \"{\" [Weight=2];\n  # }\n}\n" + diamond + "\n// done\n";
+
+        StringWriter output = new StringWriter();
+        DotGraphStream graphs = new DotGraphStream("test", new ByteArrayInputStream(stream.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(5, new StreamRunner(graphs, 2, 2, output).run());
+
+        List<String> headers = new ArrayList<>();
+        for (String line : output.toString().split("\\R")) {
+            if (line.startsWith("digraph") || line.startsWith("//")) {
+                headers.add(line);
+            }
+        }
+        assertEquals(5, headers.size());
+        assertTrue(headers.get(0).contains("Mydiamond"));
+        assertTrue(headers.get(1).contains("OutTree"));
+        assertEquals("// Digraph 3 could not be parsed: test digraph 3 line 2: Expected a node after ->", headers.get(2));
+        assertTrue(headers.get(3).contains("Quoted"));
+        assertTrue(headers.get(4).contains("Mydiamond"));
+    }
+
+    /**
+     * Tests that globs only pick up the files they match
+     */
+    @Test
+    public void testGlobInput() {
+        List<BatchInput> batch = BatchInput.resolve(AppTest.TEST_PATH + "input?.dot", 3);
+        assertEquals(4, batch.size());
+        for (BatchInput input : batch) {
+            assertTrue(input.getFilename().matches(".*input[0-9]\\.dot"));
+            assertEquals(3, input.getProcessors());
+        }
+    }
+
+    /**
+     * Tests that inputs of the same name in different directories, or with different extensions, each get an output
+     * file of their own
+     */
+    @Test
+    public void testSameNamesKeptApart() throws IOException {
+        File other = temporary.newFolder("other");
+        Path input = Paths.get(AppTest.TEST_PATH, "input.dot");
+        Files.copy(input, other.toPath().resolve("input.dot"));
+        Files.copy(Paths.get(AppTest.TEST_PATH, "Nodes_7_OutTree.dot"), other.toPath().resolve("input.DOT"));
+
+        File output = temporary.newFolder("out");
+        List<BatchResult> results = new BatchRunner(Arrays.asList(new BatchInput(input.toString(), 2),
+                new BatchInput(new File(other, "input.dot").getPath(), 2),
+                new BatchInput(new File(other, "input.DOT").getPath(), 2)), 2, output.getPath()).run();
+        assertEquals(28, results.get(2).getMakespan());
+        assertTrue(new File(output, "input-output.dot").isFile());
+        assertTrue(new File(output, "input-2-output.dot").isFile());
+        assertTrue(new String(Files.readAllBytes(new File(output, "input-3-output.dot").toPath()),
+                StandardCharsets.UTF_8).contains("OutTree"));
+    }
+
+    /**
+     * Tests a schedule which can't be saved fails only its own graph, with the rest of the batch and the summary still
+     * written, and that manifests can't ask for fewer than one processor
+     */
+    @Test
+    public void testUnsavedScheduleFailsItsGraph() throws IOException {
+        File output = temporary.newFolder("out");
+        assertTrue(new File(output, "input-output.dot").mkdir());
+        List<BatchResult> results = new BatchRunner(Arrays.asList(
+                new BatchInput(AppTest.TEST_PATH + "input.dot", 2),
+                new BatchInput(AppTest.TEST_PATH + "Nodes_7_OutTree.dot", 2)), 2, output.getPath()).run();
+        assertFalse(results.get(0).isSolved());
+        assertTrue(results.get(0).getStatus().startsWith("Schedule could not be saved"));
+        assertEquals(28, results.get(1).getMakespan());
+        assertTrue(new File(output, BatchRunner.SUMMARY_FILENAME).isFile());
+
+        File manifest = temporary.newFile("graphs.txt");
+        Files.write(manifest.toPath(), Arrays.asList(new File(AppTest.TEST_PATH, "input.dot").getAbsolutePath() + " 0"));
+        try {
+            BatchInput.resolve(manifest.getPath(), 2);
+            fail("A manifest line with no processors was accepted");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage().startsWith("Insufficient processors in manifest line"));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package nz.co.revilo;
+
+import nz.co.revilo.Benchmark.BenchmarkProbe;
+import nz.co.revilo.Benchmark.BenchmarkResult;
+import nz.co.revilo.Benchmark.ExpectedOptima;
+import nz.co.revilo.Benchmark.ScalabilityReport;
+import nz.co.revilo.Benchmark.SolverBenchmark;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests benchmarking the solver over a set of graphs
+ */
+public class BenchmarkTest {
+
+    @Rule
+    public TemporaryFolder temporary = new TemporaryFolder();
+
+    /**
+     * Tests every engine and thread count is run on each graph and checked against the expected optima, with a wrong
+     * optimum failing the benchmark and left out of the optima recorded, and results written which can be the next
+     * run's baseline
+     */
+    @Test
+    public void testBenchmarkAgainstExpectedOptima() throws IOException {
+        Path directory = temporary.newFolder().toPath();
+        Path graphs = directory.resolve("graphs.txt");
+        String inputs = new File(AppTest.TEST_PATH).getAbsolutePath() + File.separator;
+        Files.write(graphs, Arrays.asList(inputs + "Nodes_7_OutTree.dot", inputs + "input.dot"));
+        Path expected = directory.resolve("expected.txt");
+        Files.write(expected, Arrays.asList("# optima", "Nodes_7_OutTree.dot 2 28", "input.dot 2 11"));
+
+        SolverBenchmark benchmark = new SolverBenchmark(graphs.toString(), "2",
+                BenchmarkProbe.SEQUENTIAL_ENGINE + "," + BenchmarkProbe.FORK_JOIN_ENGINE, "1,2");
+        benchmark.setExpected(expected.toString());
+        Path output = directory.resolve("out");
+        List<BenchmarkResult> results = benchmark.run(output.toString());
+
+        assertEquals(6, results.size());
+        for (BenchmarkResult result : results) {
+            assertTrue(result.isSolved());
+            assertTrue(result.getExploredStates() > 0);
+        }
+        assertEquals(BenchmarkResult.STATUS_OK, results.get(0).getStatus());
+        assertEquals(BenchmarkResult.STATUS_WRONG_MAKESPAN, results.get(3).getStatus());
+        assertFalse(SolverBenchmark.passed(results));
+
+        Path recorded = directory.resolve("recorded.txt");
+        ExpectedOptima.write(recorded.toString(), results);
+        assertEquals(28, ExpectedOptima.read(recorded.toString()).get(inputs + "Nodes_7_OutTree.dot", 2));
+        assertEquals(BenchmarkResult.NOT_MEASURED, ExpectedOptima.read(recorded.toString()).get("input.dot", 2));
+
+        List<String> csv = Files.readAllLines(output.resolve(SolverBenchmark.RESULTS_CSV));
+        assertEquals(BenchmarkResult.CSV_HEADER, csv.get(0));
+        assertEquals(7, csv.size());
+        assertTrue(output.resolve(SolverBenchmark.RESULTS_JSON).toFile().isFile());
+
+        SolverBenchmark again = new SolverBenchmark(inputs + "Nodes_7_OutTree.dot", "2",
+                BenchmarkProbe.SEQUENTIAL_ENGINE, "1");
+        again.setBaseline(output.resolve(SolverBenchmark.RESULTS_CSV).toString());
+        again.setThresholdPercent(Integer.MAX_VALUE);
+        assertTrue(SolverBenchmark.passed(again.run(directory.resolve("again").toString())));
+    }
+
+    /**
+     * Tests a graph missing from the expected optima fails the benchmark rather than passing unchecked
+     */
+    @Test
+    public void testGraphMissingFromExpectedOptima() throws IOException {
+        Path directory = temporary.newFolder().toPath();
+        Path expected = directory.resolve("expected.txt");
+        Files.write(expected, Arrays.asList("Nodes_7_OutTree.dot 2 28"));
+
+        SolverBenchmark benchmark = new SolverBenchmark(AppTest.TEST_PATH + "input.dot", "2",
+                BenchmarkProbe.SEQUENTIAL_ENGINE, "1");
+        benchmark.setExpected(expected.toString());
+        List<BenchmarkResult> results = benchmark.run(directory.resolve("out").toString());
+
+        assertEquals(1, results.size());
+        assertEquals(BenchmarkResult.STATUS_NOT_EXPECTED, results.get(0).getStatus());
+        assertTrue(results.get(0).isSolved());
+        assertFalse(SolverBenchmark.passed(results));
+    }
+
+    /**
+     * Tests measuring scalability runs the sequential reference first and compares every parallel run with it, with
+     * steals counted by the fork/join pool and a busy time for each thread
+     */
+    @Test
+    public void testScalability() throws IOException {
+        Path directory = temporary.newFolder().toPath();
+        String graph = new File(AppTest.TEST_PATH, "Nodes_7_OutTree.dot").getAbsolutePath();
+        assertEquals("1,2,4,6", SolverBenchmark.scalingThreads(6));
+        assertEquals("1", SolverBenchmark.scalingThreads(1));
+
+        SolverBenchmark benchmark = new SolverBenchmark(graph, "2",
+                BenchmarkProbe.SEQUENTIAL_ENGINE + "," + BenchmarkProbe.FORK_JOIN_ENGINE, "1,2");
+        benchmark.setScalability(true);
+        List<BenchmarkResult> results = benchmark.run(directory.toString());
+
+        assertEquals(3, results.size());
+        assertEquals(BenchmarkProbe.SEQUENTIAL_ENGINE, results.get(0).getEngine());
+        assertEquals(BenchmarkResult.NOT_MEASURED, results.get(0).getSteals());
+        for (BenchmarkResult result : results) {
+            assertEquals(result.getThreads(), result.getThreadBusyMillis().length);
+        }
+        assertTrue(results.get(2).getSteals() >= 0);
+
+        ScalabilityReport report = new ScalabilityReport(results);
+        assertEquals(2, report.getRuns().size());
+        List<String> csv = Files.readAllLines(directory.resolve(SolverBenchmark.SCALABILITY_CSV));
+        assertEquals(ScalabilityReport.CSV_HEADER, csv.get(0));
+        assertEquals(3, csv.size());
+        assertTrue(csv.get(2).contains(",forkjoin,2,"));
+    }
+}
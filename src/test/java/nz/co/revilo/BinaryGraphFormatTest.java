@@ -0,0 +1,94 @@
+package nz.co.revilo;
+
+import nz.co.revilo.Input.BinaryGraphFormat;
+import nz.co.revilo.Input.FileParser;
+import nz.co.revilo.Input.ParsedGraph;
+import nz.co.revilo.Input.SparseGraph;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests converting text graphs to the binary graph format and mapping them back in
+ */
+public class BinaryGraphFormatTest {
+
+    /**
+     * Tests a converted graph is read back from its file as the same graph
+     */
+    @Test
+    public void testConvertedGraphIsTheSame() throws IOException {
+        File binary = File.createTempFile("revilo", BinaryGraphFormat.FILE_EXTENSION);
+        binary.deleteOnExit();
+        String input = "test_inputs/Fork_Join_Nodes_10_CCR_1.01_WeightType_Random.gxl";
+        try (OutputStream output = new FileOutputStream(binary)) {
+            BinaryGraphFormat.convert(input, output);
+        }
+
+        SparseGraph expected = ParsedGraph.parse(input).getGraph();
+        ParsedGraph converted = new ParsedGraph();
+        FileParser.forFile(binary.getPath()).startParsing(converted);
+        SparseGraph actual = converted.getGraph();
+
+        assertEquals(expected.getGraphName(), actual.getGraphName());
+        assertArrayEquals(expected.getNodeNames(), actual.getNodeNames());
+        assertArrayEquals(expected.getNodeWeights(), actual.getNodeWeights());
+        assertEquals(expected.getArcCount(), actual.getArcCount());
+        for (int node = 0; node < expected.getNodeCount(); node++) {
+            assertEquals(expected.outStart(node), actual.outStart(node));
+            assertEquals(expected.inStart(node), actual.inStart(node));
+        }
+        for (int arc = 0; arc < expected.getArcCount(); arc++) {
+            assertEquals(expected.outTarget(arc), actual.outTarget(arc));
+            assertEquals(expected.outWeight(arc), actual.outWeight(arc));
+            assertEquals(expected.inSource(arc), actual.inSource(arc));
+            assertEquals(expected.inWeight(arc), actual.inWeight(arc));
+        }
+    }
+
+    /**
+     * Tests a binary graph whose arcs aren't sorted, as no encoder writes them, is rejected
+     */
+    @Test
+    public void testUnsortedArcsRejected() {
+        SparseGraph graph = new SparseGraph("g", new String[]{"a", "b", "c"}, new int[]{1, 1, 1},
+                new int[]{0, 0}, new int[]{1, 2}, new int[]{1, 1}, 2);
+        ByteBuffer buffer = ByteBuffer.wrap(BinaryGraphFormat.encode(graph));
+        // Swaps the targets of node a's two arcs, which come after the header, node weights and offsets
+        int targets = Integer.BYTES * (4 + 3 + 4);
+        buffer.putInt(targets, 2).putInt(targets + Integer.BYTES, 1);
+        try {
+            BinaryGraphFormat.read(buffer);
+            fail("Unsorted arcs were read");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Arcs out of node 0 aren't sorted", e.getMessage());
+        }
+    }
+
+    /**
+     * Tests a name longer than the rest of the buffer is rejected before anything is allocated for it
+     */
+    @Test
+    public void testOverlongNameRejected() {
+        SparseGraph graph = new SparseGraph("g", new String[]{"a", "b", "c"}, new int[]{1, 1, 1},
+                new int[]{0, 0}, new int[]{1, 2}, new int[]{1, 1}, 2);
+        ByteBuffer buffer = ByteBuffer.wrap(BinaryGraphFormat.encode(graph));
+        // The graph's name follows the header, node weights, offsets, targets and arc weights
+        buffer.putInt(Integer.BYTES * (4 + 3 + 4 + 2 + 2), Integer.MAX_VALUE);
+        try {
+            BinaryGraphFormat.read(buffer);
+            fail("Overlong name was read");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Not a binary graph", e.getMessage());
+        }
+    }
+}
@@ -1,10 +1,22 @@
 package nz.co.revilo;
 
+import nz.co.revilo.Input.DotFileReader;
 import nz.co.revilo.Input.FileParser;
+import nz.co.revilo.Output.DotFileWriter;
 import nz.co.revilo.Scheduling.AlgorithmManager;
+import nz.co.revilo.Scheduling.BnBSchedule;
 import nz.co.revilo.Scheduling.BranchAndBoundAlgorithmManager;
+import nz.co.revilo.Scheduling.BudgetedBranchAndBoundAlgorithmManager;
+import nz.co.revilo.Scheduling.CheckpointingBranchAndBoundAlgorithmManager;
+import nz.co.revilo.Scheduling.CoreBudgetScheduler;
+import nz.co.revilo.Scheduling.ForkJoinBranchAndBoundAlgorithmManager;
+import nz.co.revilo.Scheduling.SearchCounters;
+import nz.co.revilo.Scheduling.SearchProfile;
+import nz.co.revilo.Scheduling.WarmStart;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
@@ -12,6 +24,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 import static nz.co.revilo.ValidityTest.satisfiesDependencies;
@@ -29,6 +42,9 @@ import static nz.co.revilo.ValidityTest.Tuple;
  */
 public class BnBTest {
 
+    @Rule
+    public TemporaryFolder temporary = new TemporaryFolder();
+
     /**
      * Tests against the simple diamond DAG
      * @author Mohan Cao
@@ -185,6 +201,166 @@ public class BnBTest {
         assertEquals(aManager2.getUpperBound(),227);
     }
 
+    /**
+     * Tests that different graphs solved at the same time in the same JVM don't interfere with each other
+     */
+    @Test
+    public void testConcurrentManagersDifferentGraphs() throws InterruptedException {
+        String[] files = {"input.dot", "input1.dot", "Nodes_10_Random.dot", "Nodes_7_OutTree.dot"};
+        int[] processors = {1, 1, 2, 2};
+        int[] expected = {10, 25, 50, 28};
+        AlgorithmManager[] managers = new AlgorithmManager[files.length];
+        TestResultListener[] listeners = new TestResultListener[files.length];
+        Thread[] threads = new Thread[files.length];
+        for (int i = 0; i < files.length; i++) {
+            managers[i] = new BranchAndBoundAlgorithmManager(processors[i]);
+            Tuple<TestResultListener,FileParser> t = schedule(managers[i], AppTest.TEST_PATH + files[i], true);
+            listeners[i] = t.getA();
+            final int graph = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    t.getB().startParsing(managers[graph]);
+                } catch (FileNotFoundException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < files.length; i++) {
+            assertTrue(satisfiesDependencies(listeners[i]));
+            assertTrue(validStartTimeForTasks(listeners[i]));
+            assertEquals(expected[i], managers[i].getUpperBound());
+        }
+    }
+
+    /**
+     * Tests that sharing the search out over a fork join pool still finds the optimal schedule
+     */
+    @Test
+    public void testForkJoin10NodesRandom() throws FileNotFoundException {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        AlgorithmManager aManager = new ForkJoinBranchAndBoundAlgorithmManager(2, pool);
+        Tuple<TestResultListener,FileParser> t = schedule(aManager,AppTest.TEST_PATH + "Nodes_10_Random.dot",true);
+        t.getB().startParsing(aManager);
+        pool.shutdown();
+        assertTrue(satisfiesDependencies(t.getA()));
+        assertTrue(validStartTimeForTasks(t.getA()));
+        assertEquals(50, aManager.getUpperBound());
+    }
+
+    /**
+     * Tests that graphs solved at the same time on a budgeted scheduler, with threads moving between them, are all
+     * still solved optimally
+     */
+    @Test(timeout=30000)
+    public void testBudgetedSchedulerConcurrentGraphs() throws InterruptedException {
+        String[] files = {"input.dot", "input1.dot", "Nodes_10_Random.dot", "Nodes_7_OutTree.dot"};
+        int[] processors = {1, 1, 2, 2};
+        int[] priorities = {1, 3, 1, 2};
+        long[] deadlines = {CoreBudgetScheduler.NO_DEADLINE, 50, CoreBudgetScheduler.NO_DEADLINE, 1000};
+        int[] expected = {10, 25, 50, 28};
+        CoreBudgetScheduler scheduler = new CoreBudgetScheduler(3);
+        AlgorithmManager[] managers = new AlgorithmManager[files.length];
+        TestResultListener[] listeners = new TestResultListener[files.length];
+        Thread[] threads = new Thread[files.length];
+        for (int i = 0; i < files.length; i++) {
+            managers[i] = new BudgetedBranchAndBoundAlgorithmManager(processors[i], scheduler, priorities[i], deadlines[i]);
+            Tuple<TestResultListener,FileParser> t = schedule(managers[i], AppTest.TEST_PATH + files[i], true);
+            listeners[i] = t.getA();
+            final int graph = i;
+            threads[i] = new Thread(() -> {
+                try {
+                    t.getB().startParsing(managers[graph]);
+                } catch (FileNotFoundException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, scheduler.getActiveJobs());
+        scheduler.close();
+        for (int i = 0; i < files.length; i++) {
+            assertTrue(satisfiesDependencies(listeners[i]));
+            assertTrue(validStartTimeForTasks(listeners[i]));
+            assertEquals(expected[i], managers[i].getUpperBound());
+        }
+    }
+
+    /**
+     * Tests that starting from the schedule of a graph before a weight changed still finds the optimal schedule of the
+     * changed graph, with no more searching than starting cold
+     */
+    @Test
+    public void testWarmStartAfterWeightChange() throws IOException {
+        Path previous = temporary.newFile("previous.dot").toPath();
+        AlgorithmManager first = new BranchAndBoundAlgorithmManager(2);
+        first.inform(new DotFileWriter(previous.toString()));
+        new DotFileReader(AppTest.TEST_PATH + "Nodes_10_Random.dot").startParsing(first);
+
+        AlgorithmManager cold = new BranchAndBoundAlgorithmManager(2);
+        solveWithChangedWeight(cold);
+        AlgorithmManager warm = new BranchAndBoundAlgorithmManager(2);
+        warm.setWarmStart(WarmStart.fromFile(previous.toString()));
+        TestResultListener listener = new TestResultListener(true);
+        warm.inform(listener);
+        solveWithChangedWeight(warm);
+
+        assertTrue(satisfiesDependencies(listener));
+        assertTrue(validStartTimeForTasks(listener));
+        assertEquals(cold.getUpperBound(), warm.getUpperBound());
+        assertTrue(warm.getExploredStates() <= cold.getExploredStates());
+    }
+
+    private static void solveWithChangedWeight(AlgorithmManager manager) throws FileNotFoundException {
+        new DotFileReader(AppTest.TEST_PATH + "Nodes_10_Random.dot").startParsing((graphName, nodeNames, nodeWeights, arcs, arcWeights) -> {
+            nodeWeights[3] += 4;
+            manager.ParsingResults(graphName, nodeNames, nodeWeights, arcs, arcWeights);
+        });
+    }
+
+    /**
+     * Tests that a search stopped part way through carries on from its checkpoint to the optimal schedule, and that
+     * the checkpoint is removed once it is done
+     */
+    @Test(timeout=30000)
+    public void testResumeFromCheckpoint() throws IOException {
+        Path checkpoint = temporary.getRoot().toPath().resolve("checkpoint.bin");
+        AlgorithmManager crashed = new CheckpointingBranchAndBoundAlgorithmManager(2, checkpoint.toString(), 0, false) {
+            @Override
+            protected void bnb(BnBSchedule schedule) {
+                if (getExploredStates() >= 700) {
+                    throw new IllegalStateException("stopped");
+                }
+                super.bnb(schedule);
+            }
+        };
+        try {
+            new DotFileReader(AppTest.TEST_PATH + "Nodes_10_Random.dot").startParsing(crashed);
+            fail("Search should have been stopped");
+        } catch (IllegalStateException e) {
+            assertTrue(Files.exists(checkpoint));
+        }
+
+        AlgorithmManager resumed = new CheckpointingBranchAndBoundAlgorithmManager(2, checkpoint.toString(), 0, true);
+        Tuple<TestResultListener,FileParser> t = schedule(resumed, AppTest.TEST_PATH + "Nodes_10_Random.dot", true);
+        t.getB().startParsing(resumed);
+        assertTrue(satisfiesDependencies(t.getA()));
+        assertTrue(validStartTimeForTasks(t.getA()));
+        assertEquals(50, resumed.getUpperBound());
+        assertTrue(resumed.getExploredStates() > 700);
+        assertFalse(Files.exists(checkpoint));
+    }
+
     /**
      * auto-generated using a python script
      * @author Michael Kemp, Mohan Cao
@@ -4130,4 +4306,67 @@ public class BnBTest {
         assertEquals(aManager.getUpperBound(), 46);
     }
 
+    /**
+     * Tests the search counters break pruned states down by cause and add up every thread's counts when read
+     */
+    @Test
+    public void testSearchCounters() throws Exception {
+        AlgorithmManager manager = new ForkJoinBranchAndBoundAlgorithmManager(2, new ForkJoinPool(2));
+        new DotFileReader(AppTest.TEST_PATH + "Nodes_10_Random.dot").startParsing(manager);
+        long[] counted = manager.getCounters().snapshot();
+        assertEquals(manager.getExploredStates(), counted[SearchCounters.EXPLORED]);
+        assertEquals(manager.getBrokenTrees(),
+                counted[SearchCounters.PRUNED_BY_BOUND] + counted[SearchCounters.PRUNED_AS_DUPLICATE]);
+        assertTrue(counted[SearchCounters.PRUNED_BY_BOUND] > 0);
+        assertTrue(counted[SearchCounters.PRUNED_AS_DUPLICATE] > 0);
+        assertTrue(counted[SearchCounters.INCUMBENT_UPDATES] >= 1);
+        assertTrue(counted[SearchCounters.COMPLETIONS] >= 1);
+
+        SearchCounters counters = new SearchCounters();
+        Thread[] threads = new Thread[4];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(() -> {
+                for (int count = 0; count < 10000; count++) {
+                    counters.increment(SearchCounters.EXPLORED);
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, counters.get(SearchCounters.EXPLORED));
+        assertEquals(4, counters.getThreads());
+    }
+
+    /**
+     * Tests the search profile adds up to the search's counts, with the roots generated from the empty schedule and
+     * every depth's children generated from the one before
+     */
+    @Test
+    public void testSearchProfile() throws Exception {
+        AlgorithmManager manager = new BranchAndBoundAlgorithmManager(2);
+        new DotFileReader(AppTest.TEST_PATH + "Nodes_10_Random.dot").startParsing(manager);
+        SearchProfile profile = manager.getSearchProfile();
+        assertEquals(11, profile.getDepths());
+        long explored = 0;
+        long pruned = 0;
+        for (int depth = 0; depth < profile.getDepths(); depth++) {
+            explored += profile.get(depth, SearchCounters.EXPLORED);
+            pruned += profile.get(depth, SearchCounters.PRUNED_BY_BOUND)
+                    + profile.get(depth, SearchCounters.PRUNED_AS_DUPLICATE);
+            assertTrue(profile.get(depth, SearchCounters.EXPANDED) <= profile.get(depth, SearchCounters.EXPLORED)
+                    || depth == 0);
+        }
+        assertEquals(manager.getExploredStates(), explored);
+        assertEquals(manager.getBrokenTrees(), pruned);
+        assertEquals(1, profile.get(0, SearchCounters.EXPANDED));
+        assertTrue(profile.getBranchingFactor(0) >= 1);
+        assertTrue(profile.getBranchingFactor(1) > 0);
+        assertTrue(profile.get(10, SearchCounters.COMPLETIONS) >= 1);
+
+        List<String> csv = profile.toCsv();
+        assertEquals(SearchProfile.CSV_HEADER, csv.get(0));
+        assertTrue(csv.get(1).startsWith("0,"));
+    }
 }
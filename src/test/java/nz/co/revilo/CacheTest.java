@@ -0,0 +1,164 @@
+package nz.co.revilo;
+
+import nz.co.revilo.Cache.CanonicalGraph;
+import nz.co.revilo.Cache.ResultCache;
+import nz.co.revilo.Input.ParsedGraph;
+import nz.co.revilo.Scheduling.AlgorithmManager;
+import nz.co.revilo.Scheduling.BranchAndBoundAlgorithmManager;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static nz.co.revilo.ValidityTest.satisfiesDependencies;
+import static nz.co.revilo.ValidityTest.validStartTimeForTasks;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests reusing schedules through the result cache
+ */
+public class CacheTest {
+
+    @Rule
+    public TemporaryFolder temporary = new TemporaryFolder();
+
+    // Node i of the test graph becomes node PERMUTATION[i] of the renamed graph
+    private static final int[] PERMUTATION = {7, 2, 9, 0, 5, 3, 8, 1, 6, 4};
+
+    /**
+     * Tests that renaming and reordering the nodes of a graph doesn't change its hash but changing a weight does
+     */
+    @Test
+    public void testCanonicalHash() throws FileNotFoundException {
+        Graph graph = new Graph(AppTest.TEST_PATH + "Nodes_10_Random.dot");
+        Graph renamed = graph.permuted();
+        assertEquals(CanonicalGraph.of(graph._nodeWeights, graph._arcs, graph._arcWeights).getHash(),
+                CanonicalGraph.of(renamed._nodeWeights, renamed._arcs, renamed._arcWeights).getHash());
+
+        renamed._nodeWeights[0]++;
+        assertNotEquals(CanonicalGraph.of(graph._nodeWeights, graph._arcs, graph._arcWeights).getHash(),
+                CanonicalGraph.of(renamed._nodeWeights, renamed._arcs, renamed._arcWeights).getHash());
+    }
+
+    /**
+     * Tests that a renamed, reordered graph is answered from the cache, from memory and from disk, with a valid
+     * optimal schedule and no search
+     */
+    @Test
+    public void testRenamedGraphHitsCache() throws IOException {
+        String directory = temporary.getRoot().getPath();
+        ResultCache cache = new ResultCache(directory);
+        Graph graph = new Graph(AppTest.TEST_PATH + "Nodes_10_Random.dot");
+
+        AlgorithmManager solved = new BranchAndBoundAlgorithmManager(2);
+        solved.setResultCache(cache);
+        graph.solve(solved);
+        assertEquals(50, solved.getUpperBound());
+        assertEquals(0, cache.getHits());
+
+        Graph renamed = graph.permuted();
+        for (ResultCache used : new ResultCache[]{cache, new ResultCache(directory)}) {
+            AlgorithmManager cached = new BranchAndBoundAlgorithmManager(2);
+            cached.setResultCache(used);
+            TestResultListener listener = new TestResultListener(true);
+            cached.inform(listener);
+            renamed.solve(cached);
+            assertEquals(1, used.getHits());
+            assertEquals(0, cached.getExploredStates());
+            assertEquals(50, cached.getUpperBound());
+            assertTrue(satisfiesDependencies(listener));
+            assertTrue(validStartTimeForTasks(listener));
+        }
+
+        // A different number of processors has to be searched
+        AlgorithmManager otherProcessors = new BranchAndBoundAlgorithmManager(1);
+        otherProcessors.setResultCache(cache);
+        renamed.solve(otherProcessors);
+        assertTrue(otherProcessors.getExploredStates() > 0);
+    }
+
+    /**
+     * Tests that entries with a length beyond the file, or cut short, are missed and searched again rather than
+     * failing the solve
+     */
+    @Test
+    public void testCorruptEntriesMissed() throws IOException {
+        String directory = temporary.getRoot().getPath();
+        Graph graph = new Graph(AppTest.TEST_PATH + "Nodes_10_Random.dot");
+        AlgorithmManager solved = new BranchAndBoundAlgorithmManager(2);
+        solved.setResultCache(new ResultCache(directory));
+        graph.solve(solved);
+        File[] entries = temporary.getRoot().listFiles((dir, name) -> name.endsWith(ResultCache.FILE_EXTENSION));
+        assertEquals(1, entries.length);
+        byte[] entry = Files.readAllBytes(entries[0].toPath());
+
+        byte[] hugeLength = entry.clone();
+        ByteBuffer.wrap(hugeLength).putInt(3 * Integer.BYTES, Integer.MAX_VALUE);
+        byte[] truncated = Arrays.copyOf(entry, entry.length - Integer.BYTES);
+        for (byte[] corrupt : new byte[][]{hugeLength, truncated}) {
+            Files.write(entries[0].toPath(), corrupt);
+            ResultCache cache = new ResultCache(directory);
+            AlgorithmManager searched = new BranchAndBoundAlgorithmManager(2);
+            searched.setResultCache(cache);
+            graph.solve(searched);
+            assertEquals(1, cache.getMisses());
+            assertEquals(50, searched.getUpperBound());
+            assertTrue(searched.getExploredStates() > 0);
+        }
+    }
+
+    /**
+     * A parsed graph which can be renamed and reordered
+     */
+    private static class Graph {
+        String _graphName;
+        String[] _nodeNames;
+        int[] _nodeWeights;
+        boolean[][] _arcs;
+        int[][] _arcWeights;
+
+        Graph() {
+        }
+
+        Graph(String filename) throws FileNotFoundException {
+            ParsedGraph.parse(filename).replay((graphName, nodeNames, nodeWeights, arcs, arcWeights) -> {
+                _graphName = graphName;
+                _nodeNames = nodeNames;
+                _nodeWeights = nodeWeights;
+                _arcs = arcs;
+                _arcWeights = arcWeights;
+            });
+        }
+
+        Graph permuted() {
+            int numNodes = _nodeWeights.length;
+            Graph permuted = new Graph();
+            permuted._graphName = _graphName;
+            permuted._nodeNames = new String[numNodes];
+            permuted._nodeWeights = new int[numNodes];
+            permuted._arcs = new boolean[numNodes][numNodes];
+            permuted._arcWeights = new int[numNodes][numNodes];
+            for (int node = 0; node < numNodes; node++) {
+                permuted._nodeNames[PERMUTATION[node]] = "renamed" + node;
+                permuted._nodeWeights[PERMUTATION[node]] = _nodeWeights[node];
+                for (int to = 0; to < numNodes; to++) {
+                    permuted._arcs[PERMUTATION[node]][PERMUTATION[to]] = _arcs[node][to];
+                    permuted._arcWeights[PERMUTATION[node]][PERMUTATION[to]] = _arcWeights[node][to];
+                }
+            }
+            return permuted;
+        }
+
+        void solve(AlgorithmManager manager) {
+            manager.ParsingResults(_graphName, _nodeNames, _nodeWeights.clone(), _arcs, _arcWeights);
+        }
+    }
+}
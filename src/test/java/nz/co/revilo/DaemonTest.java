@@ -0,0 +1,94 @@
+package nz.co.revilo;
+
+import nz.co.revilo.Daemon.DaemonClient;
+import nz.co.revilo.Daemon.DaemonProtocol;
+import nz.co.revilo.Daemon.SolverDaemon;
+import nz.co.revilo.Input.BinaryGraphFormat;
+import nz.co.revilo.Input.DotFileReader;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests solving graphs through the daemon
+ */
+public class DaemonTest {
+
+    /**
+     * Tests that one connection can solve DOT, GXL and binary graphs and then shut the daemon down
+     */
+    @Test(timeout = 30000)
+    public void testDaemonSolvesEachFormat() throws IOException, InterruptedException {
+        SolverDaemon daemon = new SolverDaemon(0, 2);
+        Thread server = new Thread(daemon::serve);
+        server.start();
+
+        try (DaemonClient client = new DaemonClient(daemon.getPort())) {
+            DaemonClient.Result dot = client.solve(AppTest.TEST_PATH + "input.dot", 1);
+            assertEquals(10, dot.getMakespan());
+            assertEquals(4, dot.getNodes());
+            assertTrue(dot.getSchedule().startsWith("digraph \"outputMydiamond\" {"));
+
+            DaemonClient.Result gxl = client.solve(AppTest.TEST_PATH + "Fork_Nodes_10_CCR_0.10_WeightType_Random.gxl", 2);
+            assertEquals(10, gxl.getNodes());
+
+            byte[][] binary = new byte[1][];
+            new DotFileReader(AppTest.TEST_PATH + "Nodes_10_Random.dot").startParsing((graphName, nodeNames, nodeWeights, arcs, arcWeights) ->
+                    binary[0] = BinaryGraphFormat.encode(graphName, nodeNames, nodeWeights, arcs, arcWeights));
+            assertEquals(50, client.solve("Nodes_10_Random.rvg", DaemonProtocol.BINARY_FORMAT, binary[0], 2).getMakespan());
+
+            try {
+                client.solve("broken.rvg", DaemonProtocol.BINARY_FORMAT, new byte[]{1, 2, 3}, 2);
+                fail("Broken graph was solved");
+            } catch (RuntimeException re) {
+                assertTrue(re.getMessage().startsWith("Input file could not be parsed"));
+            }
+
+            client.shutdownDaemon();
+        }
+        server.join();
+    }
+
+    /**
+     * Tests that graph lengths which are negative or too long are answered with an error without stopping the daemon
+     */
+    @Test(timeout = 30000)
+    public void testBadLengthsRejected() throws IOException, InterruptedException {
+        SolverDaemon daemon = new SolverDaemon(0, 1);
+        daemon.setMaxGraphBytes(1024);
+        Thread server = new Thread(daemon::serve);
+        server.start();
+
+        for (int length : new int[]{-1, Integer.MAX_VALUE}) {
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort());
+                 DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                 DataInputStream in = new DataInputStream(socket.getInputStream())) {
+                out.writeInt(DaemonProtocol.MAGIC);
+                out.writeByte(DaemonProtocol.SOLVE);
+                out.writeByte(DaemonProtocol.DOT_FORMAT);
+                out.writeInt(1);
+                out.writeInt(1);
+                out.writeLong(0);
+                out.writeUTF("bad.dot");
+                out.writeInt(length);
+                out.flush();
+                assertEquals(DaemonProtocol.ERROR, in.readByte());
+                assertEquals("Graph of " + length + " bytes is not between 0 and 1024 bytes", in.readUTF());
+            }
+        }
+
+        try (DaemonClient client = new DaemonClient(daemon.getPort())) {
+            assertEquals(10, client.solve(AppTest.TEST_PATH + "input.dot", 1).getMakespan());
+            client.shutdownDaemon();
+        }
+        server.join();
+    }
+}
@@ -0,0 +1,114 @@
+package nz.co.revilo;
+
+import nz.co.revilo.Distributed.DistributedProtocol;
+import nz.co.revilo.Distributed.SearchCoordinator;
+import nz.co.revilo.Distributed.SearchWorker;
+import nz.co.revilo.Input.DotFileReader;
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import static nz.co.revilo.ValidityTest.satisfiesDependencies;
+import static nz.co.revilo.ValidityTest.validStartTimeForTasks;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests sharing a search between worker processes, run here as threads talking over loopback
+ */
+public class DistributedTest {
+
+    /**
+     * Tests that workers find the optimal schedule together, even when a worker dies holding a subtree
+     */
+    @Test(timeout = 60000)
+    public void testWorkersFindOptimalWhenOneDies() throws Exception {
+        SearchCoordinator coordinator = new SearchCoordinator(2, 0);
+        TestResultListener listener = new TestResultListener(true);
+        coordinator.inform(listener);
+        Throwable[] failure = new Throwable[1];
+        Thread search = new Thread(() -> {
+            try {
+                new DotFileReader(AppTest.TEST_PATH + "Nodes_10_Random.dot").startParsing(coordinator);
+            } catch (Throwable t) {
+                failure[0] = t;
+            }
+        });
+        search.start();
+
+        takeSubtreeAndDie(coordinator);
+
+        List<Thread> workers = new ArrayList<>();
+        int[] subtrees = new int[2];
+        for (int i = 0; i < subtrees.length; i++) {
+            int worker = i;
+            Thread thread = new Thread(() -> {
+                try (SearchWorker searchWorker = new SearchWorker(coordinator.getPort())) {
+                    searchWorker.run();
+                    subtrees[worker] = searchWorker.getSubtrees();
+                } catch (IOException e) {
+                    failure[0] = e;
+                }
+            });
+            thread.start();
+            workers.add(thread);
+        }
+
+        search.join();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(null, failure[0]);
+        assertEquals(50, coordinator.getUpperBound());
+        assertTrue(satisfiesDependencies(listener));
+        assertTrue(validStartTimeForTasks(listener));
+        assertTrue(subtrees[0] + subtrees[1] > 0);
+    }
+
+    /**
+     * Tests that the coordinator searches the subtrees left itself once the only worker has died, rather than waiting
+     * for workers forever
+     */
+    @Test(timeout = 60000)
+    public void testCoordinatorFinishesWhenEveryWorkerDies() throws Exception {
+        SearchCoordinator coordinator = new SearchCoordinator(2, 0);
+        TestResultListener listener = new TestResultListener(true);
+        coordinator.inform(listener);
+        Throwable[] failure = new Throwable[1];
+        Thread search = new Thread(() -> {
+            try {
+                new DotFileReader(AppTest.TEST_PATH + "Nodes_10_Random.dot").startParsing(coordinator);
+            } catch (Throwable t) {
+                failure[0] = t;
+            }
+        });
+        search.start();
+
+        takeSubtreeAndDie(coordinator);
+
+        search.join();
+        assertEquals(null, failure[0]);
+        assertEquals(50, coordinator.getUpperBound());
+        assertTrue(satisfiesDependencies(listener));
+        assertTrue(validStartTimeForTasks(listener));
+    }
+
+    /**
+     * Connects as a worker, takes a subtree and disconnects without searching it
+     */
+    private static void takeSubtreeAndDie(SearchCoordinator coordinator) throws IOException {
+        try (Socket dying = new Socket(InetAddress.getLoopbackAddress(), coordinator.getPort())) {
+            DataInputStream in = new DataInputStream(dying.getInputStream());
+            assertEquals(DistributedProtocol.GRAPH, in.readByte());
+            assertEquals(DistributedProtocol.MAGIC, in.readInt());
+            in.readInt();
+            in.readFully(new byte[in.readInt()]);
+            assertEquals(DistributedProtocol.WORK, in.readByte());
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package nz.co.revilo;
+
+import nz.co.revilo.Input.DotFileReader;
+import nz.co.revilo.Input.FileParser;
+import nz.co.revilo.Input.ParsedGraph;
+import nz.co.revilo.Input.SparseGraph;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests reading DOT laid out in ways other than one statement per line
+ */
+public class DotFileReaderTest {
+
+    /**
+     * Tests several statements to a line, statements over several lines, quoted names, comments, extra attributes,
+     * arc chains and arcs given before their nodes
+     */
+    @Test
+    public void testFreeFormDot() throws FileNotFoundException {
+        Object[] graph = parse("/* generated */ strict digraph \"free \\\"form\\\"\" {\n"
+                + "  graph [CCR=1.0, \"No of nodes\"=4]; rankdir = LR\n"
+                + "  a -> \"b c\" [color=red, Weight = 3];\n"
+                + "# whole line comment\n"
+                + "  a [Weight=2]; \"b c\"\n"
+                + "    [shape=box]\n"
+                + "    [weight=\"5\"]\n"
+                + "  // another comment\n"
+                + "  \"b c\"->d->e [Weight=1] d [Weight=4] e [Weight=6]\n"
+                + "}\n");
+        assertEquals("free \"form\"", graph[0]);
+        assertArrayEquals(new String[]{"a", "b c", "d", "e"}, (String[]) graph[1]);
+        assertArrayEquals(new int[]{2, 5, 4, 6}, (int[]) graph[2]);
+        boolean[][] arcs = (boolean[][]) graph[3];
+        int[][] arcWeights = (int[][]) graph[4];
+        assertTrue(arcs[0][1] && arcs[1][2] && arcs[2][3]);
+        assertFalse(arcs[1][0] || arcs[0][2]);
+        assertEquals(3, arcWeights[0][1]);
+        assertEquals(1, arcWeights[1][2]);
+        assertEquals(1, arcWeights[2][3]);
+        assertEquals(DotFileReader.DEFAULT_WEIGHT, arcWeights[0][3]);
+    }
+
+    /**
+     * Tests that broken input is reported with where it broke
+     */
+    @Test
+    public void testBrokenDotReportsLine() throws FileNotFoundException {
+        for (String broken : new String[]{"digraph g {\n a [Weight=x];\n}", "digraph g {\n a -> ;\n}", "graph g {\n}",
+                "digraph g {\n a [Weight=1];\n \"open\n}"}) {
+            try {
+                parse(broken);
+                fail("Broken graph was read: " + broken);
+            } catch (RuntimeException e) {
+                assertTrue(e.getMessage(), e.getMessage().matches("test\\.dot line \\d: .*"));
+            }
+        }
+    }
+
+    /**
+     * Tests a file big enough to be read in chunks gives the same graph as reading it in one go, even with statements,
+     * comments and quoted names over several lines where the chunks could start
+     */
+    @Test
+    public void testChunkedDotMatchesOneGo() throws FileNotFoundException {
+        ByteBuffer dot = ByteBuffer.wrap(largeDot().getBytes(StandardCharsets.UTF_8));
+        SparseGraph expected = parseSparse(dot, 1);
+        SparseGraph actual = parseSparse(dot, 4);
+
+        assertEquals(expected.getGraphName(), actual.getGraphName());
+        assertArrayEquals(expected.getNodeNames(), actual.getNodeNames());
+        assertArrayEquals(expected.getNodeWeights(), actual.getNodeWeights());
+        assertEquals(expected.getArcCount(), actual.getArcCount());
+        for (int node = 0; node < expected.getNodeCount(); node++) {
+            assertEquals(expected.outStart(node), actual.outStart(node));
+        }
+        for (int arc = 0; arc < expected.getArcCount(); arc++) {
+            assertEquals(expected.outTarget(arc), actual.outTarget(arc));
+            assertEquals(expected.outWeight(arc), actual.outWeight(arc));
+        }
+    }
+
+    /**
+     * Tests a mistake in a file read in chunks is still reported with its line
+     */
+    @Test
+    public void testChunkedBrokenDotReportsLine() throws FileNotFoundException {
+        String dot = largeDot();
+        int lines = dot.split("\n").length;
+        try {
+            parseSparse(ByteBuffer.wrap((dot.substring(0, dot.length() - 2) + "a -> ;\n}\n")
+                    .getBytes(StandardCharsets.UTF_8)), 4);
+            fail("Broken graph was read");
+        } catch (RuntimeException e) {
+            assertEquals("test.dot line " + lines + ": Expected a node after ->", e.getMessage());
+        }
+    }
+
+    /**
+     * Tests a compressed file and a stream of unknown format, compressed or not, are read as the plain file is
+     */
+    @Test
+    public void testCompressedAndStreamedInput() throws IOException {
+        String dot = "test_inputs/Nodes_10_Random.dot";
+        String gxl = "test_inputs/Fork_Join_Nodes_10_CCR_1.01_WeightType_Random.gxl";
+        SparseGraph expectedDot = ParsedGraph.parse(dot).getGraph();
+        SparseGraph expectedGxl = ParsedGraph.parse(gxl).getGraph();
+
+        File compressed = File.createTempFile("revilo", ".dot" + FileParser.COMPRESSED_EXTENSION);
+        compressed.deleteOnExit();
+        Files.write(compressed.toPath(), gzip(Files.readAllBytes(Paths.get(dot))));
+        assertSameGraph(expectedDot, ParsedGraph.parse(compressed.getPath()).getGraph());
+
+        assertSameGraph(expectedDot, parseStream(Files.readAllBytes(Paths.get(dot))));
+        assertSameGraph(expectedGxl, parseStream(Files.readAllBytes(Paths.get(gxl))));
+        assertSameGraph(expectedGxl, parseStream(gzip(Files.readAllBytes(Paths.get(gxl)))));
+    }
+
+    private static SparseGraph parseStream(byte[] graph) throws IOException {
+        ParsedGraph parsed = new ParsedGraph();
+        FileParser.forStream(FileParser.STANDARD_INPUT_NAME, new ByteArrayInputStream(graph)).startParsing(parsed);
+        return parsed.getGraph();
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream output = new GZIPOutputStream(compressed)) {
+            output.write(bytes);
+        }
+        return compressed.toByteArray();
+    }
+
+    private static void assertSameGraph(SparseGraph expected, SparseGraph actual) {
+        assertArrayEquals(expected.getNodeNames(), actual.getNodeNames());
+        assertArrayEquals(expected.getNodeWeights(), actual.getNodeWeights());
+        assertEquals(expected.getArcCount(), actual.getArcCount());
+        for (int arc = 0; arc < expected.getArcCount(); arc++) {
+            assertEquals(expected.outTarget(arc), actual.outTarget(arc));
+        }
+    }
+
+    /**
+     * @return DOT of about 5MB, with later statements giving nodes new weights
+     */
+    private static String largeDot() {
+        StringBuilder dot = new StringBuilder("digraph large {\n");
+        Random random = new Random(1);
+        int nodes = 20000;
+        for (int line = 0; dot.length() < 5 << 20; line++) {
+            int from = random.nextInt(nodes);
+            String to = random.nextInt(50) == 0 ? "\"quoted\n" + random.nextInt(nodes) + "\"" : "n" + random.nextInt(nodes);
+            switch (line % 6) {
+                case 0:
+                    dot.append("n").append(from).append(" [Weight=").append(random.nextInt(9) + 1).append("];\n");
+                    break;
+                case 1:
+                    dot.append("n").append(from).append(" ->\n  ").append(to).append("\n  [Weight=2]\n");
+                    break;
+                case 2:
+                    dot.append("/* comment\n over lines */ n").append(from).append(" -> ").append(to).append(";\n");
+                    break;
+                default:
+                    dot.append("n").append(from).append(" -> ").append(to).append(" [Weight=")
+                            .append(random.nextInt(9) + 1).append("];\n");
+            }
+        }
+        return dot.append("}\n").toString();
+    }
+
+    private static SparseGraph parseSparse(ByteBuffer dot, int threads) throws FileNotFoundException {
+        DotFileReader reader = new DotFileReader("test.dot", dot);
+        reader.setThreads(threads);
+        ParsedGraph graph = new ParsedGraph();
+        reader.startParsing(graph);
+        return graph.getGraph();
+    }
+
+    private static Object[] parse(String dot) throws FileNotFoundException {
+        Object[] graph = new Object[5];
+        new DotFileReader("test.dot", ByteBuffer.wrap(dot.getBytes(StandardCharsets.UTF_8))).startParsing(
+                (graphName, nodeNames, nodeWeights, arcs, arcWeights) -> {
+                    graph[0] = graphName;
+                    graph[1] = nodeNames;
+                    graph[2] = nodeWeights;
+                    graph[3] = arcs;
+                    graph[4] = arcWeights;
+                });
+        return graph;
+    }
+}
@@ -0,0 +1,129 @@
+package nz.co.revilo;
+
+import nz.co.revilo.Generator.GraphFileWriter;
+import nz.co.revilo.Generator.GraphGenerator;
+import nz.co.revilo.Input.ParsedGraph;
+import nz.co.revilo.Input.SparseGraph;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests generating graphs of each family and reading them back
+ */
+public class GeneratorTest {
+
+    @Rule
+    public TemporaryFolder temporary = new TemporaryFolder();
+
+    /**
+     * Tests every family makes a graph with arcs only from lower to higher nodes, near the ratio asked for and named
+     * as test_inputs are, which reads back the same from each format
+     */
+    @Test
+    public void testFamiliesReadBack() throws IOException {
+        Path directory = temporary.getRoot().toPath();
+        for (String family : GraphGenerator.FAMILIES.split(",")) {
+            GraphGenerator generator = new GraphGenerator(family, 50);
+            generator.setCcr(2.0);
+            SparseGraph graph = generator.generate();
+            assertEquals(50, graph.getNodeCount());
+            assertTrue(graph.getGraphName(), graph.getGraphName().startsWith(family));
+            assertTrue(graph.getGraphName(), graph.getGraphName().endsWith("_WeightType_Random"));
+            long computation = 0;
+            long communication = 0;
+            for (int node = 0; node < graph.getNodeCount(); node++) {
+                computation += graph.getNodeWeight(node);
+                for (int arc = graph.outStart(node); arc < graph.outEnd(node); arc++) {
+                    assertTrue(graph.outTarget(arc) > node);
+                    communication += graph.outWeight(arc);
+                }
+            }
+            if (family.equals(GraphGenerator.INDEPENDENT)) {
+                assertEquals(0, graph.getArcCount());
+            } else {
+                assertEquals(2.0, (double) communication / computation, 0.2);
+            }
+
+            for (String format : Arrays.asList(GraphFileWriter.DOT_FORMAT, GraphFileWriter.GXL_FORMAT,
+                    GraphFileWriter.BINARY_FORMAT)) {
+                File file = directory.resolve(graph.getGraphName() + GraphFileWriter.extensionOf(format)).toFile();
+                try (OutputStream output = Files.newOutputStream(file.toPath())) {
+                    GraphFileWriter.write(graph, format, output);
+                }
+                SparseGraph read = ParsedGraph.parse(file.getPath()).getGraph();
+                assertEquals(graph.getGraphName(), read.getGraphName());
+                assertArrayEquals(graph.getNodeWeights(), read.getNodeWeights());
+                assertEquals(graph.getArcCount(), read.getArcCount());
+                for (int node = 0; node < graph.getNodeCount(); node++) {
+                    for (int arc = graph.outStart(node); arc < graph.outEnd(node); arc++) {
+                        int to = read.indexOf(graph.getNodeName(graph.outTarget(arc)));
+                        assertEquals(graph.outWeight(arc), read.getArcWeight(read.indexOf(graph.getNodeName(node)), to));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Tests the shapes of trees and that the same seed makes the same graph while another seed doesn't
+     */
+    @Test
+    public void testTreesAndSeeds() throws IOException {
+        GraphGenerator balanced = new GraphGenerator(GraphGenerator.OUT_TREE, 13);
+        SparseGraph tree = balanced.generate();
+        assertEquals("OutTree-Balanced-MaxBf-3_Nodes_13", tree.getGraphName().substring(0, 33));
+        assertEquals(12, tree.getArcCount());
+        for (int node = 0; node < 4; node++) {
+            assertEquals(3, tree.outEnd(node) - tree.outStart(node));
+        }
+
+        GraphGenerator inTree = new GraphGenerator(GraphGenerator.IN_TREE, 30);
+        inTree.setBalanced(false);
+        inTree.setBranching(2);
+        SparseGraph in = inTree.generate();
+        assertEquals(29, in.getArcCount());
+        for (int node = 0; node < 29; node++) {
+            assertEquals(1, in.outEnd(node) - in.outStart(node));
+            assertTrue(in.inEnd(node) - in.inStart(node) <= 2);
+        }
+
+        GraphGenerator random = new GraphGenerator(GraphGenerator.RANDOM, 40);
+        random.setWeights(GraphGenerator.BIMODAL_WEIGHTS);
+        String first = dot(random.generate());
+        assertEquals(first, dot(random.generate()));
+        random.setSeed(2);
+        assertFalse(first.equals(dot(random.generate())));
+    }
+
+    /**
+     * Tests a large graph is generated quickly enough for scaling tests
+     */
+    @Test(timeout = 20000)
+    public void testLargeGraph() {
+        GraphGenerator generator = new GraphGenerator(GraphGenerator.SERIES_PARALLEL, 50000);
+        generator.setWeights(GraphGenerator.EXPONENTIAL_WEIGHTS);
+        SparseGraph graph = generator.generate();
+        assertEquals(50000, graph.getNodeCount());
+        assertTrue(graph.getArcCount() >= 49999);
+    }
+
+    private static String dot(SparseGraph graph) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        GraphFileWriter.write(graph, GraphFileWriter.DOT_FORMAT, output);
+        return output.toString("UTF-8");
+    }
+}
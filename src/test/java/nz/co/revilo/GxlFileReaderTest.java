@@ -0,0 +1,43 @@
+package nz.co.revilo;
+
+import nz.co.revilo.Input.GxlFileReader;
+import org.junit.Test;
+
+import java.io.FileNotFoundException;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests reading GXL which isn't one element per line
+ */
+public class GxlFileReaderTest {
+
+    /**
+     * Tests GXL on a single line, with an edge before its nodes, attributes split over lines and attrs other than
+     * Weight
+     */
+    @Test
+    public void testUnformattedGxl() throws FileNotFoundException {
+        String gxl = "<?xml version=\"1.0\"?><gxl><graph id=\"flat\"><attr name=\"Weight\"><int>99</int></attr>"
+                + "<edge from=\"a\" to=\"b\"><attr name=\"Weight\"><int> 7 </int></attr></edge>"
+                + "<node\n   id=\"b\"><attr name=\"Colour\"><string>red</string></attr><attr\nname=\"Weight\"><int>3</int></attr></node>"
+                + "<node id=\"a\"><attr name=\"Weight\"><int>2</int></attr></node></graph></gxl>";
+        Object[] graph = new Object[5];
+        new GxlFileReader("flat.gxl", new StringReader(gxl)).startParsing(
+                (graphName, nodeNames, nodeWeights, arcs, arcWeights) -> {
+                    graph[0] = graphName;
+                    graph[1] = nodeNames;
+                    graph[2] = nodeWeights;
+                    graph[3] = arcs;
+                    graph[4] = arcWeights;
+                });
+        assertEquals("flat", graph[0]);
+        assertArrayEquals(new String[]{"a", "b"}, (String[]) graph[1]);
+        assertArrayEquals(new int[]{2, 3}, (int[]) graph[2]);
+        assertTrue(((boolean[][]) graph[3])[0][1]);
+        assertEquals(7, ((int[][]) graph[4])[0][1]);
+    }
+}
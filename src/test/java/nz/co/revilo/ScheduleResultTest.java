@@ -0,0 +1,195 @@
+package nz.co.revilo;
+
+import nz.co.revilo.Input.DotFileReader;
+import nz.co.revilo.Input.FileParser;
+import nz.co.revilo.Input.ParsedGraph;
+import nz.co.revilo.Input.SparseGraph;
+import nz.co.revilo.Output.DotFileProducer;
+import nz.co.revilo.Output.BinaryScheduleWriter;
+import nz.co.revilo.Output.CsvScheduleWriter;
+import nz.co.revilo.Output.DotFileWriter;
+import nz.co.revilo.Output.JsonLinesScheduleWriter;
+import nz.co.revilo.Output.ProgressiveOutput;
+import nz.co.revilo.Output.ScheduleResult;
+import nz.co.revilo.Output.ScheduleResultListener;
+import nz.co.revilo.Scheduling.AlgorithmManager;
+import nz.co.revilo.Scheduling.BranchAndBoundAlgorithmManager;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the schedule given to ScheduleResultListeners and its list form
+ */
+public class ScheduleResultTest {
+
+    private static final SparseGraph GRAPH = new SparseGraph("g", new String[]{"a", "b", "c"}, new int[]{2, 3, 4},
+            new int[]{0, 0, 1}, new int[]{1, 2, 2}, new int[]{5, 6, 7}, 3);
+
+    @Rule
+    public TemporaryFolder temporary = new TemporaryFolder();
+
+    /**
+     * Tests the schedule is read from arrays and its makespan is where the last node finishes
+     */
+    @Test
+    public void testArrayView() {
+        int[] startTimes = {0, 2, 5};
+        ScheduleResult schedule = new ScheduleResult(GRAPH, startTimes, new int[]{0, 0, 1});
+        startTimes[2] = 100;
+
+        assertEquals(3, schedule.getNodeCount());
+        assertEquals("c", schedule.getNodeName(2));
+        assertEquals(5, schedule.getStartTime(2));
+        assertEquals(1, schedule.getProcessor(2));
+        assertEquals(9, schedule.getMakespan());
+    }
+
+    /**
+     * Tests a listener is given the same schedule as lists from the list views, and a schedule given as lists turns
+     * back into the same ScheduleResult
+     */
+    @Test
+    public void testListAdapters() {
+        ScheduleResult schedule = new ScheduleResult(GRAPH, new int[]{0, 2, 5}, new int[]{0, 0, 1});
+        Object[] lists = new Object[7];
+        ScheduleResultListener listener = result -> {
+            lists[0] = result.getGraphName();
+            lists[1] = result.nodeNameList();
+            lists[2] = result.arcList();
+            lists[3] = result.arcWeightList();
+            lists[4] = result.nodeWeightList();
+            lists[5] = result.startTimeList();
+            lists[6] = result.processorList();
+        };
+        listener.finalSchedule(schedule);
+
+        assertEquals("g", lists[0]);
+        assertEquals(Arrays.asList("a", "b", "c"), lists[1]);
+        List<List<Boolean>> arcs = (List<List<Boolean>>) lists[2];
+        assertTrue(arcs.get(0).get(1) && arcs.get(0).get(2) && arcs.get(1).get(2));
+        assertFalse(arcs.get(1).get(0) || arcs.get(2).get(2));
+        assertEquals(Arrays.asList(-1, 5, 6), ((List<List<Integer>>) lists[3]).get(0));
+        assertEquals(Arrays.asList(2, 3, 4), lists[4]);
+        assertEquals(Arrays.asList(0, 2, 5), lists[5]);
+        assertEquals(Arrays.asList(0, 0, 1), lists[6]);
+
+        ScheduleResult received = ScheduleResult.fromLists("g", schedule.nodeNameList(), arcs,
+                (List<List<Integer>>) lists[3], schedule.nodeWeightList(), schedule.startTimeList(),
+                schedule.processorList());
+        assertEquals(schedule.getMakespan(), received.getMakespan());
+        assertEquals(schedule.getGraph().getArcCount(), received.getGraph().getArcCount());
+        assertEquals(7, received.getGraph().getArcWeight(1, 2));
+    }
+
+    /**
+     * Tests a written schedule, compressed or not, reads back as the graph it schedules, and a Writer destination is
+     * given the same text as the file
+     */
+    @Test
+    public void testWrittenScheduleReadsBack() throws IOException {
+        ScheduleResult schedule = new ScheduleResult(GRAPH, new int[]{0, 2, 5}, new int[]{0, 0, 1});
+        StringWriter text = new StringWriter();
+        new DotFileWriter(text).finalSchedule(schedule);
+        for (String extension : new String[]{".dot", ".dot" + FileParser.COMPRESSED_EXTENSION}) {
+            File output = File.createTempFile("revilo", extension);
+            output.deleteOnExit();
+            new DotFileWriter(output.getPath()).finalSchedule(schedule);
+
+            SparseGraph read = ParsedGraph.parse(output.getPath()).getGraph();
+            assertEquals(Arrays.asList("a", "b", "c"), Arrays.asList(read.getNodeNames()));
+            assertEquals(GRAPH.getArcCount(), read.getArcCount());
+            assertEquals(7, read.getArcWeight(1, 2));
+            assertEquals(text.toString(), new String(FileParser.readAllBytes(output.getPath()), StandardCharsets.UTF_8));
+        }
+        assertTrue(text.toString().contains("c\t\t[Weight=4,Start=5,Processor=2];"));
+    }
+
+    /**
+     * Tests an output file being replaced as the search improves ends up holding the optimal schedule, with the
+     * temporary file it was written to renamed away
+     */
+    @Test
+    public void testProgressiveOutputReplacesFile() throws IOException {
+        File output = File.createTempFile("revilo-progressive", ".dot");
+        output.deleteOnExit();
+        AlgorithmManager manager = new BranchAndBoundAlgorithmManager(2);
+        new ProgressiveOutput(manager, new DotFileWriter(output.getPath()));
+        new DotFileReader(AppTest.TEST_PATH + "Nodes_10_Random.dot").startParsing(manager);
+
+        assertFalse(new File(output.getPath() + DotFileProducer.TEMPORARY_EXTENSION).exists());
+        String written = new String(FileParser.readAllBytes(output.getPath()), StandardCharsets.UTF_8);
+        int makespan = 0;
+        Matcher node = Pattern.compile("Weight=(\\d+),Start=(\\d+)").matcher(written);
+        while (node.find()) {
+            makespan = Math.max(makespan, Integer.parseInt(node.group(1)) + Integer.parseInt(node.group(2)));
+        }
+        assertEquals(50, makespan);
+    }
+
+    /**
+     * Tests a final schedule which can't be saved is thrown to the caller rather than exiting
+     */
+    @Test(expected = UncheckedIOException.class)
+    public void testProgressiveOutputUnsavedThrown() throws IOException {
+        File directory = new File(temporary.getRoot(), "missing");
+        AlgorithmManager manager = new BranchAndBoundAlgorithmManager(2);
+        new ProgressiveOutput(manager, new DotFileWriter(new File(directory, "output.dot").getPath()));
+        new DotFileReader(AppTest.TEST_PATH + "Nodes_10_Random.dot").startParsing(manager);
+    }
+
+    /**
+     * Tests the JSON Lines, CSV and binary formats give each task's start, processor from 1 and finish, with names
+     * escaped as each format needs
+     */
+    @Test
+    public void testOtherFormats() throws IOException {
+        SparseGraph graph = new SparseGraph("g", new String[]{"a", "b,\"c\"", "d"}, new int[]{2, 3, 4},
+                new int[]{0}, new int[]{1}, new int[]{5}, 1);
+        ScheduleResult schedule = new ScheduleResult(graph, new int[]{0, 7, 0}, new int[]{0, 1, 1});
+
+        StringWriter jsonLines = new StringWriter();
+        new JsonLinesScheduleWriter(jsonLines).finalSchedule(schedule);
+        assertEquals("{\"name\":\"a\",\"start\":0,\"processor\":1,\"finish\":2}\n"
+                + "{\"name\":\"b,\\\"c\\\"\",\"start\":7,\"processor\":2,\"finish\":10}\n"
+                + "{\"name\":\"d\",\"start\":0,\"processor\":2,\"finish\":4}\n", jsonLines.toString());
+
+        StringWriter csv = new StringWriter();
+        new CsvScheduleWriter(csv).finalSchedule(schedule);
+        assertEquals(CsvScheduleWriter.HEADER + "\na,0,1,2\n\"b,\"\"c\"\"\",7,2,10\nd,0,2,4\n", csv.toString());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new BinaryScheduleWriter(bytes).finalSchedule(schedule);
+        ByteBuffer binary = ByteBuffer.wrap(bytes.toByteArray());
+        assertEquals(BinaryScheduleWriter.MAGIC, binary.getInt());
+        assertEquals(BinaryScheduleWriter.VERSION, binary.getShort());
+        binary.getShort();
+        assertEquals(3, binary.getInt());
+        assertEquals(10, binary.getInt());
+        binary.position(BinaryScheduleWriter.HEADER_BYTES + BinaryScheduleWriter.RECORD_BYTES);
+        assertEquals(7, binary.getInt());
+        assertEquals(2, binary.getInt());
+        assertEquals(10, binary.getInt());
+        binary.position(BinaryScheduleWriter.HEADER_BYTES + BinaryScheduleWriter.RECORD_BYTES * 3);
+        assertEquals(1, binary.getInt());
+        assertEquals('g', binary.get());
+        assertEquals(1, binary.getInt());
+        assertEquals('a', binary.get());
+    }
+}
@@ -0,0 +1,61 @@
+package nz.co.revilo;
+
+import nz.co.revilo.Input.SparseGraph;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the compressed sparse row graph given to the algorithm managers
+ */
+public class SparseGraphTest {
+
+    private static final String[] NAMES = {"a", "b", "c"};
+    private static final int[] WEIGHTS = {1, 2, 3};
+
+    /**
+     * Tests arcs read out of order come out sorted both ways, and a repeated arc keeps its last weight
+     */
+    @Test
+    public void testArcsSortedAndLastDuplicateWins() {
+        SparseGraph graph = new SparseGraph("g", NAMES, WEIGHTS,
+                new int[]{0, 2, 0, 0, 1}, new int[]{2, 1, 1, 2, 2}, new int[]{5, 6, 7, 8, 9}, 5);
+
+        assertEquals(3, graph.getNodeCount());
+        assertEquals(4, graph.getArcCount());
+        assertEquals(2, graph.outEnd(0) - graph.outStart(0));
+        assertEquals(1, graph.outTarget(graph.outStart(0)));
+        assertEquals(2, graph.outTarget(graph.outStart(0) + 1));
+        assertEquals(8, graph.getArcWeight(0, 2));
+        assertEquals(0, graph.inSource(graph.inStart(2)));
+        assertEquals(1, graph.inSource(graph.inStart(2) + 1));
+        assertEquals(8, graph.inWeight(graph.inStart(2)));
+        assertTrue(graph.hasArc(2, 1));
+        assertFalse(graph.hasArc(1, 0));
+        assertEquals(-1, graph.getArcWeight(1, 0));
+    }
+
+    /**
+     * Tests the adjacency matrix form is kept through a round trip, and nodes are found by name
+     */
+    @Test
+    public void testDenseRoundTrip() {
+        boolean[][] arcs = {{false, true, true}, {false, false, true}, {false, false, false}};
+        int[][] arcWeights = {{-1, 4, 5}, {-1, -1, 6}, {-1, -1, -1}};
+        SparseGraph graph = SparseGraph.fromDense("g", NAMES, WEIGHTS, arcs, arcWeights);
+
+        boolean[][] denseArcs = graph.toDenseArcs();
+        int[][] denseArcWeights = graph.toDenseArcWeights();
+        for (int from = 0; from < arcs.length; from++) {
+            assertTrue(Arrays.equals(arcs[from], denseArcs[from]));
+            assertArrayEquals(arcWeights[from], denseArcWeights[from]);
+        }
+        assertEquals(2, graph.indexOf("c"));
+        assertEquals(-1, graph.indexOf("d"));
+    }
+}
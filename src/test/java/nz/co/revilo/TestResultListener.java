@@ -1,5 +1,6 @@
 package nz.co.revilo;
 
+import nz.co.revilo.Output.ScheduleResult;
 import nz.co.revilo.Output.ScheduleResultListener;
 import java.util.ArrayList;
 import java.util.List;
@@ -92,17 +93,11 @@ public class TestResultListener implements ScheduleResultListener {
     private int _nCores;
 
     @Override
-    public void finalSchedule(String graphName,
-                              List<String> nodeNames,
-                              List<List<Boolean>> arcs,
-                              List<List<Integer>> arcWeights,
-                              List<Integer> nodeWeights,
-                              List<Integer> nodeStarts,
-                              List<Integer> nodeCore) {
-        _nodeNames = nodeNames;
-        _arcs = arcs;
-        _arcWeights = arcWeights;
-        processNodes(nodeNames, nodeStarts, nodeWeights, nodeCore);
+    public void finalSchedule(ScheduleResult schedule) {
+        _nodeNames = schedule.nodeNameList();
+        _arcs = schedule.arcList();
+        _arcWeights = schedule.arcWeightList();
+        processNodes(_nodeNames, schedule.startTimeList(), schedule.nodeWeightList(), schedule.processorList());
     }
     
     private void processNodes(List<String> nodeNames, List <Integer> nodeStarts, List<Integer> nodeWeights